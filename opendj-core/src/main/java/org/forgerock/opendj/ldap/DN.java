@@ -68,6 +68,15 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
      */
     private static final int DN_CACHE_SIZE = 32;
 
+    /**
+     * The system property which may be used for enabling the shared DN cache,
+     * its value is the maximum number of DNs to cache.
+     */
+    private static final String SHARED_CACHE_SIZE_PROPERTY = "org.forgerock.opendj.ldap.dnCacheSize";
+
+    /** The optional DN cache shared by all threads, see {@link #setSharedCache(DNCache)}. */
+    private static volatile DNCache sharedCache = newDefaultSharedCache();
+
     private static final ThreadLocal<Map<String, DN>> CACHE = new ThreadLocal<Map<String, DN>>() {
         @SuppressWarnings("serial")
         @Override
@@ -198,6 +207,36 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
         return ROOT_DN;
     }
 
+    /**
+     * Returns the DN cache shared by all threads which is used by
+     * {@link #valueOf(String, Schema)}, or {@code null} if DNs are only cached
+     * per thread.
+     *
+     * @return The shared DN cache, or {@code null} if there is none.
+     */
+    public static DNCache getSharedCache() {
+        return sharedCache;
+    }
+
+    /**
+     * Sets the DN cache shared by all threads which will be used by
+     * {@link #valueOf(String, Schema)}. By default there is no shared cache
+     * unless the {@code org.forgerock.opendj.ldap.dnCacheSize} system property
+     * is set, and only the parent DNs are cached per thread.
+     *
+     * @param cache
+     *            The shared DN cache, or {@code null} if DNs should only be
+     *            cached per thread.
+     */
+    public static void setSharedCache(final DNCache cache) {
+        sharedCache = cache;
+    }
+
+    private static DNCache newDefaultSharedCache() {
+        final int size = CommonLDAPOptions.getIntProperty(SHARED_CACHE_SIZE_PROPERTY, 0);
+        return size > 0 ? new DNCache(size) : null;
+    }
+
     /**
      * Parses the provided LDAP string representation of a DN using the default schema.
      *
@@ -234,6 +273,15 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
             return ROOT_DN;
         }
 
+        final DNCache cache = sharedCache;
+        if (cache != null) {
+            return cache.valueOf(dn, schema);
+        }
+        return decode(dn, schema);
+    }
+
+    /** Decodes a non-empty DN string using the provided schema and the per-thread cache. */
+    static DN decode(final String dn, final Schema schema) {
         // First check if DN is already cached.
         final Map<String, DN> cache = CACHE.get();
         final DN cachedDN = cache.get(dn);
@@ -275,6 +323,7 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
                     ERR_DN_TYPE_NOT_FOUND.get(reader.getString(), e.getMessageObject()));
         }
 
+        final DNCache sharedCache = DN.sharedCache;
         LinkedList<Pair<Integer, RDN>> parentRDNs = null;
         DN parent = null;
         while (reader.remaining() > 0 && reader.read() == ',') {
@@ -285,6 +334,9 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
             reader.mark();
             final String parentString = reader.read(reader.remaining());
             parent = cache.get(parentString);
+            if (parent == null && sharedCache != null) {
+                parent = sharedCache.getIfPresent(parentString, schema);
+            }
             if (parent != null) {
                 break;
             }
@@ -0,0 +1,280 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.forgerock.opendj.ldap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.opendj.ldap.schema.Schema;
+import org.forgerock.util.Reject;
+
+/**
+ * A size-bounded cache of parsed DNs which may be shared by all the threads of
+ * an application. DNs are cached using their string representation and the
+ * schema used for parsing them, so that frequently parsed DNs, such as group
+ * members or access control targets, are parsed only once. Since cached DNs
+ * are shared, their normalized representation returned by
+ * {@link DN#toNormalizedByteString()} is also computed only once.
+ * <p>
+ * The cache is divided into lock-striped segments, each segment evicting its
+ * least recently used DNs when it is full. The maximum size of the cache is
+ * shared between the segments, so that the cache never contains more DNs
+ * than its maximum size. The cache records the number of
+ * hits and misses in order to help sizing it.
+ * <p>
+ * A cache is used by {@link DN#valueOf(String, Schema)} once it has been
+ * registered using {@link DN#setSharedCache(DNCache)}. The default shared
+ * cache can also be enabled by setting the
+ * {@code org.forgerock.opendj.ldap.dnCacheSize} system property to the
+ * maximum number of DNs to cache.
+ */
+public final class DNCache {
+    /** The maximum number of segments, must be a power of two. */
+    private static final int MAX_SEGMENTS = 16;
+
+    /** A cache key combining the string representation of a DN with the schema used for parsing it. */
+    private static final class Key {
+        private final String dn;
+        private final Schema schema;
+
+        private Key(final String dn, final Schema schema) {
+            this.dn = dn;
+            this.schema = schema;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (obj instanceof Key) {
+                final Key other = (Key) obj;
+                return schema == other.schema && dn.equals(other.dn);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return dn.hashCode() * 31 + System.identityHashCode(schema);
+        }
+    }
+
+    /** A segment of the cache, guarded by its own lock. */
+    @SuppressWarnings("serial")
+    private static final class Segment extends LinkedHashMap<Key, DN> {
+        private final int maxSize;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        private Segment(final int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, DN> eldest) {
+            if (size() > maxSize) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /** The segments, whose number is a power of two and whose maximum sizes add up to the maximum size. */
+    private final Segment[] segments;
+    private final int maxSize;
+
+    /**
+     * Creates a new DN cache which will contain at most the provided number
+     * of DNs.
+     *
+     * @param maxSize
+     *            The maximum number of DNs to cache.
+     * @throws IllegalArgumentException
+     *             If {@code maxSize} is not strictly positive.
+     */
+    public DNCache(final int maxSize) {
+        Reject.ifFalse(maxSize > 0, "maxSize must be strictly positive");
+        this.maxSize = maxSize;
+        // Small caches have fewer segments, so that each segment may contain at least one DN.
+        this.segments = new Segment[Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize))];
+        final int segmentSize = maxSize / segments.length;
+        final int remainder = maxSize % segments.length;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(i < remainder ? segmentSize + 1 : segmentSize);
+        }
+    }
+
+    /**
+     * Returns the cached DN having the provided string representation and
+     * parsed using the provided schema, parsing and caching it first if
+     * needed.
+     *
+     * @param dn
+     *            The LDAP string representation of a DN.
+     * @param schema
+     *            The schema to use when parsing the DN.
+     * @return The parsed DN.
+     * @throws LocalizedIllegalArgumentException
+     *             If {@code dn} is not a valid LDAP string representation of a DN.
+     * @throws NullPointerException
+     *             If {@code dn} or {@code schema} was {@code null}.
+     */
+    public DN valueOf(final String dn, final Schema schema) {
+        Reject.ifNull(dn, schema);
+        final Key key = new Key(dn, schema);
+        final Segment segment = segmentFor(key);
+        synchronized (segment) {
+            final DN cachedDN = segment.get(key);
+            if (cachedDN != null) {
+                segment.hits++;
+                return cachedDN;
+            }
+            segment.misses++;
+        }
+
+        // Parse outside of the lock: concurrent misses on the same DN are harmless.
+        final DN parsedDN = DN.decode(dn, schema);
+        synchronized (segment) {
+            segment.put(key, parsedDN);
+        }
+        return parsedDN;
+    }
+
+    /**
+     * Returns the cached DN having the provided string representation and
+     * parsed using the provided schema, or {@code null} if it is not cached.
+     * This method does not update the cache statistics.
+     */
+    DN getIfPresent(final String dn, final Schema schema) {
+        final Key key = new Key(dn, schema);
+        final Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /** Removes all the DNs from this cache and resets its statistics. */
+    public void clear() {
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.hits = 0;
+                segment.misses = 0;
+                segment.evictions = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum number of DNs which this cache may contain.
+     *
+     * @return The maximum number of DNs which this cache may contain.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of DNs currently contained in this cache.
+     *
+     * @return The number of DNs currently contained in this cache.
+     */
+    public int size() {
+        int size = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of DNs which were found in this cache.
+     *
+     * @return The number of DNs which were found in this cache.
+     */
+    public long getHitCount() {
+        long hits = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                hits += segment.hits;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Returns the number of DNs which were not found in this cache and had to
+     * be parsed.
+     *
+     * @return The number of DNs which were not found in this cache.
+     */
+    public long getMissCount() {
+        long misses = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                misses += segment.misses;
+            }
+        }
+        return misses;
+    }
+
+    /**
+     * Returns the number of DNs which were evicted from this cache in order to
+     * make room for other DNs.
+     *
+     * @return The number of DNs which were evicted from this cache.
+     */
+    public long getEvictionCount() {
+        long evictions = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                evictions += segment.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    /**
+     * Returns the ratio of DN look-ups which were found in this cache, between
+     * {@code 0} and {@code 1}.
+     *
+     * @return The ratio of DN look-ups which were found in this cache.
+     */
+    public double getHitRate() {
+        final long hits = getHitCount();
+        final long total = hits + getMissCount();
+        return total != 0 ? (double) hits / total : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "DNCache(size=" + size() + ", maxSize=" + maxSize + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + ")";
+    }
+
+    private Segment segmentFor(final Key key) {
+        int h = key.hashCode();
+        // Spread the bits so that similar DNs are not all assigned to the same segment.
+        h ^= (h >>> 16);
+        return segments[h & (segments.length - 1)];
+    }
+}
@@ -17,6 +17,7 @@
 package org.forgerock.opendj.ldap;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -25,6 +26,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.opendj.ldap.schema.MatchingRule;
 import org.forgerock.util.Reject;
 
 /**
@@ -44,13 +46,18 @@ public final class LinkedAttribute extends AbstractAttribute {
     private static abstract class Impl {
         abstract boolean add(LinkedAttribute attribute, ByteString value);
 
+        /** Adds a value whose normalized form has already been computed. */
+        abstract boolean addNormalized(LinkedAttribute attribute, ByteString normalizedValue, ByteString value);
+
         abstract void clear(LinkedAttribute attribute);
 
         abstract boolean contains(LinkedAttribute attribute, ByteString value);
 
         boolean containsAll(final LinkedAttribute attribute, final Collection<?> values) {
-            // TODO: could optimize if objects is a LinkedAttribute having the
-            // same equality matching rule.
+            final LinkedAttribute other = attribute.withSameEqualityMatchingRule(values);
+            if (other != null) {
+                return normalizedValues(attribute).keySet().containsAll(other.normalizedValues().keySet());
+            }
             for (final Object value : values) {
                 if (!contains(attribute, ByteString.valueOfObject(value))) {
                     return false;
@@ -65,16 +72,27 @@ public final class LinkedAttribute extends AbstractAttribute {
 
         abstract boolean remove(LinkedAttribute attribute, ByteString value);
 
+        /** Removes a value whose normalized form has already been computed. */
+        abstract boolean removeNormalized(LinkedAttribute attribute, ByteString normalizedValue);
+
         abstract <T> boolean retainAll(LinkedAttribute attribute, Collection<T> values,
                 Collection<? super T> missingValues);
 
         abstract int size(LinkedAttribute attribute);
+
+        /** Returns the map of normalized values to raw values. */
+        abstract Map<ByteString, ByteString> normalizedValues(LinkedAttribute attribute);
     }
 
     private static final class MultiValueImpl extends Impl {
         @Override
         boolean add(final LinkedAttribute attribute, final ByteString value) {
-            final ByteString normalizedValue = normalizeValue(attribute, value);
+            return addNormalized(attribute, normalizeValue(attribute, value), value);
+        }
+
+        @Override
+        boolean addNormalized(final LinkedAttribute attribute, final ByteString normalizedValue,
+                final ByteString value) {
             return attribute.multipleValues.put(normalizedValue, value) == null;
         }
 
@@ -139,7 +157,11 @@ public final class LinkedAttribute extends AbstractAttribute {
 
         @Override
         boolean remove(final LinkedAttribute attribute, final ByteString value) {
-            final ByteString normalizedValue = normalizeValue(attribute, value);
+            return removeNormalized(attribute, normalizeValue(attribute, value));
+        }
+
+        @Override
+        boolean removeNormalized(final LinkedAttribute attribute, final ByteString normalizedValue) {
             if (attribute.multipleValues.remove(normalizedValue) != null) {
                 resize(attribute);
                 return true;
@@ -151,17 +173,12 @@ public final class LinkedAttribute extends AbstractAttribute {
         @Override
         <T> boolean retainAll(final LinkedAttribute attribute, final Collection<T> values,
                 final Collection<? super T> missingValues) {
-            // TODO: could optimize if objects is a LinkedAttribute having the
-            // same equality matching rule.
             if (values.isEmpty()) {
                 clear(attribute);
                 return true;
             }
 
-            final Map<ByteString, T> valuesToRetain = new HashMap<>(values.size());
-            for (final T value : values) {
-                valuesToRetain.put(normalizeValue(attribute, ByteString.valueOfObject(value)), value);
-            }
+            final Map<ByteString, T> valuesToRetain = normalizeValues(attribute, values);
 
             boolean modified = false;
             final Iterator<ByteString> iterator = attribute.multipleValues.keySet().iterator();
@@ -187,6 +204,11 @@ public final class LinkedAttribute extends AbstractAttribute {
             return attribute.multipleValues.size();
         }
 
+        @Override
+        Map<ByteString, ByteString> normalizedValues(final LinkedAttribute attribute) {
+            return attribute.multipleValues;
+        }
+
         private void resize(final LinkedAttribute attribute) {
             // May need to resize if initial size estimate was wrong (e.g. all
             // values in added collection were the same).
@@ -213,7 +235,12 @@ public final class LinkedAttribute extends AbstractAttribute {
     private static final class SingleValueImpl extends Impl {
         @Override
         boolean add(final LinkedAttribute attribute, final ByteString value) {
-            final ByteString normalizedValue = normalizeValue(attribute, value);
+            return addNormalized(attribute, normalizeValue(attribute, value), value);
+        }
+
+        @Override
+        boolean addNormalized(final LinkedAttribute attribute, final ByteString normalizedValue,
+                final ByteString value) {
             if (attribute.normalizedSingleValue().equals(normalizedValue)) {
                 return false;
             }
@@ -290,7 +317,12 @@ public final class LinkedAttribute extends AbstractAttribute {
 
         @Override
         boolean remove(final LinkedAttribute attribute, final ByteString value) {
-            if (contains(attribute, value)) {
+            return removeNormalized(attribute, normalizeValue(attribute, value));
+        }
+
+        @Override
+        boolean removeNormalized(final LinkedAttribute attribute, final ByteString normalizedValue) {
+            if (attribute.normalizedSingleValue().equals(normalizedValue)) {
                 clear(attribute);
                 return true;
             } else {
@@ -301,14 +333,26 @@ public final class LinkedAttribute extends AbstractAttribute {
         @Override
         <T> boolean retainAll(final LinkedAttribute attribute, final Collection<T> values,
                 final Collection<? super T> missingValues) {
-            // TODO: could optimize if objects is a LinkedAttribute having the
-            // same equality matching rule.
             if (values.isEmpty()) {
                 clear(attribute);
                 return true;
             }
 
             final ByteString normalizedSingleValue = attribute.normalizedSingleValue();
+            if (attribute.withSameEqualityMatchingRule(values) != null) {
+                // The values are already normalized and unique.
+                final Map<ByteString, T> valuesToRetain = normalizeValues(attribute, values);
+                final boolean retained = valuesToRetain.remove(normalizedSingleValue) != null;
+                if (missingValues != null) {
+                    missingValues.addAll(valuesToRetain.values());
+                }
+                if (!retained) {
+                    clear(attribute);
+                    return true;
+                }
+                return false;
+            }
+
             boolean retained = false;
             for (final T value : values) {
                 final ByteString normalizedValue =
@@ -336,12 +380,25 @@ public final class LinkedAttribute extends AbstractAttribute {
         int size(final LinkedAttribute attribute) {
             return 1;
         }
+
+        @Override
+        Map<ByteString, ByteString> normalizedValues(final LinkedAttribute attribute) {
+            return Collections.singletonMap(attribute.normalizedSingleValue(), attribute.singleValue);
+        }
     }
 
     private static final class ZeroValueImpl extends Impl {
         @Override
         boolean add(final LinkedAttribute attribute, final ByteString value) {
+            // Lazily normalize the value since it may never be needed.
+            return addNormalized(attribute, null, value);
+        }
+
+        @Override
+        boolean addNormalized(final LinkedAttribute attribute, final ByteString normalizedValue,
+                final ByteString value) {
             attribute.singleValue = value;
+            attribute.normalizedSingleValue = normalizedValue;
             attribute.pimpl = SINGLE_VALUE_IMPL;
             return true;
         }
@@ -400,6 +457,11 @@ public final class LinkedAttribute extends AbstractAttribute {
             return false;
         }
 
+        @Override
+        boolean removeNormalized(final LinkedAttribute attribute, final ByteString normalizedValue) {
+            return false;
+        }
+
         @Override
         <T> boolean retainAll(final LinkedAttribute attribute, final Collection<T> values,
                 final Collection<? super T> missingValues) {
@@ -413,6 +475,11 @@ public final class LinkedAttribute extends AbstractAttribute {
         int size(final LinkedAttribute attribute) {
             return 0;
         }
+
+        @Override
+        Map<ByteString, ByteString> normalizedValues(final LinkedAttribute attribute) {
+            return Collections.emptyMap();
+        }
     }
 
     /** An attribute factory which can be used to create new linked attributes. */
@@ -624,12 +691,53 @@ public final class LinkedAttribute extends AbstractAttribute {
         add(values);
     }
 
+    /**
+     * Returns a map of normalized values to values for the provided values.
+     * The normalized values of the provided values are reused when they are the values of a linked attribute using the same
+     * equality matching rule as the provided attribute.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Map<ByteString, T> normalizeValues(final LinkedAttribute attribute,
+            final Collection<T> values) {
+        final LinkedAttribute other = attribute.withSameEqualityMatchingRule(values);
+        if (other != null) {
+            // T is ByteString since the values are the values of an attribute.
+            return new HashMap<>((Map<ByteString, T>) (Map<ByteString, ?>) other.normalizedValues());
+        }
+        final Map<ByteString, T> normalizedValues = new HashMap<>(values.size());
+        for (final T value : values) {
+            normalizedValues.put(normalizeValue(attribute, ByteString.valueOfObject(value)), value);
+        }
+        return normalizedValues;
+    }
+
     @Override
     public boolean add(final ByteString value) {
         Reject.ifNull(value);
         return pimpl.add(this, value);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> boolean addAll(final Collection<T> values, final Collection<? super T> duplicateValues) {
+        final LinkedAttribute other = withSameEqualityMatchingRule(values);
+        if (other == null) {
+            return super.addAll(values, duplicateValues);
+        }
+
+        // Reuse the normalized values of the other attribute.
+        boolean modified = false;
+        for (final Map.Entry<ByteString, ByteString> value : other.normalizedValues().entrySet()) {
+            if (pimpl.addNormalized(this, value.getKey(), value.getValue())) {
+                modified = true;
+            } else if (duplicateValues != null) {
+                // T is ByteString since the values are the values of an attribute.
+                duplicateValues.add((T) value.getValue());
+            }
+        }
+        return modified;
+    }
+
     @Override
     public void clear() {
         pimpl.clear(this);
@@ -662,12 +770,43 @@ public final class LinkedAttribute extends AbstractAttribute {
         return pimpl.iterator(this);
     }
 
+    @Override
+    public int hashCode() {
+        // Same as AbstractAttribute.hashCode(), without normalizing the values again.
+        int hashCode = getAttributeDescription().hashCode();
+        for (final ByteString normalizedValue : normalizedValues().keySet()) {
+            hashCode += normalizedValue.hashCode();
+        }
+        return hashCode;
+    }
+
     @Override
     public boolean remove(final Object value) {
         Reject.ifNull(value);
         return pimpl.remove(this, ByteString.valueOfObject(value));
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> boolean removeAll(final Collection<T> values, final Collection<? super T> missingValues) {
+        final LinkedAttribute other = withSameEqualityMatchingRule(values);
+        if (other == null) {
+            return super.removeAll(values, missingValues);
+        }
+
+        // Reuse the normalized values of the other attribute.
+        boolean modified = false;
+        for (final Map.Entry<ByteString, ByteString> value : other.normalizedValues().entrySet()) {
+            if (pimpl.removeNormalized(this, value.getKey())) {
+                modified = true;
+            } else if (missingValues != null) {
+                // T is ByteString since the values are the values of an attribute.
+                missingValues.add((T) value.getValue());
+            }
+        }
+        return modified;
+    }
+
     @Override
     public <T> boolean retainAll(final Collection<T> values,
             final Collection<? super T> missingValues) {
@@ -680,6 +819,29 @@ public final class LinkedAttribute extends AbstractAttribute {
         return pimpl.size(this);
     }
 
+    /** Returns the map of normalized values to values of this attribute. */
+    private Map<ByteString, ByteString> normalizedValues() {
+        return pimpl.normalizedValues(this);
+    }
+
+    /**
+     * Returns the provided values if they are the values of another linked
+     * attribute whose equality matching rule is the same as this attribute,
+     * so that their normalized values can be reused, or {@code null} otherwise.
+     */
+    private LinkedAttribute withSameEqualityMatchingRule(final Collection<?> values) {
+        if (values instanceof LinkedAttribute && values != this) {
+            final LinkedAttribute other = (LinkedAttribute) values;
+            final MatchingRule rule = attributeDescription.getAttributeType().getEqualityMatchingRule();
+            final MatchingRule otherRule =
+                    other.attributeDescription.getAttributeType().getEqualityMatchingRule();
+            if (rule.equals(otherRule)) {
+                return other;
+            }
+        }
+        return null;
+    }
+
     /** Lazily computes the normalized single value. */
     private ByteString normalizedSingleValue() {
         if (normalizedSingleValue == null) {
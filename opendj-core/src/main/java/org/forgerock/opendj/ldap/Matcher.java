@@ -17,6 +17,8 @@
 package org.forgerock.opendj.ldap;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -29,13 +31,58 @@ import org.forgerock.opendj.ldap.schema.UnknownSchemaElementException;
 
 import com.forgerock.opendj.util.StaticUtils;
 
-/** An interface for determining whether entries match a {@code Filter}. */
+/**
+ * An interface for determining whether entries match a {@code Filter}.
+ * <p>
+ * Filters are compiled once when the matcher is created: attribute
+ * descriptions and matching rules are resolved against the schema, assertion
+ * values are normalized, nested AND and OR components are flattened, absolute
+ * true and false components are folded away, and the components of AND and OR
+ * filters are re-ordered so that the cheapest and most selective ones are
+ * evaluated first. Re-ordering never changes the result of a match since the
+ * three-valued AND and OR operators are commutative.
+ */
 public final class Matcher {
+    /**
+     * Relative cost of evaluating a presence assertion: a single attribute
+     * look-up.
+     */
+    private static final int COST_PRESENT = 1;
+    /**
+     * Relative cost of evaluating an equality assertion: each value must be
+     * normalized, but equality is usually very selective.
+     */
+    private static final int COST_EQUALITY = 4;
+    /** Relative cost of evaluating an ordering or approximate assertion. */
+    private static final int COST_ORDERING = 6;
+    /** Relative cost of evaluating a substring assertion. */
+    private static final int COST_SUBSTRING = 8;
+    /**
+     * Relative cost of evaluating an extensible match against every attribute
+     * of the entry, or against the entry's DN.
+     */
+    private static final int COST_ALL_ATTRIBUTES = 32;
+
+    /** Orders matchers so that the cheapest and most selective are evaluated first. */
+    private static final Comparator<MatcherImpl> COST_COMPARATOR = new Comparator<MatcherImpl>() {
+        @Override
+        public int compare(final MatcherImpl m1, final MatcherImpl m2) {
+            return Integer.compare(m1.cost(), m2.cost());
+        }
+    };
+
     private static final class AndMatcherImpl extends MatcherImpl {
         private final List<MatcherImpl> subMatchers;
+        private final int cost;
 
         private AndMatcherImpl(final List<MatcherImpl> subMatchers) {
             this.subMatchers = subMatchers;
+            this.cost = sumCosts(subMatchers);
+        }
+
+        @Override
+        int cost() {
+            return cost;
         }
 
         @Override
@@ -67,15 +114,26 @@ public final class Matcher {
         private final boolean dnAttributes;
         private final MatchingRule rule;
         private final MatchingRuleUse ruleUse;
+        private final int cost;
 
         private AssertionMatcherImpl(final AttributeDescription attributeDescription,
                 final MatchingRule rule, final MatchingRuleUse ruleUse, final Assertion assertion,
-                final boolean dnAttributes) {
+                final boolean dnAttributes, final int cost) {
             this.attributeDescription = attributeDescription;
             this.rule = rule;
             this.ruleUse = ruleUse;
             this.assertion = assertion;
             this.dnAttributes = dnAttributes;
+            int c = attributeDescription != null ? cost : COST_ALL_ATTRIBUTES;
+            if (dnAttributes) {
+                c += COST_ALL_ATTRIBUTES;
+            }
+            this.cost = c;
+        }
+
+        @Override
+        int cost() {
+            return cost;
         }
 
         @Override
@@ -163,6 +221,14 @@ public final class Matcher {
     private static abstract class MatcherImpl {
         public abstract ConditionResult matches(Entry entry);
 
+        /**
+         * Returns an estimate of the relative cost of evaluating this matcher
+         * against an entry. Constant matchers have no cost.
+         */
+        int cost() {
+            return 0;
+        }
+
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder();
@@ -180,6 +246,11 @@ public final class Matcher {
             this.subFilter = subFilter;
         }
 
+        @Override
+        int cost() {
+            return subFilter.cost();
+        }
+
         @Override
         public ConditionResult matches(final Entry entry) {
             return ConditionResult.not(subFilter.matches(entry));
@@ -195,9 +266,16 @@ public final class Matcher {
 
     private static final class OrMatcherImpl extends MatcherImpl {
         private final List<MatcherImpl> subMatchers;
+        private final int cost;
 
         private OrMatcherImpl(final List<MatcherImpl> subMatchers) {
             this.subMatchers = subMatchers;
+            this.cost = sumCosts(subMatchers);
+        }
+
+        @Override
+        int cost() {
+            return cost;
         }
 
         @Override
@@ -230,6 +308,11 @@ public final class Matcher {
             this.attribute = attribute;
         }
 
+        @Override
+        int cost() {
+            return COST_PRESENT;
+        }
+
         @Override
         public ConditionResult matches(final Entry entry) {
             return ConditionResult.valueOf(entry.getAttribute(attribute) != null);
@@ -276,9 +359,25 @@ public final class Matcher {
 
             final List<MatcherImpl> subMatchers = new ArrayList<>(subFilters.size());
             for (final Filter f : subFilters) {
-                subMatchers.add(f.accept(this, schema));
+                final MatcherImpl subMatcher = f.accept(this, schema);
+                if (subMatcher == FALSE) {
+                    // The whole filter can never match.
+                    return FALSE;
+                } else if (subMatcher instanceof AndMatcherImpl) {
+                    subMatchers.addAll(((AndMatcherImpl) subMatcher).subMatchers);
+                } else if (subMatcher != TRUE) {
+                    subMatchers.add(subMatcher);
+                }
+            }
+            switch (subMatchers.size()) {
+            case 0:
+                return TRUE;
+            case 1:
+                return subMatchers.get(0);
+            default:
+                Collections.sort(subMatchers, COST_COMPARATOR);
+                return new AndMatcherImpl(subMatchers);
             }
-            return new AndMatcherImpl(subMatchers);
         }
 
         @Override
@@ -310,7 +409,7 @@ public final class Matcher {
                 logger.warn(LocalizableMessage.raw("The assertion value %s is invalid", assertionValue, de));
                 return UNDEFINED;
             }
-            return new AssertionMatcherImpl(ad, rule, null, assertion, false);
+            return new AssertionMatcherImpl(ad, rule, null, assertion, false, COST_ORDERING);
         }
 
         @Override
@@ -342,7 +441,7 @@ public final class Matcher {
                 logger.warn(LocalizableMessage.raw("The assertion value %s is invalid", assertionValue, de));
                 return UNDEFINED;
             }
-            return new AssertionMatcherImpl(ad, rule, null, assertion, false);
+            return new AssertionMatcherImpl(ad, rule, null, assertion, false, COST_EQUALITY);
         }
 
         @Override
@@ -418,7 +517,7 @@ public final class Matcher {
                 logger.warn(LocalizableMessage.raw("The assertion value %s is invalid", assertionValue, de));
                 return UNDEFINED;
             }
-            return new AssertionMatcherImpl(ad, rule, ruleUse, assertion, dnAttributes);
+            return new AssertionMatcherImpl(ad, rule, ruleUse, assertion, dnAttributes, COST_SUBSTRING);
         }
 
         @Override
@@ -451,7 +550,7 @@ public final class Matcher {
                 logger.warn(LocalizableMessage.raw("The assertion value %s is invalid", assertionValue, de));
                 return UNDEFINED;
             }
-            return new AssertionMatcherImpl(ad, rule, null, assertion, false);
+            return new AssertionMatcherImpl(ad, rule, null, assertion, false, COST_ORDERING);
         }
 
         @Override
@@ -483,12 +582,21 @@ public final class Matcher {
                 logger.warn(LocalizableMessage.raw("The assertion value %s is invalid", assertionValue , de));
                 return UNDEFINED;
             }
-            return new AssertionMatcherImpl(ad, rule, null, assertion, false);
+            return new AssertionMatcherImpl(ad, rule, null, assertion, false, COST_ORDERING);
         }
 
         @Override
         public MatcherImpl visitNotFilter(final Schema schema, final Filter subFilter) {
             final MatcherImpl subMatcher = subFilter.accept(this, schema);
+            if (subMatcher == TRUE) {
+                return FALSE;
+            } else if (subMatcher == FALSE) {
+                return TRUE;
+            } else if (subMatcher == UNDEFINED) {
+                return UNDEFINED;
+            } else if (subMatcher instanceof NotMatcherImpl) {
+                return ((NotMatcherImpl) subMatcher).subFilter;
+            }
             return new NotMatcherImpl(subMatcher);
         }
 
@@ -501,9 +609,25 @@ public final class Matcher {
 
             final List<MatcherImpl> subMatchers = new ArrayList<>(subFilters.size());
             for (final Filter f : subFilters) {
-                subMatchers.add(f.accept(this, schema));
+                final MatcherImpl subMatcher = f.accept(this, schema);
+                if (subMatcher == TRUE) {
+                    // The whole filter will always match.
+                    return TRUE;
+                } else if (subMatcher instanceof OrMatcherImpl) {
+                    subMatchers.addAll(((OrMatcherImpl) subMatcher).subMatchers);
+                } else if (subMatcher != FALSE) {
+                    subMatchers.add(subMatcher);
+                }
+            }
+            switch (subMatchers.size()) {
+            case 0:
+                return FALSE;
+            case 1:
+                return subMatchers.get(0);
+            default:
+                Collections.sort(subMatchers, COST_COMPARATOR);
+                return new OrMatcherImpl(subMatchers);
             }
-            return new OrMatcherImpl(subMatchers);
         }
 
         @Override
@@ -551,7 +675,7 @@ public final class Matcher {
                 logger.warn(LocalizableMessage.raw("The substring assertion values contain an invalid value", de));
                 return UNDEFINED;
             }
-            return new AssertionMatcherImpl(ad, rule, null, assertion, false);
+            return new AssertionMatcherImpl(ad, rule, null, assertion, false, COST_SUBSTRING);
         }
 
         @Override
@@ -572,6 +696,14 @@ public final class Matcher {
 
     private static final FilterVisitor<MatcherImpl, Schema> VISITOR = new Visitor();
 
+    private static int sumCosts(final List<MatcherImpl> matchers) {
+        int cost = 0;
+        for (final MatcherImpl m : matchers) {
+            cost += m.cost();
+        }
+        return cost;
+    }
+
     private static ConditionResult matches(final Attribute a, final MatchingRule rule,
             final Assertion assertion) {
         ConditionResult r = ConditionResult.FALSE;
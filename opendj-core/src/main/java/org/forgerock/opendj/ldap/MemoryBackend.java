@@ -27,10 +27,23 @@ import static org.forgerock.opendj.ldap.schema.CoreSchema.getHasSubordinatesAttr
 import static org.forgerock.opendj.ldap.schema.CoreSchema.getNumSubordinatesAttributeType;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
 import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
 import org.forgerock.opendj.ldap.controls.AssertionRequestControl;
@@ -38,6 +51,8 @@ import org.forgerock.opendj.ldap.controls.PostReadRequestControl;
 import org.forgerock.opendj.ldap.controls.PostReadResponseControl;
 import org.forgerock.opendj.ldap.controls.PreReadRequestControl;
 import org.forgerock.opendj.ldap.controls.PreReadResponseControl;
+import org.forgerock.opendj.ldap.controls.ServerSideSortRequestControl;
+import org.forgerock.opendj.ldap.controls.ServerSideSortResponseControl;
 import org.forgerock.opendj.ldap.controls.SimplePagedResultsControl;
 import org.forgerock.opendj.ldap.controls.SubtreeDeleteRequestControl;
 import org.forgerock.opendj.ldap.requests.AddRequest;
@@ -55,7 +70,12 @@ import org.forgerock.opendj.ldap.responses.BindResult;
 import org.forgerock.opendj.ldap.responses.CompareResult;
 import org.forgerock.opendj.ldap.responses.ExtendedResult;
 import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.MatchingRule;
 import org.forgerock.opendj.ldap.schema.Schema;
+import org.forgerock.opendj.ldap.spi.IndexQueryFactory;
+import org.forgerock.opendj.ldap.spi.Indexer;
+import org.forgerock.opendj.ldap.spi.IndexingOptions;
 import org.forgerock.opendj.ldif.EntryReader;
 
 /**
@@ -64,17 +84,21 @@ import org.forgerock.opendj.ldif.EntryReader;
  * <ul>
  * <li>add, bind (simple), compare, delete, modify, and search operations, but
  * not modifyDN nor extended operations
- * <li>assertion, pre-, and post- read controls, subtree delete control, and
- * permissive modify control
- * <li>thread safety - supports concurrent operations
+ * <li>assertion, pre-, and post- read controls, subtree delete control,
+ * permissive modify control, simple paged results control and server-side
+ * sort control
+ * <li>thread safety - supports concurrent operations. Updates to different
+ * entries are performed concurrently, only subtree deletes and bulk loads
+ * block other updates
+ * <li>optional equality and presence indexes, see {@link #addIndex(String)}.
+ * Searches whose filter can be evaluated using the indexes only examine the
+ * candidate entries instead of the entire search scope
  * </ul>
  * It does not support the following:
  * <ul>
- * <li>high performance
  * <li>secure password storage
  * <li>schema checking
  * <li>persistence
- * <li>indexing
  * </ul>
  * This class can be used in conjunction with the factories defined in
  * {@link Connections} to create simple servers as well as mock LDAP
@@ -98,11 +122,381 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
     private static final AttributeDescription HAS_SUBORDINATES = create(getHasSubordinatesAttributeType());
     private static final AttributeDescription NUM_SUBORDINATES = create(getNumSubordinatesAttributeType());
 
+    /** The number of locks used for serializing updates to individual entries. */
+    private static final int ENTRY_LOCK_STRIPES = 64;
+
+    /** The options used for creating the equality indexers. */
+    private static final IndexingOptions INDEXING_OPTIONS = new IndexingOptions() {
+        @Override
+        public int substringKeySize() {
+            return 6;
+        }
+
+        @Override
+        public boolean substringAnchoredKeys() {
+            return false;
+        }
+    };
+
+    /**
+     * A key in an attribute index: the index ID and key produced by an
+     * indexer, followed by the name of the indexed entry. A {@code null} name
+     * is used for the lower and upper bounds of the entries having a key.
+     */
+    private static final class IndexKey implements Comparable<IndexKey> {
+        private final String indexID;
+        private final ByteString key;
+        private final DN dn;
+        private final boolean isUpperBound;
+
+        private IndexKey(final String indexID, final ByteString key, final DN dn, final boolean isUpperBound) {
+            this.indexID = indexID;
+            this.key = key;
+            this.dn = dn;
+            this.isUpperBound = isUpperBound;
+        }
+
+        @Override
+        public int compareTo(final IndexKey o) {
+            int result = indexID.compareTo(o.indexID);
+            if (result == 0) {
+                result = key.compareTo(o.key);
+            }
+            if (result != 0) {
+                return result;
+            } else if (dn == null || o.dn == null) {
+                return bound() - o.bound();
+            }
+            return dn.compareTo(o.dn);
+        }
+
+        private int bound() {
+            if (dn != null) {
+                return 0;
+            }
+            return isUpperBound ? 1 : -1;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof IndexKey && compareTo((IndexKey) obj) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ (dn != null ? dn.hashCode() : 0);
+        }
+    }
+
+    /**
+     * An equality and presence index for a single attribute type. The index
+     * is maintained concurrently with updates to different entries. Updates
+     * to a given entry are serialized by the entry locks so that index keys
+     * for an entry are always consistent with the entry.
+     * <p>
+     * Searches do not take any lock: the keys of an entry are added before
+     * the entry is published, and removed after it has been replaced or
+     * removed, so that the indexes always return at least the entries which
+     * may match. The extra candidates are discarded by the search filter.
+     * <p>
+     * The index is also a factory of index queries for evaluating equality
+     * assertions. Queries return the sorted set of candidate entry names, or
+     * {@code null} if the query cannot be evaluated using this index.
+     */
+    private final class AttributeIndex implements IndexQueryFactory<NavigableSet<DN>> {
+        private final AttributeType attributeType;
+        private final Collection<? extends Indexer> indexers;
+        private final Set<String> indexIDs = new HashSet<>();
+        private final ConcurrentSkipListSet<IndexKey> keys = new ConcurrentSkipListSet<>();
+        private final ConcurrentSkipListSet<DN> presence = new ConcurrentSkipListSet<>();
+
+        private AttributeIndex(final AttributeType attributeType) {
+            this.attributeType = attributeType;
+            final MatchingRule rule = attributeType.getEqualityMatchingRule();
+            if (rule != null) {
+                this.indexers = rule.createIndexers(INDEXING_OPTIONS);
+                for (final Indexer indexer : indexers) {
+                    indexIDs.add(indexer.getIndexID());
+                }
+            } else {
+                this.indexers = Collections.emptyList();
+            }
+        }
+
+        /**
+         * Adds the keys of the new entry which are not keys of the old entry,
+         * before the new entry is published.
+         */
+        private void addKeys(final Entry oldEntry, final Entry newEntry) {
+            final Set<IndexKey> newKeys = keysOf(newEntry);
+            if (newKeys == null) {
+                return;
+            }
+            final Set<IndexKey> oldKeys = keysOf(oldEntry);
+            presence.add(newEntry.getName());
+            for (final IndexKey key : newKeys) {
+                if (oldKeys == null || !oldKeys.contains(key)) {
+                    keys.add(key);
+                }
+            }
+        }
+
+        /**
+         * Removes the keys of the old entry which are not keys of the new
+         * entry, after the old entry has been replaced or removed.
+         */
+        private void removeKeys(final Entry oldEntry, final Entry newEntry) {
+            final Set<IndexKey> oldKeys = keysOf(oldEntry);
+            if (oldKeys == null) {
+                return;
+            }
+            final Set<IndexKey> newKeys = keysOf(newEntry);
+            if (newKeys == null) {
+                presence.remove(oldEntry.getName());
+            }
+            for (final IndexKey key : oldKeys) {
+                if (newKeys == null || !newKeys.contains(key)) {
+                    keys.remove(key);
+                }
+            }
+        }
+
+        private void clear() {
+            keys.clear();
+            presence.clear();
+        }
+
+        /**
+         * Returns the keys of the provided entry, or {@code null} if the entry
+         * is {@code null} or does not contain the indexed attribute.
+         */
+        private Set<IndexKey> keysOf(final Entry entry) {
+            if (entry == null) {
+                return null;
+            }
+            Set<IndexKey> entryKeys = null;
+            final List<ByteString> indexerKeys = new ArrayList<>();
+            for (final Attribute attribute : entry.getAllAttributes()) {
+                if (!attribute.getAttributeDescription().getAttributeType().equals(attributeType)) {
+                    continue;
+                }
+                if (entryKeys == null) {
+                    entryKeys = new HashSet<>();
+                }
+                for (final ByteString value : attribute) {
+                    for (final Indexer indexer : indexers) {
+                        indexerKeys.clear();
+                        try {
+                            indexer.createKeys(schema, value, indexerKeys);
+                        } catch (final DecodeException e) {
+                            // Invalid values never match an equality assertion.
+                            continue;
+                        }
+                        for (final ByteString key : indexerKeys) {
+                            entryKeys.add(new IndexKey(indexer.getIndexID(), key, entry.getName(), false));
+                        }
+                    }
+                }
+            }
+            return entryKeys;
+        }
+
+        @Override
+        public NavigableSet<DN> createExactMatchQuery(final String indexID, final ByteSequence key) {
+            if (!indexIDs.contains(indexID)) {
+                return null;
+            }
+            final ByteString keyBytes = key.toByteString();
+            final NavigableSet<DN> candidates = new TreeSet<>();
+            for (final IndexKey indexKey : keys.subSet(new IndexKey(indexID, keyBytes, null, false),
+                    new IndexKey(indexID, keyBytes, null, true))) {
+                candidates.add(indexKey.dn);
+            }
+            return candidates;
+        }
+
+        @Override
+        public NavigableSet<DN> createMatchAllQuery() {
+            return null;
+        }
+
+        @Override
+        public NavigableSet<DN> createRangeMatchQuery(final String indexID, final ByteSequence lower,
+                final ByteSequence upper, final boolean lowerIncluded, final boolean upperIncluded) {
+            return null;
+        }
+
+        @Override
+        public NavigableSet<DN> createIntersectionQuery(final Collection<NavigableSet<DN>> subqueries) {
+            return intersect(subqueries);
+        }
+
+        @Override
+        public NavigableSet<DN> createUnionQuery(final Collection<NavigableSet<DN>> subqueries) {
+            return union(subqueries);
+        }
+
+        @Override
+        public IndexingOptions getIndexingOptions() {
+            return INDEXING_OPTIONS;
+        }
+    }
+
+    /**
+     * Evaluates a filter using the attribute indexes. Returns the sorted set
+     * of candidate entry names, or {@code null} if the filter cannot be
+     * evaluated using the indexes.
+     */
+    private final class IndexFilterVisitor extends AbstractFilterVisitor<NavigableSet<DN>, Void> {
+        @Override
+        public NavigableSet<DN> visitAndFilter(final Void p, final List<Filter> subFilters) {
+            final List<NavigableSet<DN>> candidates = new ArrayList<>(subFilters.size());
+            for (final Filter subFilter : subFilters) {
+                final NavigableSet<DN> subCandidates = subFilter.accept(this, p);
+                if (subCandidates != null && subCandidates.isEmpty()) {
+                    return subCandidates;
+                }
+                candidates.add(subCandidates);
+            }
+            return intersect(candidates);
+        }
+
+        @Override
+        public NavigableSet<DN> visitOrFilter(final Void p, final List<Filter> subFilters) {
+            final List<NavigableSet<DN>> candidates = new ArrayList<>(subFilters.size());
+            for (final Filter subFilter : subFilters) {
+                final NavigableSet<DN> subCandidates = subFilter.accept(this, p);
+                if (subCandidates == null) {
+                    return null;
+                }
+                candidates.add(subCandidates);
+            }
+            return union(candidates);
+        }
+
+        @Override
+        public NavigableSet<DN> visitEqualityMatchFilter(final Void p, final String attributeDescription,
+                final ByteString assertionValue) {
+            final AttributeIndex index = getIndex(attributeDescription);
+            if (index == null) {
+                return null;
+            }
+            final MatchingRule rule = index.attributeType.getEqualityMatchingRule();
+            if (rule == null) {
+                return null;
+            }
+            try {
+                return rule.getAssertion(assertionValue).createIndexQuery(index);
+            } catch (final DecodeException e) {
+                // The assertion will never match.
+                return new TreeSet<>();
+            }
+        }
+
+        @Override
+        public NavigableSet<DN> visitPresentFilter(final Void p, final String attributeDescription) {
+            final AttributeIndex index = getIndex(attributeDescription);
+            return index != null ? index.presence : null;
+        }
+
+        private AttributeIndex getIndex(final String attributeDescription) {
+            if (indexes.isEmpty()) {
+                return null;
+            }
+            final AttributeType attributeType;
+            try {
+                attributeType = AttributeDescription.valueOf(attributeDescription, schema).getAttributeType();
+            } catch (final LocalizedIllegalArgumentException e) {
+                return null;
+            }
+            if (enableVirtualAttributes && (attributeType.equals(HAS_SUBORDINATES.getAttributeType())
+                    || attributeType.equals(NUM_SUBORDINATES.getAttributeType()))) {
+                // Virtual attributes are not present in the stored entries.
+                return null;
+            }
+            return indexes.get(attributeType);
+        }
+    }
+
+    /**
+     * Keeps track of the entries returned by a search in order to enforce the
+     * size limit and the simple paged results criteria.
+     */
+    private final class SearchResultWindow {
+        private final SearchResultHandler entryHandler;
+        private final AttributeFilter attributeFilter;
+        private final int sizeLimit;
+        private final int pageSize;
+        private final int offset;
+        private int numberOfResults;
+        private int position;
+
+        private SearchResultWindow(final SearchResultHandler entryHandler, final AttributeFilter attributeFilter,
+                final int sizeLimit, final SimplePagedResultsControl pagedResults) {
+            this.entryHandler = entryHandler;
+            this.attributeFilter = attributeFilter;
+            this.sizeLimit = sizeLimit;
+            this.pageSize = pagedResults != null ? pagedResults.getSize() : 0;
+            this.offset = (pagedResults != null && !pagedResults.getCookie().isEmpty())
+                    ? Integer.valueOf(pagedResults.getCookie().toString()) : 0;
+        }
+
+        /**
+         * Sends the provided matching entry to the client if it is part of the
+         * requested page, and returns {@code false} if no more entries should
+         * be sent.
+         */
+        private boolean send(final Entry entry) throws LdapException {
+            /*
+             * This entry is going to be returned to the client so it
+             * counts towards the size limit and any paging criteria.
+             */
+
+            // Check size limit.
+            if (sizeLimit > 0 && numberOfResults >= sizeLimit) {
+                throw newLdapException(newResult(ResultCode.SIZE_LIMIT_EXCEEDED));
+            }
+
+            // Ignore this entry if we haven't reached the first page yet.
+            if (pageSize > 0 && position++ < offset) {
+                return true;
+            }
+
+            // Send the entry back to the client.
+            if (!sendEntry(attributeFilter, entryHandler, entry)) {
+                // Client has disconnected or cancelled.
+                return false;
+            }
+
+            numberOfResults++;
+
+            // Stop if we've reached the end of the page.
+            return pageSize <= 0 || numberOfResults < pageSize;
+        }
+
+        private void addResultControls(final Result result) {
+            if (pageSize > 0) {
+                final ByteString cookie = numberOfResults == pageSize
+                    ? ByteString.valueOfUtf8(String.valueOf(position))
+                    : ByteString.empty();
+                result.addControl(SimplePagedResultsControl.newControl(true, 0, cookie));
+            }
+        }
+    }
+
     private final DecodeOptions decodeOptions;
     private final ConcurrentSkipListMap<DN, Entry> entries = new ConcurrentSkipListMap<>();
+    private final Map<AttributeType, AttributeIndex> indexes = new ConcurrentHashMap<>();
     private final Schema schema;
-    private final Object writeLock = new Object();
-    private boolean enableVirtualAttributes;
+    /**
+     * Updates to individual entries acquire the read lock, whereas updates
+     * impacting entire subtrees or the indexes acquire the write lock.
+     */
+    private final ReentrantReadWriteLock treeLock = new ReentrantReadWriteLock();
+    /** Serializes updates to individual entries, the stripe is chosen using the entry name. */
+    private final ReentrantLock[] entryLocks = new ReentrantLock[ENTRY_LOCK_STRIPES];
+    private final IndexFilterVisitor indexFilterVisitor = new IndexFilterVisitor();
+    private volatile boolean enableVirtualAttributes;
 
     /**
      * Creates a new empty memory backend which will use the default schema.
@@ -134,6 +528,9 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
     public MemoryBackend(final Schema schema) {
         this.schema = schema;
         this.decodeOptions = new DecodeOptions().setSchema(schema);
+        for (int i = 0; i < entryLocks.length; i++) {
+            entryLocks[i] = new ReentrantLock();
+        }
     }
 
     /**
@@ -166,6 +563,52 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
         return this;
     }
 
+    /**
+     * Adds an equality and presence index for the named attribute type to this
+     * memory backend. The index is built immediately from the existing entries
+     * and then kept up to date as entries are added, modified and deleted.
+     * Searches whose filter contains equality or presence assertions on
+     * indexed attributes only examine the candidate entries returned by the
+     * indexes. Indexing an attribute type which is already indexed has no
+     * effect.
+     *
+     * @param attributeType
+     *            The name or OID of the attribute type to be indexed.
+     * @return This memory backend.
+     * @throws LocalizedIllegalArgumentException
+     *             If {@code attributeType} is not a valid attribute type name.
+     */
+    public MemoryBackend addIndex(final String attributeType) {
+        return addIndex(AttributeDescription.valueOf(attributeType, schema).getAttributeType());
+    }
+
+    /**
+     * Adds an equality and presence index for the provided attribute type to
+     * this memory backend. The index is built immediately from the existing
+     * entries and then kept up to date as entries are added, modified and
+     * deleted. Indexing an attribute type which is already indexed has no
+     * effect.
+     *
+     * @param attributeType
+     *            The attribute type to be indexed.
+     * @return This memory backend.
+     */
+    public MemoryBackend addIndex(final AttributeType attributeType) {
+        treeLock.writeLock().lock();
+        try {
+            if (!indexes.containsKey(attributeType)) {
+                final AttributeIndex index = new AttributeIndex(attributeType);
+                for (final Entry entry : entries.values()) {
+                    index.addKeys(null, entry);
+                }
+                indexes.put(attributeType, index);
+            }
+        } finally {
+            treeLock.writeLock().unlock();
+        }
+        return this;
+    }
+
     /**
      * Clears the contents of this memory backend so that it does not contain
      * any entries.
@@ -173,8 +616,14 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
      * @return This memory backend.
      */
     public MemoryBackend clear() {
-        synchronized (writeLock) {
+        treeLock.writeLock().lock();
+        try {
             entries.clear();
+            for (final AttributeIndex index : indexes.values()) {
+                index.clear();
+            }
+        } finally {
+            treeLock.writeLock().unlock();
         }
         return this;
     }
@@ -303,16 +752,20 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
             final IntermediateResponseHandler intermediateResponseHandler,
             final LdapResultHandler<Result> resultHandler) {
         try {
-            synchronized (writeLock) {
-                final DN dn = request.getName();
-                final DN parent = dn.parent();
+            final DN dn = request.getName();
+            final DN parent = dn.parent();
+            lockEntries(parent, dn);
+            try {
                 if (entries.containsKey(dn)) {
                     throw newLdapException(ResultCode.ENTRY_ALREADY_EXISTS, "The entry '" + dn + "' already exists");
                 } else if (parent != null && !entries.containsKey(parent)) {
                     throw noSuchObject(parent);
                 } else {
+                    indexEntry(null, request);
                     entries.put(dn, request);
                 }
+            } finally {
+                unlockEntries(parent, dn);
             }
             resultHandler.handleResult(getResult(request, null, request));
         } catch (final LdapException e) {
@@ -326,23 +779,21 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
             final IntermediateResponseHandler intermediateResponseHandler,
             final LdapResultHandler<BindResult> resultHandler) {
         try {
-            final Entry entry;
-            synchronized (writeLock) {
-                final DN username = DN.valueOf(request.getName(), schema);
-                final byte[] password;
-                if (request instanceof SimpleBindRequest) {
-                    password = ((SimpleBindRequest) request).getPassword();
-                } else if (request instanceof GenericBindRequest
-                        && request.getAuthenticationType() == BindRequest.AUTHENTICATION_TYPE_SIMPLE) {
-                    password = ((GenericBindRequest) request).getAuthenticationValue();
-                } else {
-                    throw newLdapException(ResultCode.PROTOCOL_ERROR,
-                            "non-SIMPLE authentication not supported: " + request.getAuthenticationType());
-                }
-                entry = getRequiredEntry(null, username);
-                if (!entry.containsAttribute("userPassword", (Object) password)) {
-                    throw newLdapException(ResultCode.INVALID_CREDENTIALS, "Wrong password");
-                }
+            // Entries are never updated in place so no locking is required.
+            final DN username = DN.valueOf(request.getName(), schema);
+            final byte[] password;
+            if (request instanceof SimpleBindRequest) {
+                password = ((SimpleBindRequest) request).getPassword();
+            } else if (request instanceof GenericBindRequest
+                    && request.getAuthenticationType() == BindRequest.AUTHENTICATION_TYPE_SIMPLE) {
+                password = ((GenericBindRequest) request).getAuthenticationValue();
+            } else {
+                throw newLdapException(ResultCode.PROTOCOL_ERROR,
+                        "non-SIMPLE authentication not supported: " + request.getAuthenticationType());
+            }
+            final Entry entry = getRequiredEntry(null, username);
+            if (!entry.containsAttribute("userPassword", (Object) password)) {
+                throw newLdapException(ResultCode.INVALID_CREDENTIALS, "Wrong password");
             }
             resultHandler.handleResult(getBindResult(request, entry, entry));
         } catch (final LocalizedIllegalArgumentException e) {
@@ -364,15 +815,9 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
             final IntermediateResponseHandler intermediateResponseHandler,
             final LdapResultHandler<CompareResult> resultHandler) {
         try {
-            final Entry entry;
-            final Attribute assertion;
-            synchronized (writeLock) {
-                final DN dn = request.getName();
-                entry = getRequiredEntry(request, dn);
-                assertion =
-                        singletonAttribute(request.getAttributeDescription(), request
-                                .getAssertionValue());
-            }
+            final Entry entry = getRequiredEntry(request, request.getName());
+            final Attribute assertion =
+                    singletonAttribute(request.getAttributeDescription(), request.getAssertionValue());
             resultHandler.handleResult(getCompareResult(request, entry, entry.containsAttribute(
                     assertion, null)));
         } catch (final LdapException e) {
@@ -386,20 +831,36 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
             final LdapResultHandler<Result> resultHandler) {
         try {
             final Entry entry;
-            synchronized (writeLock) {
-                final DN dn = request.getName();
-                entry = getRequiredEntry(request, dn);
-                if (request.getControl(SubtreeDeleteRequestControl.DECODER, decodeOptions) != null) {
-                    // Subtree delete.
-                    entries.subMap(dn, dn.child(RDN.maxValue())).clear();
-                } else {
-                    // Must be leaf.
+            final DN dn = request.getName();
+            if (request.getControl(SubtreeDeleteRequestControl.DECODER, decodeOptions) != null) {
+                // Subtree delete.
+                treeLock.writeLock().lock();
+                try {
+                    entry = getRequiredEntry(request, dn);
+                    final NavigableMap<DN, Entry> subtree = entries.subMap(dn, dn.child(RDN.maxValue()));
+                    final List<Entry> subordinates = new ArrayList<>(subtree.values());
+                    subtree.clear();
+                    for (final Entry subordinate : subordinates) {
+                        unindexEntry(subordinate, null);
+                    }
+                } finally {
+                    treeLock.writeLock().unlock();
+                }
+            } else {
+                // Must be leaf.
+                final DN parent = dn.parent();
+                lockEntries(parent, dn);
+                try {
+                    entry = getRequiredEntry(request, dn);
                     final DN next = entries.higherKey(dn);
                     if (next == null || !next.isChildOf(dn)) {
                         entries.remove(dn);
+                        unindexEntry(entry, null);
                     } else {
                         throw newLdapException(ResultCode.NOT_ALLOWED_ON_NONLEAF);
                     }
+                } finally {
+                    unlockEntries(parent, dn);
                 }
             }
             resultHandler.handleResult(getResult(request, entry, null));
@@ -426,11 +887,16 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
         try {
             final Entry entry;
             final Entry newEntry;
-            synchronized (writeLock) {
-                final DN dn = request.getName();
+            final DN dn = request.getName();
+            lockEntries(null, dn);
+            try {
                 entry = getRequiredEntry(request, dn);
-                newEntry = new LinkedHashMapEntry(entry);
-                entries.put(dn, modifyEntry(newEntry, request));
+                newEntry = modifyEntry(new LinkedHashMapEntry(entry), request);
+                indexEntry(entry, newEntry);
+                entries.put(dn, newEntry);
+                unindexEntry(entry, newEntry);
+            } finally {
+                unlockEntries(null, dn);
             }
             resultHandler.handleResult(getResult(request, entry, newEntry));
         } catch (final LdapException e) {
@@ -470,9 +936,10 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
             case SINGLE_LEVEL:
             case SUBORDINATES:
             case WHOLE_SUBTREE:
-                searchWithSubordinates(requestContext, entryHandler, resultHandler, dn, matcher, attributeFilter,
-                    request.getSizeLimit(), scope,
-                    request.getControl(SimplePagedResultsControl.DECODER, new DecodeOptions()));
+                searchWithSubordinates(requestContext, entryHandler, resultHandler, dn, filter, matcher,
+                    attributeFilter, request.getSizeLimit(), scope,
+                    request.getControl(SimplePagedResultsControl.DECODER, new DecodeOptions()),
+                    request.getControl(ServerSideSortRequestControl.DECODER, decodeOptions));
                 break;
 
             default:
@@ -523,7 +990,8 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
      *             {@code false}.
      */
     public MemoryBackend load(final EntryReader reader, final boolean overwrite) throws IOException {
-        synchronized (writeLock) {
+        treeLock.writeLock().lock();
+        try {
             if (reader != null) {
                 try {
                     while (reader.hasNext()) {
@@ -533,12 +1001,17 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
                             throw newLdapException(ResultCode.ENTRY_ALREADY_EXISTS,
                                     "Attempted to add the entry '" + dn + "' multiple times");
                         }
+                        final Entry oldEntry = entries.get(dn);
+                        indexEntry(oldEntry, entry);
                         entries.put(dn, entry);
+                        unindexEntry(oldEntry, entry);
                     }
                 } finally {
                     reader.close();
                 }
             }
+        } finally {
+            treeLock.writeLock().unlock();
         }
         return this;
     }
@@ -559,11 +1032,13 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
      * @param requestContext context of this request
      * @param resultHandler handler which should be used to send back the search results to the client.
      * @param dn distinguished name of the base entry used for this request
+     * @param filter the search filter, used for selecting candidate entries from the indexes
      * @param matcher to filter entries that matches this request
      * @param attributeFilter to select attributes to return in search results
      * @param sizeLimit maximum number of entries to return. A value of zero indicates no restriction
      *          on number of entries.
      * @param pagedResults The simple paged results control, if present.
+     * @param sortRequest The server-side sort request control, if present.
      * @throws CancelledResultException
      *           If a cancellation request has been received and processing of
      *           the request should be aborted if possible.
@@ -571,63 +1046,206 @@ public final class MemoryBackend implements RequestHandler<RequestContext> {
      *           If the request is unsuccessful.
      */
     private void searchWithSubordinates(final RequestContext requestContext, final SearchResultHandler entryHandler,
-            final LdapResultHandler<Result> resultHandler, final DN dn, final Matcher matcher,
+            final LdapResultHandler<Result> resultHandler, final DN dn, final Filter filter, final Matcher matcher,
             final AttributeFilter attributeFilter, final int sizeLimit, SearchScope scope,
-            SimplePagedResultsControl pagedResults) throws LdapException {
+            SimplePagedResultsControl pagedResults, ServerSideSortRequestControl sortRequest) throws LdapException {
         final NavigableMap<DN, Entry> subtree = entries.subMap(dn, dn.child(RDN.maxValue()));
         if (subtree.isEmpty() || !dn.equals(subtree.firstKey())) {
             throw newLdapException(newResult(ResultCode.NO_SUCH_OBJECT));
         }
 
-        final int pageSize = pagedResults != null ? pagedResults.getSize() : 0;
-        final int offset = (pagedResults != null && !pagedResults.getCookie().isEmpty())
-                ? Integer.valueOf(pagedResults.getCookie().toString()) : 0;
-        int numberOfResults = 0;
-        int position = 0;
-        for (final Entry entry : subtree.values()) {
+        final Result result = newResult(ResultCode.SUCCESS);
+        final Comparator<Entry> comparator = getSortComparator(sortRequest, result);
+        final List<Entry> sortedEntries = comparator != null ? new ArrayList<Entry>() : null;
+        final SearchResultWindow window = new SearchResultWindow(entryHandler, attributeFilter, sizeLimit, pagedResults);
+        for (final Entry entry : getCandidateEntries(subtree, dn, filter)) {
             requestContext.checkIfCancelled(false);
             if (scope.equals(SearchScope.WHOLE_SUBTREE) || entry.getName().isChildOf(dn)
                     || (scope.equals(SearchScope.SUBORDINATES) && !entry.getName().equals(dn))) {
                 final Entry augmentedEntry = addVirtualAttributesIfNeeded(entry);
                 if (matcher.matches(augmentedEntry).toBoolean()) {
-                    /*
-                     * This entry is going to be returned to the client so it
-                     * counts towards the size limit and any paging criteria.
-                     */
-
-                    // Check size limit.
-                    if (sizeLimit > 0 && numberOfResults >= sizeLimit) {
-                        throw newLdapException(newResult(ResultCode.SIZE_LIMIT_EXCEEDED));
+                    if (sortedEntries != null) {
+                        sortedEntries.add(augmentedEntry);
+                    } else if (!window.send(augmentedEntry)) {
+                        break;
                     }
+                }
+            }
+        }
+        if (sortedEntries != null) {
+            Collections.sort(sortedEntries, comparator);
+            for (final Entry entry : sortedEntries) {
+                requestContext.checkIfCancelled(false);
+                if (!window.send(entry)) {
+                    break;
+                }
+            }
+        }
+        window.addResultControls(result);
+        resultHandler.handleResult(result);
+    }
 
-                    // Ignore this entry if we haven't reached the first page yet.
-                    if (pageSize > 0 && position++ < offset) {
-                        continue;
-                    }
+    /**
+     * Returns the entries of the provided subtree which may match the filter.
+     * Only the candidate entries selected by the indexes are returned when the
+     * filter can be evaluated using the indexes, otherwise all the entries of
+     * the subtree are returned. Entries are always returned in DN order.
+     */
+    private Iterable<Entry> getCandidateEntries(final NavigableMap<DN, Entry> subtree, final DN dn,
+            final Filter filter) {
+        final NavigableSet<DN> candidates = filter.accept(indexFilterVisitor, null);
+        if (candidates == null) {
+            return subtree.values();
+        }
+        final List<Entry> candidateEntries = new ArrayList<>();
+        for (final DN candidate : candidates.subSet(dn, true, dn.child(RDN.maxValue()), false)) {
+            final Entry entry = subtree.get(candidate);
+            if (entry != null) {
+                candidateEntries.add(entry);
+            }
+        }
+        return candidateEntries;
+    }
 
-                    // Send the entry back to the client.
-                    if (!sendEntry(attributeFilter, entryHandler, augmentedEntry)) {
-                        // Client has disconnected or cancelled.
-                        break;
-                    }
+    /**
+     * Returns the comparator to use for sorting the search results, or
+     * {@code null} if the results should not be sorted. The server-side sort
+     * response control is added to the result when sorting was requested.
+     */
+    private Comparator<Entry> getSortComparator(final ServerSideSortRequestControl sortRequest,
+            final Result result) throws LdapException {
+        if (sortRequest == null) {
+            return null;
+        }
+        try {
+            final Comparator<Entry> comparator = SortKey.comparator(schema, sortRequest.getSortKeys());
+            result.addControl(ServerSideSortResponseControl.newControl(ResultCode.SUCCESS));
+            return comparator;
+        } catch (final LocalizedIllegalArgumentException e) {
+            if (sortRequest.isCritical()) {
+                throw newLdapException(ResultCode.UNAVAILABLE_CRITICAL_EXTENSION, e.getMessage(), e);
+            }
+            // Return the entries unsorted.
+            result.addControl(ServerSideSortResponseControl.newControl(ResultCode.INAPPROPRIATE_MATCHING));
+            return null;
+        }
+    }
 
-                    numberOfResults++;
+    /**
+     * Adds the index keys of an entry replacing another entry, which must be
+     * done before the entry is published.
+     *
+     * @param oldEntry
+     *            The entry being replaced, or {@code null} if the entry is
+     *            being added.
+     * @param newEntry
+     *            The replacement entry, or {@code null} if the entry is being
+     *            deleted.
+     */
+    private void indexEntry(final Entry oldEntry, final Entry newEntry) {
+        for (final AttributeIndex index : indexes.values()) {
+            index.addKeys(oldEntry, newEntry);
+        }
+    }
 
-                    // Stop if we've reached the end of the page.
-                    if (pageSize > 0 && numberOfResults == pageSize) {
-                        break;
-                    }
+    /**
+     * Removes the index keys of a replaced entry, which must be done after
+     * the entry has been replaced or removed.
+     *
+     * @param oldEntry
+     *            The entry being replaced, or {@code null} if the entry is
+     *            being added.
+     * @param newEntry
+     *            The replacement entry, or {@code null} if the entry is being
+     *            deleted.
+     */
+    private void unindexEntry(final Entry oldEntry, final Entry newEntry) {
+        for (final AttributeIndex index : indexes.values()) {
+            index.removeKeys(oldEntry, newEntry);
+        }
+    }
+
+    /**
+     * Locks the named entries for update, preventing concurrent updates to
+     * the entries and to their immediate children. Locks are always acquired
+     * in the same order in order to avoid deadlocks.
+     *
+     * @param parent
+     *            The name of the parent of the entry being added or deleted,
+     *            may be {@code null}.
+     * @param dn
+     *            The name of the entry being updated.
+     */
+    private void lockEntries(final DN parent, final DN dn) {
+        treeLock.readLock().lock();
+        final int stripe1 = parent != null ? stripe(parent) : stripe(dn);
+        final int stripe2 = stripe(dn);
+        entryLocks[Math.min(stripe1, stripe2)].lock();
+        if (stripe1 != stripe2) {
+            entryLocks[Math.max(stripe1, stripe2)].lock();
+        }
+    }
+
+    private void unlockEntries(final DN parent, final DN dn) {
+        final int stripe1 = parent != null ? stripe(parent) : stripe(dn);
+        final int stripe2 = stripe(dn);
+        if (stripe1 != stripe2) {
+            entryLocks[Math.max(stripe1, stripe2)].unlock();
+        }
+        entryLocks[Math.min(stripe1, stripe2)].unlock();
+        treeLock.readLock().unlock();
+    }
+
+    private static int stripe(final DN dn) {
+        return (dn.hashCode() & Integer.MAX_VALUE) % ENTRY_LOCK_STRIPES;
+    }
+
+    /**
+     * Returns the intersection of the provided sorted sets of entry names. A
+     * {@code null} set contains all entries.
+     */
+    private static NavigableSet<DN> intersect(final Collection<NavigableSet<DN>> sets) {
+        NavigableSet<DN> smallest = null;
+        for (final NavigableSet<DN> set : sets) {
+            if (set == null) {
+                continue;
+            } else if (smallest == null) {
+                smallest = set;
+            } else if (set instanceof TreeSet
+                    && (!(smallest instanceof TreeSet) || set.size() < smallest.size())) {
+                // Presence indexes are concurrent sets whose size() is a linear operation.
+                smallest = set;
+            }
+        }
+        if (smallest == null || sets.size() == 1) {
+            return smallest;
+        }
+        final NavigableSet<DN> intersection = new TreeSet<>();
+        nextCandidate:
+        for (final DN dn : smallest) {
+            for (final NavigableSet<DN> set : sets) {
+                if (set != null && set != smallest && !set.contains(dn)) {
+                    continue nextCandidate;
                 }
             }
+            intersection.add(dn);
         }
-        final Result result = newResult(ResultCode.SUCCESS);
-        if (pageSize > 0) {
-            final ByteString cookie = numberOfResults == pageSize
-                ? ByteString.valueOfUtf8(String.valueOf(position))
-                : ByteString.empty();
-            result.addControl(SimplePagedResultsControl.newControl(true, 0, cookie));
+        return intersection;
+    }
+
+    /**
+     * Returns the union of the provided sorted sets of entry names. A
+     * {@code null} set contains all entries.
+     */
+    private static NavigableSet<DN> union(final Collection<NavigableSet<DN>> sets) {
+        final NavigableSet<DN> union = new TreeSet<>();
+        for (final NavigableSet<DN> set : sets) {
+            if (set == null) {
+                return null;
+            }
+            union.addAll(set);
         }
-        resultHandler.handleResult(result);
+        return union;
     }
 
     private <R extends Result> R addResultControls(final Request request, final Entry before,
@@ -18,6 +18,7 @@ package org.forgerock.opendj.ldap.schema;
 
 import static com.forgerock.opendj.ldap.CoreMessages.*;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -62,18 +63,39 @@ abstract class AbstractSubstringMatchingRuleImpl extends AbstractMatchingRuleImp
         private final ByteString[] normAnys;
         /** Normalized substring for the text after the last '*' character. */
         private final ByteString normFinal;
-
+        /**
+         * The minimum length of a normalized value matching this assertion,
+         * precomputed so that short values can be rejected without scanning.
+         */
+        private final int minLength;
 
         private DefaultSubstringAssertion(final ByteString normInitial, final ByteString[] normAnys,
                 final ByteString normFinal) {
             this.normInitial = normInitial;
             this.normAnys = normAnys;
             this.normFinal = normFinal;
+
+            int length = 0;
+            if (normInitial != null) {
+                length += normInitial.length();
+            }
+            if (normAnys != null) {
+                for (final ByteString normAny : normAnys) {
+                    length += normAny.length();
+                }
+            }
+            if (normFinal != null) {
+                length += normFinal.length();
+            }
+            this.minLength = length;
         }
 
         @Override
         public ConditionResult matches(final ByteSequence normalizedAttributeValue) {
             final int valueLength = normalizedAttributeValue.length();
+            if (valueLength < minLength) {
+                return ConditionResult.FALSE;
+            }
 
             int pos = 0;
             if (normInitial != null) {
@@ -139,10 +161,16 @@ abstract class AbstractSubstringMatchingRuleImpl extends AbstractMatchingRuleImp
                 return factory.createMatchAllQuery();
             }
 
+            final boolean anchored = factory.getIndexingOptions().substringAnchoredKeys();
             final Collection<T> subqueries = new LinkedList<>();
             if (normInitial != null) {
-                // relies on the fact that equality indexes are also ordered
-                subqueries.add(rangeMatch(factory, equalityIndexId, normInitial));
+                if (anchored) {
+                    // The anchored keys return exactly the values starting with the initial substring
+                    subqueries.add(rangeMatch(factory, anchoredIndexId, initialAnchoredKey(normInitial)));
+                } else {
+                    // relies on the fact that equality indexes are also ordered
+                    subqueries.add(rangeMatch(factory, equalityIndexId, normInitial));
+                }
             }
             if (normAnys != null) {
                 for (ByteString normAny : normAnys) {
@@ -150,9 +178,13 @@ abstract class AbstractSubstringMatchingRuleImpl extends AbstractMatchingRuleImp
                 }
             }
             if (normFinal != null) {
-                substringMatch(factory, normFinal, subqueries);
+                if (anchored) {
+                    subqueries.add(rangeMatch(factory, anchoredIndexId, finalAnchoredKey(normFinal)));
+                } else {
+                    substringMatch(factory, normFinal, subqueries);
+                }
             }
-            if (normInitial != null) {
+            if (normInitial != null && !anchored) {
                 // Add this one last to minimize the risk to run the same search twice
                 // (possible overlapping with the use of equality index at the start of this method)
                 substringMatch(factory, normInitial, subqueries);
@@ -250,15 +282,73 @@ abstract class AbstractSubstringMatchingRuleImpl extends AbstractMatchingRuleImp
         }
     }
 
+    /**
+     * Indexes the values as a whole, forwards and backwards, so that the values starting or
+     * ending with a substring are found by reading the keys having the substring as prefix,
+     * whatever the number of values containing the substring elsewhere.
+     */
+    private final class AnchoredSubstringIndexer implements Indexer {
+
+        @Override
+        public void createKeys(Schema schema, ByteSequence value, Collection<ByteString> keys) throws DecodeException {
+            final ByteString normValue = normalizeAttributeValue(schema, value);
+            if (normValue.length() > 0) {
+                keys.add(initialAnchoredKey(normValue));
+                keys.add(finalAnchoredKey(normValue));
+            }
+        }
+
+        @Override
+        public String keyToHumanReadableString(ByteSequence key) {
+            final ByteSequence normValue = key.subSequence(1, key.length());
+            if (key.byteAt(0) == INITIAL_ANCHOR) {
+                return "^" + AbstractSubstringMatchingRuleImpl.this.keyToHumanReadableString(normValue);
+            }
+            final ByteSequence finalValue = appendReversed(new ByteStringBuilder(normValue.length()), normValue);
+            return AbstractSubstringMatchingRuleImpl.this.keyToHumanReadableString(finalValue) + "$";
+        }
+
+        @Override
+        public String getIndexID() {
+            return anchoredIndexId;
+        }
+    }
+
+    /** Prefix of the anchored keys made of a value, read forwards. */
+    private static final byte INITIAL_ANCHOR = 0x00;
+    /** Prefix of the anchored keys made of a value, read backwards. */
+    private static final byte FINAL_ANCHOR = 0x01;
+
+    private static ByteString initialAnchoredKey(final ByteSequence normValue) {
+        return new ByteStringBuilder(normValue.length() + 1).appendByte(INITIAL_ANCHOR).appendBytes(normValue)
+                .toByteString();
+    }
+
+    private static ByteString finalAnchoredKey(final ByteSequence normValue) {
+        final ByteStringBuilder builder = new ByteStringBuilder(normValue.length() + 1).appendByte(FINAL_ANCHOR);
+        return appendReversed(builder, normValue).toByteString();
+    }
+
+    private static ByteStringBuilder appendReversed(final ByteStringBuilder builder, final ByteSequence bytes) {
+        for (int i = bytes.length() - 1; i >= 0; i--) {
+            builder.appendByte(bytes.byteAt(i));
+        }
+        return builder;
+    }
+
     /** Identifier of the substring index. */
     private final String substringIndexId;
 
+    /** Identifier of the substring index containing the anchored keys. */
+    private final String anchoredIndexId;
+
     /** Identifier of the equality index. */
     private final String equalityIndexId;
 
     /** Constructor for non-default matching rules. */
     AbstractSubstringMatchingRuleImpl(String substringIndexId, String equalityIndexId) {
         this.substringIndexId = substringIndexId;
+        this.anchoredIndexId = substringIndexId + ":anchored";
         this.equalityIndexId = equalityIndexId;
     }
 
@@ -527,6 +617,10 @@ abstract class AbstractSubstringMatchingRuleImpl extends AbstractMatchingRuleImp
 
     @Override
     public final Collection<? extends Indexer> createIndexers(IndexingOptions options) {
-        return Collections.singleton(new SubstringIndexer(options.substringKeySize()));
+        final Indexer substringIndexer = new SubstringIndexer(options.substringKeySize());
+        if (options.substringAnchoredKeys()) {
+            return Arrays.asList(substringIndexer, new AnchoredSubstringIndexer());
+        }
+        return Collections.singleton(substringIndexer);
     }
 }
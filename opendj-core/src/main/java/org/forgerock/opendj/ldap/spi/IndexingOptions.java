@@ -29,5 +29,14 @@ public interface IndexingOptions {
      */
     int substringKeySize();
 
-
+    /**
+     * Returns whether the "substring" index must also contain anchored keys,
+     * allowing the initial and final substrings of an assertion to be
+     * evaluated with a single range read rather than by intersecting the
+     * substring keys.
+     *
+     * @return {@code true} if the "substring" index must also contain
+     *         anchored keys.
+     */
+    boolean substringAnchoredKeys();
 }
@@ -189,6 +189,25 @@ abstract class AbstractLDIFReader extends AbstractLDIFStream {
         impl.close();
     }
 
+    /**
+     * Copies the options of the provided reader into this reader, except its
+     * rejected record listener.
+     */
+    final void copyReaderOptions(final AbstractLDIFReader other) {
+        copyStreamOptions(other);
+        schema = other.schema;
+        schemaValidationPolicy = other.schemaValidationPolicy;
+    }
+
+    /**
+     * Sets the number of lines which precede the first line read by this
+     * reader, so that reported line numbers are relative to the whole LDIF
+     * when this reader only reads a part of it.
+     */
+    final void setLineNumberOffset(final long lineNumberOffset) {
+        this.lineNumber = lineNumberOffset;
+    }
+
     final void handleMalformedRecord(final LDIFRecord record, final LocalizableMessage message)
             throws DecodeException {
         rejectedRecordListener.handleMalformedRecord(record.lineNumber, record.ldifLines, message);
@@ -45,6 +45,18 @@ abstract class AbstractLDIFStream {
         // Nothing to do.
     }
 
+    /** Copies the include and exclude options of the provided stream into this stream. */
+    final void copyStreamOptions(final AbstractLDIFStream other) {
+        excludeAttributes.addAll(other.excludeAttributes);
+        excludeBranches.addAll(other.excludeBranches);
+        excludeFilters.addAll(other.excludeFilters);
+        excludeOperationalAttributes = other.excludeOperationalAttributes;
+        excludeUserAttributes = other.excludeUserAttributes;
+        includeAttributes.addAll(other.includeAttributes);
+        includeBranches.addAll(other.includeBranches);
+        includeFilters.addAll(other.includeFilters);
+    }
+
     final boolean isAttributeExcluded(final AttributeDescription attributeDescription) {
         // Let explicit include override more general exclude.
         if (!excludeAttributes.isEmpty() && excludeAttributes.contains(attributeDescription)) {
@@ -172,6 +172,13 @@ abstract class AbstractLDIFWriter extends AbstractLDIFStream {
         this.impl = new LDIFWriterOutputStreamImpl(writer);
     }
 
+    /** Copies the options of the provided writer into this writer. */
+    final void copyWriterOptions(final AbstractLDIFWriter other) {
+        copyStreamOptions(other);
+        addUserFriendlyComments = other.addUserFriendlyComments;
+        wrapColumn = other.wrapColumn;
+    }
+
     final void close0() throws IOException {
         flush0();
         impl.close();
@@ -0,0 +1,56 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.forgerock.opendj.ldif;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * The pool of threads shared by the parallel LDIF readers and writers which
+ * are not provided with an executor. It has one thread per available
+ * processor, however many readers and writers are open, and its daemon
+ * threads do not prevent the JVM from exiting.
+ */
+final class LDIFThreadPool {
+    /** Lazily creates the shared pool. */
+    private static final class PoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                new ForkJoinWorkerThreadFactory() {
+                    @Override
+                    public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+                        final ForkJoinWorkerThread thread =
+                                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                        thread.setName("LDIF Worker Thread " + thread.getPoolIndex());
+                        return thread;
+                    }
+                }, null, false);
+    }
+
+    /**
+     * Returns the pool shared by the parallel LDIF readers and writers.
+     *
+     * @return The pool shared by the parallel LDIF readers and writers.
+     */
+    static ForkJoinPool getSharedPool() {
+        return PoolHolder.POOL;
+    }
+
+    /** Prevent instantiation. */
+    private LDIFThreadPool() {
+        // Do nothing.
+    }
+}
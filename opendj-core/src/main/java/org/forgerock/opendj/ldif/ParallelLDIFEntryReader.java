@@ -0,0 +1,559 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.forgerock.opendj.ldif;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.ldap.AttributeDescription;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.Entry;
+import org.forgerock.opendj.ldap.LinkedHashMapEntry;
+import org.forgerock.opendj.ldap.Matcher;
+import org.forgerock.opendj.ldap.schema.Schema;
+import org.forgerock.opendj.ldap.schema.SchemaValidationPolicy;
+import org.forgerock.util.Reject;
+
+/**
+ * An LDIF entry reader which reads entries from an LDIF file using several
+ * threads. The file is memory mapped and split into chunks of records at blank
+ * line boundaries. Chunks are then decoded concurrently, while entries are
+ * still returned in the order in which they appear in the file. Only a
+ * bounded number of chunks are decoded ahead of the entries being read.
+ * <p>
+ * This reader supports the same options as {@link LDIFEntryReader}. Rejected
+ * records are reported to the {@link RejectedLDIFListener} by the thread
+ * reading entries, in file order, and with the same line numbers as
+ * {@link LDIFEntryReader}. Matchers and schema validation policies may
+ * however be used concurrently by the decoding threads. The LDIF file must be
+ * encoded in UTF-8, as mandated by RFC 2849.
+ * <p>
+ * Once an exception has been thrown by {@link #hasNext()} or
+ * {@link #readEntry()}, this reader will keep throwing it.
+ *
+ * @see <a href="http://tools.ietf.org/html/rfc2849">RFC 2849 - The LDAP Data
+ *      Interchange Format (LDIF) - Technical Specification </a>
+ */
+public final class ParallelLDIFEntryReader implements EntryReader {
+    /** Poison used to indicate end of LDIF. */
+    private static final Entry EOF = new LinkedHashMapEntry();
+    /** The default size of the chunks which are decoded by a single thread. */
+    private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    /** The size of the windows mapped in memory when looking for record boundaries. */
+    private static final int SPLIT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /** A rejected record which will be reported to the listener by the reading thread. */
+    private abstract static class Rejection {
+        abstract void replay(RejectedLDIFListener listener) throws DecodeException;
+    }
+
+    /** A listener recording rejected records, so that they are reported in order by the reading thread. */
+    private static final class RecordingListener implements RejectedLDIFListener {
+        private final List<Object> events;
+
+        private RecordingListener(final List<Object> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void handleMalformedRecord(final long lineNumber, final List<String> lines,
+                final LocalizableMessage reason) {
+            events.add(new Rejection() {
+                @Override
+                void replay(final RejectedLDIFListener listener) throws DecodeException {
+                    listener.handleMalformedRecord(lineNumber, lines, reason);
+                }
+            });
+        }
+
+        @Override
+        public void handleSchemaValidationFailure(final long lineNumber, final List<String> lines,
+                final List<LocalizableMessage> reasons) {
+            events.add(new Rejection() {
+                @Override
+                void replay(final RejectedLDIFListener listener) throws DecodeException {
+                    listener.handleSchemaValidationFailure(lineNumber, lines, reasons);
+                }
+            });
+        }
+
+        @Override
+        public void handleSchemaValidationWarning(final long lineNumber, final List<String> lines,
+                final List<LocalizableMessage> reasons) {
+            events.add(new Rejection() {
+                @Override
+                void replay(final RejectedLDIFListener listener) throws DecodeException {
+                    listener.handleSchemaValidationWarning(lineNumber, lines, reasons);
+                }
+            });
+        }
+
+        @Override
+        public void handleSkippedRecord(final long lineNumber, final List<String> lines,
+                final LocalizableMessage reason) {
+            events.add(new Rejection() {
+                @Override
+                void replay(final RejectedLDIFListener listener) throws DecodeException {
+                    listener.handleSkippedRecord(lineNumber, lines, reason);
+                }
+            });
+        }
+    }
+
+    /** The decoded content of a chunk: entries and rejections in file order, possibly followed by an error. */
+    private static final class DecodedChunk {
+        private final List<Object> events = new ArrayList<>();
+        private IOException error;
+    }
+
+    /** Decodes the records contained in a chunk of the LDIF file. */
+    private final class ChunkDecoder implements Callable<DecodedChunk> {
+        private final long start;
+        private final long end;
+        private final long lineNumberOffset;
+
+        private ChunkDecoder(final long start, final long end, final long lineNumberOffset) {
+            this.start = start;
+            this.end = end;
+            this.lineNumberOffset = lineNumberOffset;
+        }
+
+        @Override
+        public DecodedChunk call() throws IOException {
+            final DecodedChunk chunk = new DecodedChunk();
+            if (closed) {
+                return chunk;
+            }
+            final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, start, end - start);
+            final String ldif = StandardCharsets.UTF_8.decode(buffer).toString();
+            try (LDIFEntryReader reader = new LDIFEntryReader(new StringReader(ldif))) {
+                reader.copyReaderOptions(options);
+                reader.setLineNumberOffset(lineNumberOffset);
+                reader.setRejectedLDIFListener(new RecordingListener(chunk.events));
+                while (!closed && reader.hasNext()) {
+                    chunk.events.add(reader.readEntry());
+                }
+            } catch (final IOException e) {
+                // Fatal errors are reported once the preceding entries have been read.
+                chunk.error = e;
+            }
+            return chunk;
+        }
+    }
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final ExecutorService executor;
+    private final int maxPendingChunks;
+    /** Lets the decoders stop early once this reader is closed. */
+    private volatile boolean closed;
+    private final ArrayDeque<Future<DecodedChunk>> pendingChunks = new ArrayDeque<>();
+    /** Holds the options which are copied into the reader of each chunk. */
+    private final LDIFEntryReader options = new LDIFEntryReader(Collections.<String> emptyList());
+    private RejectedLDIFListener rejectedRecordListener = RejectedLDIFListener.FAIL_FAST;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /** The position in the file and line number of the next chunk. */
+    private long splitPosition;
+    private long splitLineNumber;
+    private MappedByteBuffer splitWindow;
+    private long splitWindowStart;
+
+    private Iterator<Object> currentEvents = Collections.emptyIterator();
+    private IOException currentError;
+    private IOException failure;
+    private Entry nextEntry;
+
+    /**
+     * Creates a new parallel LDIF entry reader which will read entries from
+     * the provided file, using the fork/join pool shared by the parallel LDIF
+     * readers and writers, which has one thread per available processor.
+     *
+     * @param file
+     *            The LDIF file to read.
+     * @throws IOException
+     *             If the file could not be opened.
+     */
+    public ParallelLDIFEntryReader(final File file) throws IOException {
+        this(file, LDIFThreadPool.getSharedPool());
+    }
+
+    /**
+     * Creates a new parallel LDIF entry reader which will read entries from
+     * the provided file, decoding them using the provided executor. The
+     * executor will not be shutdown when this reader is closed.
+     *
+     * @param file
+     *            The LDIF file to read.
+     * @param executor
+     *            The executor which should be used for decoding entries.
+     * @throws IOException
+     *             If the file could not be opened.
+     */
+    public ParallelLDIFEntryReader(final File file, final ExecutorService executor) throws IOException {
+        Reject.ifNull(file, executor);
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.executor = executor;
+        final int parallelism = executor instanceof ForkJoinPool
+                ? ((ForkJoinPool) executor).getParallelism() : Runtime.getRuntime().availableProcessors();
+        this.maxPendingChunks = 2 * parallelism;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        // Cancelling a running decoder would not stop it: wait for the decoders before closing the file they map.
+        boolean interrupted = false;
+        for (final Future<DecodedChunk> pendingChunk : pendingChunks) {
+            for (;;) {
+                try {
+                    pendingChunk.get();
+                    break;
+                } catch (final ExecutionException e) {
+                    // The chunk will not be read anyway.
+                    break;
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        pendingChunks.clear();
+        channel.close();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws DecodeException
+     *             If the entry could not be decoded because it was malformed.
+     */
+    @Override
+    public boolean hasNext() throws DecodeException, IOException {
+        return getNextEntry() != EOF;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws DecodeException
+     *             If the entry could not be decoded because it was malformed.
+     */
+    @Override
+    public Entry readEntry() throws DecodeException, IOException {
+        if (!hasNext()) {
+            // LDIF reader has completed successfully.
+            throw new NoSuchElementException();
+        }
+
+        final Entry entry = nextEntry;
+        nextEntry = null;
+        return entry;
+    }
+
+    /**
+     * Sets the approximate size in bytes of the chunks of LDIF which are
+     * decoded by a single thread. The default is 4MB.
+     *
+     * @param chunkSize
+     *            The approximate size in bytes of the chunks of LDIF.
+     * @return A reference to this {@code ParallelLDIFEntryReader}.
+     */
+    public ParallelLDIFEntryReader setChunkSize(final int chunkSize) {
+        Reject.ifFalse(chunkSize > 0, "chunkSize must be strictly positive");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Specifies whether all operational attributes should be excluded
+     * from any entries that are read from LDIF. The default is {@code false}.
+     *
+     * @param excludeOperationalAttributes
+     *            {@code true} if all operational attributes should be excluded,
+     *            or {@code false} otherwise.
+     * @return A reference to this {@code ParallelLDIFEntryReader}.
+     */
+    public ParallelLDIFEntryReader setExcludeAllOperationalAttributes(
+            final boolean excludeOperationalAttributes) {
+        options.setExcludeAllOperationalAttributes(excludeOperationalAttributes);
+        return this;
+    }
+
+    /**
+     * Specifies whether all user attributes should be excluded from any
+     * entries that are read from LDIF. The default is {@code false}.
+     *
+     * @param excludeUserAttributes
+     *            {@code true} if all user attributes should be excluded, or
+     *            {@code false} otherwise.
+     * @return A reference to this {@code ParallelLDIFEntryReader}.
+     */
+    public ParallelLDIFEntryReader setExcludeAllUserAttributes(final boolean excludeUserAttributes) {
+        options.setExcludeAllUserAttributes(excludeUserAttributes);
+        return this;
+    }
+
+    /**
+     * Excludes the named attribute from any entries that are read from LDIF. By
+     * default all attributes are included unless explicitly excluded.
+     *
+     * @param attributeDescription
+     *            The name of the attribute to be excluded.
+     * @return A reference to this {@code ParallelLDIFEntryReader}.
+     */
+    public ParallelLDIFEntryReader setExcludeAttribute(final AttributeDescription attributeDescription) {
+        options.setExcludeAttribute(attributeDescription);
+        return this;
+    }
+
+    /**
+     * Excludes all entries beneath the named entry (inclusive) from being read
+     * from LDIF. By default all entries are written unless explicitly excluded
+     * or included by branches or filters.
+     *
+     * @param excludeBranch
+     *            The distinguished name of the branch to be excluded.
+     * @return A reference to this {@code ParallelLDIFEntryReader}.
+     */
+    public ParallelLDIFEntryReader setExcludeBranch(final DN excludeBranch) {
+        options.setExcludeBranch(excludeBranch);
+        return this;
+    }
+
+    /**
+     * Excludes all entries which match the provided filter matcher from being
+     * read from LDIF. By default all entries are read unless explicitly
+     * excluded or included by branches or filters.
+     *
+     * @param excludeFilter
+     *            The filter matcher.
+     * @return A reference to this {@code ParallelLDIFEntryReader}.
+     */
+    public ParallelLDIFEntryReader setExcludeFilter(final Matcher excludeFilter) {
+        options.setExcludeFilter(excludeFilter);
+        return this;
+    }
+
+    /**
+     * Ensures that the named attribute is not excluded from any entries that
+     * are read from LDIF. By default all attributes are included unless
+     * explicitly excluded.
+     *
+     * @param attributeDescription
+     *            The name of the attribute to be included.
+     * @return A reference to this {@code ParallelLDIFEntryReader}.
+     */
+    public ParallelLDIFEntryReader setIncludeAttribute(final AttributeDescription attributeDescription) {
+        options.setIncludeAttribute(attributeDescription);
+        return this;
+    }
+
+    /**
+     * Ensures that all entries beneath the named entry (inclusive) are read
+     * from LDIF. By default all entries are written unless explicitly excluded
+     * or included by branches or filters.
+     *
+     * @param includeBranch
+     *            The distinguished name of the branch to be included.
+     * @return A reference to this {@code ParallelLDIFEntryReader}.
+     */
+    public ParallelLDIFEntryReader setIncludeBranch(final DN includeBranch) {
+        options.setIncludeBranch(includeBranch);
+        return this;
+    }
+
+    /**
+     * Ensures that all entries which match the provided filter matcher are read
+     * from LDIF. By default all entries are read unless explicitly excluded or
+     * included by branches or filters.
+     *
+     * @param includeFilter
+     *            The filter matcher.
+     * @return A reference to this {@code ParallelLDIFEntryReader}.
+     */
+    public ParallelLDIFEntryReader setIncludeFilter(final Matcher includeFilter) {
+        options.setIncludeFilter(includeFilter);
+        return this;
+    }
+
+    /**
+     * Sets the rejected record listener which should be notified whenever an
+     * LDIF record is skipped, malformed, or fails schema validation.
+     * <p>
+     * By default the {@link RejectedLDIFListener#FAIL_FAST} listener is used.
+     *
+     * @param listener
+     *            The rejected record listener.
+     * @return A reference to this {@code ParallelLDIFEntryReader}.
+     */
+    public ParallelLDIFEntryReader setRejectedLDIFListener(final RejectedLDIFListener listener) {
+        this.rejectedRecordListener = listener;
+        return this;
+    }
+
+    /**
+     * Sets the schema which should be used for decoding entries that are read
+     * from LDIF. The default schema is used if no other is specified.
+     *
+     * @param schema
+     *            The schema which should be used for decoding entries that are
+     *            read from LDIF.
+     * @return A reference to this {@code ParallelLDIFEntryReader}.
+     */
+    public ParallelLDIFEntryReader setSchema(final Schema schema) {
+        options.setSchema(schema);
+        return this;
+    }
+
+    /**
+     * Specifies the schema validation which should be used when reading LDIF
+     * entry records. If attribute value validation is enabled then all checks
+     * will be performed.
+     * <p>
+     * Schema validation is disabled by default.
+     * <p>
+     * <b>NOTE:</b> this method copies the provided policy so changes made to it
+     * after this method has been called will have no effect.
+     *
+     * @param policy
+     *            The schema validation which should be used when reading LDIF
+     *            entry records.
+     * @return A reference to this {@code ParallelLDIFEntryReader}.
+     */
+    public ParallelLDIFEntryReader setSchemaValidationPolicy(final SchemaValidationPolicy policy) {
+        options.setSchemaValidationPolicy(policy);
+        return this;
+    }
+
+    private Entry getNextEntry() throws DecodeException, IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        try {
+            while (nextEntry == null) {
+                if (currentEvents.hasNext()) {
+                    final Object event = currentEvents.next();
+                    if (event instanceof Entry) {
+                        nextEntry = (Entry) event;
+                    } else {
+                        ((Rejection) event).replay(rejectedRecordListener);
+                    }
+                } else if (currentError != null) {
+                    throw currentError;
+                } else {
+                    final DecodedChunk chunk = nextDecodedChunk();
+                    if (chunk == null) {
+                        nextEntry = EOF;
+                    } else {
+                        currentEvents = chunk.events.iterator();
+                        currentError = chunk.error;
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            failure = e;
+            throw e;
+        }
+        return nextEntry;
+    }
+
+    /** Returns the next decoded chunk in file order, or {@code null} if the end of the file has been reached. */
+    private DecodedChunk nextDecodedChunk() throws IOException {
+        while (pendingChunks.size() < maxPendingChunks && splitPosition < fileSize) {
+            pendingChunks.add(executor.submit(nextChunkDecoder()));
+        }
+        final Future<DecodedChunk> pendingChunk = pendingChunks.poll();
+        if (pendingChunk == null) {
+            return null;
+        }
+        try {
+            return pendingChunk.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Returns a decoder for the next chunk of the file. A chunk ends with the
+     * first blank line found after {@code chunkSize} bytes, so that it only
+     * contains complete records. Lines are counted along the way so that
+     * decoders can report absolute line numbers.
+     */
+    private ChunkDecoder nextChunkDecoder() throws IOException {
+        final long start = splitPosition;
+        final long lineNumberOffset = splitLineNumber;
+        final long limit = start + chunkSize;
+        long position = start;
+        boolean isBlankLine = true;
+        while (position < fileSize) {
+            final byte b = byteAt(position++);
+            if (b == '\n') {
+                splitLineNumber++;
+                if (isBlankLine && position >= limit) {
+                    break;
+                }
+                isBlankLine = true;
+            } else if (b != '\r') {
+                isBlankLine = false;
+            }
+        }
+        splitPosition = position;
+        return new ChunkDecoder(start, position, lineNumberOffset);
+    }
+
+    private byte byteAt(final long position) throws IOException {
+        if (splitWindow == null || position < splitWindowStart
+                || position >= splitWindowStart + splitWindow.limit()) {
+            splitWindowStart = position;
+            splitWindow = channel.map(MapMode.READ_ONLY, position,
+                    Math.min(SPLIT_WINDOW_SIZE, fileSize - position));
+        }
+        return splitWindow.get((int) (position - splitWindowStart));
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.forgerock.opendj.ldif;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.forgerock.opendj.ldap.AttributeDescription;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.Entry;
+import org.forgerock.opendj.ldap.Matcher;
+import org.forgerock.util.Reject;
+
+/**
+ * An LDIF entry writer which formats entries using several threads. Entries
+ * and comments are grouped into batches which are formatted concurrently, and
+ * then written to the destination in the order in which they were provided.
+ * <p>
+ * This writer supports the same options as {@link LDIFEntryWriter}. Entries
+ * must not be modified once they have been written, until this writer has
+ * been flushed. Matchers may be used concurrently by the formatting threads.
+ *
+ * @see <a href="http://tools.ietf.org/html/rfc2849">RFC 2849 - The LDAP Data
+ *      Interchange Format (LDIF) - Technical Specification </a>
+ */
+public final class ParallelLDIFEntryWriter implements EntryWriter {
+    /** The default number of entries and comments formatted by a single thread. */
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /** Formats a batch of entries and comments. */
+    private final class BatchFormatter implements Callable<String> {
+        private final List<Object> batch;
+
+        private BatchFormatter(final List<Object> batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public String call() throws IOException {
+            final StringWriter ldif = new StringWriter();
+            try (LDIFEntryWriter writer = new LDIFEntryWriter(ldif)) {
+                writer.copyWriterOptions(options);
+                for (final Object o : batch) {
+                    if (o instanceof Entry) {
+                        writer.writeEntry((Entry) o);
+                    } else {
+                        writer.writeComment((CharSequence) o);
+                    }
+                }
+            }
+            return ldif.toString();
+        }
+    }
+
+    private final Writer writer;
+    private final ExecutorService executor;
+    private final int maxPendingBatches;
+    private final ArrayDeque<Future<String>> pendingBatches = new ArrayDeque<>();
+    /** Holds the options which are copied into the writer of each batch. */
+    private final LDIFEntryWriter options = new LDIFEntryWriter(Collections.<String> emptyList());
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private List<Object> batch = new ArrayList<>();
+
+    /**
+     * Creates a new parallel LDIF entry writer whose destination is the
+     * provided output stream, using the fork/join pool shared by the parallel
+     * LDIF readers and writers, which has one thread per available processor.
+     *
+     * @param out
+     *            The output stream to use.
+     */
+    public ParallelLDIFEntryWriter(final OutputStream out) {
+        this(new OutputStreamWriter(out));
+    }
+
+    /**
+     * Creates a new parallel LDIF entry writer whose destination is the
+     * provided character stream writer, using the fork/join pool shared by
+     * the parallel LDIF readers and writers, which has one thread per
+     * available processor.
+     *
+     * @param writer
+     *            The character stream writer to use.
+     */
+    public ParallelLDIFEntryWriter(final Writer writer) {
+        this(writer, LDIFThreadPool.getSharedPool());
+    }
+
+    /**
+     * Creates a new parallel LDIF entry writer whose destination is the
+     * provided character stream writer, formatting entries using the provided
+     * executor. The executor will not be shutdown when this writer is closed.
+     *
+     * @param writer
+     *            The character stream writer to use.
+     * @param executor
+     *            The executor which should be used for formatting entries.
+     */
+    public ParallelLDIFEntryWriter(final Writer writer, final ExecutorService executor) {
+        Reject.ifNull(writer, executor);
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+        this.executor = executor;
+        final int parallelism = executor instanceof ForkJoinPool
+                ? ((ForkJoinPool) executor).getParallelism() : Runtime.getRuntime().availableProcessors();
+        this.maxPendingBatches = 2 * parallelism;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        submitBatch();
+        while (!pendingBatches.isEmpty()) {
+            writePendingBatch();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Sets the number of entries and comments which are formatted by a single
+     * thread. The default is 1000.
+     *
+     * @param batchSize
+     *            The number of entries and comments formatted by a single
+     *            thread.
+     * @return A reference to this {@code ParallelLDIFEntryWriter}.
+     */
+    public ParallelLDIFEntryWriter setBatchSize(final int batchSize) {
+        Reject.ifFalse(batchSize > 0, "batchSize must be strictly positive");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Specifies whether user-friendly comments should be added whenever
+     * distinguished names or UTF-8 attribute values are encountered which
+     * contained non-ASCII characters. The default is {@code false}.
+     *
+     * @param addUserFriendlyComments
+     *            {@code true} if user-friendly comments should be added, or
+     *            {@code false} otherwise.
+     * @return A reference to this {@code ParallelLDIFEntryWriter}.
+     */
+    public ParallelLDIFEntryWriter setAddUserFriendlyComments(final boolean addUserFriendlyComments) {
+        options.setAddUserFriendlyComments(addUserFriendlyComments);
+        return this;
+    }
+
+    /**
+     * Specifies whether all operational attributes should be excluded
+     * from any entries that are written to LDIF. The default is {@code false}.
+     *
+     * @param excludeOperationalAttributes
+     *            {@code true} if all operational attributes should be excluded,
+     *            or {@code false} otherwise.
+     * @return A reference to this {@code ParallelLDIFEntryWriter}.
+     */
+    public ParallelLDIFEntryWriter setExcludeAllOperationalAttributes(
+            final boolean excludeOperationalAttributes) {
+        options.setExcludeAllOperationalAttributes(excludeOperationalAttributes);
+        return this;
+    }
+
+    /**
+     * Specifies whether all user attributes should be excluded from any
+     * entries that are written to LDIF. The default is {@code false}.
+     *
+     * @param excludeUserAttributes
+     *            {@code true} if all user attributes should be excluded, or
+     *            {@code false} otherwise.
+     * @return A reference to this {@code ParallelLDIFEntryWriter}.
+     */
+    public ParallelLDIFEntryWriter setExcludeAllUserAttributes(final boolean excludeUserAttributes) {
+        options.setExcludeAllUserAttributes(excludeUserAttributes);
+        return this;
+    }
+
+    /**
+     * Excludes the named attribute from any entries that are written to LDIF.
+     * By default all attributes are included unless explicitly excluded.
+     *
+     * @param attributeDescription
+     *            The name of the attribute to be excluded.
+     * @return A reference to this {@code ParallelLDIFEntryWriter}.
+     */
+    public ParallelLDIFEntryWriter setExcludeAttribute(final AttributeDescription attributeDescription) {
+        options.setExcludeAttribute(attributeDescription);
+        return this;
+    }
+
+    /**
+     * Excludes all entries beneath the named entry (inclusive) from being
+     * written to LDIF. By default all entries are written unless explicitly
+     * excluded or included by branches or filters.
+     *
+     * @param excludeBranch
+     *            The distinguished name of the branch to be excluded.
+     * @return A reference to this {@code ParallelLDIFEntryWriter}.
+     */
+    public ParallelLDIFEntryWriter setExcludeBranch(final DN excludeBranch) {
+        options.setExcludeBranch(excludeBranch);
+        return this;
+    }
+
+    /**
+     * Excludes all entries which match the provided filter matcher from being
+     * written to LDIF. By default all entries are written unless explicitly
+     * excluded or included by branches or filters.
+     *
+     * @param excludeFilter
+     *            The filter matcher.
+     * @return A reference to this {@code ParallelLDIFEntryWriter}.
+     */
+    public ParallelLDIFEntryWriter setExcludeFilter(final Matcher excludeFilter) {
+        options.setExcludeFilter(excludeFilter);
+        return this;
+    }
+
+    /**
+     * Ensures that the named attribute is not excluded from any entries that
+     * are written to LDIF. By default all attributes are included unless
+     * explicitly excluded.
+     *
+     * @param attributeDescription
+     *            The name of the attribute to be included.
+     * @return A reference to this {@code ParallelLDIFEntryWriter}.
+     */
+    public ParallelLDIFEntryWriter setIncludeAttribute(final AttributeDescription attributeDescription) {
+        options.setIncludeAttribute(attributeDescription);
+        return this;
+    }
+
+    /**
+     * Ensures that all entries beneath the named entry (inclusive) are written
+     * to LDIF. By default all entries are written unless explicitly excluded
+     * or included by branches or filters.
+     *
+     * @param includeBranch
+     *            The distinguished name of the branch to be included.
+     * @return A reference to this {@code ParallelLDIFEntryWriter}.
+     */
+    public ParallelLDIFEntryWriter setIncludeBranch(final DN includeBranch) {
+        options.setIncludeBranch(includeBranch);
+        return this;
+    }
+
+    /**
+     * Ensures that all entries which match the provided filter matcher are
+     * written to LDIF. By default all entries are written unless explicitly
+     * excluded or included by branches or filters.
+     *
+     * @param includeFilter
+     *            The filter matcher.
+     * @return A reference to this {@code ParallelLDIFEntryWriter}.
+     */
+    public ParallelLDIFEntryWriter setIncludeFilter(final Matcher includeFilter) {
+        options.setIncludeFilter(includeFilter);
+        return this;
+    }
+
+    /**
+     * Specifies the column at which long lines should be wrapped. A value less
+     * than or equal to zero (the default) indicates that no wrapping should be
+     * performed.
+     *
+     * @param wrapColumn
+     *            The column at which long lines should be wrapped.
+     * @return A reference to this {@code ParallelLDIFEntryWriter}.
+     */
+    public ParallelLDIFEntryWriter setWrapColumn(final int wrapColumn) {
+        options.setWrapColumn(wrapColumn);
+        return this;
+    }
+
+    @Override
+    public ParallelLDIFEntryWriter writeComment(final CharSequence comment) throws IOException {
+        Reject.ifNull(comment);
+        addToBatch(comment);
+        return this;
+    }
+
+    @Override
+    public ParallelLDIFEntryWriter writeEntry(final Entry entry) throws IOException {
+        Reject.ifNull(entry);
+        addToBatch(entry);
+        return this;
+    }
+
+    private void addToBatch(final Object o) throws IOException {
+        batch.add(o);
+        if (batch.size() >= batchSize) {
+            submitBatch();
+        }
+        // Write the batches which are already formatted, waiting only if too many batches are pending.
+        while (!pendingBatches.isEmpty()
+                && (pendingBatches.size() > maxPendingBatches || pendingBatches.peek().isDone())) {
+            writePendingBatch();
+        }
+    }
+
+    private void submitBatch() {
+        if (!batch.isEmpty()) {
+            pendingBatches.add(executor.submit(new BatchFormatter(batch)));
+            batch = new ArrayList<>();
+        }
+    }
+
+    private void writePendingBatch() throws IOException {
+        final Future<String> pendingBatch = pendingBatches.poll();
+        try {
+            writer.write(pendingBatch.get());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
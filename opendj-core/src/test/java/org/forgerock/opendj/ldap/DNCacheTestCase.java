@@ -0,0 +1,107 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.forgerock.opendj.ldap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.opendj.ldap.schema.Schema;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class DNCacheTestCase extends SdkTestCase {
+    @Test
+    public void testHitsAndMisses() {
+        final DNCache cache = new DNCache(100);
+        final DN dn1 = cache.valueOf("uid=user.0,ou=people,dc=example,dc=com", Schema.getDefaultSchema());
+        final DN dn2 = cache.valueOf("uid=user.0,ou=people,dc=example,dc=com", Schema.getDefaultSchema());
+
+        assertThat(dn2).isSameAs(dn1);
+        assertThat(dn1).isEqualTo(DN.valueOf("uid=user.0,ou=people,dc=example,dc=com"));
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void testCacheIsKeyedBySchema() {
+        final DNCache cache = new DNCache(100);
+        final Schema schema = Schema.getCoreSchema();
+        final Schema otherSchema = Schema.getEmptySchema();
+        final DN dn1 = cache.valueOf("dc=example,dc=com", schema);
+        final DN dn2 = cache.valueOf("dc=example,dc=com", otherSchema);
+
+        assertThat(dn2).isNotSameAs(dn1);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        final DNCache cache = new DNCache(32);
+        for (int i = 0; i < 1000; i++) {
+            cache.valueOf("uid=user." + i + ",ou=people,dc=example,dc=com", Schema.getDefaultSchema());
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(32);
+        assertThat(cache.getEvictionCount()).isEqualTo(1000 - cache.size());
+
+        cache.clear();
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.getMissCount()).isEqualTo(0);
+    }
+
+    @DataProvider
+    public Object[][] maxSizes() {
+        return new Object[][] { { 1 }, { 3 }, { 17 }, { 100 } };
+    }
+
+    @Test(dataProvider = "maxSizes")
+    public void testCacheIsFilledUpToItsMaxSize(final int maxSize) {
+        final DNCache cache = new DNCache(maxSize);
+        for (int i = 0; i < 1000; i++) {
+            cache.valueOf("uid=user." + i + ",ou=people,dc=example,dc=com", Schema.getDefaultSchema());
+        }
+        assertThat(cache.size()).isEqualTo(maxSize);
+    }
+
+    @Test(expectedExceptions = LocalizedIllegalArgumentException.class)
+    public void testInvalidDNIsNotCached() {
+        final DNCache cache = new DNCache(100);
+        try {
+            cache.valueOf("not a dn", Schema.getDefaultSchema());
+        } finally {
+            assertThat(cache.size()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testSharedCacheIsUsedByValueOf() {
+        final DNCache previousCache = DN.getSharedCache();
+        final DNCache cache = new DNCache(100);
+        DN.setSharedCache(cache);
+        try {
+            final DN dn1 = DN.valueOf("cn=test,dc=example,dc=com");
+            final DN dn2 = DN.valueOf("cn=test,dc=example,dc=com");
+            assertThat(dn2).isSameAs(dn1);
+            assertThat(dn2.toNormalizedByteString()).isSameAs(dn1.toNormalizedByteString());
+            assertThat(cache.getHitCount()).isEqualTo(1);
+        } finally {
+            DN.setSharedCache(previousCache);
+        }
+    }
+}
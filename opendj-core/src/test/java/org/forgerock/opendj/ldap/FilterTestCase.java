@@ -326,4 +326,39 @@ public class FilterTestCase extends SdkTestCase {
     public void testEscapeAssertionValue(Object unescaped, String expected) throws Exception {
         assertEquals(Filter.escapeAssertionValue(unescaped), expected);
     }
+
+    @DataProvider
+    public Object[][] getMatcherFilters() {
+        // @formatter:off
+        return new Object[][] {
+            { "(&(cn=test)(sn=smith)(objectClass=*))", ConditionResult.TRUE },
+            { "(&(objectClass=*)(sn=jones))", ConditionResult.FALSE },
+            { "(&(cn:1.2.3.4:=test)(sn=jones))", ConditionResult.FALSE },
+            { "(&(cn:1.2.3.4:=test)(sn=smith))", ConditionResult.UNDEFINED },
+            { "(|(cn:1.2.3.4:=test)(sn=smith))", ConditionResult.TRUE },
+            { "(|(cn:1.2.3.4:=test)(sn=jones))", ConditionResult.UNDEFINED },
+            { "(!(!(cn=test)))", ConditionResult.TRUE },
+            { "(!(cn:1.2.3.4:=test))", ConditionResult.UNDEFINED },
+            { "(&(&)(cn=test))", ConditionResult.TRUE },
+            { "(&(|)(cn=test))", ConditionResult.FALSE },
+            { "(|(&)(cn=jones))", ConditionResult.TRUE },
+            { "(!(&))", ConditionResult.FALSE },
+            { "(&(|(cn=t*)(sn=jones))(&(sn=s*h)(cn=*est)))", ConditionResult.TRUE },
+            { "(cn=testing*)", ConditionResult.FALSE },
+            { "(cn=t*e*t)", ConditionResult.TRUE },
+            { "(cn=te*est)", ConditionResult.FALSE },
+        };
+        // @formatter:on
+    }
+
+    @Test(dataProvider = "getMatcherFilters")
+    public void testCompiledMatcher(String filter, ConditionResult expected) throws Exception {
+        final Entry entry = new LinkedHashMapEntry(
+                "dn: cn=test,dc=example,dc=com",
+                "objectClass: top",
+                "objectClass: person",
+                "cn: test",
+                "sn: smith");
+        assertEquals(Filter.valueOf(filter).matcher().matches(entry), expected);
+    }
 }
@@ -17,9 +17,11 @@
 
 package org.forgerock.opendj.ldap;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import org.forgerock.opendj.ldap.schema.Schema;
@@ -418,4 +420,43 @@ public final class LinkedAttributeTestCase extends SdkTestCase {
         i = a.iterator();
         Assert.assertFalse(i.hasNext());
     }
+
+    @Test
+    public void testBulkOperationsWithLinkedAttribute() {
+        final LinkedAttribute a = new LinkedAttribute("cn", "Foo", "bar");
+        final LinkedAttribute b = new LinkedAttribute("cn", "FOO", "baz");
+        final List<ByteString> duplicateValues = new ArrayList<>();
+
+        Assert.assertTrue(a.addAll(b, duplicateValues));
+        Assert.assertEquals(duplicateValues, Arrays.asList(ByteString.valueOfUtf8("FOO")));
+        Assert.assertEquals(a, new LinkedAttribute("cn", "foo", "BAR", "BAZ"));
+        Assert.assertTrue(a.containsAll(b));
+        Assert.assertFalse(b.containsAll(a));
+
+        final List<ByteString> missingValues = new ArrayList<>();
+        Assert.assertTrue(a.retainAll(new LinkedAttribute("cn", "BAR", "BAZ", "qux"), missingValues));
+        Assert.assertEquals(missingValues, Arrays.asList(ByteString.valueOfUtf8("qux")));
+        Assert.assertEquals(a, new LinkedAttribute("cn", "bar", "baz"));
+
+        missingValues.clear();
+        Assert.assertTrue(a.removeAll(new LinkedAttribute("cn", "BAZ", "qux"), missingValues));
+        Assert.assertEquals(missingValues, Arrays.asList(ByteString.valueOfUtf8("qux")));
+        Assert.assertEquals(a, new LinkedAttribute("cn", "bar"));
+
+        Assert.assertFalse(a.retainAll(new LinkedAttribute("cn", "BAR", "baz")));
+        Assert.assertTrue(a.retainAll(new LinkedAttribute("cn", "baz")));
+        Assert.assertTrue(a.isEmpty());
+    }
+
+    @Test
+    public void testHashCodeUsesNormalizedValues() {
+        final LinkedAttribute a = new LinkedAttribute("cn", "Foo", "bar");
+        final LinkedAttribute b = new LinkedAttribute("cn", "FOO", "BAR");
+
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.hashCode(), b.hashCode());
+        Assert.assertEquals(a.hashCode(), AbstractAttribute.hashCode(b));
+        Assert.assertEquals(new LinkedAttribute("cn", "Foo").hashCode(),
+                AbstractAttribute.hashCode(new LinkedAttribute("cn", "FOO")));
+    }
 }
@@ -31,6 +31,8 @@ import org.forgerock.opendj.ldap.controls.PostReadRequestControl;
 import org.forgerock.opendj.ldap.controls.PostReadResponseControl;
 import org.forgerock.opendj.ldap.controls.PreReadRequestControl;
 import org.forgerock.opendj.ldap.controls.PreReadResponseControl;
+import org.forgerock.opendj.ldap.controls.ServerSideSortRequestControl;
+import org.forgerock.opendj.ldap.controls.ServerSideSortResponseControl;
 import org.forgerock.opendj.ldap.controls.SimplePagedResultsControl;
 import org.forgerock.opendj.ldap.requests.Requests;
 import org.forgerock.opendj.ldap.requests.SearchRequest;
@@ -548,6 +550,105 @@ public class MemoryBackendTestCase extends SdkTestCase {
         assertThat(cookie.isEmpty()).isTrue();
     }
 
+    @DataProvider
+    public Object[][] indexedSearchFilters() {
+        // @formatter:off
+        return new Object[][] {
+            { "(uid=test2)", 1 },
+            { "(uid=TEST2)", 1 },
+            { "(uid=missing)", 0 },
+            { "(uid=*)", 5 },
+            { "(&(uid=test2)(sn=user 2))", 1 },
+            { "(&(uid=test2)(sn=user 3))", 0 },
+            { "(&(objectClass=person)(!(uid=test2)))", 4 },
+            { "(|(uid=test1)(uid=test3)(uid=missing))", 2 },
+            { "(|(uid=test1)(cn=test user 3))", 2 },
+        };
+        // @formatter:on
+    }
+
+    @Test(dataProvider = "indexedSearchFilters")
+    public void testSearchIndexed(final String filter, final int expectedEntries) throws Exception {
+        final Connection connection = newInternalConnection(getMemoryBackend().addIndex("uid"));
+        final Collection<SearchResultEntry> entries = new ArrayList<>();
+        connection.search(Requests.newSearchRequest("dc=com", SearchScope.WHOLE_SUBTREE, filter), entries);
+        assertThat(entries).hasSize(expectedEntries);
+    }
+
+    @Test
+    public void testSearchIndexedAfterUpdates() throws Exception {
+        final MemoryBackend backend = getMemoryBackend().addIndex("uid").addIndex("description");
+        final Connection connection = newInternalConnection(backend);
+        connection.modify(newModifyRequest("uid=test1,ou=people,dc=example,dc=com")
+                .addModification(ModificationType.REPLACE, "uid", "renamed")
+                .addModification(ModificationType.ADD, "description", "modified"));
+        connection.delete("uid=test2,ou=people,dc=example,dc=com");
+
+        assertThat(connection.searchSingleEntry("dc=com", SearchScope.WHOLE_SUBTREE, "(uid=renamed)").getName())
+                .isEqualTo(DN.valueOf("uid=test1,ou=people,dc=example,dc=com"));
+        assertThat(connection.searchSingleEntry("dc=com", SearchScope.WHOLE_SUBTREE, "(description=*)").getName())
+                .isEqualTo(DN.valueOf("uid=test1,ou=people,dc=example,dc=com"));
+
+        final Collection<SearchResultEntry> entries = new ArrayList<>();
+        connection.search(Requests.newSearchRequest("dc=com", SearchScope.WHOLE_SUBTREE,
+                "(|(uid=test1)(uid=test2))"), entries);
+        assertThat(entries).isEmpty();
+    }
+
+    @Test
+    public void testSearchIndexedScope() throws Exception {
+        final Connection connection = newInternalConnection(getMemoryBackend().addIndex("objectClass"));
+        final Collection<SearchResultEntry> entries = new ArrayList<>();
+        connection.search(Requests.newSearchRequest("dc=example,dc=com", SearchScope.SINGLE_LEVEL,
+                "(objectClass=*)"), entries);
+        assertThat(entries).hasSize(1);
+    }
+
+    @Test
+    public void testSearchSortedAndPaged() throws Exception {
+        final Connection connection = getConnection();
+        final List<SearchResultEntry> entries = new ArrayList<>();
+        final SearchRequest search = Requests.newSearchRequest("ou=people,dc=example,dc=com",
+                SearchScope.WHOLE_SUBTREE, "(uid=*)");
+        final DecodeOptions dc = new DecodeOptions();
+
+        // First page in reverse order.
+        search.addControl(ServerSideSortRequestControl.newControl(true, new SortKey("uid", true)));
+        search.addControl(SimplePagedResultsControl.newControl(true, 3, ByteString.empty()));
+        Result result = connection.search(search, entries);
+        assertThat(entries).hasSize(3);
+        assertThat(entries.get(0).getName().toString()).isEqualTo("uid=test5,ou=People,dc=example,dc=com");
+        assertThat(entries.get(2).getName().toString()).isEqualTo("uid=test3,ou=People,dc=example,dc=com");
+        assertThat(result.getControl(ServerSideSortResponseControl.DECODER, dc).getResult())
+                .isEqualTo(ResultCode.SUCCESS);
+        final ByteString cookie = result.getControl(SimplePagedResultsControl.DECODER, dc).getCookie();
+        entries.clear();
+        search.getControls().clear();
+
+        // Final page.
+        search.addControl(ServerSideSortRequestControl.newControl(true, new SortKey("uid", true)));
+        search.addControl(SimplePagedResultsControl.newControl(true, 3, cookie));
+        result = connection.search(search, entries);
+        assertThat(entries).hasSize(2);
+        assertThat(entries.get(0).getName().toString()).isEqualTo("uid=test2,ou=People,dc=example,dc=com");
+        assertThat(entries.get(1).getName().toString()).isEqualTo("uid=test1,ou=People,dc=example,dc=com");
+        assertThat(result.getControl(SimplePagedResultsControl.DECODER, dc).getCookie().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testSearchSortedWithUnsupportedKey() throws Exception {
+        final Connection connection = getConnection();
+        final List<SearchResultEntry> entries = new ArrayList<>();
+        final SearchRequest search = Requests.newSearchRequest("ou=people,dc=example,dc=com",
+                SearchScope.WHOLE_SUBTREE, "(uid=*)");
+        // objectClass does not have an ordering matching rule.
+        search.addControl(ServerSideSortRequestControl.newControl(false, new SortKey("objectClass")));
+        final Result result = connection.search(search, entries);
+        assertThat(entries).hasSize(5);
+        assertThat(result.getControl(ServerSideSortResponseControl.DECODER, new DecodeOptions()).getResult())
+                .isEqualTo(ResultCode.INAPPROPRIATE_MATCHING);
+    }
+
     @Test
     public void testSimpleBind() throws Exception {
         final Connection connection = getConnection();
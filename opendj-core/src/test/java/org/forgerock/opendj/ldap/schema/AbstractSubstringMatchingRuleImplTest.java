@@ -138,6 +138,12 @@ public class AbstractSubstringMatchingRuleImplTest extends AbstractSchemaTestCas
         return options;
     }
 
+    private static IndexingOptions newAnchoredIndexingOptions(int subStringLength) {
+        final IndexingOptions options = newIndexingOptions(subStringLength);
+        when(options.substringAnchoredKeys()).thenReturn(true);
+        return options;
+    }
+
     @DataProvider
     public Object[][] invalidAssertions() {
         return new Object[][] {
@@ -271,6 +277,35 @@ public class AbstractSubstringMatchingRuleImplTest extends AbstractSchemaTestCas
         Assertions.assertThat(keys).containsOnly((Object[]) toByteStrings("ABC", "BCD", "CDE", "DE", "E"));
     }
 
+    @Test
+    public void testSubstringCreateIndexQueryWithAnchoredKeys() throws Exception {
+        Assertion assertion = getRule().getSubstringAssertion(
+            null, valueOfUtf8("ab"), Arrays.asList(toByteStrings("cde")), valueOfUtf8("fg"));
+
+        final String anchoredIndexID = SMR_CASE_EXACT_OID + ":anchored";
+        assertEquals(
+            assertion.createIndexQuery(new FakeIndexQueryFactory(newAnchoredIndexingOptions(subStringLength))),
+            "intersect["
+                    + "rangeMatch(" + anchoredIndexID + ", '\u0000ab' <= value < '\u0000ac'), "
+                    + "exactMatch(" + subStringIndexID(SMR_CASE_EXACT_OID) + ", value=='cde'), "
+                    + "rangeMatch(" + anchoredIndexID + ", '\u0001gf' <= value < '\u0001gg')"
+                    + "]");
+    }
+
+    @Test
+    public void testAnchoredIndexer() throws Exception {
+        final Collection<? extends Indexer> indexers = getRule().createIndexers(newAnchoredIndexingOptions(3));
+        Assertions.assertThat(indexers).hasSize(2);
+        final Indexer indexer = indexers.toArray(new Indexer[0])[1];
+        Assertions.assertThat(indexer.getIndexID()).isEqualTo(SMR_CASE_EXACT_OID + ":anchored");
+
+        final TreeSet<ByteString> keys = new TreeSet<>();
+        indexer.createKeys(Schema.getCoreSchema(), valueOfUtf8("ABCDE"), keys);
+        Assertions.assertThat(keys).containsOnly((Object[]) toByteStrings("\u0000ABCDE", "\u0001EDCBA"));
+        Assertions.assertThat(indexer.keyToHumanReadableString(keys.first())).isEqualTo("^ABCDE");
+        Assertions.assertThat(indexer.keyToHumanReadableString(keys.last())).isEqualTo("ABCDE$");
+    }
+
     private ByteString[] toByteStrings(String... strings) {
         final ByteString[] results = new ByteString[strings.length];
         for (int i = 0; i < strings.length; i++) {
@@ -0,0 +1,238 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.forgerock.opendj.ldif;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.Entry;
+import org.forgerock.opendj.ldap.TestCaseUtils;
+import org.testng.annotations.Test;
+
+/** This class tests the ParallelLDIFEntryReader and ParallelLDIFEntryWriter functionality. */
+@SuppressWarnings("javadoc")
+public final class ParallelLDIFEntryReaderTestCase extends AbstractLDIFTestCase {
+    private static final int NB_ENTRIES = 500;
+
+    /** Records the line numbers of the rejected records. */
+    private static final class LineNumberRecorder implements RejectedLDIFListener {
+        private final List<Long> lineNumbers = new ArrayList<>();
+
+        @Override
+        public void handleMalformedRecord(final long lineNumber, final List<String> lines,
+                final LocalizableMessage reason) {
+            lineNumbers.add(lineNumber);
+        }
+
+        @Override
+        public void handleSchemaValidationFailure(final long lineNumber, final List<String> lines,
+                final List<LocalizableMessage> reasons) {
+            lineNumbers.add(lineNumber);
+        }
+
+        @Override
+        public void handleSchemaValidationWarning(final long lineNumber, final List<String> lines,
+                final List<LocalizableMessage> reasons) {
+            lineNumbers.add(lineNumber);
+        }
+
+        @Override
+        public void handleSkippedRecord(final long lineNumber, final List<String> lines,
+                final LocalizableMessage reason) {
+            lineNumbers.add(lineNumber);
+        }
+    }
+
+    private static List<String> getLDIFLines(final boolean withMalformedRecords) {
+        final List<String> lines = new ArrayList<>();
+        lines.add("version: 1");
+        lines.add("");
+        for (int i = 0; i < NB_ENTRIES; i++) {
+            lines.add("# Entry " + i);
+            lines.add("dn: uid=user." + i + ",ou=people,dc=example,dc=com");
+            lines.add("objectClass: top");
+            lines.add("objectClass: person");
+            lines.add("uid: user." + i);
+            lines.add("cn: User " + i);
+            lines.add("description: A long description which is folded on");
+            lines.add("  two lines for user " + i);
+            if (withMalformedRecords && i % 50 == 0) {
+                lines.add("malformed line");
+            }
+            lines.add("");
+            lines.add("");
+        }
+        return lines;
+    }
+
+    private static List<Entry> readAll(final EntryReader reader) throws Exception {
+        final List<Entry> entries = new ArrayList<>();
+        try {
+            while (reader.hasNext()) {
+                entries.add(reader.readEntry());
+            }
+        } finally {
+            reader.close();
+        }
+        return entries;
+    }
+
+    private static File createLDIFFile(final List<String> lines) throws Exception {
+        return new File(TestCaseUtils.createTempFile(lines.toArray(new String[lines.size()])));
+    }
+
+    @Test
+    public void testReadEntriesInOrder() throws Exception {
+        final List<String> lines = getLDIFLines(false);
+        final List<Entry> expected = readAll(new LDIFEntryReader(lines));
+        final List<Entry> actual =
+                readAll(new ParallelLDIFEntryReader(createLDIFFile(lines)).setChunkSize(256));
+
+        assertThat(expected).hasSize(NB_ENTRIES);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void testReadEntriesWithOptions() throws Exception {
+        final List<String> lines = getLDIFLines(false);
+        final DN excludedBranch = DN.valueOf("uid=user.1,ou=people,dc=example,dc=com");
+        final List<Entry> expected = readAll(new LDIFEntryReader(lines)
+                .setExcludeBranch(excludedBranch)
+                .setExcludeAllUserAttributes(true)
+                .setRejectedLDIFListener(RejectedLDIFListener.IGNORE_ALL));
+        final List<Entry> actual = readAll(new ParallelLDIFEntryReader(createLDIFFile(lines))
+                .setChunkSize(1024)
+                .setExcludeBranch(excludedBranch)
+                .setExcludeAllUserAttributes(true)
+                .setRejectedLDIFListener(RejectedLDIFListener.IGNORE_ALL));
+
+        assertThat(expected).hasSize(NB_ENTRIES - 1);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void testRejectedRecordsAreReportedInOrder() throws Exception {
+        final List<String> lines = getLDIFLines(true);
+        final LineNumberRecorder expectedRecorder = new LineNumberRecorder();
+        final List<Entry> expected =
+                readAll(new LDIFEntryReader(lines).setRejectedLDIFListener(expectedRecorder));
+        final LineNumberRecorder actualRecorder = new LineNumberRecorder();
+        final List<Entry> actual = readAll(new ParallelLDIFEntryReader(createLDIFFile(lines))
+                .setChunkSize(512)
+                .setRejectedLDIFListener(actualRecorder));
+
+        assertThat(expectedRecorder.lineNumbers).hasSize(NB_ENTRIES / 50);
+        assertThat(actualRecorder.lineNumbers).isEqualTo(expectedRecorder.lineNumbers);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void testFailFastStopsAtFirstMalformedRecord() throws Exception {
+        final List<String> lines = getLDIFLines(true);
+        final ParallelLDIFEntryReader reader =
+                new ParallelLDIFEntryReader(createLDIFFile(lines)).setChunkSize(512);
+        try {
+            // The first entry is malformed.
+            reader.hasNext();
+            TestCaseUtils.failWasExpected(DecodeException.class);
+        } catch (final DecodeException expected) {
+            // Subsequent calls keep failing.
+            try {
+                reader.readEntry();
+                TestCaseUtils.failWasExpected(DecodeException.class);
+            } catch (final DecodeException e) {
+                assertThat(e).isSameAs(expected);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testCloseWaitsForRunningDecoders() throws Exception {
+        final AtomicInteger runningDecoders = new AtomicInteger();
+        final ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>()) {
+                    @Override
+                    protected <T> RunnableFuture<T> newTaskFor(final Callable<T> callable) {
+                        return super.newTaskFor(new Callable<T>() {
+                            @Override
+                            public T call() throws Exception {
+                                runningDecoders.incrementAndGet();
+                                try {
+                                    return callable.call();
+                                } finally {
+                                    runningDecoders.decrementAndGet();
+                                }
+                            }
+                        });
+                    }
+                };
+        try {
+            final ParallelLDIFEntryReader reader =
+                    new ParallelLDIFEntryReader(createLDIFFile(getLDIFLines(false)), executor).setChunkSize(256);
+            assertThat(reader.hasNext()).isTrue();
+            reader.close();
+            assertThat(runningDecoders.get()).isEqualTo(0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReadEmptyFile() throws Exception {
+        final ParallelLDIFEntryReader reader = new ParallelLDIFEntryReader(createLDIFFile(new ArrayList<String>()));
+        assertThat(readAll(reader)).isEmpty();
+    }
+
+    @Test
+    public void testWriteEntriesInOrder() throws Exception {
+        final List<Entry> entries = readAll(new LDIFEntryReader(getLDIFLines(false)));
+
+        final StringWriter expected = new StringWriter();
+        try (LDIFEntryWriter writer = new LDIFEntryWriter(expected)) {
+            writer.setWrapColumn(40).writeComment("Start");
+            for (final Entry entry : entries) {
+                writer.writeEntry(entry);
+            }
+            writer.writeComment("End");
+        }
+
+        final StringWriter actual = new StringWriter();
+        try (ParallelLDIFEntryWriter writer = new ParallelLDIFEntryWriter(actual)) {
+            writer.setBatchSize(7).setWrapColumn(40).writeComment("Start");
+            for (final Entry entry : entries) {
+                writer.writeEntry(entry);
+            }
+            writer.writeComment("End");
+        }
+
+        assertThat(actual.toString()).isEqualTo(expected.toString());
+    }
+}
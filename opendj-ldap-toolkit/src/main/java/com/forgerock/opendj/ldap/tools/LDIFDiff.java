@@ -17,13 +17,14 @@ package com.forgerock.opendj.ldap.tools;
 
 import static com.forgerock.opendj.cli.ArgumentConstants.OPTION_LONG_OUTPUT_LDIF_FILENAME;
 import static com.forgerock.opendj.cli.ArgumentConstants.OPTION_SHORT_OUTPUT_LDIF_FILENAME;
+import static com.forgerock.opendj.cli.ArgumentConstants.USE_SYSTEM_STREAM_TOKEN;
 import static com.forgerock.opendj.cli.ToolVersionHandler.newSdkVersionHandler;
 import static com.forgerock.opendj.ldap.tools.LDAPToolException.newToolParamException;
 import static com.forgerock.opendj.ldap.tools.ToolsMessages.*;
 import static com.forgerock.opendj.cli.CommonArguments.*;
 
 import static com.forgerock.opendj.ldap.tools.Utils.computeWrapColumn;
-import static com.forgerock.opendj.ldap.tools.Utils.getLDIFToolInputStream;
+import static com.forgerock.opendj.ldap.tools.Utils.getLDIFToolEntryReader;
 import static com.forgerock.opendj.ldap.tools.Utils.getLDIFToolOutputStream;
 import static com.forgerock.opendj.ldap.tools.Utils.parseArguments;
 import static com.forgerock.opendj.ldap.tools.Utils.runTool;
@@ -31,7 +32,6 @@ import static com.forgerock.opendj.ldap.tools.Utils.runToolAndExit;
 import static org.forgerock.util.Utils.closeSilently;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.List;
@@ -40,9 +40,9 @@ import com.forgerock.opendj.cli.IntegerArgument;
 import org.forgerock.i18n.LocalizableException;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldif.ChangeRecordReader;
+import org.forgerock.opendj.ldif.EntryReader;
 import org.forgerock.opendj.ldif.LDIF;
 import org.forgerock.opendj.ldif.LDIFChangeRecordWriter;
-import org.forgerock.opendj.ldif.LDIFEntryReader;
 
 import com.forgerock.opendj.cli.ArgumentException;
 import com.forgerock.opendj.cli.ArgumentParser;
@@ -131,23 +131,23 @@ public final class LDIFDiff extends ToolConsoleApplication {
             return ResultCode.SUCCESS.intValue();
         }
 
-        InputStream sourceInputStream = null;
-        InputStream targetInputStream = null;
+        EntryReader sourceReader = null;
+        EntryReader targetReader = null;
         OutputStream outputStream = null;
 
         try {
             final List<String> trailingArguments = argParser.getTrailingArguments();
-            sourceInputStream = getLDIFToolInputStream(this, trailingArguments.get(0));
-            targetInputStream = getLDIFToolInputStream(this, trailingArguments.get(1));
-            outputStream = getLDIFToolOutputStream(this, outputFilename);
-
-            if (System.in == sourceInputStream && System.in == targetInputStream) {
+            final String sourceFilePath = trailingArguments.get(0);
+            final String targetFilePath = trailingArguments.get(1);
+            if (USE_SYSTEM_STREAM_TOKEN.equals(sourceFilePath) && USE_SYSTEM_STREAM_TOKEN.equals(targetFilePath)) {
                 throw newToolParamException(ERR_LDIFDIFF_MULTIPLE_USES_OF_STDIN.get());
             }
 
-            try (LDIFEntryReader sourceReader = new LDIFEntryReader(sourceInputStream);
-                 LDIFEntryReader targetReader = new LDIFEntryReader(targetInputStream);
-                 LDIFChangeRecordWriter outputWriter = new LDIFChangeRecordWriter(outputStream)) {
+            sourceReader = getLDIFToolEntryReader(this, sourceFilePath);
+            targetReader = getLDIFToolEntryReader(this, targetFilePath);
+            outputStream = getLDIFToolOutputStream(this, outputFilename);
+
+            try (LDIFChangeRecordWriter outputWriter = new LDIFChangeRecordWriter(outputStream)) {
                 outputWriter.setWrapColumn(computeWrapColumn(wrapColumn));
                 final ChangeRecordReader changes = LDIF.diff(sourceReader, targetReader);
                 LDIF.copyTo(changes, outputWriter);
@@ -168,7 +168,7 @@ public final class LDIFDiff extends ToolConsoleApplication {
         } catch (final ArgumentException ae) {
             throw newToolParamException(ae, ae.getMessageObject());
         } finally {
-            closeSilently(sourceInputStream, targetInputStream, outputStream);
+            closeSilently(sourceReader, targetReader, outputStream);
         }
     }
 }
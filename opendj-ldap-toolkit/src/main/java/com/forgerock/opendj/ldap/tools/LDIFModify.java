@@ -22,7 +22,7 @@ import static com.forgerock.opendj.cli.ToolVersionHandler.newSdkVersionHandler;
 import static com.forgerock.opendj.ldap.tools.LDAPToolException.newToolParamException;
 import static com.forgerock.opendj.ldap.tools.ToolsMessages.*;
 import static com.forgerock.opendj.ldap.tools.Utils.computeWrapColumn;
-import static com.forgerock.opendj.ldap.tools.Utils.getLDIFToolInputStream;
+import static com.forgerock.opendj.ldap.tools.Utils.getLDIFToolEntryReader;
 import static com.forgerock.opendj.ldap.tools.Utils.getLDIFToolOutputStream;
 import static com.forgerock.opendj.ldap.tools.Utils.parseArguments;
 import static com.forgerock.opendj.ldap.tools.Utils.runTool;
@@ -31,7 +31,6 @@ import static org.forgerock.util.Utils.closeSilently;
 import static com.forgerock.opendj.cli.CommonArguments.*;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.List;
@@ -45,9 +44,9 @@ import org.forgerock.opendj.ldap.requests.AddRequest;
 import org.forgerock.opendj.ldap.requests.DeleteRequest;
 import org.forgerock.opendj.ldap.requests.ModifyDNRequest;
 import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldif.EntryReader;
 import org.forgerock.opendj.ldif.LDIF;
 import org.forgerock.opendj.ldif.LDIFChangeRecordReader;
-import org.forgerock.opendj.ldif.LDIFEntryReader;
 import org.forgerock.opendj.ldif.LDIFEntryWriter;
 import org.forgerock.opendj.ldif.RejectedChangeRecordListener;
 import org.forgerock.util.annotations.VisibleForTesting;
@@ -143,20 +142,20 @@ public final class LDIFModify extends ToolConsoleApplication {
         }
 
         final List<String> trailingArguments = argParser.getTrailingArguments();
-        LDIFEntryReader sourceReader = null;
+        EntryReader sourceReader = null;
         LDIFChangeRecordReader changesReader = null;
-        try (InputStream sourceInputStream = getLDIFToolInputStream(this, trailingArguments.get(0));
-             OutputStream outputStream = getLDIFToolOutputStream(this, outputFilename);
+        try (OutputStream outputStream = getLDIFToolOutputStream(this, outputFilename);
              LDIFEntryWriter outputWriter = new LDIFEntryWriter(outputStream)) {
             outputWriter.setWrapColumn(computeWrapColumn(wrapColumn));
             final int nbTrailingArgs = trailingArguments.size();
             final boolean readChangesFromStdin = nbTrailingArgs == 1
                     || (nbTrailingArgs == 2 && USE_SYSTEM_STREAM_TOKEN.equals(trailingArguments.get(1)));
-            if (getInputStream() == sourceInputStream && readChangesFromStdin) {
+            final String sourceFilePath = trailingArguments.get(0);
+            if (USE_SYSTEM_STREAM_TOKEN.equals(sourceFilePath) && readChangesFromStdin) {
                 throw newToolParamException(ERR_LDIFMODIFY_MULTIPLE_USES_OF_STDIN.get());
             }
 
-            sourceReader = new LDIFEntryReader(sourceInputStream);
+            sourceReader = getLDIFToolEntryReader(this, sourceFilePath);
             if (readChangesFromStdin) {
                 changesReader = new LDIFChangeRecordReader(getInputStream());
             } else {
@@ -23,7 +23,7 @@ import static com.forgerock.opendj.ldap.tools.ToolsMessages.*;
 import static com.forgerock.opendj.cli.CommonArguments.*;
 
 import static com.forgerock.opendj.ldap.tools.Utils.computeWrapColumn;
-import static com.forgerock.opendj.ldap.tools.Utils.getLDIFToolInputStream;
+import static com.forgerock.opendj.ldap.tools.Utils.getLDIFToolEntryReader;
 import static com.forgerock.opendj.ldap.tools.Utils.getLDIFToolOutputStream;
 import static com.forgerock.opendj.ldap.tools.Utils.parseArguments;
 import static com.forgerock.opendj.ldap.tools.Utils.readFilterFromString;
@@ -44,9 +44,9 @@ import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.ldap.requests.Requests;
 import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldif.EntryReader;
 import org.forgerock.opendj.ldif.LDIF;
-import org.forgerock.opendj.ldif.LDIFEntryReader;
-import org.forgerock.opendj.ldif.LDIFEntryWriter;
+import org.forgerock.opendj.ldif.ParallelLDIFEntryWriter;
 
 import com.forgerock.opendj.cli.ArgumentException;
 import com.forgerock.opendj.cli.ArgumentParser;
@@ -186,9 +186,9 @@ public final class LDIFSearch extends ToolConsoleApplication {
             throw newToolParamException(e, e.getMessageObject());
         }
 
-        try (final LDIFEntryReader sourceReader =
-                     new LDIFEntryReader(getLDIFToolInputStream(this, trailingArguments.get(0)));
-             final LDIFEntryWriter outputWriter = new LDIFEntryWriter(getLDIFToolOutputStream(this, outputFilename))) {
+        try (final EntryReader sourceReader = getLDIFToolEntryReader(this, trailingArguments.get(0));
+             final ParallelLDIFEntryWriter outputWriter =
+                     new ParallelLDIFEntryWriter(getLDIFToolOutputStream(this, outputFilename))) {
             outputWriter.setWrapColumn(computeWrapColumn(wrapColumn));
             LDIF.copyTo(LDIF.search(sourceReader, search), outputWriter);
         } catch (final LdapException e) {
@@ -27,12 +27,11 @@ import static com.forgerock.opendj.ldap.tools.LDAPToolException.newToolParamExce
 import static com.forgerock.opendj.ldap.tools.ToolsMessages.*;
 
 import java.io.BufferedReader;
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
@@ -76,6 +75,9 @@ import org.forgerock.opendj.ldap.responses.BindResult;
 import com.forgerock.opendj.cli.ConsoleApplication;
 import com.forgerock.opendj.ldap.controls.AccountUsabilityRequestControl;
 import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldif.EntryReader;
+import org.forgerock.opendj.ldif.LDIFEntryReader;
+import org.forgerock.opendj.ldif.ParallelLDIFEntryReader;
 import org.forgerock.util.annotations.VisibleForTesting;
 
 /**
@@ -241,17 +243,21 @@ final class Utils {
         }
     }
 
-    static InputStream getLDIFToolInputStream(final ConsoleApplication app, final String filePath)
+    /**
+     * Returns an entry reader for the provided LDIF file. Files are decoded
+     * using several threads, while the standard input is decoded sequentially.
+     */
+    static EntryReader getLDIFToolEntryReader(final ConsoleApplication app, final String filePath)
             throws LDAPToolException {
         if (!USE_SYSTEM_STREAM_TOKEN.equals(filePath)) {
             try {
-                return new FileInputStream(filePath);
-            } catch (final FileNotFoundException e) {
+                return new ParallelLDIFEntryReader(new File(filePath));
+            } catch (final IOException e) {
                 throw newToolParamException(
                         e, ERR_LDIF_FILE_CANNOT_OPEN_FOR_READ.get(filePath, e.getLocalizedMessage()));
             }
         } else {
-            return app.getInputStream();
+            return new LDIFEntryReader(app.getInputStream());
         }
     }
 
@@ -428,6 +428,54 @@ public abstract class Group<T extends GroupImplementationCfg>
   public abstract void updateMembers(List<Modification> modifications)
          throws UnsupportedOperationException, DirectoryException;
 
+  /**
+   * Indicates whether this group reports the changes made to its
+   * member list to the group manager, through
+   * {@code GroupManager.updateMembershipIndex(Group, Collection,
+   * Collection)}.  The group manager reads the whole member list of
+   * the groups which do not report their changes each time their
+   * member list is altered, which is costly for large groups.
+   *
+   * @return  {@code true} if this group reports the changes made to
+   *          its member list, or {@code false} if not.
+   */
+  public boolean reportsMemberListChanges()
+  {
+    return false;
+  }
+
+  /**
+   * Indicates whether this group needs to be notified of the changes
+   * made to the entries of the server, through
+   * {@link #memberEntryChanged(Entry, Entry)}, in order to maintain
+   * its member list.
+   *
+   * @return  {@code true} if this group needs to be notified of the
+   *          changes made to the entries, or {@code false} if not.
+   */
+  public boolean tracksMemberEntryChanges()
+  {
+    return false;
+  }
+
+  /**
+   * Notifies this group that an entry has been added, deleted,
+   * modified or renamed.  This is only called if
+   * {@link #tracksMemberEntryChanges()} returns {@code true}.  A group
+   * altering its member list as a result must report the changes to
+   * the group manager if it {@link #reportsMemberListChanges()}.
+   *
+   * @param  oldEntry  The entry before the change, or {@code null} if
+   *                   the entry has been added.
+   * @param  newEntry  The entry after the change, or {@code null} if
+   *                   the entry, and its subordinates if any, have
+   *                   been deleted.
+   */
+  public void memberEntryChanged(Entry oldEntry, Entry newEntry)
+  {
+    // No implementation required by default.
+  }
+
   /**
    * Attempts to add the provided user as a member of this group.  The
    * change should be committed to persistent storage through an
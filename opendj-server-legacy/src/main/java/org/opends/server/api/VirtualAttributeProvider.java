@@ -18,6 +18,7 @@ package org.opends.server.api;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -25,6 +26,7 @@ import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.Assertion;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ConditionResult;
+import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.DecodeException;
 import org.forgerock.opendj.ldap.schema.MatchingRule;
 import org.forgerock.opendj.server.config.server.VirtualAttributeCfg;
@@ -32,6 +34,7 @@ import org.opends.server.core.SearchOperation;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.Entry;
 import org.opends.server.types.InitializationException;
+import org.opends.server.types.SearchFilter;
 import org.opends.server.types.VirtualAttributeRule;
 
 /**
@@ -512,5 +515,43 @@ public abstract class VirtualAttributeProvider
    */
   public abstract void processSearch(VirtualAttributeRule rule,
                                      SearchOperation searchOperation);
+
+
+
+  /**
+   * Retrieves the DNs of the entries whose virtual values may match
+   * the provided component of a search filter.  Backends use them as
+   * the candidate entries of this component, and combine them with
+   * the candidate entries read from their indexes for the other
+   * components, so that filters mixing real and virtual attributes
+   * can still be processed with the indexes.  The returned set may
+   * contain entries which do not match the filter component, or
+   * which are not held by the backend, but it must contain every
+   * entry to which the rule applies and whose virtual values match
+   * the filter component.
+   * <p>
+   * The default implementation returns {@code null}.
+   *
+   * @param  rule             The virtual attribute rule which defines
+   *                          the constraints for the virtual
+   *                          attribute.
+   * @param  searchOperation  The search operation being processed.
+   * @param  filter           The component of the search filter,
+   *                          which targets the attribute type of the
+   *                          rule or one of its supertypes.
+   * @param  maxCandidates    The maximum number of DNs which may be
+   *                          returned.
+   *
+   * @return  The DNs of the candidate entries, or {@code null} if they
+   *          cannot be determined, or if there are more than
+   *          {@code maxCandidates} of them.
+   */
+  public Set<DN> getCandidateEntryDNs(VirtualAttributeRule rule,
+                                      SearchOperation searchOperation,
+                                      SearchFilter filter,
+                                      int maxCandidates)
+  {
+    return null;
+  }
 }
 
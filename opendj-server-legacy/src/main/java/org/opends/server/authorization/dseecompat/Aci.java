@@ -41,6 +41,11 @@ public class Aci implements Comparable<Aci>
     private final String aciString;
     /** The DN of the entry containing this ACI. */
     private final DN dn;
+    /**
+     * Whether the evaluation of this ACI for an attribute only depends on the
+     * client and on the targets matched by the resource entry.
+     */
+    private final boolean resourceIndependent;
 
     /** Regular expression matching a word group. */
     public static final String WORD_GROUP="(\\w+)";
@@ -235,6 +240,8 @@ public class Aci implements Comparable<Aci>
         this.dn=dn;
         this.body=body;
         this.targets=targets;
+        this.resourceIndependent = body.isResourceIndependent()
+                && (targets == null || targets.getTargAttrFilters() == null);
     }
 
     /**
@@ -289,6 +296,18 @@ public class Aci implements Comparable<Aci>
         return dn;
     }
 
+    /**
+     * Indicates whether the evaluation of this ACI only depends on the client
+     * and on the targets matched by the resource entry, but
+     * neither on the attributes of the resource entry (userattr, userdn self
+     * and parent, targattrfilters) nor on the time of the evaluation.
+     * @return True if the access decisions made with this ACI may be reused
+     * for other entries matching the same targets.
+     */
+    boolean isResourceIndependent() {
+        return resourceIndependent;
+    }
+
     /**
      * Test if the given ACI is applicable using the target match information
      * provided. The ACI target can have seven keywords at this time:
@@ -332,6 +351,32 @@ public class Aci implements Comparable<Aci>
      * @return  True if this ACI targets are applicable or match.
      */
     public static boolean isApplicable(Aci aci, AciTargetMatchContext matchCtx) {
+      return mayApplyTo(aci, matchCtx.getRights()) && isTargetApplicable(aci, matchCtx);
+    }
+
+    /**
+     * Check if an ACI may be applicable to the specified rights. This only
+     * tests the rights of the ACI and the presence of the extop and
+     * targetcontrol keywords, which do not depend on the entry being
+     * evaluated, so that the ACIs can be indexed by rights.
+     *
+     * @param aci The ACI to test.
+     * @param rights The rights being evaluated.
+     * @return  True if this ACI may be applicable to the rights.
+     */
+    static boolean mayApplyTo(Aci aci, int rights) {
+      if((rights & ACI_EXT_OP) != 0) {
+        return aci.getTargets().getExtOp() != null;
+      } else if((rights & ACI_CONTROL) != 0) {
+        return aci.getTargets().getTargetControl() != null;
+      }
+      //If an ACI has extOp or targetControl targets skip it because the
+      //rights do not contain either ACI_EXT_OP or ACI_CONTROL at this point.
+      return hasNoExtOpOrTargetControl(aci.getTargets())
+          && haveSimilarRights(aci, rights);
+    }
+
+    private static boolean isTargetApplicable(Aci aci, AciTargetMatchContext matchCtx) {
       if(matchCtx.hasRights(ACI_EXT_OP)) {
         //Extended operation is being evaluated.
          return AciTargets.isTargetApplicable(aci, matchCtx) &&
@@ -341,12 +386,7 @@ public class Aci implements Comparable<Aci>
          return AciTargets.isTargetApplicable(aci, matchCtx) &&
                 AciTargets.isTargetControlApplicable(aci, matchCtx);
       } else {
-        //If an ACI has extOp or targetControl targets skip it because the
-        //matchCtx right does not contain either ACI_EXT_OP or ACI_CONTROL at
-        //this point.
-        return hasNoExtOpOrTargetControl(aci.getTargets())
-            && haveSimilarRights(aci, matchCtx)
-            && AciTargets.isTargetApplicable(aci, matchCtx)
+        return AciTargets.isTargetApplicable(aci, matchCtx)
             && AciTargets.isTargetFilterApplicable(aci, matchCtx)
             && AciTargets.isTargAttrFiltersApplicable(aci, matchCtx)
             && AciTargets.isTargetAttrApplicable(aci, matchCtx);
@@ -359,12 +399,11 @@ public class Aci implements Comparable<Aci>
           && aciTargets.getTargetControl() == null;
     }
 
-    private static boolean haveSimilarRights(Aci aci,
-        AciTargetMatchContext matchCtx)
+    private static boolean haveSimilarRights(Aci aci, int rights)
     {
-      return aci.hasRights(matchCtx.getRights())
+      return aci.hasRights(rights)
             || (aci.hasRights(ACI_SEARCH| ACI_READ)
-                  && matchCtx.hasRights(ACI_SEARCH | ACI_READ));
+                  && (rights & (ACI_SEARCH | ACI_READ)) != 0);
     }
 
     /**
@@ -209,6 +209,21 @@ public class AciBody {
         return false;
     }
 
+    /**
+     * Indicates whether the evaluation of the bind rules of this ACI body only
+     * depends on the client and its connection.
+     *
+     * @return True if none of the bind rules depends on the resource entry.
+     */
+    boolean isResourceIndependent() {
+        for (PermBindRulePair p : getPermBindRulePairs()) {
+            if (!p.getBindRule().isResourceIndependent()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Retrieve the permission-bind rule pairs of this ACI body.
      *
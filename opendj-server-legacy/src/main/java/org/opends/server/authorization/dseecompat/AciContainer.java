@@ -24,7 +24,9 @@ import java.net.InetAddress;
 import java.security.cert.Certificate;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
@@ -34,6 +36,8 @@ import org.opends.server.api.ClientConnection;
 import org.opends.server.api.Group;
 import org.opends.server.controls.GetEffectiveRightsRequestControl;
 import org.opends.server.core.AddOperation;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.GroupManager;
 import org.opends.server.core.SearchOperation;
 import org.opends.server.types.AuthenticationInfo;
 import org.opends.server.types.AuthenticationType;
@@ -124,6 +128,12 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
      */
     private final HashMap<Aci,Aci> targAttrFilterAcis = new HashMap<>();
 
+    /**
+     * Results of matching the targetfilters against the resource entry,
+     * which does not change during the lifetime of this container.
+     */
+    private Map<TargetFilter, Boolean> targetFilterMatches;
+
     /**
      * The name of a ACI that decided an evaluation and contained a
      * targattrfilter keyword. Used in geteffectiverights attributeLevel
@@ -571,6 +581,19 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
         return targAttrFiltersMatch;
     }
 
+    @Override
+    public Boolean getTargetFilterMatch(TargetFilter targetFilter) {
+        return targetFilterMatches != null ? targetFilterMatches.get(targetFilter) : null;
+    }
+
+    @Override
+    public void setTargetFilterMatch(TargetFilter targetFilter, boolean match) {
+        if (targetFilterMatches == null) {
+            targetFilterMatches = new IdentityHashMap<>();
+        }
+        targetFilterMatches.put(targetFilter, match);
+    }
+
     @Override
     public String getControlOID() {
       return controlOID;
@@ -649,15 +672,16 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
 
     @Override
     public boolean isMemberOf(Group<?> group) {
+        final GroupManager groupManager = DirectoryServer.getGroupManager();
         try {
             if(useAuthzid) {
-                return group.isMember(this.authzid);
+                return groupManager.isMember(group.getGroupDN(), this.authzid);
             }
             Entry e = getClientEntry();
             if (e != null) {
-                return group.isMember(e);
+                return groupManager.isMember(group.getGroupDN(), e);
             }
-            return group.isMember(getClientDN());
+            return groupManager.isMember(group.getGroupDN(), getClientDN());
         } catch (DirectoryException ex) {
             return false;
         }
@@ -124,8 +124,8 @@ public interface AciEvalContext
 
     /**
      * Return true if the operation associated with this evaluation
-     * context is a member of the specified group. Calls the
-     * ClientConnection.isMemberOf() method, which checks authorization
+     * context is a member of the specified group. Relies on the reverse
+     * membership index of the group manager, which checks authorization
      * DN membership in the specified group.
      * @param group The group to check membership in.
      * @return {@code true} if the authorization DN of the operation is a
@@ -17,10 +17,13 @@
  */
 package org.opends.server.authorization.dseecompat;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -93,6 +96,18 @@ public final class AciHandler extends
    */
   static final String ORIG_AUTH_ENTRY = "origAuthorizationEntry";
 
+  /**
+   * String used to save in an operation attachment the attributes filtered
+   * out of the search result entries already returned by the operation.
+   */
+  static final String FILTERED_ATTRS_CACHE = "aciFilteredAttrsCache";
+
+  /**
+   * The maximum number of entry shapes for which the filtered attributes are
+   * cached by an operation.
+   */
+  private static final int MAX_FILTERED_ATTRS_CACHE_SIZE = 256;
+
   /** Attribute type corresponding to "aci" attribute. */
   static AttributeType aciType;
 
@@ -169,7 +184,7 @@ public final class AciHandler extends
     boolean skipCheck = skipAccessCheck(operation);
     if (!skipCheck)
     {
-      filterEntry(container, filteredEntry);
+      filterEntry(operation, container, filteredEntry);
     }
 
     if (container.hasGetEffectiveRightsControl())
@@ -513,7 +528,7 @@ public final class AciHandler extends
     }
 
     // First get all allowed candidate ACIs.
-    List<Aci> candidates = aciList.getCandidateAcis(dn);
+    List<Aci> candidates = aciList.getCandidateAcis(dn, container.getRights());
     /*
      * Create an applicable list of ACIs by target matching each
      * candidate ACI against the container's target match view.
@@ -594,7 +609,111 @@ public final class AciHandler extends
   /**
    * Performs an access check against all of the attributes of an entry. The
    * attributes that fail access are removed from the entry. This method
-   * performs the processing needed for the filterEntry method processing.
+   * performs the processing needed for the filterEntry method processing,
+   * reusing the decisions made for the previous entries of the operation
+   * when they do not depend on the entry attributes.
+   *
+   * @param operation
+   *          The operation returning the entry.
+   * @param container
+   *          The search or compare container which has all of the information
+   *          needed to filter the attributes for this entry.
+   * @param filteredEntry
+   *          The partially filtered search result entry being returned to the
+   *          client.
+   */
+  private void filterEntry(Operation operation, AciContainer container,
+      Entry filteredEntry)
+  {
+    final List<Object> cacheKey = getFilteredAttrsCacheKey(container, filteredEntry);
+    if (cacheKey == null)
+    {
+      filterEntry(container, filteredEntry);
+      return;
+    }
+
+    final ConcurrentMap<List<Object>, List<AttributeType>> cache = getFilteredAttrsCache(operation);
+    List<AttributeType> filteredAttrs = cache.get(cacheKey);
+    if (filteredAttrs != null)
+    {
+      for (AttributeType attrType : filteredAttrs)
+      {
+        filteredEntry.removeAttribute(attrType);
+      }
+      return;
+    }
+    filteredAttrs = filterEntry(container, filteredEntry);
+    if (cache.size() < MAX_FILTERED_ATTRS_CACHE_SIZE)
+    {
+      cache.put(cacheKey, filteredAttrs);
+    }
+  }
+
+  /**
+   * Returns the key under which the attributes filtered out of an entry can be
+   * cached for the duration of the operation. Two entries having the same key
+   * are evaluated against the same ACIs, matching the same targets and
+   * targetfilters, for the same attribute types: since the bind rules of these
+   * ACIs only depend on the client, the same attributes are filtered out of
+   * both entries.
+   *
+   * @param container
+   *          The search container of the entry.
+   * @param filteredEntry
+   *          The search result entry being returned to the client.
+   * @return The cache key, or {@code null} if the access decisions for this
+   *         entry cannot be reused.
+   */
+  private List<Object> getFilteredAttrsCacheKey(AciContainer container,
+      Entry filteredEntry)
+  {
+    if (container.hasGetEffectiveRightsControl())
+    {
+      return null;
+    }
+    final long version = aciList.getVersion();
+    final DN dn = container.getResourceDN();
+    final List<Object> key = new ArrayList<>();
+    key.add(version);
+    key.add(container.hasAllUserAttributes());
+    key.add(container.hasAllOpAttributes());
+    key.add(getAllAttrs(filteredEntry));
+    for (Aci aci : aciList.getCandidateAcis(dn, container.getRights()))
+    {
+      if (!aci.isResourceIndependent())
+      {
+        return null;
+      }
+      final AciTargets targets = aci.getTargets();
+      if (AciTargets.isTargetApplicable(aci, targets, dn))
+      {
+        key.add(aci);
+        if (targets.getTargetFilter() != null)
+        {
+          key.add(targets.getTargetFilter().isApplicable(container));
+        }
+      }
+    }
+    // The ACIs changed while computing the key
+    return version == aciList.getVersion() ? key : null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ConcurrentMap<List<Object>, List<AttributeType>> getFilteredAttrsCache(
+      Operation operation)
+  {
+    Object cache = operation.getAttachment(FILTERED_ATTRS_CACHE);
+    if (cache == null)
+    {
+      cache = new ConcurrentHashMap<List<Object>, List<AttributeType>>();
+      operation.setAttachment(FILTERED_ATTRS_CACHE, cache);
+    }
+    return (ConcurrentMap<List<Object>, List<AttributeType>>) cache;
+  }
+
+  /**
+   * Performs an access check against all of the attributes of an entry. The
+   * attributes that fail access are removed from the entry.
    *
    * @param container
    *          The search or compare container which has all of the information
@@ -602,9 +721,11 @@ public final class AciHandler extends
    * @param filteredEntry
    *          The partially filtered search result entry being returned to the
    *          client.
+   * @return The attribute types removed from the entry.
    */
-  private void filterEntry(AciContainer container, Entry filteredEntry)
+  private List<AttributeType> filterEntry(AciContainer container, Entry filteredEntry)
   {
+    final List<AttributeType> filteredAttrs = new ArrayList<>();
     for (AttributeType attrType : getAllAttrs(filteredEntry))
     {
       if (container.hasAllUserAttributes() && !attrType.isOperational())
@@ -619,8 +740,10 @@ public final class AciHandler extends
       if (!accessAllowed(container))
       {
         filteredEntry.removeAttribute(attrType);
+        filteredAttrs.add(attrType);
       }
     }
+    return filteredAttrs;
   }
 
   /**
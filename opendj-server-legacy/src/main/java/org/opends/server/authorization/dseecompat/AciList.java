@@ -26,6 +26,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -52,6 +54,20 @@ public class AciList {
    */
   private volatile DITCacheMap<List<Aci>> aciList = new DITCacheMap<>();
 
+  /**
+   * The ACIs which may apply to a set of rights, indexed by rights then by DN.
+   * Each index is built on first use, and all are discarded when the ACIs
+   * change.
+   */
+  private final ConcurrentMap<Integer, Map<DN, List<Aci>>> acisByRights =
+          new ConcurrentHashMap<>();
+
+  /** The maximum number of sets of rights indexed at the same time. */
+  private static final int MAX_INDEXED_RIGHTS = 64;
+
+  /** Incremented each time the ACIs change. */
+  private volatile long version;
+
   /**
    * Lock to protect internal data structures.
    */
@@ -81,52 +97,126 @@ public class AciList {
    * @return A list of candidate ACIs that might be applicable.
    */
   public List<Aci> getCandidateAcis(DN baseDN) {
-    List<Aci> candidates = new LinkedList<>();
-    if(baseDN == null)
+    lock.readLock().lock();
+    try
     {
-      return candidates;
+      return getCandidateAcis(baseDN, aciList);
     }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
 
+  /**
+   * Using the base DN, return a list of ACIs that are candidates for
+   * evaluation of the specified rights. This is the same as
+   * {@link #getCandidateAcis(DN)}, except that the ACIs which cannot apply to
+   * the rights are skipped by using an index of the ACIs by rights.
+   *
+   * @param baseDN  The DN to check.
+   * @param rights  The rights being evaluated.
+   * @return A list of candidate ACIs that might be applicable.
+   */
+  public List<Aci> getCandidateAcis(DN baseDN, int rights) {
     lock.readLock().lock();
     try
     {
-      //Save the baseDN in case we need to evaluate a global ACI.
-      DN entryDN=baseDN;
-      while (baseDN != null) {
-        List<Aci> acis = aciList.get(baseDN);
-        if (acis != null) {
-          //Check if there are global ACIs. Global ACI has a NULL DN.
-          if (baseDN.isRootDN()) {
-            for (Aci aci : acis) {
-              AciTargets targets = aci.getTargets();
-              //If there is a target, evaluate it to see if this ACI should
-              //be included in the candidate set.
-              if (targets != null
-                  && AciTargets.isTargetApplicable(aci, targets, entryDN))
-              {
-                  candidates.add(aci);  //Add this ACI to the candidates.
-              }
+      return getCandidateAcis(baseDN, getAcisByDN(rights));
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static List<Aci> getCandidateAcis(DN baseDN,
+                                            Map<DN, List<Aci>> acisByDN) {
+    List<Aci> candidates = new ArrayList<>();
+    if(baseDN == null)
+    {
+      return candidates;
+    }
+
+    //Save the baseDN in case we need to evaluate a global ACI.
+    DN entryDN=baseDN;
+    while (baseDN != null) {
+      List<Aci> acis = acisByDN.get(baseDN);
+      if (acis != null) {
+        //Check if there are global ACIs. Global ACI has a NULL DN.
+        if (baseDN.isRootDN()) {
+          for (Aci aci : acis) {
+            AciTargets targets = aci.getTargets();
+            //If there is a target, evaluate it to see if this ACI should
+            //be included in the candidate set.
+            if (targets != null
+                && AciTargets.isTargetApplicable(aci, targets, entryDN))
+            {
+                candidates.add(aci);  //Add this ACI to the candidates.
             }
-          } else {
-            candidates.addAll(acis);
           }
-        }
-        if(baseDN.isRootDN()) {
-          break;
-        }
-        DN parentDN=baseDN.parent();
-        if(parentDN == null) {
-          baseDN=DN.rootDN();
         } else {
-          baseDN=parentDN;
+          candidates.addAll(acis);
         }
       }
-      return candidates;
+      if(baseDN.isRootDN()) {
+        break;
+      }
+      DN parentDN=baseDN.parent();
+      if(parentDN == null) {
+        baseDN=DN.rootDN();
+      } else {
+        baseDN=parentDN;
+      }
     }
-    finally
-    {
-      lock.readLock().unlock();
+    return candidates;
+  }
+
+  /**
+   * Returns the ACIs which may apply to the specified rights, by DN. Must be
+   * called with the read lock held.
+   */
+  private Map<DN, List<Aci>> getAcisByDN(int rights) {
+    Map<DN, List<Aci>> acisByDN = acisByRights.get(rights);
+    if (acisByDN == null) {
+      acisByDN = new HashMap<>();
+      for (Map.Entry<DN, List<Aci>> mapEntry : aciList.entrySet()) {
+        List<Aci> acis = new ArrayList<>();
+        for (Aci aci : mapEntry.getValue()) {
+          if (Aci.mayApplyTo(aci, rights)) {
+            acis.add(aci);
+          }
+        }
+        if (!acis.isEmpty()) {
+          acisByDN.put(mapEntry.getKey(), acis);
+        }
+      }
+      if (acisByRights.size() >= MAX_INDEXED_RIGHTS) {
+        acisByRights.clear();
+      }
+      acisByRights.put(rights, acisByDN);
     }
+    return acisByDN;
+  }
+
+  /**
+   * Discards the data computed from the ACIs after they have changed. Must be
+   * called with the write lock held.
+   */
+  private void acisChanged() {
+    acisByRights.clear();
+    version++;
+  }
+
+  /**
+   * Returns the version of the ACIs contained in this list, which changes each
+   * time ACIs are added, removed or renamed. Access decisions computed with a
+   * version of the ACIs must not be reused with another version.
+   *
+   * @return The version of the ACIs.
+   */
+  public long getVersion() {
+    return version;
   }
 
   /**
@@ -144,6 +234,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      acisChanged();
       int validAcis = 0;
       for (Entry entry : entries) {
         DN dn=entry.getName();
@@ -173,6 +264,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      acisChanged();
       aciList.put(dn, new LinkedList<>(acis));
     }
     finally
@@ -198,6 +290,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      acisChanged();
       int validAcis = 0;
       //Process global "ds-cfg-global-aci" attribute type. The oldentry
       //DN is checked to verify it is equal to the config DN. If not those
@@ -285,6 +378,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      acisChanged();
       List<LocalizableMessage> failedACIMsgs=new LinkedList<>();
       //Process "aci" attribute types.
       if(hasAci) {
@@ -346,6 +440,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      acisChanged();
       DN entryDN = entry.getName();
       if (hasGlobalAci && entryDN.equals(configDN) &&
           aciList.remove(DN.rootDN()) == null)
@@ -374,6 +469,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      acisChanged();
       Iterator<Map.Entry<DN,List<Aci>>> iterator =
               aciList.entrySet().iterator();
       while (iterator.hasNext())
@@ -402,6 +498,7 @@ public class AciList {
     lock.writeLock().lock();
     try
     {
+      acisChanged();
       Map<DN,List<Aci>> tempAciList = new HashMap<>();
       Iterator<Map.Entry<DN,List<Aci>>> iterator =
               aciList.entrySet().iterator();
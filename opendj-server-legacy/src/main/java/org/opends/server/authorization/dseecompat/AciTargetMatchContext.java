@@ -101,6 +101,23 @@ public interface AciTargetMatchContext {
      */
     boolean hasEntryTestRule();
 
+    /**
+     * Get the result of matching a targetfilter against the resource entry,
+     * if it has already been computed in this context.
+     * @param targetFilter The targetfilter.
+     * @return The result of the match, or {@code null} if the targetfilter
+     * has not been matched yet.
+     */
+    Boolean getTargetFilterMatch(TargetFilter targetFilter);
+
+    /**
+     * Set the result of matching a targetfilter against the resource entry,
+     * so that it is reused by the next evaluations of the targetfilter.
+     * @param targetFilter The targetfilter.
+     * @param match The result of the match.
+     */
+    void setTargetFilterMatch(TargetFilter targetFilter, boolean match);
+
     /**
      * Return the rights for this container's LDAP operation.
      * @return  The rights for the container's LDAP operation.
@@ -471,6 +471,32 @@ public class BindRule {
         return EnumEvalResult.negateIfNeeded(ret, negate);
     }
 
+    /**
+     * Indicates whether the evaluation of this bind rule only depends on the
+     * client and its connection, so that its result is the same for all the
+     * entries accessed by an operation. The userattr, dayofweek and timeofday
+     * keywords, as well as the userdn "self" and "parent" URLs, depend on the
+     * resource entry or on the time of the evaluation.
+     * @return True if the evaluation does not depend on the resource entry.
+     */
+    boolean isResourceIndependent() {
+        if (booleanType != null) {
+            return left.isResourceIndependent() && right.isResourceIndependent();
+        }
+        switch (keyword) {
+        case USERDN:
+            return ((UserDN) keywordRuleMap.get(keyword.toString())).isResourceIndependent();
+        case GROUPDN:
+        case IP:
+        case DNS:
+        case AUTHMETHOD:
+        case SSF:
+            return true;
+        default:
+            return false;
+        }
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
@@ -67,7 +67,14 @@ public class TargetFilter {
      * @return True if the target filter matched the context.
      */
     public boolean isApplicable(AciTargetMatchContext matchCtx) {
-        boolean ret = matchesFilter(matchCtx.getResourceEntry());
+        // The same targetfilter is usually matched once per attribute of the
+        // resource entry: only match it the first time
+        Boolean match = matchCtx.getTargetFilterMatch(this);
+        if (match == null) {
+            match = matchesFilter(matchCtx.getResourceEntry());
+            matchCtx.setTargetFilterMatch(this, match);
+        }
+        boolean ret = match;
         if(op.equals(EnumTargetOperator.NOT_EQUALITY))
         {
           return !ret;
@@ -183,6 +183,22 @@ public class UserDN implements KeywordBindRule {
         return matched.getRet(type, undefined);
     }
 
+    /**
+     * Indicates whether the evaluation of this userdn bind rule only depends
+     * on the client, that is none of its URLs refers to the entry being
+     * accessed ("ldap:///self" or "ldap:///parent").
+     * @return True if the evaluation does not depend on the resource entry.
+     */
+    boolean isResourceIndependent() {
+        for (UserDNTypeURL dnTypeURL : urlList) {
+            EnumUserDNType dnType = dnTypeURL.getUserDNType();
+            if (dnType == EnumUserDNType.SELF || dnType == EnumUserDNType.PARENT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Performs an evaluation of a single UserDNTypeURL of a userdn bind
      * rule using the evaluation context provided. This method is called
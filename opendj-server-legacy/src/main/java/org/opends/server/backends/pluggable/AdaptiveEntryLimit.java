@@ -0,0 +1,276 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+
+/**
+ * Lets the keys of an index which are frequently read hold more entry IDs than the index entry limit.
+ * <p>
+ * A key is hot when it has been read {@link #HOT_KEY_READS} times while its entry ID set was at least half
+ * full. When an update makes a hot key exceed the index entry limit, its entry ID set is kept defined as long
+ * as its encoded size fits in the {@link Budget} shared by the indexes of the base DN. The budget is the
+ * disk space, in bytes of encoded entry ID sets, that the extended keys may use, which is also the amount
+ * of data read by the searches using them.
+ * <p>
+ * The adaptive limit is disabled while the index-entry-limit-extension-size of the backend is zero.
+ * Importing or rebuilding an index always applies the configured index entry limit.
+ */
+final class AdaptiveEntryLimit
+{
+  /** The number of reads of a key approaching the index entry limit making it a hot key. */
+  static final int HOT_KEY_READS = 16;
+  /** The maximum number of keys approaching the index entry limit for which the reads are counted. */
+  static final int MAX_TRACKED_KEYS = 1024;
+
+  /** The disk space that the extended keys of several indexes may use above the index entry limit. */
+  static final class Budget
+  {
+    private volatile long size;
+    private final AtomicLong used = new AtomicLong();
+
+    Budget(long size)
+    {
+      this.size = size;
+    }
+
+    /**
+     * Returns the disk space that the extended keys may use.
+     *
+     * @return the size of the budget, in bytes
+     */
+    long getSize()
+    {
+      return size;
+    }
+
+    /**
+     * Sets the disk space that the extended keys may use. A smaller size only prevents extending more keys.
+     *
+     * @param size
+     *          the size of the budget, in bytes
+     */
+    void setSize(long size)
+    {
+      this.size = size;
+    }
+
+    /**
+     * Returns the disk space used by the extended keys.
+     *
+     * @return the used space, in bytes
+     */
+    long getUsed()
+    {
+      return used.get();
+    }
+
+    private boolean reserve(long bytes)
+    {
+      for (;;)
+      {
+        final long current = used.get();
+        if (bytes > 0 && current + bytes > size)
+        {
+          return false;
+        }
+        if (used.compareAndSet(current, current + bytes))
+        {
+          return true;
+        }
+      }
+    }
+
+    private void release(long bytes)
+    {
+      used.addAndGet(-bytes);
+    }
+  }
+
+  private final Budget budget;
+
+  /**
+   * Reads of the keys approaching the index entry limit. When full, the least read key is evicted, which is
+   * good enough for finding the hot keys without serializing the reads.
+   */
+  private final ConcurrentMap<ByteString, AtomicInteger> nearLimitReads = new ConcurrentHashMap<>();
+  /** The disk space reserved by each key holding more entry IDs than the index entry limit. */
+  private final ConcurrentMap<ByteString, Long> extendedKeys = new ConcurrentHashMap<>();
+
+  AdaptiveEntryLimit(Budget budget)
+  {
+    this.budget = budget;
+  }
+
+  /**
+   * Records a read of a key returning a defined entry ID set.
+   *
+   * @param key
+   *          the key which was read
+   * @param size
+   *          the size of the entry ID set of the key
+   * @param indexEntryLimit
+   *          the index entry limit
+   */
+  void keyRead(ByteSequence key, long size, int indexEntryLimit)
+  {
+    if (size < indexEntryLimit / 2 || budget.getSize() == 0)
+    {
+      return;
+    }
+    final ByteString keyBytes = key.toByteString();
+    AtomicInteger reads = nearLimitReads.get(keyBytes);
+    if (reads == null)
+    {
+      if (nearLimitReads.size() >= MAX_TRACKED_KEYS)
+      {
+        evictLeastReadKey();
+      }
+      final AtomicInteger newReads = new AtomicInteger();
+      reads = nearLimitReads.putIfAbsent(keyBytes, newReads);
+      if (reads == null)
+      {
+        reads = newReads;
+      }
+    }
+    reads.incrementAndGet();
+  }
+
+  private void evictLeastReadKey()
+  {
+    Map.Entry<ByteString, AtomicInteger> leastRead = null;
+    for (Map.Entry<ByteString, AtomicInteger> entry : nearLimitReads.entrySet())
+    {
+      if (leastRead == null || entry.getValue().get() < leastRead.getValue().get())
+      {
+        leastRead = entry;
+      }
+    }
+    if (leastRead != null)
+    {
+      nearLimitReads.remove(leastRead.getKey(), leastRead.getValue());
+    }
+  }
+
+  /**
+   * Returns whether a key exceeding the index entry limit may be extended, before computing its new entry
+   * ID set.
+   *
+   * @param key
+   *          the key exceeding the index entry limit
+   * @param wasExtended
+   *          whether the key was already holding more entry IDs than the limit, maybe before a restart
+   * @return {@code true} if {@link #tryExtend} may accept the key
+   */
+  boolean mayExtend(ByteString key, boolean wasExtended)
+  {
+    return budget.getSize() > 0 && (wasExtended || extendedKeys.containsKey(key) || isHot(key));
+  }
+
+  /**
+   * Returns whether a key may hold more entry IDs than the index entry limit, reserving the disk space taken
+   * by its encoded entry ID set if it does. This method is idempotent so that it can be called from update
+   * functions which may be retried.
+   *
+   * @param key
+   *          the key exceeding the index entry limit
+   * @param encodedSize
+   *          the size of the encoded entry ID set the key will hold
+   * @param wasExtended
+   *          whether the key was already holding more entry IDs than the limit, maybe before a restart
+   * @return {@code true} if the key may keep a defined entry ID set
+   */
+  synchronized boolean tryExtend(ByteString key, long encodedSize, boolean wasExtended)
+  {
+    final Long reserved = extendedKeys.get(key);
+    if (reserved == null && !wasExtended && !isHot(key))
+    {
+      return false;
+    }
+    final long alreadyReserved = reserved != null ? reserved : 0;
+    if (!budget.reserve(encodedSize - alreadyReserved))
+    {
+      release(key);
+      return false;
+    }
+    extendedKeys.put(key, encodedSize);
+    return true;
+  }
+
+  private boolean isHot(ByteString key)
+  {
+    final AtomicInteger reads = nearLimitReads.get(key);
+    return reads != null && reads.get() >= HOT_KEY_READS;
+  }
+
+  /**
+   * Releases the disk space reserved by a key which no longer exceeds the index entry limit.
+   *
+   * @param key
+   *          the key
+   */
+  synchronized void release(ByteString key)
+  {
+    final Long reserved = extendedKeys.remove(key);
+    if (reserved != null)
+    {
+      budget.release(reserved);
+    }
+  }
+
+  /** Releases the disk space reserved by all the keys, for example when the index is deleted. */
+  synchronized void releaseAll()
+  {
+    for (Long reserved : extendedKeys.values())
+    {
+      budget.release(reserved);
+    }
+    extendedKeys.clear();
+    nearLimitReads.clear();
+  }
+
+  /**
+   * Returns the number of keys holding more entry IDs than the index entry limit.
+   *
+   * @return the number of extended keys
+   */
+  int getExtendedKeyCount()
+  {
+    return extendedKeys.size();
+  }
+
+  /**
+   * Returns the disk space reserved by the extended keys of the index.
+   *
+   * @return the reserved disk space, in bytes
+   */
+  long getExtendedSize()
+  {
+    long total = 0;
+    for (Long reserved : extendedKeys.values())
+    {
+      total += reserved;
+    }
+    return total;
+  }
+}
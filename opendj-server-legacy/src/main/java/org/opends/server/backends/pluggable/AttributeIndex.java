@@ -291,6 +291,8 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
   private IndexingOptions indexingOptions;
   private final State state;
   private final CryptoSuite cryptoSuite;
+  /** The selectivity statistics of the indexes, used for planning the evaluation of search filters. */
+  private final IndexStatistics statistics = new IndexStatistics();
 
   AttributeIndex(BackendIndexCfg config, State state, EntryContainer entryContainer, CryptoSuite cryptoSuite)
       throws ConfigException
@@ -299,7 +301,7 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
     this.config = config;
     this.state = state;
     this.cryptoSuite = cryptoSuite;
-    this.indexingOptions = new IndexingOptionsImpl(config.getSubstringLength());
+    this.indexingOptions = newIndexingOptions(config);
     this.indexIdToIndexes = Collections.unmodifiableMap(buildIndexes(entryContainer, state, config, cryptoSuite));
   }
 
@@ -308,7 +310,7 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
   {
     final AttributeType attributeType = config.getAttribute();
     final int indexEntryLimit = config.getIndexEntryLimit();
-    final IndexingOptions indexingOptions = new IndexingOptionsImpl(config.getSubstringLength());
+    final IndexingOptions indexingOptions = newIndexingOptions(config);
 
     Map<Indexer, Boolean> indexers = new HashMap<>();
     for(IndexType indexType : config.getIndexType()) {
@@ -517,6 +519,37 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
     return config.getIndexType().contains(indexType);
   }
 
+  /**
+   * Returns the ID of the index whose keys exactly identify the entries matching a filter of the
+   * provided type, so that reading a single key of this index returns exactly these entries. This
+   * is the case of the presence index, and of the equality index when its matching rule has a
+   * single indexer and the keys are not hashed.
+   *
+   * @param indexFilterType
+   *          The type of the filter.
+   * @return The ID of the index, or {@code null} if there is none.
+   */
+  String getExactIndexID(IndexFilterType indexFilterType)
+  {
+    switch (indexFilterType)
+    {
+    case PRESENCE:
+      return isIndexed(IndexType.PRESENCE) ? PRESENCE_INDEXER.getIndexID() : null;
+
+    case EQUALITY:
+      final MatchingRule rule = getAttributeType().getEqualityMatchingRule();
+      if (!isIndexed(IndexType.EQUALITY) || rule == null || config.isConfidentialityEnabled())
+      {
+        return null;
+      }
+      final Collection<? extends Indexer> indexers = rule.createIndexers(indexingOptions);
+      return indexers.size() == 1 ? indexers.iterator().next().getIndexID() : null;
+
+    default:
+      return null;
+    }
+  }
+
   /**
    * Update the attribute index for a new entry.
    *
@@ -839,6 +872,8 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
       BackendIndexCfg cfg, List<LocalizableMessage> unacceptableReasons)
   {
     return isIndexConfidentialityAcceptable(cfg, unacceptableReasons)
+        && CompositeIndex.isAttributeIndexConfidentialityAcceptable(cfg, entryContainer.getCompositeIndexes(),
+            unacceptableReasons)
         && isIndexAcceptable(cfg, IndexType.EQUALITY, unacceptableReasons)
         && isIndexAcceptable(cfg, IndexType.SUBSTRING, unacceptableReasons)
         && isIndexAcceptable(cfg, IndexType.ORDERING, unacceptableReasons)
@@ -905,7 +940,7 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
   public synchronized ConfigChangeResult applyConfigurationChange(final BackendIndexCfg newConfiguration)
   {
     final ConfigChangeResult ccr = new ConfigChangeResult();
-    final IndexingOptions newIndexingOptions = new IndexingOptionsImpl(newConfiguration.getSubstringLength());
+    final IndexingOptions newIndexingOptions = newIndexingOptions(newConfiguration);
     try
     {
       final Map<String, MatchingRuleIndex> newIndexIdToIndexes = buildIndexes(entryContainer, state, newConfiguration,
@@ -940,6 +975,8 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
       config = newConfiguration;
       indexingOptions = newIndexingOptions;
       indexIdToIndexes = Collections.unmodifiableMap(newIndexIdToIndexes);
+      statistics.clear();
+      entryContainer.getCandidateCache().clear();
 
       // We get exclusive lock to ensure that no query is actually using the indexes that will be deleted.
       entryContainer.lock();
@@ -1067,6 +1104,11 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
     return indexIdToIndexes;
   }
 
+  IndexStatistics getStatistics()
+  {
+    return statistics;
+  }
+
   /**
    * Retrieve the entry IDs that might match an extensible filter.
    *
@@ -1150,15 +1192,23 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
     return false;
   }
 
+  private static IndexingOptions newIndexingOptions(BackendIndexCfg config)
+  {
+    return new IndexingOptionsImpl(config.getSubstringLength(), config.isSubstringAnchoredKeys());
+  }
+
   /** Indexing options implementation. */
   private static final class IndexingOptionsImpl implements IndexingOptions
   {
     /** The length of substring keys used in substring indexes. */
     private int substringKeySize;
+    /** Whether substring indexes also contain keys anchored to the start and end of the values. */
+    private final boolean substringAnchoredKeys;
 
-    private IndexingOptionsImpl(int substringKeySize)
+    private IndexingOptionsImpl(int substringKeySize, boolean substringAnchoredKeys)
     {
       this.substringKeySize = substringKeySize;
+      this.substringAnchoredKeys = substringAnchoredKeys;
     }
 
     @Override
@@ -1166,6 +1216,12 @@ class AttributeIndex implements ConfigurationChangeListener<BackendIndexCfg>, Cl
     {
       return substringKeySize;
     }
+
+    @Override
+    public boolean substringAnchoredKeys()
+    {
+      return substringAnchoredKeys;
+    }
   }
 
   void closeAndDelete(WriteableTransaction txn)
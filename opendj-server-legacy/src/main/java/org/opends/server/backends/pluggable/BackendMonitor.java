@@ -74,6 +74,9 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
   /** The root container to be monitored. */
   private final RootContainer rootContainer;
 
+  /** The maximum number of undefined keys listed for each index. */
+  private static final int MAX_ENTRY_LIMIT_KEYS = 10;
+
   private int maxEntries = 1024;
   private boolean filterUseEnabled;
   private String startTimeStamp;
@@ -102,7 +105,7 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
   @Override
   public MonitorData getMonitorData()
   {
-    MonitorData monitorAttrs = new MonitorData(5);
+    MonitorData monitorAttrs = new MonitorData(8);
 
     Collection<String> needReindexValues = createNeedReindexValues();
     if (!needReindexValues.isEmpty())
@@ -118,9 +121,100 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
       monitorAttrs.add("filter-use-unindexed", unindexedSearchCount);
     }
 
+    monitorAttrs.add("candidate-cache", createCandidateCacheValues());
+
+    Collection<String> entryLimitValues = createEntryLimitValues();
+    if (!entryLimitValues.isEmpty())
+    {
+      monitorAttrs.add("index-entry-limit-exceeded", entryLimitValues);
+    }
+    Collection<String> extensionValues = createIndexEntryLimitExtensionValues();
+    if (!extensionValues.isEmpty())
+    {
+      monitorAttrs.add("index-entry-limit-extension", extensionValues);
+    }
+
     return monitorAttrs;
   }
 
+  /**
+   * Lists, for each index having keys which exceeded the index entry limit, the number of such keys and of
+   * reads returning an undefined set, followed by the keys which have been read the most.
+   */
+  private Collection<String> createEntryLimitValues()
+  {
+    Collection<String> values = new ArrayList<>();
+    for (EntryContainer ec : rootContainer.getEntryContainers())
+    {
+      for (Tree tree : ec.listTrees())
+      {
+        if (tree instanceof DefaultIndex)
+        {
+          addEntryLimitValues((DefaultIndex) tree, values);
+        }
+      }
+    }
+    return values;
+  }
+
+  private void addEntryLimitValues(DefaultIndex index, Collection<String> values)
+  {
+    final EntryLimitStatistics statistics = index.getEntryLimitStatistics();
+    final AdaptiveEntryLimit adaptiveLimit = index.getAdaptiveEntryLimit();
+    final int extendedKeyCount = adaptiveLimit != null ? adaptiveLimit.getExtendedKeyCount() : 0;
+    if (statistics.getExceededKeyCount() == 0 && statistics.getUndefinedReadCount() == 0 && extendedKeyCount == 0)
+    {
+      return;
+    }
+
+    StringBuilder value = new StringBuilder(index.getName().toString());
+    value.append(" limit:").append(index.getIndexEntryLimit());
+    value.append(" exceeded-keys:").append(statistics.getExceededKeyCount());
+    value.append(" undefined-reads:").append(statistics.getUndefinedReadCount());
+    if (adaptiveLimit != null)
+    {
+      value.append(" extended-keys:").append(extendedKeyCount);
+      value.append(" extended-size:").append(adaptiveLimit.getExtendedSize());
+    }
+    values.add(value.toString());
+
+    for (EntryLimitStatistics.KeyReads keyReads : statistics.getMostReadKeys(MAX_ENTRY_LIMIT_KEYS))
+    {
+      if (keyReads.getReads() > 0)
+      {
+        // Do not disclose the values of confidential indexes
+        values.add(index.getName() + " key:" + (index.isEncrypted() ? "<confidential>"
+            : index.keyToString(keyReads.getKey())) + " reads:" + keyReads.getReads());
+      }
+    }
+  }
+
+  private Collection<String> createIndexEntryLimitExtensionValues()
+  {
+    Collection<String> values = new ArrayList<>();
+    for (EntryContainer ec : rootContainer.getEntryContainers())
+    {
+      AdaptiveEntryLimit.Budget budget = ec.getIndexEntryLimitExtensionBudget();
+      if (budget.getSize() > 0 || budget.getUsed() > 0)
+      {
+        values.add(ec.getBaseDN() + " used:" + budget.getUsed() + " size:" + budget.getSize());
+      }
+    }
+    return values;
+  }
+
+  private Collection<String> createCandidateCacheValues()
+  {
+    Collection<String> values = new ArrayList<>();
+    for (EntryContainer ec : rootContainer.getEntryContainers())
+    {
+      StringBuilder value = new StringBuilder(ec.getBaseDN().toString());
+      ec.getCandidateCache().toMonitorString(value);
+      values.add(value.toString());
+    }
+    return values;
+  }
+
   private Collection<String> createNeedReindexValues()
   {
     Collection<String> values = new ArrayList<>();
@@ -0,0 +1,626 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.types.SearchFilter;
+
+/**
+ * Caches the candidate entry IDs computed from the indexes for the filter and the scope of a
+ * search, so that hot repeated searches do not read and intersect the same index records again.
+ * <p>
+ * Each cached candidate set records the index keys it was read from. It is invalidated as soon as
+ * one of these keys is updated by an {@link IndexBuffer}, or when any key of an index it read
+ * a range of is updated. The cache is bounded by the memory used by the cached entry IDs and
+ * dependencies, and evicts the least recently used ones.
+ * <p>
+ * Looking up candidates does not lock the cache: they are held in a concurrent map and stamped with
+ * the number of the last addition when they are found, without reordering the entries. The least
+ * recently used candidates are only looked for when adding candidates to a full cache.
+ * <p>
+ * A search computing its candidates concurrently with an update may read the index records
+ * before the update, and cache them after the update invalidated the cache. This is prevented by
+ * numbering the invalidations: each invalidation records its number in the generation of each
+ * updated index, and in the generation of the stripe of the index holding each updated key. The
+ * candidates are only cached if none of the generations they depend on changed since the search
+ * started. Recording an invalidation does not lock the cache, which is only locked for removing
+ * the dependent candidates, when there are cached candidates.
+ */
+final class CandidateCache
+{
+  /** Estimated memory overhead of a cached candidate set, in bytes. */
+  private static final int ENTRY_OVERHEAD = 256;
+  /** Estimated memory overhead of a dependency, in bytes. */
+  private static final int DEPENDENCY_OVERHEAD = 64;
+  /** The number of stripes sharing the generations of the keys of an index, a power of two. */
+  private static final int KEY_STRIPES = 1024;
+
+  /** Identifies the candidates of a search: its base, scope and normalized filter. */
+  static final class Key
+  {
+    private final DN baseDN;
+    private final SearchScope scope;
+    private final SearchFilter filter;
+    /** The maximum size of the scope candidate set, which depends on the lookthrough limit. */
+    private final int scopeLimit;
+
+    Key(DN baseDN, SearchScope scope, SearchFilter filter, int scopeLimit)
+    {
+      this.baseDN = baseDN;
+      this.scope = scope;
+      this.filter = filter;
+      this.scopeLimit = scopeLimit;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (this == obj)
+      {
+        return true;
+      }
+      if (!(obj instanceof Key))
+      {
+        return false;
+      }
+      final Key other = (Key) obj;
+      return baseDN.equals(other.baseDN)
+          && scope.equals(other.scope)
+          && filter.equals(other.filter)
+          && scopeLimit == other.scopeLimit;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Objects.hash(baseDN, scope, filter, scopeLimit);
+    }
+
+    @Override
+    public String toString()
+    {
+      return "Key(baseDN=" + baseDN + ", scope=" + scope + ", filter=" + filter + ", scopeLimit=" + scopeLimit + ")";
+    }
+  }
+
+  /** Records the index keys and the index ranges read while computing the candidates of a search. */
+  static final class Dependencies
+  {
+    private final Map<TreeName, Set<ByteString>> keys = new HashMap<>();
+    private final Set<TreeName> trees = new HashSet<>();
+    /** Whether the candidates were also computed from data whose updates do not invalidate the cache. */
+    private boolean untracked;
+
+    /**
+     * Records that an index key was read.
+     *
+     * @param tree
+     *          the index
+     * @param key
+     *          the key read
+     */
+    void addKey(TreeName tree, ByteSequence key)
+    {
+      Set<ByteString> treeKeys = keys.get(tree);
+      if (treeKeys == null)
+      {
+        treeKeys = new HashSet<>();
+        keys.put(tree, treeKeys);
+      }
+      treeKeys.add(key.toByteString());
+    }
+
+    /**
+     * Records that a range of keys of an index was read.
+     *
+     * @param tree
+     *          the index
+     */
+    void addTree(TreeName tree)
+    {
+      trees.add(tree);
+    }
+
+    /**
+     * Records that the candidates were also computed from data outside of the indexes, such as the
+     * members of a group provided by a virtual attribute, so that they must not be cached.
+     */
+    void addUntrackedSource()
+    {
+      untracked = true;
+    }
+
+    private long getMemory()
+    {
+      long memory = DEPENDENCY_OVERHEAD * trees.size();
+      for (Set<ByteString> treeKeys : keys.values())
+      {
+        for (ByteString key : treeKeys)
+        {
+          memory += DEPENDENCY_OVERHEAD + key.length();
+        }
+      }
+      return memory;
+    }
+  }
+
+  /** The cached candidates of a search. */
+  static final class Candidates
+  {
+    private final long[] entryIDs;
+    private final boolean inScope;
+    private final Dependencies dependencies;
+    private final long memory;
+    /** The number of the last addition to the cache when these candidates were last used. */
+    private volatile long lastAccess;
+
+    private Candidates(long[] entryIDs, boolean inScope, Dependencies dependencies)
+    {
+      this.entryIDs = entryIDs;
+      this.inScope = inScope;
+      this.dependencies = dependencies;
+      this.memory = ENTRY_OVERHEAD + 8L * entryIDs.length + dependencies.getMemory();
+    }
+
+    /**
+     * Returns a new set of the candidate entry IDs.
+     *
+     * @return a new set of the candidate entry IDs
+     */
+    EntryIDSet toEntryIDSet()
+    {
+      return EntryIDSet.newDefinedSet(entryIDs.clone());
+    }
+
+    /**
+     * Returns whether every candidate is known to be in the scope of the search.
+     *
+     * @return {@code true} if every candidate is in scope
+     */
+    boolean isInScope()
+    {
+      return inScope;
+    }
+  }
+
+  private volatile long maxMemory;
+  private final ConcurrentMap<Key, Candidates> cache = new ConcurrentHashMap<>();
+  /** The number of additions to the cache, which orders the uses of the cached candidates. */
+  private volatile long additions;
+  /** The number of cached candidate sets, read without locking the cache. */
+  private volatile int size;
+  /** The cached searches depending on each index key. */
+  private final Map<TreeName, Map<ByteString, Set<Key>>> keyDependents = new HashMap<>();
+  /** The cached searches depending on a range of keys of each index. */
+  private final Map<TreeName, Set<Key>> treeDependents = new HashMap<>();
+
+  /** The numbers of the last invalidations of the keys of an index. */
+  private static final class Generations
+  {
+    /** The number of the last invalidation of any key of the index. */
+    private final AtomicLong tree = new AtomicLong();
+    /** The number of the last invalidation of a key of each stripe of the index. */
+    private final AtomicLongArray keys = new AtomicLongArray(KEY_STRIPES);
+  }
+
+  /** The number of the last invalidation. */
+  private final AtomicLong sequence = new AtomicLong();
+  /** The generations of each invalidated index. */
+  private final ConcurrentMap<TreeName, Generations> generations = new ConcurrentHashMap<>();
+  /** The number of the last invalidation of the whole cache. */
+  private volatile long clearGeneration;
+
+  private long usedMemory;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private long invalidations;
+
+  /**
+   * Creates a new cache which may use the provided amount of memory.
+   *
+   * @param maxMemory
+   *          the maximum amount of memory used by the cached candidates, in bytes
+   */
+  CandidateCache(long maxMemory)
+  {
+    this.maxMemory = maxMemory;
+  }
+
+  /**
+   * Changes the amount of memory the cache may use, evicting the least recently used candidates if needed.
+   *
+   * @param maxMemory
+   *          the maximum amount of memory used by the cached candidates, in bytes
+   */
+  synchronized void setMaxMemory(long maxMemory)
+  {
+    this.maxMemory = maxMemory;
+    evict();
+  }
+
+  /**
+   * Returns the number of the last invalidation, which must be read by a search before it opens
+   * the transaction used to read its candidates.
+   *
+   * @return the number of the last invalidation
+   */
+  long getSequence()
+  {
+    return sequence.get();
+  }
+
+  /**
+   * Returns the cached candidates of a search.
+   *
+   * @param key
+   *          the search
+   * @return the cached candidates, or {@code null} if they are not cached
+   */
+  Candidates get(Key key)
+  {
+    final Candidates candidates = cache.get(key);
+    if (candidates != null)
+    {
+      candidates.lastAccess = additions;
+      hits.incrementAndGet();
+    }
+    else
+    {
+      misses.incrementAndGet();
+    }
+    return candidates;
+  }
+
+  /**
+   * Caches the candidates of a search, unless they were invalidated since the search started.
+   *
+   * @param key
+   *          the search
+   * @param startSequence
+   *          the number of the last invalidation when the search started
+   * @param entryIDs
+   *          the candidates, which must be defined
+   * @param inScope
+   *          whether every candidate is known to be in the scope of the search
+   * @param dependencies
+   *          the index keys read for computing the candidates
+   */
+  synchronized void put(Key key, long startSequence, EntryIDSet entryIDs, boolean inScope,
+      Dependencies dependencies)
+  {
+    if (!entryIDs.isDefined()
+        || dependencies.untracked
+        // Do not let a single search evict most of the cache.
+        || ENTRY_OVERHEAD + 8L * entryIDs.size() > maxMemory / 4)
+    {
+      return;
+    }
+    // Make the concurrent invalidations wait for this method, unless they are recorded before the check below
+    size = cache.size() + 1;
+    if (isInvalidatedSince(startSequence, dependencies))
+    {
+      size = cache.size();
+      return;
+    }
+    final Candidates candidates = new Candidates(entryIDs.toLongArray(), inScope, dependencies);
+    if (candidates.memory > maxMemory / 4)
+    {
+      size = cache.size();
+      return;
+    }
+
+    remove(key);
+    candidates.lastAccess = ++additions;
+    cache.put(key, candidates);
+    usedMemory += candidates.memory;
+    for (TreeName tree : dependencies.trees)
+    {
+      getOrCreate(treeDependents, tree).add(key);
+    }
+    for (Map.Entry<TreeName, Set<ByteString>> treeKeys : dependencies.keys.entrySet())
+    {
+      Map<ByteString, Set<Key>> dependents = keyDependents.get(treeKeys.getKey());
+      if (dependents == null)
+      {
+        dependents = new HashMap<>();
+        keyDependents.put(treeKeys.getKey(), dependents);
+      }
+      for (ByteString indexKey : treeKeys.getValue())
+      {
+        getOrCreate(dependents, indexKey).add(key);
+      }
+    }
+
+    evict();
+  }
+
+  private void evict()
+  {
+    while (usedMemory > maxMemory)
+    {
+      Map.Entry<Key, Candidates> leastRecentlyUsed = null;
+      for (Map.Entry<Key, Candidates> entry : cache.entrySet())
+      {
+        if (leastRecentlyUsed == null || entry.getValue().lastAccess < leastRecentlyUsed.getValue().lastAccess)
+        {
+          leastRecentlyUsed = entry;
+        }
+      }
+      remove(leastRecentlyUsed.getKey());
+    }
+    size = cache.size();
+  }
+
+  private static <K> Set<Key> getOrCreate(Map<K, Set<Key>> map, K mapKey)
+  {
+    Set<Key> keys = map.get(mapKey);
+    if (keys == null)
+    {
+      keys = new HashSet<>();
+      map.put(mapKey, keys);
+    }
+    return keys;
+  }
+
+  private boolean isInvalidatedSince(long startSequence, Dependencies dependencies)
+  {
+    if (clearGeneration > startSequence)
+    {
+      return true;
+    }
+    for (TreeName tree : dependencies.trees)
+    {
+      final Generations treeGenerations = generations.get(tree);
+      if (treeGenerations != null && treeGenerations.tree.get() > startSequence)
+      {
+        return true;
+      }
+    }
+    for (Map.Entry<TreeName, Set<ByteString>> treeKeys : dependencies.keys.entrySet())
+    {
+      final Generations treeGenerations = generations.get(treeKeys.getKey());
+      if (treeGenerations == null)
+      {
+        continue;
+      }
+      for (ByteString key : treeKeys.getValue())
+      {
+        if (treeGenerations.keys.get(stripe(key)) > startSequence)
+        {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static int stripe(ByteString key)
+  {
+    final int hash = key.hashCode();
+    return (hash ^ (hash >>> 16)) & (KEY_STRIPES - 1);
+  }
+
+  /**
+   * Invalidates the candidates read from the provided index keys, which were just updated.
+   *
+   * @param updatedKeys
+   *          the updated keys of each index
+   */
+  void invalidate(Map<TreeName, ? extends Collection<ByteString>> updatedKeys)
+  {
+    if (updatedKeys.isEmpty())
+    {
+      return;
+    }
+    // Record the invalidation for the searches in progress before removing the cached candidates,
+    // so that a search either sees it when caching its candidates, or caches them before they are removed
+    final long generation = sequence.incrementAndGet();
+    for (Map.Entry<TreeName, ? extends Collection<ByteString>> treeKeys : updatedKeys.entrySet())
+    {
+      final TreeName tree = treeKeys.getKey();
+      Generations treeGenerations = generations.get(tree);
+      if (treeGenerations == null)
+      {
+        final Generations newGenerations = new Generations();
+        treeGenerations = generations.putIfAbsent(tree, newGenerations);
+        if (treeGenerations == null)
+        {
+          treeGenerations = newGenerations;
+        }
+      }
+      raise(treeGenerations.tree, generation);
+      for (ByteString key : treeKeys.getValue())
+      {
+        raise(treeGenerations.keys, stripe(key), generation);
+      }
+    }
+    if (size == 0)
+    {
+      return;
+    }
+    synchronized (this)
+    {
+      for (Map.Entry<TreeName, ? extends Collection<ByteString>> treeKeys : updatedKeys.entrySet())
+      {
+        final TreeName tree = treeKeys.getKey();
+        final Map<ByteString, Set<Key>> dependents = keyDependents.get(tree);
+        if (dependents != null)
+        {
+          for (ByteString key : treeKeys.getValue())
+          {
+            removeAll(dependents.get(key));
+          }
+        }
+        removeAll(treeDependents.get(tree));
+      }
+      size = cache.size();
+    }
+  }
+
+  /** Concurrent invalidations may record their numbers out of order: generations never decrease. */
+  private static void raise(AtomicLong generation, long value)
+  {
+    long current;
+    while ((current = generation.get()) < value && !generation.compareAndSet(current, value))
+    {
+      // Retry
+    }
+  }
+
+  private static void raise(AtomicLongArray generations, int index, long value)
+  {
+    long current;
+    while ((current = generations.get(index)) < value && !generations.compareAndSet(index, current, value))
+    {
+      // Retry
+    }
+  }
+
+  private void removeAll(Set<Key> keys)
+  {
+    if (keys != null)
+    {
+      for (Key key : keys.toArray(new Key[keys.size()]))
+      {
+        remove(key);
+        invalidations++;
+      }
+    }
+  }
+
+  private void remove(Key key)
+  {
+    final Candidates candidates = cache.remove(key);
+    if (candidates != null)
+    {
+      removeDependents(key, candidates);
+    }
+  }
+
+  private void removeDependents(Key key, Candidates candidates)
+  {
+    usedMemory -= candidates.memory;
+    for (TreeName tree : candidates.dependencies.trees)
+    {
+      removeDependent(treeDependents, tree, key);
+    }
+    for (Map.Entry<TreeName, Set<ByteString>> treeKeys : candidates.dependencies.keys.entrySet())
+    {
+      final Map<ByteString, Set<Key>> dependents = keyDependents.get(treeKeys.getKey());
+      for (ByteString indexKey : treeKeys.getValue())
+      {
+        removeDependent(dependents, indexKey, key);
+      }
+      if (dependents.isEmpty())
+      {
+        keyDependents.remove(treeKeys.getKey());
+      }
+    }
+  }
+
+  private static <K> void removeDependent(Map<K, Set<Key>> map, K mapKey, Key key)
+  {
+    final Set<Key> keys = map.get(mapKey);
+    keys.remove(key);
+    if (keys.isEmpty())
+    {
+      map.remove(mapKey);
+    }
+  }
+
+  /** Discards all the cached candidates, for example because the indexes were changed without an IndexBuffer. */
+  synchronized void clear()
+  {
+    clearGeneration = sequence.incrementAndGet();
+    cache.clear();
+    keyDependents.clear();
+    treeDependents.clear();
+    usedMemory = 0;
+    size = 0;
+  }
+
+  /**
+   * Returns the number of cached candidate sets.
+   *
+   * @return the number of cached candidate sets
+   */
+  int size()
+  {
+    return size;
+  }
+
+  /**
+   * Returns the number of searches whose candidates were found in the cache.
+   *
+   * @return the number of searches whose candidates were found in the cache
+   */
+  long getHitCount()
+  {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of searches whose candidates were not found in the cache.
+   *
+   * @return the number of searches whose candidates were not found in the cache
+   */
+  long getMissCount()
+  {
+    return misses.get();
+  }
+
+  /**
+   * Appends the statistics of this cache to the provided builder, as used by the backend monitor.
+   *
+   * @param builder
+   *          the builder where to append the statistics
+   */
+  synchronized void toMonitorString(StringBuilder builder)
+  {
+    final long hitCount = hits.get();
+    final long missCount = misses.get();
+    final long lookups = hitCount + missCount;
+    builder.append(" hits:").append(hitCount);
+    builder.append(" misses:").append(missCount);
+    builder.append(" hit-ratio:").append(lookups > 0 ? 100 * hitCount / lookups : 0).append('%');
+    builder.append(" entries:").append(cache.size());
+    builder.append(" invalidations:").append(invalidations);
+    builder.append(" memory:").append(usedMemory).append('/').append(maxMemory);
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder builder = new StringBuilder(getClass().getSimpleName()).append("(");
+    toMonitorString(builder);
+    return builder.append(")").toString();
+  }
+}
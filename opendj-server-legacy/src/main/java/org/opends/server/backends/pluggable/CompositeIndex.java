@@ -0,0 +1,526 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.opends.messages.BackendMessages.*;
+import static org.opends.server.backends.pluggable.EntryIDSet.*;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteSequenceReader;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.Schema;
+import org.forgerock.opendj.ldap.spi.IndexQueryFactory;
+import org.forgerock.opendj.ldap.spi.IndexingOptions;
+import org.forgerock.opendj.server.config.server.BackendCompositeIndexCfg;
+import org.forgerock.opendj.server.config.server.BackendIndexCfg;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.crypto.CryptoSuite;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Entry;
+import org.opends.server.types.Modification;
+
+/**
+ * Represents a composite index, whose keys are made of the normalized values of an ordered list of
+ * attributes. Each key is the concatenation of one value of each attribute, prefixed by its length, so
+ * that the keys of the entries having the same values for the leading attributes share the same prefix.
+ * <p>
+ * An entry is indexed under all the combinations of the values of its attributes. An entry lacking some
+ * of the attributes is indexed under the combinations of the values of the leading attributes it has, so
+ * that it is still returned when reading the keys starting with these values, and is not indexed if it
+ * lacks the first attribute. The entries having more than {@link #MAX_KEYS_PER_ENTRY} combinations are
+ * indexed under the {@link #OVERFLOW_KEY} instead, which is read along with every other key.
+ */
+final class CompositeIndex extends DefaultIndex
+    implements ConfigurationChangeListener<BackendCompositeIndexCfg>, Closeable
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The maximum number of keys under which an entry is indexed. */
+  static final int MAX_KEYS_PER_ENTRY = 256;
+  /** The key of the entries having too many combinations of values. No other key is empty. */
+  static final ByteString OVERFLOW_KEY = ByteString.empty();
+
+  private BackendCompositeIndexCfg config;
+  private final List<AttributeType> attributeTypes;
+
+  CompositeIndex(BackendCompositeIndexCfg config, State state, EntryContainer entryContainer,
+      CryptoSuite cryptoSuite) throws ConfigException
+  {
+    super(new TreeName(entryContainer.getTreePrefix(), "composite." + config.getName()), state,
+        config.getIndexEntryLimit(), entryContainer, cryptoSuite);
+    this.config = config;
+    this.attributeTypes = parseAttributes(config.getAttributes(), config.getName());
+    checkAttributeIndexConfidentiality(attributeTypes, config.getName(), entryContainer);
+    config.addChangeListener(this);
+  }
+
+  static boolean isConfigurationAddAcceptable(BackendCompositeIndexCfg cfg, EntryContainer entryContainer,
+      List<LocalizableMessage> unacceptableReasons)
+  {
+    try
+    {
+      checkAttributeIndexConfidentiality(parseAttributes(cfg.getAttributes(), cfg.getName()), cfg.getName(),
+          entryContainer);
+      return true;
+    }
+    catch (ConfigException e)
+    {
+      unacceptableReasons.add(e.getMessageObject());
+      return false;
+    }
+  }
+
+  private static List<AttributeType> parseAttributes(String attributes, String indexName) throws ConfigException
+  {
+    final List<AttributeType> attributeTypes = new ArrayList<>();
+    for (String attribute : attributes.trim().split("\\s+"))
+    {
+      final AttributeType attributeType = getSchema().getAttributeType(attribute);
+      if (attributeType.isPlaceHolder())
+      {
+        throw new ConfigException(ERR_CONFIG_COMPOSITE_INDEX_UNDEFINED_ATTR.get(attribute, indexName));
+      }
+      if (attributeType.getEqualityMatchingRule() == null)
+      {
+        throw new ConfigException(ERR_CONFIG_COMPOSITE_INDEX_NO_EQUALITY_RULE.get(attribute, indexName));
+      }
+      if (!attributeTypes.contains(attributeType))
+      {
+        attributeTypes.add(attributeType);
+      }
+    }
+    if (attributeTypes.size() < 2)
+    {
+      throw new ConfigException(ERR_CONFIG_COMPOSITE_INDEX_TOO_FEW_ATTRIBUTES.get(indexName));
+    }
+    return Collections.unmodifiableList(attributeTypes);
+  }
+
+  /** The keys of this index are stored in clear, so they must not reveal the values of confidential attributes. */
+  private static void checkAttributeIndexConfidentiality(List<AttributeType> attributeTypes, String indexName,
+      EntryContainer entryContainer) throws ConfigException
+  {
+    for (AttributeType attributeType : attributeTypes)
+    {
+      final AttributeIndex attributeIndex = entryContainer.getAttributeIndex(attributeType);
+      if (attributeIndex != null && attributeIndex.isConfidentialityEnabled())
+      {
+        throw new ConfigException(
+            ERR_CONFIG_COMPOSITE_INDEX_CONFIDENTIAL_ATTR.get(attributeType.getNameOrOID(), indexName));
+      }
+    }
+  }
+
+  /**
+   * Returns whether an attribute index configuration is acceptable to the composite indexes of its backend,
+   * which do not accept confidential attribute indexes for their attributes.
+   *
+   * @param cfg
+   *          the attribute index configuration
+   * @param compositeIndexes
+   *          the composite indexes of the backend
+   * @param unacceptableReasons
+   *          receives the reasons why the configuration is not acceptable
+   * @return {@code true} if no composite index includes the attribute or if its index is not confidential
+   */
+  static boolean isAttributeIndexConfidentialityAcceptable(BackendIndexCfg cfg,
+      Collection<CompositeIndex> compositeIndexes, List<LocalizableMessage> unacceptableReasons)
+  {
+    if (cfg.isConfidentialityEnabled())
+    {
+      for (CompositeIndex compositeIndex : compositeIndexes)
+      {
+        if (compositeIndex.getAttributeTypes().contains(cfg.getAttribute()))
+        {
+          unacceptableReasons.add(ERR_CONFIG_COMPOSITE_INDEX_CONFIDENTIAL_ATTR.get(
+              cfg.getAttribute().getNameOrOID(), compositeIndex.config.getName()));
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Normalizes an assertion value the way the equality matching rule of an attribute does when reading its
+   * equality index, so that it can be compared with the components of the keys of this index.
+   *
+   * @param attributeType
+   *          the attribute of the assertion
+   * @param assertionValue
+   *          the assertion value
+   * @return the normalized assertion value, or {@code null} if the assertion does not read a single key
+   * @throws DecodeException
+   *           if the assertion value is not valid for the equality matching rule of the attribute
+   */
+  static ByteString normalizeAssertionValue(AttributeType attributeType, ByteString assertionValue)
+      throws DecodeException
+  {
+    return attributeType.getEqualityMatchingRule().getAssertion(assertionValue).createIndexQuery(
+        ExactMatchKeyFactory.INSTANCE);
+  }
+
+  /** Returns the key of exact match queries, and {@code null} for any other query. */
+  private static final class ExactMatchKeyFactory implements IndexQueryFactory<ByteString>
+  {
+    private static final ExactMatchKeyFactory INSTANCE = new ExactMatchKeyFactory();
+
+    @Override
+    public ByteString createExactMatchQuery(String indexID, ByteSequence key)
+    {
+      return key.toByteString();
+    }
+
+    @Override
+    public ByteString createMatchAllQuery()
+    {
+      return null;
+    }
+
+    @Override
+    public ByteString createRangeMatchQuery(String indexID, ByteSequence lower, ByteSequence upper,
+        boolean lowerIncluded, boolean upperIncluded)
+    {
+      return null;
+    }
+
+    @Override
+    public ByteString createIntersectionQuery(Collection<ByteString> subqueries)
+    {
+      return null;
+    }
+
+    @Override
+    public ByteString createUnionQuery(Collection<ByteString> subqueries)
+    {
+      return null;
+    }
+
+    @Override
+    public IndexingOptions getIndexingOptions()
+    {
+      return null;
+    }
+  }
+
+  private static Schema getSchema()
+  {
+    return DirectoryServer.getInstance().getServerContext().getSchema();
+  }
+
+  /**
+   * Returns the attributes making the keys of this index, from the most significant to the least significant.
+   *
+   * @return the attributes making the keys of this index
+   */
+  List<AttributeType> getAttributeTypes()
+  {
+    return attributeTypes;
+  }
+
+  /**
+   * Returns the keys under which an entry is indexed.
+   *
+   * @param entry
+   *          the entry
+   * @return the keys under which the entry is indexed, made of the values of the leading attributes of the
+   *         entry up to the first missing one, empty if the entry lacks the first attribute
+   */
+  Set<ByteString> indexEntry(Entry entry)
+  {
+    List<ByteString> keys = Collections.singletonList(ByteString.empty());
+    for (AttributeType attributeType : attributeTypes)
+    {
+      final Set<ByteString> values = normalizedValues(entry, attributeType);
+      if (values.isEmpty())
+      {
+        // A prefix key has fewer components than the full keys, so only prefix reads return it
+        break;
+      }
+      if ((long) keys.size() * values.size() > MAX_KEYS_PER_ENTRY)
+      {
+        return Collections.singleton(OVERFLOW_KEY);
+      }
+      final List<ByteString> newKeys = new ArrayList<>(keys.size() * values.size());
+      for (ByteString key : keys)
+      {
+        for (ByteString value : values)
+        {
+          newKeys.add(appendComponent(new ByteStringBuilder(key.length() + value.length() + 5).appendBytes(key), value)
+              .toByteString());
+        }
+      }
+      keys = newKeys;
+    }
+    return keys.get(0).isEmpty() ? Collections.<ByteString> emptySet() : new HashSet<>(keys);
+  }
+
+  private static Set<ByteString> normalizedValues(Entry entry, AttributeType attributeType)
+  {
+    final Set<ByteString> values = new HashSet<>();
+    for (Attribute attr : entry.getAllAttributes(attributeType))
+    {
+      if (!attr.isVirtual())
+      {
+        for (ByteString value : attr)
+        {
+          try
+          {
+            values.add(attributeType.getEqualityMatchingRule().normalizeAttributeValue(value));
+          }
+          catch (DecodeException e)
+          {
+            logger.traceException(e);
+          }
+        }
+      }
+    }
+    return values;
+  }
+
+  private static ByteStringBuilder appendComponent(ByteStringBuilder key, ByteSequence normalizedValue)
+  {
+    return key.appendCompactUnsigned(normalizedValue.length()).appendBytes(normalizedValue);
+  }
+
+  /**
+   * Updates the keys of an entry whose attributes were modified.
+   *
+   * @param oldEntry
+   *          the entry before the modifications
+   * @param newEntry
+   *          the entry after the modifications
+   * @param modifiedKeys
+   *          receives the keys to add, mapped to {@code true}, and the keys to remove, mapped to {@code false}
+   */
+  void modifyEntry(Entry oldEntry, Entry newEntry, Map<ByteString, Boolean> modifiedKeys)
+  {
+    for (ByteString key : indexEntry(oldEntry))
+    {
+      modifiedKeys.put(key, false);
+    }
+    for (ByteString key : indexEntry(newEntry))
+    {
+      if (modifiedKeys.remove(key) == null)
+      {
+        modifiedKeys.put(key, true);
+      }
+    }
+  }
+
+  /**
+   * Updates the index for an entry whose attributes were modified.
+   *
+   * @param buffer
+   *          the index buffer used to buffer up the index changes
+   * @param entryID
+   *          the ID of the modified entry
+   * @param oldEntry
+   *          the entry before the modifications
+   * @param newEntry
+   *          the entry after the modifications
+   */
+  void modifyEntry(IndexBuffer buffer, EntryID entryID, Entry oldEntry, Entry newEntry)
+  {
+    final Map<ByteString, Boolean> modifiedKeys = new TreeMap<>();
+    modifyEntry(oldEntry, newEntry, modifiedKeys);
+    for (Map.Entry<ByteString, Boolean> modifiedKey : modifiedKeys.entrySet())
+    {
+      if (modifiedKey.getValue())
+      {
+        buffer.put(this, modifiedKey.getKey(), entryID);
+      }
+      else
+      {
+        buffer.remove(this, modifiedKey.getKey(), entryID);
+      }
+    }
+  }
+
+  /**
+   * Returns whether modifications may change the keys of an entry in this index.
+   *
+   * @param mods
+   *          the modifications of the entry
+   * @return {@code true} if the modifications apply to one of the attributes of this index
+   */
+  boolean isModified(List<Modification> mods)
+  {
+    for (AttributeType attributeType : attributeTypes)
+    {
+      if (EntryContainer.isAttributeModified(attributeType, mods))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the IDs of the entries having the provided normalized values for the leading attributes of this
+   * index. When values are provided for all the attributes, a single key is read. Otherwise the keys starting
+   * with the provided values are read, up to {@link IndexFilter#CURSOR_ENTRY_LIMIT} entry IDs.
+   *
+   * @param txn
+   *          a non null transaction
+   * @param normalizedValues
+   *          the normalized values of the leading attributes of this index, in the order of the index
+   * @param dependencies
+   *          if not {@code null}, records the index keys which were read
+   * @return the IDs of the entries which may have the provided values, or an undefined set if they cannot be
+   *         determined from this index
+   */
+  EntryIDSet evaluate(ReadableTransaction txn, List<ByteString> normalizedValues,
+      CandidateCache.Dependencies dependencies)
+  {
+    if (!isTrusted())
+    {
+      return newUndefinedSet();
+    }
+    final ByteStringBuilder builder = new ByteStringBuilder();
+    for (ByteString value : normalizedValues)
+    {
+      appendComponent(builder, value);
+    }
+    final ByteString key = builder.toByteString();
+    final EntryIDSet overflow = get(txn, OVERFLOW_KEY);
+    if (dependencies != null)
+    {
+      dependencies.addKey(getName(), OVERFLOW_KEY);
+    }
+    if (!overflow.isDefined())
+    {
+      return overflow;
+    }
+
+    final EntryIDSet results;
+    if (normalizedValues.size() == attributeTypes.size())
+    {
+      if (dependencies != null)
+      {
+        dependencies.addKey(getName(), key);
+      }
+      results = get(txn, key);
+    }
+    else
+    {
+      if (dependencies != null)
+      {
+        dependencies.addTree(getName());
+      }
+      results = readKeysStartingWith(txn, key);
+    }
+    if (results.isDefined())
+    {
+      results.addAll(overflow);
+    }
+    return results;
+  }
+
+  private EntryIDSet readKeysStartingWith(ReadableTransaction txn, ByteString prefix)
+  {
+    try (Cursor<ByteString, EntryIDSet> cursor = openCursor(txn))
+    {
+      final List<EntryIDSet> sets = new ArrayList<>();
+      long totalIDCount = 0;
+      boolean success = cursor.positionToKeyOrNext(prefix);
+      while (success && cursor.getKey().startsWith(prefix))
+      {
+        final EntryIDSet set = cursor.getValue();
+        if (!set.isDefined())
+        {
+          return set;
+        }
+        totalIDCount += set.size();
+        if (totalIDCount > IndexFilter.CURSOR_ENTRY_LIMIT)
+        {
+          return newUndefinedSetWithKey(cursor.getKey());
+        }
+        sets.add(set);
+        success = cursor.next();
+      }
+      return newSetFromUnion(sets);
+    }
+  }
+
+  @Override
+  public String keyToString(ByteString key)
+  {
+    if (key.isEmpty())
+    {
+      return "OVERFLOW";
+    }
+    final StringBuilder sb = new StringBuilder();
+    final ByteSequenceReader reader = key.asReader();
+    while (reader.remaining() > 0)
+    {
+      if (sb.length() > 0)
+      {
+        sb.append(" + ");
+      }
+      sb.append(reader.readStringUtf8((int) reader.readCompactUnsignedLong()));
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(BackendCompositeIndexCfg cfg,
+      List<LocalizableMessage> unacceptableReasons)
+  {
+    return true;
+  }
+
+  @Override
+  public synchronized ConfigChangeResult applyConfigurationChange(BackendCompositeIndexCfg cfg)
+  {
+    final ConfigChangeResult ccr = new ConfigChangeResult();
+    // A smaller limit does not impact the validity of the results.
+    if (setIndexEntryLimit(cfg.getIndexEntryLimit()))
+    {
+      ccr.setAdminActionRequired(true);
+      ccr.addMessage(NOTE_CONFIG_INDEX_ENTRY_LIMIT_REQUIRES_REBUILD.get(getName()));
+    }
+    config = cfg;
+    return ccr;
+  }
+
+  @Override
+  public void close()
+  {
+    config.removeChangeListener(this);
+  }
+}
@@ -54,6 +54,9 @@ class DefaultIndex extends AbstractTree implements Index
 
   private EntryIDSetCodec codec;
   private CryptoSuite cryptoSuite;
+  private final EntryLimitStatistics entryLimitStatistics = new EntryLimitStatistics();
+  /** Lets hot keys exceed the index entry limit, {@code null} when the index is not compacted. */
+  private volatile AdaptiveEntryLimit adaptiveEntryLimit;
 
   /**
    * A flag to indicate if this index should be trusted to be consistent with the entries tree.
@@ -102,6 +105,12 @@ class DefaultIndex extends AbstractTree implements Index
       codec = new EntryIDSet.EntryIDSetCodecV3(codec, cryptoSuite);
     }
     trusted = flags.contains(TRUSTED);
+    releaseAdaptiveEntryLimit();
+    final AdaptiveEntryLimit.Budget budget = entryContainer.getIndexEntryLimitExtensionBudget();
+    if (budget != null && flags.contains(COMPACTED))
+    {
+      adaptiveEntryLimit = new AdaptiveEntryLimit(budget);
+    }
     if (createOnDemand && !trusted && entryContainer.isEmpty(txn))
     {
       // If there are no entries in the entry container then there
@@ -110,6 +119,23 @@ class DefaultIndex extends AbstractTree implements Index
     }
   }
 
+  @Override
+  final void beforeDelete(WriteableTransaction txn)
+  {
+    releaseAdaptiveEntryLimit();
+    entryLimitStatistics.clear();
+  }
+
+  private void releaseAdaptiveEntryLimit()
+  {
+    final AdaptiveEntryLimit adaptiveLimit = adaptiveEntryLimit;
+    if (adaptiveLimit != null)
+    {
+      adaptiveLimit.releaseAll();
+      adaptiveEntryLimit = null;
+    }
+  }
+
   @Override
   public String valueToString(ByteString value)
   {
@@ -179,7 +205,7 @@ class DefaultIndex extends AbstractTree implements Index
      * Avoid taking a write lock on a record which has hit all IDs because it is likely to be a
      * point of contention.
      */
-    if (!get(txn, key).isDefined())
+    if (!read(txn, key).isDefined())
     {
       return;
     }
@@ -229,21 +255,19 @@ class DefaultIndex extends AbstractTree implements Index
   private EntryIDSet computeEntryIDSet(ByteString key, ByteString value, EntryIDSet deletedIDs, EntryIDSet addedIDs)
   {
     EntryIDSet entryIDSet = decodeValue(key, value);
+    final AdaptiveEntryLimit adaptiveLimit = adaptiveEntryLimit;
+    final boolean wasExtended =
+        adaptiveLimit != null && entryIDSet.isDefined() && indexEntryLimit > 0 && entryIDSet.size() >= indexEntryLimit;
     if (addedIDs != null)
     {
       if (entryIDSet.isDefined() && indexEntryLimit > 0)
       {
         final long nbDeleted = deletedIDs != null ? deletedIDs.size() : 0;
         final long idCountDelta = addedIDs.size() - nbDeleted;
-        if (idCountDelta + entryIDSet.size() >= indexEntryLimit)
+        if (idCountDelta + entryIDSet.size() >= indexEntryLimit
+            && (adaptiveLimit == null || !adaptiveLimit.mayExtend(key, wasExtended)))
         {
-          entryIDSet = newUndefinedSetWithKey(key);
-          if (logger.isTraceEnabled())
-          {
-            logger.trace("Index entry exceeded in index %s. " + "Limit: %d. ID list size: %d.\nKey:%s", getName(),
-                indexEntryLimit, idCountDelta + addedIDs.size(), key.toHexPlusAsciiString(4));
-          }
-          return entryIDSet;
+          return exceedIndexEntryLimit(key, idCountDelta + addedIDs.size());
         }
       }
       entryIDSet.addAll(addedIDs);
@@ -252,9 +276,35 @@ class DefaultIndex extends AbstractTree implements Index
     {
       entryIDSet.removeAll(deletedIDs);
     }
+    if (adaptiveLimit != null && entryIDSet.isDefined() && indexEntryLimit > 0)
+    {
+      if (entryIDSet.size() >= indexEntryLimit)
+      {
+        // The budget accounts for the space the entry ID set really takes in the tree
+        if (!adaptiveLimit.tryExtend(key, toValue(entryIDSet).length(), wasExtended))
+        {
+          return exceedIndexEntryLimit(key, entryIDSet.size());
+        }
+      }
+      else if (wasExtended)
+      {
+        adaptiveLimit.release(key);
+      }
+    }
     return entryIDSet;
   }
 
+  private EntryIDSet exceedIndexEntryLimit(ByteString key, long size)
+  {
+    entryLimitStatistics.keyExceeded(key);
+    if (logger.isTraceEnabled())
+    {
+      logger.trace("Index entry exceeded in index %s. " + "Limit: %d. ID list size: %d.\nKey:%s", getName(),
+          indexEntryLimit, size, key.toHexPlusAsciiString(4));
+    }
+    return newUndefinedSetWithKey(key);
+  }
+
   private void logIndexCorruptError(WriteableTransaction txn, ByteString key)
   {
     if (logger.isTraceEnabled())
@@ -268,6 +318,25 @@ class DefaultIndex extends AbstractTree implements Index
 
   @Override
   public final EntryIDSet get(ReadableTransaction txn, ByteSequence key)
+  {
+    final EntryIDSet entryIDSet = read(txn, key);
+    if (indexEntryLimit > 0)
+    {
+      final AdaptiveEntryLimit adaptiveLimit = adaptiveEntryLimit;
+      if (!entryIDSet.isDefined())
+      {
+        entryLimitStatistics.undefinedKeyRead(key);
+      }
+      else if (adaptiveLimit != null)
+      {
+        adaptiveLimit.keyRead(key, entryIDSet.size(), indexEntryLimit);
+      }
+    }
+    return entryIDSet;
+  }
+
+  /** Reads the entry ID set of a key without recording it in the entry limit statistics. */
+  private EntryIDSet read(ReadableTransaction txn, ByteSequence key)
   {
     try
     {
@@ -289,6 +358,10 @@ class DefaultIndex extends AbstractTree implements Index
   public final boolean setIndexEntryLimit(int indexEntryLimit)
   {
     final boolean rebuildRequired = this.indexEntryLimit < indexEntryLimit;
+    if (this.indexEntryLimit != indexEntryLimit)
+    {
+      entryLimitStatistics.clear();
+    }
     this.indexEntryLimit = indexEntryLimit;
     return rebuildRequired;
   }
@@ -329,4 +402,24 @@ class DefaultIndex extends AbstractTree implements Index
   {
     return cryptoSuite.isEncrypted();
   }
+
+  /**
+   * Returns the statistics about the keys of this index which exceeded the index entry limit.
+   *
+   * @return the statistics about the keys which exceeded the index entry limit
+   */
+  final EntryLimitStatistics getEntryLimitStatistics()
+  {
+    return entryLimitStatistics;
+  }
+
+  /**
+   * Returns the adaptive index entry limit of this index.
+   *
+   * @return the adaptive index entry limit, or {@code null} if it is disabled for this index
+   */
+  final AdaptiveEntryLimit getAdaptiveEntryLimit()
+  {
+    return adaptiveEntryLimit;
+  }
 }
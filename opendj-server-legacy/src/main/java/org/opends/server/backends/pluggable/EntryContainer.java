@@ -27,16 +27,20 @@ import static org.opends.server.protocols.ldap.LDAPResultCode.*;
 import static org.opends.server.types.AdditionalLogItem.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -48,6 +52,7 @@ import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.config.server.ConfigurationAddListener;
 import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.config.server.ConfigurationDeleteListener;
+import org.forgerock.opendj.ldap.AttributeDescription;
 import org.forgerock.opendj.ldap.ByteSequence;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ByteStringBuilder;
@@ -57,6 +62,7 @@ import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.ldap.SortKey;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.server.config.server.BackendIndexCfg;
+import org.forgerock.opendj.server.config.server.BackendCompositeIndexCfg;
 import org.forgerock.opendj.server.config.server.BackendVLVIndexCfg;
 import org.forgerock.opendj.server.config.server.PluggableBackendCfg;
 import org.forgerock.util.Pair;
@@ -90,6 +96,7 @@ import org.opends.server.core.ModifyOperation;
 import org.opends.server.core.SearchOperation;
 import org.opends.server.core.ServerContext;
 import org.opends.server.crypto.CryptoSuite;
+import org.opends.server.schema.SchemaConstants;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.Attributes;
 import org.opends.server.types.CanceledOperationException;
@@ -114,6 +121,8 @@ public class EntryContainer
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** The directory where the sort keys of large sorted searches are spilled, relative to the instance root. */
+  private static final String SORT_TMP_DIR = "sort-tmp";
   /** The name of the entry tree. */
   private static final String ID2ENTRY_TREE_NAME = ID2ENTRY_INDEX_NAME;
   /** The name of the DN tree. */
@@ -129,6 +138,8 @@ public class EntryContainer
   private final AttributeIndexCfgManager attributeIndexCfgManager;
   /** The vlv index configuration manager. */
   private final VLVIndexCfgManager vlvIndexCfgManager;
+  /** The composite index configuration manager. */
+  private final CompositeIndexCfgManager compositeIndexCfgManager;
 
   /** The backend configuration. */
   private PluggableBackendCfg config;
@@ -158,6 +169,8 @@ public class EntryContainer
   private final Map<AttributeType, CryptoSuite> attrCryptoMap = new HashMap<>();
   /** The set of VLV (Virtual List View) indexes. */
   private final Map<String, VLVIndex> vlvIndexMap = new HashMap<>();
+  /** The set of composite (multi-attribute) indexes. */
+  private final Map<String, CompositeIndex> compositeIndexMap = new HashMap<>();
 
   /**
    * Prevents name clashes for common indexes (like id2entry) across multiple suffixes.
@@ -165,6 +178,23 @@ public class EntryContainer
    */
   private final String treePrefix;
 
+  /**
+   * The number of modifications of the entries, incremented after each modification. It identifies the state of
+   * the entries for which search results were cached.
+   */
+  private final AtomicLong modificationCount = new AtomicLong();
+  /** The cached sorted entry IDs of the sorted searches, bounded to 1% of the heap. */
+  private final SortResultCache sortResultCache = new SortResultCache(Runtime.getRuntime().maxMemory() / 100);
+  /** The request controls which do not need the attributes of the entries returned by a search. */
+  private static final Set<String> NAME_ONLY_SEARCH_CONTROLS = new HashSet<>(Arrays.asList(
+      ServerConstants.OID_PAGED_RESULTS_CONTROL, ServerConstants.OID_MANAGE_DSAIT_CONTROL,
+      ServerConstants.OID_SERVER_SIDE_SORT_REQUEST_CONTROL, ServerConstants.OID_VLV_REQUEST_CONTROL));
+
+  /** The cached candidate entry IDs of the indexed searches, bounded by the configured size. */
+  private final CandidateCache candidateCache;
+  /** The disk space that the hot keys of the indexes may use above the index entry limit. */
+  private final AdaptiveEntryLimit.Budget indexEntryLimitExtensionBudget;
+
   private final ServerContext serverContext;
 
   /**
@@ -181,7 +211,8 @@ public class EntryContainer
       try
       {
         newAttributeIndex(cfg, null);
-        return true;
+        return CompositeIndex.isAttributeIndexConfidentialityAcceptable(cfg, getCompositeIndexes(),
+            unacceptableReasons);
       }
       catch(Exception e)
       {
@@ -213,6 +244,7 @@ public class EntryContainer
             attrCryptoMap.put(cfg.getAttribute(), cryptoSuite);
           }
         });
+        candidateCache.clear();
       }
       catch(Exception e)
       {
@@ -247,6 +279,8 @@ public class EntryContainer
             attrCryptoMap.remove(cfg.getAttribute());
           }
         });
+        // The cached candidates depending on the deleted index would no longer be invalidated
+        candidateCache.clear();
       }
       catch (Exception de)
       {
@@ -342,6 +376,97 @@ public class EntryContainer
     }
   }
 
+  /**
+   * This class is responsible for managing the configuration for composite indexes
+   * used within this entry container.
+   */
+  private class CompositeIndexCfgManager implements
+  ConfigurationAddListener<BackendCompositeIndexCfg>,
+  ConfigurationDeleteListener<BackendCompositeIndexCfg>
+  {
+    @Override
+    public boolean isConfigurationAddAcceptable(BackendCompositeIndexCfg cfg,
+        List<LocalizableMessage> unacceptableReasons)
+    {
+      return CompositeIndex.isConfigurationAddAcceptable(cfg, EntryContainer.this, unacceptableReasons);
+    }
+
+    @Override
+    public ConfigChangeResult applyConfigurationAdd(final BackendCompositeIndexCfg cfg)
+    {
+      final ConfigChangeResult ccr = new ConfigChangeResult();
+      exclusiveLock.lock();
+      try
+      {
+        storage.write(new WriteOperation()
+        {
+          @Override
+          public void run(WriteableTransaction txn) throws Exception
+          {
+            CompositeIndex index = new CompositeIndex(cfg, state, EntryContainer.this, newCryptoSuite(false));
+            index.open(txn, true);
+            if (!index.isTrusted())
+            {
+              ccr.setAdminActionRequired(true);
+              ccr.addMessage(NOTE_INDEX_ADD_REQUIRES_REBUILD.get(cfg.getName()));
+            }
+            compositeIndexMap.put(cfg.getName().toLowerCase(), index);
+          }
+        });
+      }
+      catch (Exception e)
+      {
+        ccr.setResultCode(DirectoryServer.getCoreConfigManager().getServerErrorResultCode());
+        ccr.addMessage(LocalizableMessage.raw(StaticUtils.stackTraceToSingleLineString(e)));
+      }
+      finally
+      {
+        exclusiveLock.unlock();
+      }
+      return ccr;
+    }
+
+    @Override
+    public boolean isConfigurationDeleteAcceptable(BackendCompositeIndexCfg cfg,
+        List<LocalizableMessage> unacceptableReasons)
+    {
+      return true;
+    }
+
+    @Override
+    public ConfigChangeResult applyConfigurationDelete(final BackendCompositeIndexCfg cfg)
+    {
+      final ConfigChangeResult ccr = new ConfigChangeResult();
+      exclusiveLock.lock();
+      try
+      {
+        storage.write(new WriteOperation()
+        {
+          @Override
+          public void run(WriteableTransaction txn) throws Exception
+          {
+            final CompositeIndex index = compositeIndexMap.remove(cfg.getName().toLowerCase());
+            index.close();
+            index.delete(txn);
+            state.deleteRecord(txn, index.getName());
+          }
+        });
+        // The cached candidates depending on the deleted index would no longer be invalidated
+        candidateCache.clear();
+      }
+      catch (Exception e)
+      {
+        ccr.setResultCode(getCoreConfigManager().getServerErrorResultCode());
+        ccr.addMessage(LocalizableMessage.raw(StaticUtils.stackTraceToSingleLineString(e)));
+      }
+      finally
+      {
+        exclusiveLock.unlock();
+      }
+      return ccr;
+    }
+  }
+
   /** A read write lock to handle schema changes and bulk changes. */
   private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
   final Lock sharedLock = lock.readLock();
@@ -361,6 +486,9 @@ public class EntryContainer
     this.dn2id = new DN2ID(getIndexName(DN2ID_TREE_NAME), baseDN);
     this.dn2uri = new DN2URI(getIndexName(REFERRAL_TREE_NAME), this);
     this.state = new State(getIndexName(STATE_TREE_NAME));
+    this.candidateCache = new CandidateCache(config.getCandidateCacheSize());
+    this.indexEntryLimitExtensionBudget =
+        new AdaptiveEntryLimit.Budget(config.getIndexEntryLimitExtensionSize());
 
     config.addPluggableChangeListener(this);
 
@@ -371,6 +499,10 @@ public class EntryContainer
     vlvIndexCfgManager = new VLVIndexCfgManager();
     config.addBackendVLVIndexAddListener(vlvIndexCfgManager);
     config.addBackendVLVIndexDeleteListener(vlvIndexCfgManager);
+
+    compositeIndexCfgManager = new CompositeIndexCfgManager();
+    config.addBackendCompositeIndexAddListener(compositeIndexCfgManager);
+    config.addBackendCompositeIndexDeleteListener(compositeIndexCfgManager);
   }
 
   private CryptoSuite newCryptoSuite(boolean confidentiality)
@@ -450,6 +582,20 @@ public class EntryContainer
 
         vlvIndexMap.put(vlvIndexCfg.getName().toLowerCase(), vlvIndex);
       }
+
+      for (String idx : config.listBackendCompositeIndexes())
+      {
+        BackendCompositeIndexCfg compositeIndexCfg = config.getBackendCompositeIndex(idx);
+
+        CompositeIndex compositeIndex = new CompositeIndex(compositeIndexCfg, state, this, newCryptoSuite(false));
+        compositeIndex.open(txn, shouldCreate);
+        if (!compositeIndex.isTrusted() && isNotEmpty)
+        {
+          logger.info(NOTE_INDEX_ADD_REQUIRES_REBUILD, compositeIndex.getName());
+        }
+
+        compositeIndexMap.put(compositeIndexCfg.getName().toLowerCase(), compositeIndex);
+      }
     }
     catch (StorageRuntimeException de)
     {
@@ -474,6 +620,7 @@ public class EntryContainer
   {
     closeSilently(attrIndexMap.values());
     closeSilently(vlvIndexMap.values());
+    closeSilently(compositeIndexMap.values());
 
     // Deregister any listeners.
     config.removePluggableChangeListener(this);
@@ -481,6 +628,8 @@ public class EntryContainer
     config.removeBackendIndexDeleteListener(attributeIndexCfgManager);
     config.removeBackendVLVIndexAddListener(vlvIndexCfgManager);
     config.removeBackendVLVIndexDeleteListener(vlvIndexCfgManager);
+    config.removeBackendCompositeIndexAddListener(compositeIndexCfgManager);
+    config.removeBackendCompositeIndexDeleteListener(compositeIndexCfgManager);
   }
 
   /**
@@ -495,6 +644,36 @@ public class EntryContainer
     return rootContainer;
   }
 
+  /**
+   * Retrieves the cache of the candidate entry IDs of the indexed searches.
+   *
+   * @return The cache of the candidate entry IDs of the indexed searches.
+   */
+  CandidateCache getCandidateCache()
+  {
+    return candidateCache;
+  }
+
+  /**
+   * Retrieves the disk space that the hot keys of the indexes may use above the index entry limit.
+   *
+   * @return The budget shared by the adaptive index entry limits of the indexes.
+   */
+  AdaptiveEntryLimit.Budget getIndexEntryLimitExtensionBudget()
+  {
+    return indexEntryLimitExtensionBudget;
+  }
+
+  /**
+   * Discards all the cached search results, after the entries or the indexes were changed without
+   * an {@link IndexBuffer} recording the updated index keys.
+   */
+  void invalidateSearchCaches()
+  {
+    modificationCount.incrementAndGet();
+    candidateCache.clear();
+  }
+
   /**
    * Get the DN tree used by this entry container.
    * The entryContainer must have been opened.
@@ -581,6 +760,27 @@ public class EntryContainer
     return vlvIndexMap.values();
   }
 
+  /**
+   * Look for a composite index for the given index name.
+   *
+   * @param compositeIndexName name of the composite index to look for
+   * @return The composite index or null if there is none with that name.
+   */
+  CompositeIndex getCompositeIndex(String compositeIndexName)
+  {
+    return compositeIndexMap.get(compositeIndexName.toLowerCase());
+  }
+
+  /**
+   * Retrieve all composite indexes.
+   *
+   * @return The collection of composite indexes defined in this entry container.
+   */
+  Collection<CompositeIndex> getCompositeIndexes()
+  {
+    return compositeIndexMap.values();
+  }
+
   /**
    * Determine the highest entryID in the entryContainer.
    * The entryContainer must already be open.
@@ -667,6 +867,9 @@ public class EntryContainer
   void search(final SearchOperation searchOperation)
   throws DirectoryException, StorageRuntimeException, CanceledOperationException
   {
+    // Read before the transaction starts so that results cached by this search are never more recent than this count
+    final long searchModificationCount = modificationCount.get();
+    final long candidateCacheSequence = candidateCache.getSequence();
     try
     {
       storage.read(new ReadOperation<Void>()
@@ -735,6 +938,7 @@ public class EntryContainer
 
           EntryIDSet candidateEntryIDs = null;
           boolean candidatesAreInScope = false;
+          boolean candidatesMatchFilter = false;
           if (sortRequest != null)
           {
             for (VLVIndex vlvIndex : vlvIndexMap.values())
@@ -760,6 +964,8 @@ public class EntryContainer
           // requires us to use an entryIDSet where the entryIDs are ordered
           // so further paging can restart where it previously stopped
           long[] reorderedCandidateEntryIDs;
+          int sortedCandidateCount = -1;
+          Long nextPageEntryID = null;
           if (candidateEntryIDs == null)
           {
             if (processSearchWithVirtualAttributeRule(searchOperation, true))
@@ -767,26 +973,50 @@ public class EntryContainer
               return null;
             }
 
-            // Create an index filter to get the search result candidate entries
-            IndexFilter indexFilter = new IndexFilter(
-                EntryContainer.this, txn, searchOperation, debugBuffer, rootContainer.getMonitorProvider());
-
-            // Evaluate the filter against the attribute indexes.
-            candidateEntryIDs = indexFilter.evaluate();
-            if (!isBelowFilterThreshold(candidateEntryIDs))
+            final int idSetLimit = getEntryIDSetLimit(searchOperation);
+            // The debug search index output needs the indexes to be read
+            final CandidateCache.Key candidatesKey = debugBuffer == null
+                ? new CandidateCache.Key(aBaseDN, searchScope, searchOperation.getFilter(), idSetLimit)
+                : null;
+            final CandidateCache.Candidates cachedCandidates =
+                candidatesKey != null ? candidateCache.get(candidatesKey) : null;
+            if (cachedCandidates != null)
+            {
+              candidateEntryIDs = cachedCandidates.toEntryIDSet();
+              candidatesAreInScope = cachedCandidates.isInScope();
+            }
+            else
             {
-              final int idSetLimit = getEntryIDSetLimit(searchOperation);
-              final EntryIDSet scopeSet = getIDSetFromScope(txn, aBaseDN, searchScope, idSetLimit);
-              candidateEntryIDs.retainAll(scopeSet);
-              if (debugBuffer != null)
+              // Create an index filter to get the search result candidate entries
+              final CandidateCache.Dependencies dependencies =
+                  candidatesKey != null ? new CandidateCache.Dependencies() : null;
+              IndexFilter indexFilter = new IndexFilter(
+                  EntryContainer.this, txn, searchOperation, debugBuffer, rootContainer.getMonitorProvider(),
+                  dependencies);
+
+              // Evaluate the filter against the attribute indexes.
+              candidateEntryIDs = indexFilter.evaluate();
+              // Cached candidates are never known to match: they can be stale until invalidated after an update
+              candidatesMatchFilter = indexFilter.isExact();
+              if (!isBelowFilterThreshold(candidateEntryIDs))
               {
-                debugBuffer.append(" scope=").append(searchScope);
-                scopeSet.toString(debugBuffer);
+                final EntryIDSet scopeSet = getIDSetFromScope(txn, aBaseDN, searchScope, idSetLimit);
+                candidateEntryIDs.retainAll(scopeSet);
+                if (debugBuffer != null)
+                {
+                  debugBuffer.append(" scope=").append(searchScope);
+                  scopeSet.toString(debugBuffer);
+                }
+                if (scopeSet.isDefined())
+                {
+                  // In this case we know that every candidate is in scope.
+                  candidatesAreInScope = true;
+                }
               }
-              if (scopeSet.isDefined())
+              if (candidatesKey != null)
               {
-                // In this case we know that every candidate is in scope.
-                candidatesAreInScope = true;
+                candidateCache.put(candidatesKey, candidateCacheSequence, candidateEntryIDs, candidatesAreInScope,
+                    dependencies);
               }
             }
 
@@ -798,7 +1028,15 @@ public class EntryContainer
               try
               {
                 List<SortKey> sortKeys = sortRequest.getSortKeys();
-                reorderedCandidateEntryIDs = sort(txn, candidateEntryIDs, searchOperation, sortKeys, vlvRequest);
+                SortedEntryIDs sortedEntryIDs =
+                    sort(txn, candidateEntryIDs, searchOperation, sortKeys, vlvRequest, pageRequest,
+                        searchModificationCount);
+                reorderedCandidateEntryIDs = sortedEntryIDs != null ? sortedEntryIDs.entryIDs : null;
+                if (sortedEntryIDs != null)
+                {
+                  sortedCandidateCount = sortedEntryIDs.candidateCount;
+                  nextPageEntryID = sortedEntryIDs.nextPageEntryID;
+                }
               }
               catch (DirectoryException de)
               {
@@ -853,7 +1091,10 @@ public class EntryContainer
           if (reorderedCandidateEntryIDs != null)
           {
             rootContainer.getMonitorProvider().incrementIndexedSearchCount();
-            searchIndexed(txn, reorderedCandidateEntryIDs, candidatesAreInScope, searchOperation, pageRequest);
+            final int candidateCount =
+                sortedCandidateCount >= 0 ? sortedCandidateCount : reorderedCandidateEntryIDs.length;
+            searchIndexed(txn, reorderedCandidateEntryIDs, candidateCount, nextPageEntryID, candidatesAreInScope,
+                candidatesMatchFilter, searchOperation, pageRequest);
           }
           else
           {
@@ -1106,6 +1347,12 @@ public class EntryContainer
       }
     }
 
+    if (pageRequest == null && isParallelSearchAllowed(txn, searchOperation))
+    {
+      searchNotIndexedInParallel(txn, searchOperation, manageDsaIT);
+      return;
+    }
+
     /*
      * We will iterate forwards through a range of the dn2id keys to
      * find subordinates of the target entry from the top of the tree
@@ -1208,6 +1455,71 @@ public class EntryContainer
     addPagedResultsControl(searchOperation, pageRequest, null);
   }
 
+  /**
+   * Returns whether an unindexed search may scan id2entry in parallel instead of walking dn2id:
+   * every entry of this container must be in scope, and results do not need to be returned in DN
+   * order for the lookthrough limit or the paged results cookie.
+   */
+  private boolean isParallelSearchAllowed(ReadableTransaction txn, SearchOperation searchOperation)
+  {
+    final SearchScope searchScope = searchOperation.getScope();
+    return (searchScope == SearchScope.WHOLE_SUBTREE || searchScope == SearchScope.SUBORDINATES)
+        && searchOperation.getBaseDN().equals(baseDN)
+        && searchOperation.getClientConnection().getLookthroughLimit() <= 0
+        && ID2EntryScanner.isParallelSearchWorthwhile(txn, id2entry);
+  }
+
+  /**
+   * Searches the whole container by scanning id2entry in the search transaction. The entries are decoded
+   * and matched against the filter in parallel by the scanning threads, and returned in entry ID order.
+   */
+  private void searchNotIndexedInParallel(ReadableTransaction txn, final SearchOperation searchOperation,
+      final boolean manageDsaIT) throws DirectoryException, CanceledOperationException
+  {
+    final EntryCache<?> entryCache = getEntryCache();
+    final ID2EntryScanner.RecordTransformer<Entry> matcher = new ID2EntryScanner.RecordTransformer<Entry>()
+    {
+      @Override
+      public Entry transform(ByteString key, ByteString value) throws Exception
+      {
+        searchOperation.checkIfCanceled(false);
+        final EntryID entryID = new EntryID(key);
+        // Do not fill the entry cache with the whole backend.
+        Entry entry = entryCache.getEntry(backendID, entryID.longValue());
+        if (entry == null)
+        {
+          entry = id2entry.get(entryID, value);
+        }
+        // The base entry has already been processed.
+        if (!entry.getName().equals(baseDN)
+            && (manageDsaIT || entry.getReferralURLs() == null)
+            && searchOperation.getFilter().matchesEntry(entry))
+        {
+          return entry;
+        }
+        return null;
+      }
+    };
+
+    try (final ID2EntryScanner<Entry> scanner = new ID2EntryScanner<>(txn, id2entry, matcher))
+    {
+      while (scanner.next())
+      {
+        if (!searchOperation.returnEntry(scanner.getValue(), null))
+        {
+          // We have been told to discontinue processing of the search.
+          // This could be due to size limit exceeded or operation cancelled
+          return;
+        }
+        searchOperation.checkIfCanceled(false);
+      }
+    }
+    catch (StorageRuntimeException e)
+    {
+      throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
+    }
+  }
+
   private boolean isPageFull(SearchOperation searchOperation, PagedResultsControl pageRequest)
   {
     return pageRequest != null && searchOperation.getEntriesSent() == pageRequest.getSize();
@@ -1252,7 +1564,7 @@ public class EntryContainer
   }
 
   /**
-   * We were able to obtain a set of candidate entry IDs for the search from the indexes.
+   * Returns the candidate entries of an indexed search.
    * <p>
    * Here we are relying on ID order to ensure children are returned after their parents.
    * <ul>
@@ -1263,25 +1575,31 @@ public class EntryContainer
    * <li>return entry if it matches the filter
    * </ul>
    *
-   * @param entryIDReorderedSet
-   *          The candidate entry IDs.
-   * @param candidatesAreInScope
-   *          true if it is certain that every candidate entry is in the search scope.
-   * @param searchOperation
-   *          The search operation.
-   * @param pageRequest
-   *          A Paged Results control, or null if none.
-   * @throws DirectoryException
-   *           If an error prevented the search from being processed.
+   * @param txn a non null transaction
+   * @param entryIDReorderedSet the candidate entry IDs, in the order they must be returned
+   * @param candidateCount the number of candidates checked against the lookthrough limit, which is greater than the
+   *          number of entry IDs when they have been limited to the requested page
+   * @param nextPageEntryID when the entry IDs have been limited to the requested page, the entry ID starting the
+   *          next page, {@code null} otherwise
+   * @param candidatesAreInScope whether all the candidates are known to be in the search scope
+   * @param candidatesMatchFilter whether all the candidates are known to match the search filter, in which case the
+   *          filter is not evaluated against the entries
+   * @param searchOperation the search operation
+   * @param pageRequest the paged results control, or {@code null}
+   * @throws DirectoryException If an error prevented the search from being processed.
+   * @throws CanceledOperationException if this operation should be cancelled.
    */
-  private void searchIndexed(ReadableTransaction txn, long[] entryIDReorderedSet, boolean candidatesAreInScope,
-      SearchOperation searchOperation, PagedResultsControl pageRequest) throws DirectoryException,
-      CanceledOperationException
+  private void searchIndexed(ReadableTransaction txn, long[] entryIDReorderedSet, int candidateCount,
+      Long nextPageEntryID, boolean candidatesAreInScope, boolean candidatesMatchFilter,
+      SearchOperation searchOperation, PagedResultsControl pageRequest)
+      throws DirectoryException, CanceledOperationException
   {
     SearchScope searchScope = searchOperation.getScope();
     DN aBaseDN = searchOperation.getBaseDN();
     boolean manageDsaIT = isManageDsaITOperation(searchOperation);
     boolean continueSearch = true;
+    // The attributes of the entries are not needed when the indexes cover the filter and the scope
+    final boolean namesOnly = candidatesAreInScope && candidatesMatchFilter && isNameOnlySearch(searchOperation);
 
     // Set the starting value.
     Long beginEntryID = null;
@@ -1307,7 +1625,7 @@ public class EntryContainer
     // Make sure the candidate list is smaller than the lookthrough limit
     int lookthroughLimit =
       searchOperation.getClientConnection().getLookthroughLimit();
-    if (lookthroughLimit > 0 && entryIDReorderedSet.length > lookthroughLimit)
+    if (lookthroughLimit > 0 && candidateCount > lookthroughLimit)
     {
       //Lookthrough limit exceeded
       searchOperation.setResultCode(ResultCode.ADMIN_LIMIT_EXCEEDED);
@@ -1319,13 +1637,14 @@ public class EntryContainer
     if (continueSearch)
     {
       final SearchFilter filter = searchOperation.getFilter();
+      boolean hasNextPage = nextPageEntryID != null;
       for (int i = findStartIndex(beginEntryID, entryIDReorderedSet); i < entryIDReorderedSet.length; i++)
       {
         EntryID entryID = new EntryID(entryIDReorderedSet[i]);
         Entry entry;
         try
         {
-          entry = getEntry(txn, entryID);
+          entry = namesOnly ? getEntryName(txn, entryID) : getEntry(txn, entryID);
         }
         catch (Exception e)
         {
@@ -1337,7 +1656,7 @@ public class EntryContainer
         if (entry != null
               && isInScope(candidatesAreInScope, searchScope, aBaseDN, entry)
               && (manageDsaIT || entry.getReferralURLs() == null)
-              && filter.matchesEntry(entry))
+              && (candidatesMatchFilter || filter.matchesEntry(entry)))
           {
             if (isPageFull(searchOperation, pageRequest))
             {
@@ -1350,11 +1669,19 @@ public class EntryContainer
             {
               // We have been told to discontinue processing of the search.
               // This could be due to size limit exceeded or operation cancelled
+              hasNextPage = false;
               break;
             }
           }
       }
       searchOperation.checkIfCanceled(false);
+      if (hasNextPage)
+      {
+        // The page may be incomplete when some candidates were not returned,
+        // but the search continues with the next page.
+        addPagedResultsControl(searchOperation, pageRequest, new EntryID(nextPageEntryID).toByteString());
+        return;
+      }
     }
 
     // Before we return success from the search we must ensure the base entry
@@ -1374,6 +1701,43 @@ public class EntryContainer
     addPagedResultsControl(searchOperation, pageRequest, null);
   }
 
+  /**
+   * Returns whether a search only returns the DN of the entries: it requests no attributes, its
+   * client bypasses access control, and it has no control needing the attributes of the entries.
+   * The subentries and the referrals are still recognized from the object classes of the entries.
+   */
+  private static boolean isNameOnlySearch(SearchOperation searchOperation)
+  {
+    final Set<String> attributes = searchOperation.getAttributes();
+    if (attributes.size() != 1 || !attributes.contains(SchemaConstants.NO_ATTRIBUTES))
+    {
+      return false;
+    }
+    for (Control control : searchOperation.getRequestControls())
+    {
+      if (!NAME_ONLY_SEARCH_CONTROLS.contains(control.getOID()))
+      {
+        return false;
+      }
+    }
+    return searchOperation.getClientConnection().hasPrivilege(Privilege.BYPASS_ACL, searchOperation);
+  }
+
+  /**
+   * Fetches an entry for returning only its DN, from the entry cache or by decoding only its DN
+   * and its object classes. Referrals are fully decoded since their URLs must be returned.
+   */
+  private Entry getEntryName(ReadableTransaction txn, EntryID entryID) throws DirectoryException
+  {
+    final Entry cacheEntry = getEntryCache().getEntry(backendID, entryID.longValue());
+    if (cacheEntry != null)
+    {
+      return cacheEntry;
+    }
+    final Entry entry = id2entry.getNameAndObjectClasses(txn, entryID);
+    return entry != null && entry.isReferral() ? getEntry(txn, entryID) : entry;
+  }
+
   private int findStartIndex(Long beginEntryID, long[] entryIDReorderedSet)
   {
     if (beginEntryID == null)
@@ -1516,6 +1880,11 @@ public class EntryContainer
       writeTrustState(indexBuffer);
       throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
     }
+    finally
+    {
+      modificationCount.incrementAndGet();
+      candidateCache.invalidate(indexBuffer.getUpdatedKeys());
+    }
 
     final EntryCache<?> entryCache = DirectoryServer.getEntryCache();
     if (entryCache != null)
@@ -1729,6 +2098,11 @@ public class EntryContainer
       writeTrustState(indexBuffer);
       throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
     }
+    finally
+    {
+      modificationCount.incrementAndGet();
+      candidateCache.invalidate(indexBuffer.getUpdatedKeys());
+    }
   }
 
   /**
@@ -1926,6 +2300,11 @@ public class EntryContainer
       writeTrustState(indexBuffer);
       throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
     }
+    finally
+    {
+      modificationCount.incrementAndGet();
+      candidateCache.invalidate(indexBuffer.getUpdatedKeys());
+    }
   }
 
   /**
@@ -2168,6 +2547,11 @@ public class EntryContainer
       writeTrustState(indexBuffer);
       throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
     }
+    finally
+    {
+      // Renaming changes the scope of the entries without updating their attribute index keys
+      invalidateSearchCaches();
+    }
   }
 
   /**
@@ -2191,6 +2575,14 @@ public class EntryContainer
     {
       vlvIndex.addEntry(buffer, entryID, entry);
     }
+
+    for (CompositeIndex index : compositeIndexMap.values())
+    {
+      for (ByteString key : index.indexEntry(entry))
+      {
+        buffer.put(index, key, entryID);
+      }
+    }
   }
 
   /**
@@ -2214,6 +2606,14 @@ public class EntryContainer
     {
       vlvIndex.removeEntry(buffer, entryID, entry);
     }
+
+    for (CompositeIndex index : compositeIndexMap.values())
+    {
+      for (ByteString key : index.indexEntry(entry))
+      {
+        buffer.remove(index, key, entryID);
+      }
+    }
   }
 
   /**
@@ -2245,6 +2645,14 @@ public class EntryContainer
     {
       vlvIndex.modifyEntry(buffer, entryID, oldEntry, newEntry, mods);
     }
+
+    for (CompositeIndex index : compositeIndexMap.values())
+    {
+      if (index.isModified(mods))
+      {
+        index.modifyEntry(buffer, entryID, oldEntry, newEntry);
+      }
+    }
   }
 
   /**
@@ -2308,6 +2716,7 @@ public class EntryContainer
     {
       tree.delete(txn);
     }
+    invalidateSearchCaches();
   }
 
   /**
@@ -2427,6 +2836,8 @@ public class EntryContainer
       {
         indexCrypto.newParameters(cfg.getCipherTransformation(), cfg.getCipherKeyLength(), indexCrypto.isEncrypted());
       }
+      candidateCache.setMaxMemory(cfg.getCandidateCacheSize());
+      indexEntryLimitExtensionBudget.setSize(cfg.getIndexEntryLimitExtensionSize());
     }
     catch (Exception e)
     {
@@ -2467,6 +2878,10 @@ public class EntryContainer
     {
       throw new StorageRuntimeException(e);
     }
+    finally
+    {
+      invalidateSearchCaches();
+    }
   }
 
   List<Tree> listTrees()
@@ -2484,6 +2899,7 @@ public class EntryContainer
     }
 
     allTrees.addAll(vlvIndexMap.values());
+    allTrees.addAll(compositeIndexMap.values());
     return allTrees;
   }
 
@@ -2536,128 +2952,363 @@ public class EntryContainer
     return baseEntry;
   }
 
-  private long[] sort(ReadableTransaction txn, EntryIDSet entryIDSet, SearchOperation searchOperation,
-      List<SortKey> sortKeys, VLVRequestControl vlvRequest) throws DirectoryException
+  /** The result of sorting the candidates of a search. */
+  private static final class SortedEntryIDs
+  {
+    /** The sorted entry IDs, limited to the requested page or VLV window. */
+    private final long[] entryIDs;
+    /** The number of sorted candidates. */
+    private final int candidateCount;
+    /** When the entry IDs have been limited to the requested page, the entry ID starting the next page. */
+    private final Long nextPageEntryID;
+
+    private SortedEntryIDs(long[] entryIDs, int candidateCount, Long nextPageEntryID)
+    {
+      this.entryIDs = entryIDs;
+      this.candidateCount = candidateCount;
+      this.nextPageEntryID = nextPageEntryID;
+    }
+  }
+
+  /**
+   * Sorts the candidates of a search. Only the sort keys of the candidates are kept: when a VLV
+   * window or a page is requested, only the sort keys in this window or page are kept in bounded
+   * heaps, otherwise the sort keys are sorted externally, spilling them to disk when there are too
+   * many of them.
+   * <p>
+   * When the sorted entry IDs of the search are small enough, they are cached so that the next
+   * pages of the search are served without sorting the candidates again.
+   */
+  private SortedEntryIDs sort(ReadableTransaction txn, EntryIDSet entryIDSet, SearchOperation searchOperation,
+      List<SortKey> sortKeys, VLVRequestControl vlvRequest, PagedResultsControl pageRequest,
+      long searchModificationCount) throws DirectoryException
   {
     if (!entryIDSet.isDefined())
     {
       return null;
     }
 
-    final DN baseDN = searchOperation.getBaseDN();
-    final SearchScope scope = searchOperation.getScope();
-    final SearchFilter filter = searchOperation.getFilter();
-
-    final TreeMap<ByteString, EntryID> sortMap = new TreeMap<>();
-    for (EntryID id : entryIDSet)
+    if (isSortResultCacheable(searchOperation.getFilter(), sortKeys))
     {
-      try
+      final SortResultCache.Key cacheKey = new SortResultCache.Key(searchOperation.getBaseDN(),
+          searchOperation.getScope(), searchOperation.getFilter(), sortKeys, searchOperation.getAuthorizationDN());
+      long[] sortedIDs = sortResultCache.get(cacheKey, searchModificationCount);
+      if (sortedIDs == null && sortResultCache.canCache(entryIDSet.size()))
       {
-        Entry e = getEntry(txn, id);
-        if (e.matchesBaseAndScope(baseDN, scope) && filter.matchesEntry(e))
+        try (EntryIDSorter sorter =
+            EntryIDSorter.newExternalSorter(getSortTempDir(), EntryIDSorter.DEFAULT_MAX_IN_MEMORY_KEYS))
         {
-          sortMap.put(encodeVLVKey(sortKeys, e, id.longValue()), id);
+          addSortKeys(txn, entryIDSet, searchOperation, sortKeys, sorter);
+          sortedIDs = toSortedArray(sorter);
         }
+        sortResultCache.put(cacheKey, searchModificationCount, sortedIDs);
       }
-      catch (Exception e)
+      if (sortedIDs != null)
       {
-        LocalizableMessage message = ERR_ENTRYIDSORTER_CANNOT_EXAMINE_ENTRY.get(id, getExceptionMessage(e));
-        throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), message, e);
+        return getSortedWindow(txn, sortedIDs, searchOperation, sortKeys, vlvRequest, pageRequest);
       }
     }
 
     // See if there is a VLV request to further pare down the set of results, and if there is where it should be
     // processed by offset or assertion value.
-    if (vlvRequest == null)
+    final EntryIDSorter sorter;
+    if (vlvRequest != null)
+    {
+      if (vlvRequest.getTargetType() == VLVRequestControl.TYPE_TARGET_BYOFFSET)
+      {
+        // Keep the entries up to the end of the requested window.
+        final long windowEnd = Math.max(vlvRequest.getOffset(), 1) + (long) vlvRequest.getAfterCount();
+        sorter = EntryIDSorter.newWindowSorter(null, 0, (int) Math.min(windowEnd, Integer.MAX_VALUE));
+      }
+      else
+      {
+        ByteString assertionValue = vlvRequest.getGreaterThanOrEqualAssertion();
+        ByteString encodedTargetAssertion =
+            encodeTargetAssertion(sortKeys, assertionValue, searchOperation, (int) entryIDSet.size()).toByteString();
+        sorter = EntryIDSorter.newWindowSorter(encodedTargetAssertion, vlvRequest.getBeforeCount(),
+            (int) Math.min(1L + vlvRequest.getAfterCount(), Integer.MAX_VALUE));
+      }
+    }
+    else if (pageRequest != null && pageRequest.getSize() > 0)
+    {
+      // Keep the entries of the requested page, plus the one starting the next page.
+      final ByteString lowerBound = getPageLowerBound(txn, searchOperation, sortKeys, pageRequest);
+      if (lowerBound != null || pageRequest.getCookie().length() == 0)
+      {
+        sorter = EntryIDSorter.newWindowSorter(lowerBound, 0, (int) Math.min(pageRequest.getSize() + 1L,
+            Integer.MAX_VALUE));
+      }
+      else
+      {
+        // The entry starting the page is gone: fall back to sorting all the entries
+        sorter = EntryIDSorter.newExternalSorter(getSortTempDir(), EntryIDSorter.DEFAULT_MAX_IN_MEMORY_KEYS);
+      }
+    }
+    else
     {
-      return toArray(sortMap.values());
+      sorter = EntryIDSorter.newExternalSorter(getSortTempDir(), EntryIDSorter.DEFAULT_MAX_IN_MEMORY_KEYS);
     }
 
-    if (vlvRequest.getTargetType() == VLVRequestControl.TYPE_TARGET_BYOFFSET)
+    try
     {
-      return sortByOffset(searchOperation, vlvRequest, sortMap);
+      addSortKeys(txn, entryIDSet, searchOperation, sortKeys, sorter);
+      final long[] sortedIDs = toSortedArray(sorter);
+      if (vlvRequest != null)
+      {
+        final long[] entryIDs = vlvRequest.getTargetType() == VLVRequestControl.TYPE_TARGET_BYOFFSET
+            ? sortByOffset(searchOperation, vlvRequest, sortedIDs, sorter.size())
+            : sortByGreaterThanOrEqualAssertion(searchOperation, sortedIDs, sorter);
+        return new SortedEntryIDs(entryIDs, entryIDs.length, null);
+      }
+      if (pageRequest != null && pageRequest.getSize() > 0 && sortedIDs.length > pageRequest.getSize())
+      {
+        final int pageSize = pageRequest.getSize();
+        return new SortedEntryIDs(Arrays.copyOf(sortedIDs, pageSize), sorter.size(), sortedIDs[pageSize]);
+      }
+      return new SortedEntryIDs(sortedIDs, sorter.size(), null);
+    }
+    finally
+    {
+      sorter.close();
     }
-    return sortByGreaterThanOrEqualAssertion(searchOperation, vlvRequest, sortKeys, sortMap);
   }
 
-  private static final long[] toArray(Collection<EntryID> entryIDs)
+  /**
+   * Returns the part of the sorted entry IDs requested by the VLV or paged results controls of a
+   * search. Only the entries needed to locate the target of a VLV request by assertion are read.
+   */
+  private SortedEntryIDs getSortedWindow(ReadableTransaction txn, long[] sortedIDs, SearchOperation searchOperation,
+      List<SortKey> sortKeys, VLVRequestControl vlvRequest, PagedResultsControl pageRequest)
+      throws DirectoryException
   {
-    final long[] array = new long[entryIDs.size()];
-    int i = 0;
-    for (EntryID entryID : entryIDs)
+    if (vlvRequest != null)
     {
-      array[i++] = entryID.longValue();
+      final long[] entryIDs = vlvRequest.getTargetType() == VLVRequestControl.TYPE_TARGET_BYOFFSET
+          ? sortByOffset(searchOperation, vlvRequest, sortedIDs, sortedIDs.length)
+          : sortByGreaterThanOrEqualAssertion(txn, searchOperation, vlvRequest, sortKeys, sortedIDs);
+      return new SortedEntryIDs(entryIDs, entryIDs.length, null);
     }
-    return array;
+    if (pageRequest != null && pageRequest.getSize() > 0)
+    {
+      final int startIndex = findPageStartIndex(pageRequest, sortedIDs);
+      final int endIndex = (int) Math.min((long) startIndex + pageRequest.getSize(), sortedIDs.length);
+      final Long nextPageEntryID = endIndex < sortedIDs.length ? sortedIDs[endIndex] : null;
+      return new SortedEntryIDs(Arrays.copyOfRange(sortedIDs, startIndex, endIndex), sortedIDs.length,
+          nextPageEntryID);
+    }
+    return new SortedEntryIDs(sortedIDs, sortedIDs.length, null);
   }
 
-  private static final long[] sortByGreaterThanOrEqualAssertion(SearchOperation searchOperation,
-      VLVRequestControl vlvRequest, List<SortKey> sortKeys, final TreeMap<ByteString, EntryID> sortMap)
-      throws DirectoryException
+  private int findPageStartIndex(PagedResultsControl pageRequest, long[] sortedIDs)
+  {
+    if (pageRequest.getCookie().length() == 0)
+    {
+      return 0;
+    }
+    try
+    {
+      return findStartIndex(pageRequest.getCookie().toLong(), sortedIDs);
+    }
+    catch (Exception e)
+    {
+      // An invalid cookie is reported when returning the entries.
+      logger.traceException(e);
+      return 0;
+    }
+  }
+
+  /**
+   * Locates the target of a VLV request by assertion in the cached sorted entry IDs, using a binary
+   * search which only reads the entries it compares to the assertion.
+   */
+  private long[] sortByGreaterThanOrEqualAssertion(ReadableTransaction txn, SearchOperation searchOperation,
+      VLVRequestControl vlvRequest, List<SortKey> sortKeys, long[] sortedIDs) throws DirectoryException
   {
     ByteString assertionValue = vlvRequest.getGreaterThanOrEqualAssertion();
     ByteSequence encodedTargetAssertion =
-        encodeTargetAssertion(sortKeys, assertionValue, searchOperation, sortMap.size());
+        encodeTargetAssertion(sortKeys, assertionValue, searchOperation, sortedIDs.length);
+
+    int low = 0;
+    int high = sortedIDs.length;
+    while (low < high)
+    {
+      final int mid = (low + high) >>> 1;
+      final EntryID id = new EntryID(sortedIDs[mid]);
+      final Entry entry = getEntry(txn, id);
+      if (entry == null)
+      {
+        throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+            ERR_MISSING_ID2ENTRY_RECORD.get(id));
+      }
+      if (encodeVLVKey(sortKeys, entry, id.longValue()).compareTo(encodedTargetAssertion) < 0)
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
 
-    boolean targetFound = false;
-    int index = 0;
-    int targetIndex = 0;
-    int startIndex = 0;
-    int includedAfterCount = 0;
-    long[] idSet = new long[sortMap.size()];
-    for (Map.Entry<ByteString, EntryID> entry : sortMap.entrySet())
+    // When no entry was found to be greater than or equal to the sort key, the target offset will be one greater
+    // than the content count.
+    addVLVResponseControl(searchOperation, low + 1, sortedIDs.length, SUCCESS);
+    if (low == sortedIDs.length)
     {
-      ByteString vlvKey = entry.getKey();
-      EntryID id = entry.getValue();
-      idSet[index++] = id.longValue();
+      return new long[0];
+    }
+    final int startIndex = Math.max(0, low - vlvRequest.getBeforeCount());
+    final int endIndex = (int) Math.min(low + 1L + vlvRequest.getAfterCount(), sortedIDs.length);
+    return Arrays.copyOfRange(sortedIDs, startIndex, endIndex);
+  }
 
-      if (targetFound)
+  /**
+   * Returns whether the sorted entry IDs of a search may be cached. They may not when the filter or
+   * the sort keys use virtual attributes, whose values may change without any modification of the
+   * entries.
+   */
+  private static boolean isSortResultCacheable(SearchFilter filter, List<SortKey> sortKeys)
+  {
+    final Collection<VirtualAttributeRule> rules = DirectoryServer.getVirtualAttributes();
+    if (rules.isEmpty())
+    {
+      return true;
+    }
+    final Set<AttributeType> virtualAttributeTypes = new HashSet<>();
+    for (VirtualAttributeRule rule : rules)
+    {
+      virtualAttributeTypes.add(rule.getAttributeType());
+    }
+    for (SortKey sortKey : sortKeys)
+    {
+      final AttributeDescription attrDesc = AttributeDescription.valueOf(sortKey.getAttributeDescription());
+      if (virtualAttributeTypes.contains(attrDesc.getAttributeType()))
       {
-        includedAfterCount++;
-        if (includedAfterCount >= vlvRequest.getAfterCount())
+        return false;
+      }
+    }
+    return !usesAnyAttributeType(filter, virtualAttributeTypes);
+  }
+
+  private static boolean usesAnyAttributeType(SearchFilter filter, Set<AttributeType> attributeTypes)
+  {
+    switch (filter.getFilterType())
+    {
+    case AND:
+    case OR:
+      for (SearchFilter component : filter.getFilterComponents())
+      {
+        if (usesAnyAttributeType(component, attributeTypes))
         {
-          break;
+          return true;
         }
       }
-      else
+      return false;
+    case NOT:
+      return usesAnyAttributeType(filter.getNotComponent(), attributeTypes);
+    default:
+      // Extensible filters without attribute type may match any attribute
+      return filter.getAttributeType() == null || attributeTypes.contains(filter.getAttributeType());
+    }
+  }
+
+  private void addSortKeys(ReadableTransaction txn, EntryIDSet entryIDSet, SearchOperation searchOperation,
+      List<SortKey> sortKeys, EntryIDSorter sorter) throws DirectoryException
+  {
+    final DN baseDN = searchOperation.getBaseDN();
+    final SearchScope scope = searchOperation.getScope();
+    final SearchFilter filter = searchOperation.getFilter();
+    for (EntryID id : entryIDSet)
+    {
+      try
       {
-        targetFound = vlvKey.compareTo(encodedTargetAssertion) >= 0;
-        if (targetFound)
+        Entry e = getEntry(txn, id);
+        if (e.matchesBaseAndScope(baseDN, scope) && filter.matchesEntry(e))
         {
-          startIndex = Math.max(0, targetIndex - vlvRequest.getBeforeCount());
+          sorter.add(encodeVLVKey(sortKeys, e, id.longValue()), id.longValue());
         }
-        targetIndex++;
+      }
+      catch (Exception e)
+      {
+        LocalizableMessage message = ERR_ENTRYIDSORTER_CANNOT_EXAMINE_ENTRY.get(id, getExceptionMessage(e));
+        throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), message, e);
       }
     }
+  }
 
-    final long[] result;
-    if (targetFound)
+  private static long[] toSortedArray(EntryIDSorter sorter) throws DirectoryException
+  {
+    try
     {
-      final long[] array = new long[index - startIndex];
-      System.arraycopy(idSet, startIndex, array, 0, array.length);
-      result = array;
+      return sorter.toSortedArray();
     }
-    else
+    catch (IOException e)
     {
-      /*
-       * No entry was found to be greater than or equal to the sort key, so the target offset will
-       * be one greater than the content count.
-       */
-      targetIndex = sortMap.size() + 1;
-      result = new long[0];
+      LocalizableMessage message = ERR_ENTRYIDSORTER_CANNOT_SORT.get(getExceptionMessage(e));
+      throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), message, e);
     }
-    addVLVResponseControl(searchOperation, targetIndex, sortMap.size(), SUCCESS);
-    return result;
+  }
+
+  /**
+   * Returns the sort key of the entry starting the requested page, which is the entry whose ID is
+   * in the paged results cookie, or {@code null} if this is the first page, or if this entry no
+   * longer matches the search.
+   */
+  private ByteString getPageLowerBound(ReadableTransaction txn, SearchOperation searchOperation,
+      List<SortKey> sortKeys, PagedResultsControl pageRequest)
+  {
+    if (pageRequest.getCookie().length() == 0)
+    {
+      return null;
+    }
+    try
+    {
+      final long entryID = pageRequest.getCookie().toLong();
+      final Entry entry = getEntry(txn, new EntryID(entryID));
+      if (entry != null
+          && entry.matchesBaseAndScope(searchOperation.getBaseDN(), searchOperation.getScope())
+          && searchOperation.getFilter().matchesEntry(entry))
+      {
+        return encodeVLVKey(sortKeys, entry, entryID);
+      }
+    }
+    catch (Exception e)
+    {
+      // An invalid cookie is reported when returning the entries.
+      logger.traceException(e);
+    }
+    return null;
+  }
+
+  private File getSortTempDir()
+  {
+    return new File(getFileForPath(SORT_TMP_DIR), getTreePrefix());
+  }
+
+  private static final long[] sortByGreaterThanOrEqualAssertion(SearchOperation searchOperation, long[] sortedIDs,
+      EntryIDSorter sorter) throws DirectoryException
+  {
+    // The sorter kept the requested number of entries before the target, followed by the target and the requested
+    // number of entries after it.
+    final int beforeCount = sorter.getBeforeCount();
+    final boolean targetFound = sortedIDs.length > beforeCount;
+    /*
+     * When no entry was found to be greater than or equal to the sort key, the target offset will be one greater
+     * than the content count.
+     */
+    final int targetIndex = sorter.getCountBelowLowerBound() + 1;
+    addVLVResponseControl(searchOperation, targetIndex, sorter.size(), SUCCESS);
+    return targetFound ? sortedIDs : new long[0];
   }
 
   private static final long[] sortByOffset(SearchOperation searchOperation, VLVRequestControl vlvRequest,
-      TreeMap<ByteString, EntryID> sortMap) throws DirectoryException
+      long[] sortedIDs, int contentCount) throws DirectoryException
   {
     int targetOffset = vlvRequest.getOffset();
     if (targetOffset < 0)
     {
       // The client specified a negative target offset. This should never be allowed.
-      addVLVResponseControl(searchOperation, targetOffset, sortMap.size(), OFFSET_RANGE_ERROR);
+      addVLVResponseControl(searchOperation, targetOffset, contentCount, OFFSET_RANGE_ERROR);
 
       LocalizableMessage message = ERR_ENTRYIDSORTER_NEGATIVE_START_POS.get();
       throw new DirectoryException(ResultCode.VIRTUAL_LIST_VIEW_ERROR, message);
@@ -2678,42 +3329,23 @@ public class EntryContainer
       startPos = 0;
       beforeCount = listOffset;
     }
-    else if (startPos >= sortMap.size())
+    else if (startPos >= contentCount)
     {
       // The start position is beyond the end of the list. In this case, we'll assume that the start position was
       // one greater than the size of the list and will only return the beforeCount entries.
-      targetOffset = sortMap.size() + 1;
-      listOffset = sortMap.size();
+      targetOffset = contentCount + 1;
+      listOffset = contentCount;
       startPos = listOffset - beforeCount;
       afterCount = 0;
     }
 
-    int count = 1 + beforeCount + afterCount;
-    long[] sortedIDs = new long[count];
-    int treePos = 0;
-    int arrayPos = 0;
-    for (EntryID id : sortMap.values())
-    {
-      if (treePos++ < startPos)
-      {
-        continue;
-      }
+    // The sorted entry IDs start at the beginning of the list and stop at the end of the requested window.
+    startPos = Math.max(0, startPos);
+    int count = (int) Math.min(1L + beforeCount + afterCount, Math.max(0, sortedIDs.length - startPos));
+    long[] result = Arrays.copyOfRange(sortedIDs, startPos, startPos + count);
 
-      sortedIDs[arrayPos++] = id.longValue();
-      if (arrayPos >= count)
-      {
-        break;
-      }
-    }
-
-    if (arrayPos < count)
-    {
-      // We don't have enough entries in the set to meet the requested page size, so we'll need to shorten the array.
-      sortedIDs = Arrays.copyOf(sortedIDs, arrayPos);
-    }
-
-    addVLVResponseControl(searchOperation, targetOffset, sortMap.size(), SUCCESS);
-    return sortedIDs;
+    addVLVResponseControl(searchOperation, targetOffset, contentCount, SUCCESS);
+    return result;
   }
 
   private static void addVLVResponseControl(SearchOperation searchOp, int targetPosition, int contentCount,
@@ -0,0 +1,413 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.forgerock.util.Utils.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.forgerock.opendj.ldap.ByteString;
+
+/**
+ * Sorts entry IDs according to their sort keys, as encoded for VLV indexes. Only the sort keys and
+ * the entry IDs are kept, the entries themselves are never retained.
+ * <p>
+ * A sorter either keeps a window of the sorted list, or the whole sorted list:
+ * <ul>
+ * <li>a window sorter keeps the {@code maxCount} smallest keys greater than or equal to a lower
+ * bound, and the {@code beforeCount} greatest keys lower than the lower bound. It uses bounded
+ * heaps, so that its memory use only depends on the size of the window, which is the size of a page
+ * or of a VLV request.</li>
+ * <li>an external sorter keeps the whole sorted list. Once it holds too many keys in memory, they
+ * are sorted and spilled to a temporary file, and all the spilled runs are merged when the sorted
+ * entry IDs are requested.</li>
+ * </ul>
+ */
+final class EntryIDSorter implements Closeable
+{
+  /** The default maximum number of sort keys kept in memory by an external sorter before spilling them to disk. */
+  static final int DEFAULT_MAX_IN_MEMORY_KEYS = 100000;
+
+  /** A sort key and its associated entry ID. */
+  private static final class SortEntry implements Comparable<SortEntry>
+  {
+    private final ByteString key;
+    private final long entryID;
+
+    private SortEntry(ByteString key, long entryID)
+    {
+      this.key = key;
+      this.entryID = entryID;
+    }
+
+    @Override
+    public int compareTo(SortEntry o)
+    {
+      return key.compareTo(o.key);
+    }
+
+    @Override
+    public String toString()
+    {
+      return key.toHexString() + "=" + entryID;
+    }
+  }
+
+  /** A run of sorted entries spilled to disk, read back during the merge. */
+  private static final class Run implements Comparable<Run>, Closeable
+  {
+    private final DataInputStream in;
+    private SortEntry current;
+
+    private Run(File file) throws IOException
+    {
+      this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    }
+
+    private boolean next() throws IOException
+    {
+      final int length;
+      try
+      {
+        length = in.readInt();
+      }
+      catch (EOFException e)
+      {
+        current = null;
+        return false;
+      }
+      final byte[] key = new byte[length];
+      in.readFully(key);
+      current = new SortEntry(ByteString.wrap(key), in.readLong());
+      return true;
+    }
+
+    @Override
+    public int compareTo(Run o)
+    {
+      return current.compareTo(o.current);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      in.close();
+    }
+  }
+
+  private static final Comparator<SortEntry> ASCENDING_ORDER = new Comparator<SortEntry>()
+  {
+    @Override
+    public int compare(SortEntry e1, SortEntry e2)
+    {
+      return e1.compareTo(e2);
+    }
+  };
+  private static final Comparator<SortEntry> DESCENDING_ORDER = Collections.reverseOrder(ASCENDING_ORDER);
+
+  /** The lower bound of the window, may be {@code null}. */
+  private final ByteString lowerBound;
+  private final int beforeCount;
+  private final int maxCount;
+  /** The greatest keys lower than the lower bound, the smallest one on top. */
+  private final PriorityQueue<SortEntry> beforeHeap;
+  /** The smallest keys greater than or equal to the lower bound, the greatest one on top. */
+  private final PriorityQueue<SortEntry> windowHeap;
+
+  private final File tempDir;
+  private final int maxInMemoryKeys;
+  private final List<SortEntry> buffer;
+  private final List<File> runs = new ArrayList<>();
+
+  private int size;
+  private int countBelowLowerBound;
+
+  private EntryIDSorter(ByteString lowerBound, int beforeCount, int maxCount, File tempDir, int maxInMemoryKeys)
+  {
+    this.lowerBound = lowerBound;
+    this.beforeCount = beforeCount;
+    this.maxCount = maxCount;
+    this.tempDir = tempDir;
+    this.maxInMemoryKeys = maxInMemoryKeys;
+    if (tempDir == null)
+    {
+      this.beforeHeap = new PriorityQueue<>(initialCapacity(beforeCount), ASCENDING_ORDER);
+      this.windowHeap = new PriorityQueue<>(initialCapacity(maxCount), DESCENDING_ORDER);
+      this.buffer = null;
+    }
+    else
+    {
+      this.beforeHeap = null;
+      this.windowHeap = null;
+      this.buffer = new ArrayList<>();
+    }
+  }
+
+  /**
+   * Returns a sorter keeping the {@code maxCount} smallest keys greater than or equal to the
+   * provided lower bound, and the {@code beforeCount} greatest keys lower than the lower bound.
+   *
+   * @param lowerBound
+   *          the lower bound of the window, or {@code null} to keep the smallest keys
+   * @param beforeCount
+   *          the number of keys lower than the lower bound to keep
+   * @param maxCount
+   *          the number of keys greater than or equal to the lower bound to keep
+   * @return a new window sorter
+   */
+  static EntryIDSorter newWindowSorter(ByteString lowerBound, int beforeCount, int maxCount)
+  {
+    return new EntryIDSorter(lowerBound, lowerBound != null ? beforeCount : 0, maxCount, null, 0);
+  }
+
+  /**
+   * Returns a sorter keeping all the keys, which spills them to the provided directory once it
+   * holds more than {@code maxInMemoryKeys} keys in memory.
+   *
+   * @param tempDir
+   *          the directory where to create the temporary files
+   * @param maxInMemoryKeys
+   *          the maximum number of keys to keep in memory
+   * @return a new external sorter
+   */
+  static EntryIDSorter newExternalSorter(File tempDir, int maxInMemoryKeys)
+  {
+    return new EntryIDSorter(null, 0, Integer.MAX_VALUE, tempDir, maxInMemoryKeys);
+  }
+
+  private static int initialCapacity(int count)
+  {
+    return Math.max(1, Math.min(count, 1024));
+  }
+
+  /**
+   * Adds an entry ID with its sort key.
+   *
+   * @param key
+   *          the sort key of the entry, which must be unique
+   * @param entryID
+   *          the entry ID
+   * @throws IOException
+   *           if the keys could not be spilled to disk
+   */
+  void add(ByteString key, long entryID) throws IOException
+  {
+    size++;
+    final SortEntry entry = new SortEntry(key, entryID);
+    if (buffer != null)
+    {
+      buffer.add(entry);
+      if (buffer.size() >= maxInMemoryKeys)
+      {
+        spill();
+      }
+    }
+    else if (lowerBound != null && key.compareTo(lowerBound) < 0)
+    {
+      countBelowLowerBound++;
+      offer(beforeHeap, beforeCount, entry, ASCENDING_ORDER);
+    }
+    else
+    {
+      offer(windowHeap, maxCount, entry, DESCENDING_ORDER);
+    }
+  }
+
+  /** Adds the entry to the bounded heap, unless it is full and the entry is not better than its top entry. */
+  private static void offer(PriorityQueue<SortEntry> heap, int maxSize, SortEntry entry,
+      Comparator<SortEntry> comparator)
+  {
+    if (heap.size() < maxSize)
+    {
+      heap.add(entry);
+    }
+    else if (maxSize > 0 && comparator.compare(entry, heap.peek()) > 0)
+    {
+      heap.poll();
+      heap.add(entry);
+    }
+  }
+
+  private void spill() throws IOException
+  {
+    Collections.sort(buffer);
+    if (!tempDir.exists() && !tempDir.mkdirs())
+    {
+      throw new IOException("Cannot create directory " + tempDir);
+    }
+    final File file = File.createTempFile("sort", ".tmp", tempDir);
+    runs.add(file);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+    {
+      for (SortEntry entry : buffer)
+      {
+        out.writeInt(entry.key.length());
+        entry.key.copyTo(out);
+        out.writeLong(entry.entryID);
+      }
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Returns the number of entry IDs added to this sorter.
+   *
+   * @return the number of entry IDs added to this sorter
+   */
+  int size()
+  {
+    return size;
+  }
+
+  /**
+   * Returns the number of entry IDs added to this sorter whose key is lower than the lower bound.
+   *
+   * @return the number of entry IDs whose key is lower than the lower bound
+   */
+  int getCountBelowLowerBound()
+  {
+    return countBelowLowerBound;
+  }
+
+  /**
+   * Returns the number of sorted entry IDs which are lower than the lower bound, i.e. the index of
+   * the first entry ID greater than or equal to the lower bound in the array returned by
+   * {@link #toSortedArray()}.
+   *
+   * @return the number of sorted entry IDs which are lower than the lower bound
+   */
+  int getBeforeCount()
+  {
+    return beforeHeap != null ? beforeHeap.size() : 0;
+  }
+
+  /**
+   * Returns the entry IDs kept by this sorter, in the order of their sort keys.
+   *
+   * @return the sorted entry IDs
+   * @throws IOException
+   *           if the spilled keys could not be read
+   */
+  long[] toSortedArray() throws IOException
+  {
+    if (buffer == null)
+    {
+      final SortEntry[] before = beforeHeap.toArray(new SortEntry[beforeHeap.size()]);
+      final SortEntry[] window = windowHeap.toArray(new SortEntry[windowHeap.size()]);
+      Arrays.sort(before);
+      Arrays.sort(window);
+      final long[] entryIDs = new long[before.length + window.length];
+      int i = 0;
+      for (SortEntry entry : before)
+      {
+        entryIDs[i++] = entry.entryID;
+      }
+      for (SortEntry entry : window)
+      {
+        entryIDs[i++] = entry.entryID;
+      }
+      return entryIDs;
+    }
+
+    if (runs.isEmpty())
+    {
+      Collections.sort(buffer);
+      final long[] entryIDs = new long[buffer.size()];
+      for (int i = 0; i < entryIDs.length; i++)
+      {
+        entryIDs[i] = buffer.get(i).entryID;
+      }
+      return entryIDs;
+    }
+
+    if (!buffer.isEmpty())
+    {
+      spill();
+    }
+    return merge();
+  }
+
+  private long[] merge() throws IOException
+  {
+    final long[] entryIDs = new long[size];
+    final List<Run> openedRuns = new ArrayList<>(runs.size());
+    try
+    {
+      final PriorityQueue<Run> queue = new PriorityQueue<>(runs.size());
+      for (File file : runs)
+      {
+        final Run run = new Run(file);
+        openedRuns.add(run);
+        if (run.next())
+        {
+          queue.add(run);
+        }
+      }
+
+      int i = 0;
+      while (!queue.isEmpty())
+      {
+        final Run run = queue.poll();
+        entryIDs[i++] = run.current.entryID;
+        if (run.next())
+        {
+          queue.add(run);
+        }
+      }
+      return entryIDs;
+    }
+    finally
+    {
+      closeSilently(openedRuns);
+    }
+  }
+
+  /** Deletes the temporary files, if any. */
+  @Override
+  public void close()
+  {
+    for (File file : runs)
+    {
+      file.delete();
+    }
+    runs.clear();
+    if (buffer != null)
+    {
+      buffer.clear();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "(size=" + size + ", runs=" + runs.size() + ")";
+  }
+}
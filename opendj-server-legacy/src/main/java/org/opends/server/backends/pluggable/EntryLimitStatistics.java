@@ -0,0 +1,184 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+
+/**
+ * Statistics about the keys of an index which have exceeded the index entry limit. Index reads returning
+ * an undefined set force searches to fall back on other filter components, or on a full scan of the
+ * entries, so the keys which are read the most are the ones for which raising the limit pays off.
+ * <p>
+ * Only a bounded number of keys are tracked, so that an index with many undefined keys does not consume an
+ * unbounded amount of memory: when full, the least read key makes room for the new one. The statistics are
+ * updated without locking, so concurrent reads may slightly undercount them.
+ */
+final class EntryLimitStatistics
+{
+  /** The maximum number of undefined keys for which the reads are counted. */
+  static final int MAX_TRACKED_KEYS = 256;
+
+  /** A key with the number of times it has been read. */
+  static final class KeyReads
+  {
+    private final ByteString key;
+    private final AtomicLong reads = new AtomicLong();
+
+    private KeyReads(ByteString key)
+    {
+      this.key = key;
+    }
+
+    ByteString getKey()
+    {
+      return key;
+    }
+
+    long getReads()
+    {
+      return reads.get();
+    }
+  }
+
+  private static final Comparator<KeyReads> MOST_READ_FIRST = new Comparator<KeyReads>()
+  {
+    @Override
+    public int compare(KeyReads k1, KeyReads k2)
+    {
+      return Long.compare(k2.getReads(), k1.getReads());
+    }
+  };
+
+  private final AtomicLong exceededKeyCount = new AtomicLong();
+  private final AtomicLong undefinedReadCount = new AtomicLong();
+  private final ConcurrentMap<ByteString, KeyReads> keyReads = new ConcurrentHashMap<>();
+
+  /**
+   * Records that an update made the entry ID set of a key exceed the index entry limit.
+   *
+   * @param key
+   *          the key which exceeded the limit
+   */
+  void keyExceeded(ByteString key)
+  {
+    exceededKeyCount.incrementAndGet();
+    getKeyReads(key);
+  }
+
+  /**
+   * Records that a read of a key returned an undefined entry ID set.
+   *
+   * @param key
+   *          the key which was read
+   */
+  void undefinedKeyRead(ByteSequence key)
+  {
+    undefinedReadCount.incrementAndGet();
+    getKeyReads(key).reads.incrementAndGet();
+  }
+
+  private KeyReads getKeyReads(ByteSequence key)
+  {
+    final ByteString keyBytes = key.toByteString();
+    final KeyReads reads = keyReads.get(keyBytes);
+    if (reads != null)
+    {
+      return reads;
+    }
+    if (keyReads.size() >= MAX_TRACKED_KEYS)
+    {
+      evictLeastReadKey();
+    }
+    final KeyReads newReads = new KeyReads(keyBytes);
+    final KeyReads existingReads = keyReads.putIfAbsent(keyBytes, newReads);
+    return existingReads != null ? existingReads : newReads;
+  }
+
+  private void evictLeastReadKey()
+  {
+    KeyReads leastRead = null;
+    for (KeyReads reads : keyReads.values())
+    {
+      if (leastRead == null || reads.getReads() < leastRead.getReads())
+      {
+        leastRead = reads;
+      }
+    }
+    if (leastRead != null)
+    {
+      keyReads.remove(leastRead.key, leastRead);
+    }
+  }
+
+  /**
+   * Returns the number of keys which exceeded the index entry limit since the index was opened.
+   *
+   * @return the number of keys which exceeded the index entry limit
+   */
+  long getExceededKeyCount()
+  {
+    return exceededKeyCount.get();
+  }
+
+  /**
+   * Returns the number of reads which returned an undefined entry ID set since the index was opened.
+   *
+   * @return the number of reads which returned an undefined entry ID set
+   */
+  long getUndefinedReadCount()
+  {
+    return undefinedReadCount.get();
+  }
+
+  /**
+   * Returns the tracked undefined keys which have been read the most, most read first.
+   *
+   * @param maxKeys
+   *          the maximum number of keys to return
+   * @return the tracked undefined keys which have been read the most
+   */
+  List<KeyReads> getMostReadKeys(int maxKeys)
+  {
+    final List<KeyReads> results = new ArrayList<>(keyReads.size());
+    for (Map.Entry<ByteString, KeyReads> entry : keyReads.entrySet())
+    {
+      // Snapshot the counts so that the sort is consistent
+      final KeyReads copy = new KeyReads(entry.getKey());
+      copy.reads.set(entry.getValue().getReads());
+      results.add(copy);
+    }
+    Collections.sort(results, MOST_READ_FIRST);
+    return results.size() > maxKeys ? results.subList(0, maxKeys) : results;
+  }
+
+  /** Resets the statistics, for example when the index entry limit changes. */
+  void clear()
+  {
+    exceededKeyCount.set(0);
+    undefinedReadCount.set(0);
+    keyReads.clear();
+  }
+}
@@ -23,13 +23,11 @@ import java.util.Timer;
 import java.util.TimerTask;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
-import org.forgerock.opendj.ldap.ByteString;
-import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.ID2EntryScanner.DecodedRecord;
 import org.opends.server.backends.pluggable.spi.ReadOperation;
 import org.opends.server.backends.pluggable.spi.ReadableTransaction;
 import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
 import org.forgerock.opendj.ldap.DN;
-import org.opends.server.types.Entry;
 import org.opends.server.types.LDIFExportConfig;
 import org.opends.server.util.LDIFException;
 import org.opends.server.util.StaticUtils;
@@ -172,59 +170,50 @@ class ExportJob
        throws StorageRuntimeException, IOException, LDIFException
   {
     ID2Entry id2entry = entryContainer.getID2Entry();
-    try (final Cursor<ByteString, ByteString> cursor = txn.openCursor(id2entry.getName()))
+    RootContainer rootContainer = entryContainer.getRootContainer();
+    try (final ID2EntryScanner<DecodedRecord> scanner = new ID2EntryScanner<>(txn, id2entry,
+        ID2EntryScanner.decoder(id2entry, rootContainer.getCompressedSchema())))
     {
-      while (cursor.next())
+      while (scanner.next())
       {
         if (exportConfig.isCancelled())
         {
           break;
         }
 
-        ByteString key = cursor.getKey();
-        EntryID entryID = null;
-        try
-        {
-          entryID = new EntryID(key);
-        }
-        catch (Exception e)
+        DecodedRecord record = scanner.getValue();
+        if (record.entryID == null)
         {
           if (logger.isTraceEnabled())
           {
-            logger.traceException(e);
+            logger.traceException(record.error);
 
-            logger.trace("Malformed id2entry ID %s.%n", StaticUtils.bytesToHex(key));
+            logger.trace("Malformed id2entry ID %s.%n", StaticUtils.bytesToHex(record.key));
           }
           skippedCount++;
           continue;
         }
 
-        if (entryID.longValue() == 0)
+        if (record.entryID.longValue() == 0)
         {
           // This is the stored entry count.
           continue;
         }
 
-        ByteString value = cursor.getValue();
-        Entry entry = null;
-        try
-        {
-          entry = id2entry.entryFromDatabase(value, entryContainer.getRootContainer().getCompressedSchema());
-        }
-        catch (Exception e)
+        if (record.entry == null)
         {
           if (logger.isTraceEnabled())
           {
-            logger.traceException(e);
+            logger.traceException(record.error);
 
             logger.trace("Malformed id2entry record for ID %d:%n%s%n",
-                       entryID, StaticUtils.bytesToHex(value));
+                       record.entryID, StaticUtils.bytesToHex(record.value));
           }
           skippedCount++;
           continue;
         }
 
-        if (entry.toLDIF(exportConfig))
+        if (record.entry.toLDIF(exportConfig))
         {
           exportedCount++;
         }
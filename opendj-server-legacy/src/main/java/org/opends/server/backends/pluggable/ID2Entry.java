@@ -140,16 +140,16 @@ class ID2Entry extends AbstractTree
       compressedEntryBuffer.clearAndTruncate(maxBufferSize, BUFFER_INIT_SIZE);
     }
 
-    private Entry decode(ByteString bytes, CompressedSchema compressedSchema)
+    private Entry decode(ByteString bytes, CompressedSchema compressedSchema, boolean decodeAttributes)
         throws DirectoryException, DecodeException, IOException
     {
       final byte formatVersion = bytes.byteAt(0);
       switch(formatVersion)
       {
       case FORMAT_VERSION:
-        return decodeV1(bytes, compressedSchema);
+        return decodeV1(bytes, compressedSchema, decodeAttributes);
       case FORMAT_VERSION_V2:
-        return decodeV2(bytes, compressedSchema);
+        return decodeV2(bytes, compressedSchema, decodeAttributes);
       default:
         throw DecodeException.error(ERR_INCOMPATIBLE_ENTRY_VERSION.get(formatVersion));
       }
@@ -180,13 +180,14 @@ class ID2Entry extends AbstractTree
      *
      * @param bytes A byte array containing the encoded tree value.
      * @param compressedSchema The compressed schema manager to use when decoding.
+     * @param decodeAttributes Whether to decode the attributes, or only the DN and object classes.
      * @return The decoded entry.
      * @throws DecodeException If the data is not in the expected ASN.1 encoding
      * format.
      * @throws DirectoryException If a Directory Server error occurs.
      * @throws IOException if an error occurs while reading the ASN1 sequence.
      */
-    private Entry decodeV1(ByteString bytes, CompressedSchema compressedSchema)
+    private Entry decodeV1(ByteString bytes, CompressedSchema compressedSchema, boolean decodeAttributes)
         throws DirectoryException, DecodeException, IOException
     {
       // Read the ASN1 sequence.
@@ -214,14 +215,14 @@ class ID2Entry extends AbstractTree
         // Since we are used the cached buffers (ByteStringBuilders),
         // the decoded attribute values will not refer back to the
         // original buffer.
-        return Entry.decode(entryBuffer.asReader(), compressedSchema);
+        return decodeEntry(entryBuffer.asReader(), compressedSchema, decodeAttributes);
       }
       else
       {
         // Since we don't have to do any decompression, we can just decode
         // the entry directly.
         ByteString encodedEntry = reader.readOctetString();
-        return Entry.decode(encodedEntry.asReader(), compressedSchema);
+        return decodeEntry(encodedEntry.asReader(), compressedSchema, decodeAttributes);
       }
     }
 
@@ -239,13 +240,14 @@ class ID2Entry extends AbstractTree
      *
      * @param bytes A byte array containing the encoded tree value.
      * @param compressedSchema The compressed schema manager to use when decoding.
+     * @param decodeAttributes Whether to decode the attributes, or only the DN and object classes.
      * @return The decoded entry.
      * @throws DecodeException If the data is not in the expected ASN.1 encoding
      * format or a decryption error occurs.
      * @throws DirectoryException If a Directory Server error occurs.
      * @throws IOException if an error occurs while reading the ASN1 sequence.
      */
-    private Entry decodeV2(ByteString bytes, CompressedSchema compressedSchema)
+    private Entry decodeV2(ByteString bytes, CompressedSchema compressedSchema, boolean decodeAttributes)
         throws DirectoryException, DecodeException, IOException
     {
       ByteSequenceReader reader = bytes.asReader();
@@ -257,7 +259,7 @@ class ID2Entry extends AbstractTree
       {
         if (format == PLAIN_ENTRY)
         {
-          return Entry.decode(reader, compressedSchema);
+          return decodeEntry(reader, compressedSchema, decodeAttributes);
         }
         InputStream is = reader.asInputStream();
         if ((format & ENCRYPT_ENTRY) == ENCRYPT_ENTRY)
@@ -282,7 +284,7 @@ class ID2Entry extends AbstractTree
           position += readBytes;
           leftToRead -= readBytes;
         } while (leftToRead > 0 && readBytes > 0);
-        return Entry.decode(ByteString.wrap(data).asReader(), compressedSchema);
+        return decodeEntry(ByteString.wrap(data).asReader(), compressedSchema, decodeAttributes);
       }
       catch (CryptoManagerException cme)
       {
@@ -291,6 +293,14 @@ class ID2Entry extends AbstractTree
       }
     }
 
+    private static Entry decodeEntry(ByteSequenceReader reader, CompressedSchema compressedSchema,
+        boolean decodeAttributes) throws DirectoryException
+    {
+      return decodeAttributes
+          ? Entry.decode(reader, compressedSchema)
+          : Entry.decodeNameAndObjectClasses(reader, compressedSchema);
+    }
+
     private ByteString encode(Entry entry, DataConfig dataConfig) throws DirectoryException
     {
       encodeVolatile(entry, dataConfig);
@@ -388,7 +398,7 @@ class ID2Entry extends AbstractTree
     EntryCodec codec = acquireEntryCodec();
     try
     {
-      return codec.decode(bytes, compressedSchema);
+      return codec.decode(bytes, compressedSchema, true);
     }
     finally
     {
@@ -469,6 +479,61 @@ class ID2Entry extends AbstractTree
     }
   }
 
+  /**
+   * Decodes a record already read from the entry tree, for example by a cursor.
+   *
+   * @param entryID The entry ID which forms the key of the record.
+   * @param value The value of the record.
+   * @return The decoded entry, with its virtual attributes.
+   * @throws DirectoryException If the record cannot be decoded.
+   */
+  Entry get(EntryID entryID, ByteString value) throws DirectoryException
+  {
+    try
+    {
+      return get0(value);
+    }
+    catch (Exception e)
+    {
+      throw new DirectoryException(
+          DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), ERR_ENTRY_DATABASE_CORRUPT.get(entryID));
+    }
+  }
+
+  /**
+   * Fetch only the DN and the object classes of a record from the entry tree, skipping the
+   * decoding of its attributes and the computation of its virtual attributes.
+   *
+   * @param txn a non null transaction
+   * @param entryID The desired entry ID which forms the key.
+   * @return The requested entry, without any attributes, or null if there is no such record.
+   * @throws DirectoryException If a problem occurs while getting the entry.
+   * @throws StorageRuntimeException If an error occurs in the storage.
+   */
+  Entry getNameAndObjectClasses(ReadableTransaction txn, EntryID entryID)
+      throws DirectoryException, StorageRuntimeException
+  {
+    final ByteString value = txn.read(getName(), entryID.toByteString());
+    if (value == null)
+    {
+      return null;
+    }
+    EntryCodec codec = acquireEntryCodec();
+    try
+    {
+      return codec.decode(value, dataConfig.getEntryEncodeConfig().getCompressedSchema(), false);
+    }
+    catch (DirectoryException | IOException e)
+    {
+      throw new DirectoryException(
+          DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), ERR_ENTRY_DATABASE_CORRUPT.get(entryID));
+    }
+    finally
+    {
+      codec.release();
+    }
+  }
+
   Cursor<EntryID, Entry> openCursor(ReadableTransaction txn)
   {
     return transformKeysAndValues(txn.openCursor(getName()), TO_ENTRY_ID, TO_ENTRY);
@@ -0,0 +1,445 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.opends.server.util.ServerConstants.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.api.CompressedSchema;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.SequentialCursor;
+import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.types.Entry;
+
+/**
+ * Scans the whole id2entry tree by splitting it into ranges of records, which are transformed
+ * concurrently by a bounded pool of threads shared by all the backends. The records are returned in
+ * entry ID order, on the thread using this cursor.
+ * <p>
+ * The records are all read by the thread using this cursor, with a single cursor of its transaction,
+ * so that the scan sees the same point-in-time view of the tree as the rest of the operation. Only
+ * the transformation of the records, which decodes them, is done by the scanning threads. Only a
+ * bounded number of ranges are read ahead, so that the memory used by a scan does not depend on the
+ * size of the backend. A scan which has consumed more CPU time than its budget only transforms one
+ * range at a time, so that a single scan cannot starve the other operations.
+ *
+ * @param <R>
+ *          the type of the transformed records
+ */
+final class ID2EntryScanner<R> implements SequentialCursor<ByteString, R>
+{
+  /**
+   * Transforms the records read from id2entry. It is called concurrently by the scanning threads.
+   *
+   * @param <R>
+   *          the type of the transformed records
+   */
+  interface RecordTransformer<R>
+  {
+    /**
+     * Transforms a record read from id2entry.
+     *
+     * @param key
+     *          the key of the record
+     * @param value
+     *          the value of the record
+     * @return the transformed record, or {@code null} if the record must be skipped
+     * @throws Exception
+     *           if the scan must be stopped
+     */
+    R transform(ByteString key, ByteString value) throws Exception;
+  }
+
+  /** An id2entry record, with its decoded entry ID and entry. */
+  static final class DecodedRecord
+  {
+    final ByteString key;
+    final ByteString value;
+    /** The entry ID, or {@code null} if the key is malformed. */
+    final EntryID entryID;
+    /** The entry, or {@code null} if the key or the value are malformed. */
+    final Entry entry;
+    /** The reason why the key or the value are malformed. */
+    final Exception error;
+
+    private DecodedRecord(ByteString key, ByteString value, EntryID entryID, Entry entry, Exception error)
+    {
+      this.key = key;
+      this.value = value;
+      this.entryID = entryID;
+      this.entry = entry;
+      this.error = error;
+    }
+  }
+
+  /** The number of records in a range. */
+  static final int RANGE_SIZE = 1024;
+  /** The number of ranges a backend must hold before its unindexed searches are scanned in parallel. */
+  private static final int MIN_RANGES_FOR_PARALLEL_SEARCH = 16;
+
+  private static final int THREAD_COUNT = Integer.getInteger(PROPERTY_BACKEND_SCAN_THREAD_COUNT,
+      Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+  private static final int CPU_BUDGET = Integer.getInteger(PROPERTY_BACKEND_SCAN_CPU_BUDGET,
+      Math.max(1, Runtime.getRuntime().availableProcessors() / 4));
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  /** Lazily creates the pool shared by all the scans. */
+  private static final class PoolHolder
+  {
+    private static final ForkJoinPool POOL = new ForkJoinPool(THREAD_COUNT, new ForkJoinWorkerThreadFactory()
+    {
+      @Override
+      public ForkJoinWorkerThread newThread(ForkJoinPool pool)
+      {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Backend Scan Thread " + thread.getPoolIndex());
+        return thread;
+      }
+    }, null, false);
+  }
+
+  /** The records of a range, in key order. */
+  private static final class Range<V>
+  {
+    private final List<ByteString> keys = new ArrayList<>();
+    private final List<V> values = new ArrayList<>();
+  }
+
+  private final TreeName treeName;
+  private final RecordTransformer<R> transformer;
+  private final Cursor<ByteString, ByteString> cursor;
+  private final int maxPendingRanges;
+  private final Deque<Future<Range<R>>> pendingRanges = new ArrayDeque<>();
+  private final AtomicLong cpuTime = new AtomicLong();
+  private final long startTime = System.nanoTime();
+  private volatile boolean closed;
+
+  private boolean positioned;
+  private boolean exhausted;
+  private long rangeCount;
+  private Range<R> currentRange;
+  private int currentIndex;
+
+  /**
+   * Creates a scanner of the provided id2entry tree.
+   *
+   * @param txn
+   *          the transaction of the thread using this cursor, which reads all the records
+   * @param id2entry
+   *          the tree to scan
+   * @param transformer
+   *          transforms the records on the scanning threads
+   */
+  ID2EntryScanner(ReadableTransaction txn, ID2Entry id2entry, RecordTransformer<R> transformer)
+  {
+    this.treeName = id2entry.getName();
+    this.transformer = transformer;
+    this.cursor = txn.openCursor(treeName);
+    this.maxPendingRanges = THREAD_COUNT;
+  }
+
+  /**
+   * Returns whether an unindexed search of the whole provided tree is worth scanning in parallel.
+   *
+   * @param txn
+   *          a read transaction
+   * @param id2entry
+   *          the tree to scan
+   * @return {@code true} if parallel scans are enabled and the tree holds enough entries
+   */
+  static boolean isParallelSearchWorthwhile(ReadableTransaction txn, ID2Entry id2entry)
+  {
+    return THREAD_COUNT > 0
+        && getHighestEntryID(txn, id2entry) >= (long) MIN_RANGES_FOR_PARALLEL_SEARCH * RANGE_SIZE;
+  }
+
+  private static long getHighestEntryID(ReadableTransaction txn, ID2Entry id2entry)
+  {
+    try (final Cursor<ByteString, ByteString> cursor = txn.openCursor(id2entry.getName()))
+    {
+      if (cursor.positionToLastKey())
+      {
+        final ByteString key = cursor.getKey();
+        // Only used as an estimate of the number of records.
+        return key.length() == 8 ? key.toLong() : 0;
+      }
+      return 0;
+    }
+  }
+
+  /**
+   * Returns a transformer decoding the id2entry records. Malformed records are not skipped, but
+   * returned with the decoding error.
+   *
+   * @param id2entry
+   *          the scanned tree
+   * @param compressedSchema
+   *          the compressed schema used for decoding the entries
+   * @return a transformer decoding the id2entry records
+   */
+  static RecordTransformer<DecodedRecord> decoder(final ID2Entry id2entry, final CompressedSchema compressedSchema)
+  {
+    return new RecordTransformer<DecodedRecord>()
+    {
+      @Override
+      public DecodedRecord transform(ByteString key, ByteString value)
+      {
+        final EntryID entryID;
+        try
+        {
+          entryID = new EntryID(key);
+        }
+        catch (Exception e)
+        {
+          return new DecodedRecord(key, value, null, null, e);
+        }
+        try
+        {
+          return new DecodedRecord(key, value, entryID, id2entry.entryFromDatabase(value, compressedSchema), null);
+        }
+        catch (Exception e)
+        {
+          return new DecodedRecord(key, value, entryID, null, e);
+        }
+      }
+    };
+  }
+
+  @Override
+  public boolean next()
+  {
+    if (currentRange != null && ++currentIndex < currentRange.keys.size())
+    {
+      return true;
+    }
+    while (!closed)
+    {
+      currentRange = nextRange();
+      currentIndex = 0;
+      if (currentRange == null)
+      {
+        return false;
+      }
+      if (!currentRange.keys.isEmpty())
+      {
+        return true;
+      }
+    }
+    currentRange = null;
+    return false;
+  }
+
+  /** Returns the next range in entry ID order, or {@code null} if all the ranges were read. */
+  private Range<R> nextRange()
+  {
+    if (THREAD_COUNT == 0)
+    {
+      final Range<ByteString> records = readRange();
+      return records != null ? transformRange(records) : null;
+    }
+
+    final int maxPending = isOverCpuBudget() ? 1 : maxPendingRanges;
+    while (pendingRanges.size() < maxPending)
+    {
+      final Range<ByteString> records = readRange();
+      if (records == null)
+      {
+        break;
+      }
+      pendingRanges.add(PoolHolder.POOL.submit(new Callable<Range<R>>()
+      {
+        @Override
+        public Range<R> call() throws Exception
+        {
+          return transformRange(records);
+        }
+      }));
+    }
+
+    final Future<Range<R>> pendingRange = pendingRanges.poll();
+    return pendingRange != null ? get(pendingRange) : null;
+  }
+
+  private boolean isOverCpuBudget()
+  {
+    return cpuTime.get() > CPU_BUDGET * (System.nanoTime() - startTime);
+  }
+
+  private Range<R> get(Future<Range<R>> pendingRange)
+  {
+    try
+    {
+      return pendingRange.get();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new StorageRuntimeException(e);
+    }
+    catch (ExecutionException e)
+    {
+      final Throwable cause = e.getCause();
+      if (cause instanceof StorageRuntimeException)
+      {
+        throw (StorageRuntimeException) cause;
+      }
+      throw new StorageRuntimeException(cause);
+    }
+    catch (CancellationException e)
+    {
+      throw new StorageRuntimeException(e);
+    }
+  }
+
+  /**
+   * Reads the next records with the cursor of the transaction of the thread using this cursor.
+   * Returns {@code null} if all the records were read.
+   */
+  private Range<ByteString> readRange()
+  {
+    if (exhausted)
+    {
+      return null;
+    }
+    final Range<ByteString> records = new Range<>();
+    boolean success = positioned ? cursor.isDefined() : cursor.next();
+    positioned = true;
+    while (success && records.keys.size() < RANGE_SIZE)
+    {
+      records.keys.add(cursor.getKey());
+      records.values.add(cursor.getValue());
+      success = cursor.next();
+    }
+    exhausted = !success;
+    if (records.keys.isEmpty())
+    {
+      return null;
+    }
+    rangeCount++;
+    return records;
+  }
+
+  /** Transforms the provided records, skipping the ones the transformer filters out. */
+  private Range<R> transformRange(Range<ByteString> records) throws StorageRuntimeException
+  {
+    final long startCpuTime = currentThreadCpuTime();
+    final Range<R> result = new Range<>();
+    try
+    {
+      for (int i = 0; i < records.keys.size() && !closed; i++)
+      {
+        final ByteString key = records.keys.get(i);
+        final R value = transformer.transform(key, records.values.get(i));
+        if (value != null)
+        {
+          result.keys.add(key);
+          result.values.add(value);
+        }
+      }
+    }
+    catch (StorageRuntimeException e)
+    {
+      throw e;
+    }
+    catch (Exception e)
+    {
+      throw new StorageRuntimeException(e);
+    }
+    finally
+    {
+      cpuTime.addAndGet(currentThreadCpuTime() - startCpuTime);
+    }
+    return result;
+  }
+
+  private static long currentThreadCpuTime()
+  {
+    return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? Math.max(0, THREAD_MX_BEAN.getCurrentThreadCpuTime()) : 0;
+  }
+
+  @Override
+  public boolean isDefined()
+  {
+    return currentRange != null && currentIndex < currentRange.keys.size();
+  }
+
+  @Override
+  public ByteString getKey() throws NoSuchElementException
+  {
+    throwIfUndefined();
+    return currentRange.keys.get(currentIndex);
+  }
+
+  @Override
+  public R getValue() throws NoSuchElementException
+  {
+    throwIfUndefined();
+    return currentRange.values.get(currentIndex);
+  }
+
+  private void throwIfUndefined()
+  {
+    if (!isDefined())
+    {
+      throw new NoSuchElementException();
+    }
+  }
+
+  @Override
+  public void delete() throws NoSuchElementException, UnsupportedOperationException
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  /** Stops the scan: the ranges being transformed are abandoned. */
+  @Override
+  public void close()
+  {
+    closed = true;
+    for (Future<Range<R>> pendingRange : pendingRanges)
+    {
+      pendingRange.cancel(false);
+    }
+    pendingRanges.clear();
+    currentRange = null;
+    cursor.close();
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "(tree=" + treeName + ", rangeCount=" + rangeCount + ", exhausted=" + exhausted
+        + ", cpuTime=" + cpuTime.get() / 1000000 + "ms)";
+  }
+}
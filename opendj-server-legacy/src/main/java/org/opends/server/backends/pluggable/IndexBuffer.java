@@ -18,6 +18,8 @@ package org.opends.server.backends.pluggable;
 
 import static org.opends.server.backends.pluggable.EntryIDSet.*;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SortedMap;
@@ -27,6 +29,7 @@ import java.util.TreeSet;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.util.Reject;
 import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
+import org.opends.server.backends.pluggable.spi.TreeName;
 import org.opends.server.backends.pluggable.spi.WriteableTransaction;
 import org.opends.server.types.DirectoryException;
 
@@ -56,6 +59,8 @@ class IndexBuffer
     void remove(Index index, ByteString key, EntryID entryID);
 
     void reset();
+
+    Map<TreeName, Collection<ByteString>> getUpdatedKeys();
   }
 
   /**
@@ -262,6 +267,17 @@ class IndexBuffer
       bufferedIndexes.clear();
       bufferedVLVIndexes.clear();
     }
+
+    @Override
+    public Map<TreeName, Collection<ByteString>> getUpdatedKeys()
+    {
+      final Map<TreeName, Collection<ByteString>> updatedKeys = new HashMap<>(bufferedIndexes.size());
+      for (Entry<Index, SortedMap<ByteString, BufferedIndexValues>> entry : bufferedIndexes.entrySet())
+      {
+        updatedKeys.put(entry.getKey().getName(), entry.getValue().keySet());
+      }
+      return updatedKeys;
+    }
   }
 
   /**
@@ -321,6 +337,12 @@ class IndexBuffer
     {
       throw new UnsupportedOperationException();
     }
+
+    @Override
+    public Map<TreeName, Collection<ByteString>> getUpdatedKeys()
+    {
+      throw new UnsupportedOperationException();
+    }
   }
 
   private final IndexBufferImplementor impl;
@@ -392,4 +414,14 @@ class IndexBuffer
   {
     impl.reset();
   }
+
+  /**
+   * Returns the keys updated by this buffer, for each index.
+   *
+   * @return the keys updated by this buffer, for each index
+   */
+  Map<TreeName, Collection<ByteString>> getUpdatedKeys()
+  {
+    return impl.getUpdatedKeys();
+  }
 }
@@ -18,17 +18,32 @@ package org.opends.server.backends.pluggable;
 
 import static org.opends.messages.BackendMessages.*;
 import static org.opends.server.backends.pluggable.EntryIDSet.*;
+import static org.opends.server.backends.pluggable.IndexStatistics.*;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.server.config.meta.VirtualAttributeCfgDefn.ConflictBehavior;
 import org.opends.server.backends.pluggable.AttributeIndex.IndexFilterType;
 import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.core.DirectoryServer;
 import org.opends.server.core.SearchOperation;
+import org.opends.server.core.SubentryManager;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.opends.server.types.FilterType;
+import org.opends.server.types.IndexType;
 import org.opends.server.types.SearchFilter;
+import org.opends.server.types.VirtualAttributeRule;
 
 /**
  * An index filter is used to apply a search operation to a set of indexes
@@ -36,6 +51,8 @@ import org.opends.server.types.SearchFilter;
  */
 class IndexFilter
 {
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
   /**
    * Stop processing the filter against the indexes when the
    * number of candidates is smaller than this value.
@@ -45,6 +62,12 @@ class IndexFilter
   /** Limit on the number of entry IDs that may be retrieved by cursoring through an index. */
   static final int CURSOR_ENTRY_LIMIT = 100000;
 
+  /**
+   * Limit on the number of candidate entries provided by the virtual attributes of a filter component,
+   * each of them being looked up in the dn2id tree.
+   */
+  private static final int VIRTUAL_CANDIDATE_LIMIT = CURSOR_ENTRY_LIMIT / 10;
+
   /** The entry container holding the attribute indexes. */
   private final EntryContainer entryContainer;
   private final ReadableTransaction txn;
@@ -61,6 +84,12 @@ class IndexFilter
    */
   private final StringBuilder buffer;
   private final BackendMonitor monitor;
+  /** Records the index keys read for computing the candidates, may be {@code null}. */
+  private final CandidateCache.Dependencies dependencies;
+  /** Whether the candidates evaluated so far are exactly the entries matching the filter. */
+  private boolean exact;
+  /** Whether the last leaf filter was evaluated by reading a single key of its exact index. */
+  private boolean exactRead;
 
   /**
    * Construct an index filter for a search operation.
@@ -72,15 +101,18 @@ class IndexFilter
    * @param debugBuilder If not null, a diagnostic string will be written
    *                     which will help determine how the indexes contributed
    *                     to this search.
+   * @param dependencies If not null, records the index keys read for
+   *                     computing the candidates.
    */
   IndexFilter(EntryContainer entryContainer, ReadableTransaction txn, SearchOperation searchOp,
-      StringBuilder debugBuilder, BackendMonitor monitor)
+      StringBuilder debugBuilder, BackendMonitor monitor, CandidateCache.Dependencies dependencies)
   {
     this.entryContainer = entryContainer;
     this.txn = txn;
     this.searchOp = searchOp;
     this.buffer = debugBuilder;
     this.monitor = monitor;
+    this.dependencies = dependencies;
   }
 
   /**
@@ -91,9 +123,24 @@ class IndexFilter
   EntryIDSet evaluate()
   {
     appendToDebugBuffer("filter=");
+    exact = true;
     return evaluateFilter(searchOp.getFilter());
   }
 
+  /**
+   * Returns whether the candidates returned by {@link #evaluate()} are exactly the entries matching
+   * the filter, so that the filter does not need to be evaluated against the entries. This is the
+   * case when the filter only combines equality and presence assertions with AND and OR, and each
+   * of them was evaluated by reading a single key of the trusted equality or presence index of its
+   * attribute, without exceeding the index entry limit or being skipped.
+   *
+   * @return {@code true} if the candidates exactly match the filter
+   */
+  boolean isExact()
+  {
+    return exact;
+  }
+
   /**
    * Evaluate a search filter against the indexes.
    *
@@ -102,7 +149,11 @@ class IndexFilter
    */
   private EntryIDSet evaluateFilter(SearchFilter filter)
   {
+    exactRead = false;
     EntryIDSet candidates = evaluateFilter0(filter);
+    exact &= candidates.isDefined()
+        && (filter.getFilterType() == FilterType.AND || filter.getFilterType() == FilterType.OR
+            || (exactRead && isExactlyIndexed(filter)));
     if (buffer != null)
     {
       candidates.toString(buffer);
@@ -164,28 +215,154 @@ class IndexFilter
 
   /**
    * Evaluate a logical AND search filter against the indexes.
+   * <p>
+   * The components are evaluated following a plan ordered by estimated selectivity, based on the
+   * statistics of the attribute indexes. Without statistics, the fast components (equality,
+   * presence, approx) are evaluated first, then the other components, and finally the slow range
+   * components (greater-or-equal, less-or-equal). The index reads which are expected to return an
+   * undefined set are skipped, since they cannot shrink the set of candidates.
+   * <p>
+   * When a composite index covers several equality components, or the leading equality component
+   * of an attribute without equality index, it is read first and replaces these components.
    *
    * @param andFilter The AND search filter to be evaluated.
    * @return A set of entry IDs representing candidate entries.
    */
   private EntryIDSet evaluateLogicalAndFilter(SearchFilter andFilter)
   {
-    // Put the slow range filters (greater-or-equal, less-or-equal)
-    // into a hash map, the faster components (equality, presence, approx)
-    // into one list and the remainder into another list.
+    final List<SearchFilter> components = new ArrayList<>(andFilter.getFilterComponents());
+    final EntryIDSet results = evaluateCompositeIndex(components);
+    final List<PlanStep> plan = planLogicalAndFilter(components);
+    appendPlanToDebugBuffer(plan);
 
-    ArrayList<SearchFilter> fastComps = new ArrayList<>();
-    ArrayList<SearchFilter> otherComps = new ArrayList<>();
-    HashMap<AttributeType, ArrayList<SearchFilter>> rangeComps = new HashMap<>();
+    for (PlanStep step : plan)
+    {
+      if (isBelowFilterThreshold(results))
+      {
+        // The remaining components must be evaluated against the entries
+        exact = false;
+        return results;
+      }
+      if (step.canBeSkipped(results.isDefined()))
+      {
+        step.skip();
+        exact = false;
+        continue;
+      }
+      results.retainAll(step.evaluate());
+    }
+    return results;
+  }
 
-    for (SearchFilter filter : andFilter.getFilterComponents())
+  /**
+   * Evaluates the equality components of an AND filter against the composite index covering the
+   * most of them, and removes the covered components from the provided list. The composite keys
+   * only use the equality matching rule of their attributes, so the candidates are never exact.
+   *
+   * @param components The components of the AND filter, updated by this method.
+   * @return The candidates read from the composite index, or an undefined set if none was used.
+   */
+  private EntryIDSet evaluateCompositeIndex(List<SearchFilter> components)
+  {
+    final Map<AttributeType, SearchFilter> equalityComps = new LinkedHashMap<>();
+    for (SearchFilter filter : components)
+    {
+      if (filter.getFilterType() == FilterType.EQUALITY && !equalityComps.containsKey(filter.getAttributeType()))
+      {
+        equalityComps.put(filter.getAttributeType(), filter);
+      }
+    }
+    if (equalityComps.isEmpty())
+    {
+      return newUndefinedSet();
+    }
+
+    CompositeIndex bestIndex = null;
+    List<ByteString> bestValues = Collections.emptyList();
+    for (CompositeIndex compositeIndex : entryContainer.getCompositeIndexes())
+    {
+      final List<ByteString> values = getLeadingValues(compositeIndex, equalityComps);
+      if (values.size() > bestValues.size())
+      {
+        bestIndex = compositeIndex;
+        bestValues = values;
+      }
+    }
+    if (bestIndex == null
+        || (bestValues.size() == 1 && hasEqualityIndex(bestIndex.getAttributeTypes().get(0))))
+    {
+      // A single attribute is better served by its own equality index
+      return newUndefinedSet();
+    }
+
+    final EntryIDSet candidates = bestIndex.evaluate(txn, bestValues, dependencies);
+    if (buffer != null)
+    {
+      buffer.append("[INDEX:").append(bestIndex.getName().getIndexId()).append("]");
+    }
+    if (candidates.isDefined())
+    {
+      exact = false;
+      for (AttributeType attributeType : bestIndex.getAttributeTypes().subList(0, bestValues.size()))
+      {
+        components.remove(equalityComps.get(attributeType));
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Returns the normalized assertion values of the equality components covering the leading
+   * attributes of a composite index, stopping at the first attribute which is not covered.
+   */
+  private List<ByteString> getLeadingValues(CompositeIndex compositeIndex,
+      Map<AttributeType, SearchFilter> equalityComps)
+  {
+    final List<ByteString> values = new ArrayList<>();
+    for (AttributeType attributeType : compositeIndex.getAttributeTypes())
+    {
+      final SearchFilter filter = equalityComps.get(attributeType);
+      if (filter == null || hasVirtualAttributes(attributeType))
+      {
+        break;
+      }
+      try
+      {
+        final ByteString value = CompositeIndex.normalizeAssertionValue(attributeType, filter.getAssertionValue());
+        if (value == null)
+        {
+          break;
+        }
+        values.add(value);
+      }
+      catch (DecodeException e)
+      {
+        logger.traceException(e);
+        break;
+      }
+    }
+    return values;
+  }
+
+  private boolean hasEqualityIndex(AttributeType attributeType)
+  {
+    final AttributeIndex attributeIndex = entryContainer.getAttributeIndex(attributeType);
+    return attributeIndex != null && attributeIndex.isIndexed(IndexType.EQUALITY);
+  }
+
+  private List<PlanStep> planLogicalAndFilter(List<SearchFilter> components)
+  {
+    // Group the range components by attribute type so that pairs like (cn>=A)(cn<=B)
+    // can be evaluated as a single bounded range.
+    final List<PlanStep> plan = new ArrayList<>();
+    final Map<AttributeType, List<SearchFilter>> rangeComps = new LinkedHashMap<>();
+    for (SearchFilter filter : components)
     {
       FilterType filterType = filter.getFilterType();
       if (filterType == FilterType.GREATER_OR_EQUAL ||
            filterType == FilterType.LESS_OR_EQUAL)
       {
-        ArrayList<SearchFilter> rangeList;
-        rangeList = rangeComps.get(filter.getAttributeType());
+        List<SearchFilter> rangeList = rangeComps.get(filter.getAttributeType());
         if (rangeList == null)
         {
           rangeList = new ArrayList<>();
@@ -193,81 +370,96 @@ class IndexFilter
         }
         rangeList.add(filter);
       }
-      else if (filterType == FilterType.EQUALITY ||
-           filterType == FilterType.PRESENT ||
-           filterType == FilterType.APPROXIMATE_MATCH)
-      {
-        fastComps.add(filter);
-      }
       else
       {
-        otherComps.add(filter);
+        plan.add(new PlanStep(filter));
       }
     }
 
-    EntryIDSet results = newUndefinedSet();
-    // First, process the fast components.
-    results = applyFiltersUntilThreshold(results, fastComps);
-    // Next, process the other (non-range) components.
-    results = applyFiltersUntilThreshold(results, otherComps);
-
-    if ( isBelowFilterThreshold(results) || rangeComps.isEmpty() ) {
-      return results;
-    }
-
-    // Next, process range component pairs like (cn>=A)(cn<=B).
-    ArrayList<SearchFilter> remainComps = new ArrayList<>();
-    for (Map.Entry<AttributeType, ArrayList<SearchFilter>> rangeEntry : rangeComps.entrySet())
+    for (List<SearchFilter> rangeList : rangeComps.values())
     {
-      ArrayList<SearchFilter> rangeList = rangeEntry.getValue();
       if (rangeList.size() == 2)
       {
-        SearchFilter filter1 = rangeList.get(0);
-        SearchFilter filter2 = rangeList.get(1);
-
-        AttributeIndex attributeIndex = entryContainer.getAttributeIndex(rangeEntry.getKey());
-        if (attributeIndex == null)
-        {
-          if(monitor.isFilterUseEnabled())
-          {
-            monitor.updateStats(SearchFilter.createANDFilter(rangeList),
-                INFO_INDEX_FILTER_INDEX_TYPE_DISABLED.get("ordering", rangeEntry.getKey().getNameOrOID()));
-          }
-          continue;
-        }
-
-        final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex);
-        EntryIDSet set = attributeIndex.evaluateBoundedRange(indexQueryFactory, filter1, filter2, buffer, monitor);
-        if(monitor.isFilterUseEnabled() && set.isDefined())
-        {
-          monitor.updateStats(SearchFilter.createANDFilter(rangeList), set.size());
-        }
-        results.retainAll(set);
-        if (isBelowFilterThreshold(results))
+        plan.add(new PlanStep(SearchFilter.createANDFilter(rangeList)));
+      }
+      else
+      {
+        for (SearchFilter filter : rangeList)
         {
-          return results;
+          plan.add(new PlanStep(filter));
         }
       }
-      else
+    }
+
+    // The sort is stable: the components with the same cost keep their relative order.
+    Collections.sort(plan);
+    return plan;
+  }
+
+  /**
+   * Returns whether the exact index read for a leaf filter returns exactly the entries matching it.
+   * The index keys are the normalized values of the attribute and its subtypes, so this holds for
+   * the equality and presence assertions on attributes without options, unless the index keys are
+   * encrypted or virtual or collective attributes may add values which are not indexed.
+   */
+  private boolean isExactlyIndexed(SearchFilter filter)
+  {
+    final FilterType filterType = filter.getFilterType();
+    if ((filterType != FilterType.EQUALITY && filterType != FilterType.PRESENT)
+        || filter.getAttributeDescription().hasOptions())
+    {
+      return false;
+    }
+    final AttributeIndex attributeIndex = entryContainer.getAttributeIndex(filter.getAttributeType());
+    return attributeIndex != null && !attributeIndex.isConfidentialityEnabled()
+        && !hasVirtualAttributes(filter.getAttributeType())
+        && !hasCollectiveAttributes(filter.getAttributeType());
+  }
+
+  /** Returns whether collective attributes may add values to the attribute or its subtypes. */
+  private static boolean hasCollectiveAttributes(AttributeType attributeType)
+  {
+    if (attributeType.isCollective())
+    {
+      return true;
+    }
+    final SubentryManager subentryManager = DirectoryServer.getSubentryManager();
+    if (subentryManager == null)
+    {
+      return false;
+    }
+    for (AttributeType collectiveAttributeType : subentryManager.getCollectiveAttributeTypes())
+    {
+      if (collectiveAttributeType.isSubTypeOf(attributeType))
       {
-        // Add to the remaining range components to be processed.
-        remainComps.addAll(rangeList);
+        return true;
       }
     }
+    return false;
+  }
 
-    // Finally, process the remaining slow range components.
-    return applyFiltersUntilThreshold(results, remainComps);
+  /** Returns whether virtual attributes may add values to the attribute or its subtypes. */
+  private static boolean hasVirtualAttributes(AttributeType attributeType)
+  {
+    return !getVirtualAttributeRules(attributeType).isEmpty();
   }
 
-  private EntryIDSet applyFiltersUntilThreshold(EntryIDSet results, ArrayList<SearchFilter> filters)
+  /** Returns the virtual attribute rules which may add values to the attribute or its subtypes. */
+  private static List<VirtualAttributeRule> getVirtualAttributeRules(AttributeType attributeType)
   {
-    for(SearchFilter filter : filters) {
-      if (isBelowFilterThreshold(results)) {
-        return results;
+    List<VirtualAttributeRule> rules = Collections.emptyList();
+    for (VirtualAttributeRule rule : DirectoryServer.getVirtualAttributes())
+    {
+      if (rule.getAttributeType().isSubTypeOf(attributeType))
+      {
+        if (rules.isEmpty())
+        {
+          rules = new ArrayList<>(1);
+        }
+        rules.add(rule);
       }
-      results.retainAll(evaluateFilter(filter));
     }
-    return results;
+    return rules;
   }
 
   static boolean isBelowFilterThreshold(EntryIDSet set)
@@ -277,17 +469,32 @@ class IndexFilter
 
   /**
    * Evaluate a logical OR search filter against the indexes.
+   * <p>
+   * A single undefined component makes the whole result undefined, so the components which are
+   * expected to return an undefined set are evaluated first.
    *
    * @param orFilter The OR search filter to be evaluated.
    * @return A set of entry IDs representing candidate entries.
    */
   private EntryIDSet evaluateLogicalOrFilter(SearchFilter orFilter)
   {
-    ArrayList<EntryIDSet> candidateSets = new ArrayList<>(orFilter.getFilterComponents().size());
-
+    final List<PlanStep> plan = new ArrayList<>(orFilter.getFilterComponents().size());
     for (SearchFilter filter : orFilter.getFilterComponents())
     {
-      EntryIDSet set = evaluateFilter(filter);
+      plan.add(new PlanStep(filter));
+    }
+    Collections.sort(plan, UNDEFINED_FIRST);
+    appendPlanToDebugBuffer(plan);
+
+    final List<EntryIDSet> candidateSets = new ArrayList<>(plan.size());
+    for (PlanStep step : plan)
+    {
+      if (step.canBeSkipped(false))
+      {
+        step.skip();
+        return newUndefinedSet();
+      }
+      EntryIDSet set = step.evaluate();
       if (!set.isDefined())
       {
         // There is no point continuing.
@@ -298,6 +505,207 @@ class IndexFilter
     return newSetFromUnion(candidateSets);
   }
 
+  /**
+   * Returns the estimated number of entry IDs that evaluating a filter against the indexes would
+   * return.
+   *
+   * @param filter The search filter to be evaluated.
+   * @return The estimated number of entry IDs, {@link IndexStatistics#UNDEFINED} if an undefined
+   *         set is expected, or {@link IndexStatistics#UNKNOWN} if nothing is known.
+   */
+  private long estimate(SearchFilter filter)
+  {
+    switch (filter.getFilterType())
+    {
+    case AND:
+      return estimateLogicalAndFilter(filter);
+
+    case OR:
+      return estimateLogicalOrFilter(filter);
+
+    case EXTENSIBLE_MATCH:
+      return filter.getDNAttributes() ? UNDEFINED : UNKNOWN;
+
+    case NOT:
+      return UNDEFINED;
+
+    default:
+      final AttributeIndex attributeIndex = entryContainer.getAttributeIndex(filter.getAttributeType());
+      if (attributeIndex == null)
+      {
+        // The virtual attribute providers may still provide the candidates
+        return hasVirtualAttributes(filter.getAttributeType()) ? UNKNOWN : UNDEFINED;
+      }
+      return attributeIndex.getStatistics().estimate(toIndexFilterType(filter), filter);
+    }
+  }
+
+  private long estimateLogicalAndFilter(SearchFilter andFilter)
+  {
+    long min = UNDEFINED;
+    boolean hasUnknown = false;
+    for (SearchFilter filter : andFilter.getFilterComponents())
+    {
+      final long estimate = estimate(filter);
+      if (estimate == UNKNOWN)
+      {
+        hasUnknown = true;
+      }
+      else
+      {
+        min = Math.min(min, estimate);
+      }
+    }
+    return min == UNDEFINED && hasUnknown ? UNKNOWN : min;
+  }
+
+  private long estimateLogicalOrFilter(SearchFilter orFilter)
+  {
+    long sum = 0;
+    boolean hasUnknown = false;
+    for (SearchFilter filter : orFilter.getFilterComponents())
+    {
+      final long estimate = estimate(filter);
+      if (estimate == UNDEFINED)
+      {
+        return UNDEFINED;
+      }
+      else if (estimate == UNKNOWN)
+      {
+        hasUnknown = true;
+      }
+      else
+      {
+        sum += estimate;
+      }
+    }
+    return hasUnknown ? UNKNOWN : sum;
+  }
+
+  /**
+   * Returns the cost of evaluating a filter for which no statistics are available. It follows the
+   * historical evaluation order: fast components first, then the other components, and finally
+   * the range components.
+   */
+  private static long getDefaultCost(SearchFilter filter)
+  {
+    switch (filter.getFilterType())
+    {
+    case EQUALITY:
+    case PRESENT:
+    case APPROXIMATE_MATCH:
+      return FILTER_CANDIDATE_THRESHOLD;
+
+    case AND:
+      // A bounded range, or a nested AND.
+      return isBoundedRange(filter) ? CURSOR_ENTRY_LIMIT : CURSOR_ENTRY_LIMIT / 10;
+
+    case GREATER_OR_EQUAL:
+    case LESS_OR_EQUAL:
+      return CURSOR_ENTRY_LIMIT + 1;
+
+    default:
+      return CURSOR_ENTRY_LIMIT / 10;
+    }
+  }
+
+  private static boolean isBoundedRange(SearchFilter filter)
+  {
+    if (filter.getFilterType() != FilterType.AND || filter.getFilterComponents().size() != 2)
+    {
+      return false;
+    }
+    for (SearchFilter component : filter.getFilterComponents())
+    {
+      final FilterType filterType = component.getFilterType();
+      if (filterType != FilterType.GREATER_OR_EQUAL && filterType != FilterType.LESS_OR_EQUAL)
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the index filter type used for evaluating a simple filter, or for a bounded range, the
+   * type of its first component.
+   */
+  private static IndexFilterType toIndexFilterType(SearchFilter filter)
+  {
+    switch (filter.getFilterType())
+    {
+    case EQUALITY:
+      return IndexFilterType.EQUALITY;
+    case PRESENT:
+      return IndexFilterType.PRESENCE;
+    case APPROXIMATE_MATCH:
+      return IndexFilterType.APPROXIMATE;
+    case SUBSTRING:
+      return IndexFilterType.SUBSTRING;
+    case GREATER_OR_EQUAL:
+      return IndexFilterType.GREATER_OR_EQUAL;
+    case LESS_OR_EQUAL:
+      return IndexFilterType.LESS_OR_EQUAL;
+    case AND:
+      return toIndexFilterType(filter.getFilterComponents().iterator().next());
+    default:
+      throw new IllegalArgumentException("Not a simple filter " + filter);
+    }
+  }
+
+  private void appendPlanToDebugBuffer(List<PlanStep> plan)
+  {
+    if (buffer != null)
+    {
+      buffer.append("[PLAN:");
+      for (int i = 0; i < plan.size(); i++)
+      {
+        if (i > 0)
+        {
+          buffer.append(" ");
+        }
+        plan.get(i).toString(buffer);
+      }
+      buffer.append("]");
+    }
+  }
+
+  private EntryIDSet evaluateBoundedRange(SearchFilter rangeFilter)
+  {
+    final List<SearchFilter> rangeList = new ArrayList<>(rangeFilter.getFilterComponents());
+    final AttributeType attributeType = rangeList.get(0).getAttributeType();
+    final AttributeIndex attributeIndex = entryContainer.getAttributeIndex(attributeType);
+    if (attributeIndex == null)
+    {
+      if (monitor.isFilterUseEnabled())
+      {
+        monitor.updateStats(rangeFilter,
+            INFO_INDEX_FILTER_INDEX_TYPE_DISABLED.get("ordering", attributeType.getNameOrOID()));
+      }
+      return newUndefinedSet();
+    }
+
+    final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex, dependencies);
+    final EntryIDSet set =
+        attributeIndex.evaluateBoundedRange(indexQueryFactory, rangeList.get(0), rangeList.get(1), buffer, monitor);
+    if (monitor.isFilterUseEnabled() && set.isDefined())
+    {
+      monitor.updateStats(rangeFilter, set.size());
+    }
+    updateStatistics(attributeIndex, toIndexFilterType(rangeFilter), rangeFilter, set);
+    return set;
+  }
+
+  private static void updateStatistics(AttributeIndex attributeIndex, IndexFilterType indexFilterType,
+      SearchFilter filter, EntryIDSet entryIDs)
+  {
+    // Results read from untrusted indexes are undefined until they are rebuilt: do not remember them.
+    if (attributeIndex.isTrusted())
+    {
+      attributeIndex.getStatistics().update(indexFilterType, filter, entryIDs);
+    }
+  }
+
   private EntryIDSet evaluateFilterWithDiagnostic(IndexFilterType indexFilterType, SearchFilter filter)
   {
     if (buffer != null)
@@ -308,12 +716,101 @@ class IndexFilter
   }
 
   private EntryIDSet evaluateFilter(IndexFilterType indexFilterType, SearchFilter filter)
+  {
+    final List<VirtualAttributeRule> rules = getVirtualAttributeRules(filter.getAttributeType());
+    if (!rules.isEmpty())
+    {
+      return evaluateVirtualAttributeFilter(indexFilterType, filter, rules);
+    }
+    return evaluateRealAttributeFilter(indexFilterType, filter);
+  }
+
+  /**
+   * Evaluates a filter on an attribute to which virtual attributes may add values. The candidates
+   * are the union of the entries whose real values match, read from the attribute index, and of the
+   * entries whose virtual values may match, provided by the virtual attribute providers. The attribute
+   * index is not read when the attribute cannot have real values, because it is not user modifiable
+   * and the virtual values override the real ones.
+   * <p>
+   * When a provider cannot provide the candidates, or when the providers provide more than
+   * {@link #VIRTUAL_CANDIDATE_LIMIT} candidates, only the attribute index is read, as for the other
+   * attributes: the search is then processed by the virtual attribute provider or by evaluating the
+   * filter against the entries. The candidates are all provided before looking up any of them.
+   */
+  private EntryIDSet evaluateVirtualAttributeFilter(IndexFilterType indexFilterType, SearchFilter filter,
+      List<VirtualAttributeRule> rules)
+  {
+    final List<Set<DN>> candidateDNs = new ArrayList<>(rules.size());
+    boolean mayHaveRealValues = !filter.getAttributeType().isNoUserModification();
+    int maxCandidates = VIRTUAL_CANDIDATE_LIMIT;
+    for (VirtualAttributeRule rule : rules)
+    {
+      final Set<DN> dns = rule.getProvider().getCandidateEntryDNs(rule, searchOp, filter, maxCandidates);
+      if (dns == null || dns.size() > maxCandidates)
+      {
+        return evaluateRealAttributeFilter(indexFilterType, filter);
+      }
+      maxCandidates -= dns.size();
+      candidateDNs.add(dns);
+      mayHaveRealValues |= rule.getConflictBehavior() != ConflictBehavior.VIRTUAL_OVERRIDES_REAL;
+    }
+
+    final List<EntryIDSet> sets = new ArrayList<>(candidateDNs.size() + 1);
+    if (mayHaveRealValues)
+    {
+      final EntryIDSet realSet = evaluateRealAttributeFilter(indexFilterType, filter);
+      if (!realSet.isDefined())
+      {
+        return realSet;
+      }
+      sets.add(realSet);
+    }
+    for (Set<DN> dns : candidateDNs)
+    {
+      sets.add(toEntryIDSet(dns));
+    }
+    appendToDebugBuffer("[VIRTUAL]");
+    if (dependencies != null)
+    {
+      // The virtual values do not depend on the indexes
+      dependencies.addUntrackedSource();
+    }
+    return newSetFromUnion(sets);
+  }
+
+  /** Returns the IDs of the entries of this entry container among the provided DNs. */
+  private EntryIDSet toEntryIDSet(Set<DN> dns)
+  {
+    final DN baseDN = entryContainer.getBaseDN();
+    final DN2ID dn2id = entryContainer.getDN2ID();
+    final long[] entryIDs = new long[dns.size()];
+    int count = 0;
+    for (DN dn : dns)
+    {
+      if (dn.isSubordinateOrEqualTo(baseDN))
+      {
+        final EntryID entryID = dn2id.get(txn, dn);
+        if (entryID != null)
+        {
+          entryIDs[count++] = entryID.longValue();
+        }
+      }
+    }
+    final long[] sortedIDs = Arrays.copyOf(entryIDs, count);
+    Arrays.sort(sortedIDs);
+    return newDefinedSet(sortedIDs);
+  }
+
+  private EntryIDSet evaluateRealAttributeFilter(IndexFilterType indexFilterType, SearchFilter filter)
   {
     AttributeIndex attributeIndex = entryContainer.getAttributeIndex(filter.getAttributeType());
     if (attributeIndex != null)
     {
-      final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex);
-      return attributeIndex.evaluateFilter(indexQueryFactory, indexFilterType, filter, buffer, monitor);
+      final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex, dependencies);
+      final EntryIDSet set = attributeIndex.evaluateFilter(indexQueryFactory, indexFilterType, filter, buffer, monitor);
+      exactRead = indexQueryFactory.hasReadSingleKey(attributeIndex.getExactIndexID(indexFilterType));
+      updateStatistics(attributeIndex, indexFilterType, filter, set);
+      return set;
     }
 
     if (monitor.isFilterUseEnabled())
@@ -343,7 +840,7 @@ class IndexFilter
     AttributeIndex attributeIndex = entryContainer.getAttributeIndex(extensibleFilter.getAttributeType());
     if (attributeIndex != null)
     {
-      final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex);
+      final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex, dependencies);
       return attributeIndex.evaluateExtensibleFilter(indexQueryFactory, extensibleFilter, buffer, monitor);
     }
     return IndexQueryFactoryImpl.createNullIndexQuery().evaluate(null, null);
@@ -356,4 +853,143 @@ class IndexFilter
       buffer.append(content);
     }
   }
+  /** Orders the plan steps expected to return an undefined set first, keeping the order of the others. */
+  private static final Comparator<PlanStep> UNDEFINED_FIRST = new Comparator<PlanStep>()
+  {
+    @Override
+    public int compare(PlanStep step1, PlanStep step2)
+    {
+      return Boolean.compare(step2.estimate == UNDEFINED, step1.estimate == UNDEFINED);
+    }
+  };
+
+  /**
+   * A step of the plan evaluating a logical filter: a component of the logical filter, or a pair of
+   * range components on the same attribute which are evaluated as a bounded range.
+   */
+  private final class PlanStep implements Comparable<PlanStep>
+  {
+    private final SearchFilter filter;
+    private final boolean isBoundedRange;
+    private final long estimate;
+    private final long cost;
+
+    private PlanStep(SearchFilter filter)
+    {
+      this.filter = filter;
+      this.isBoundedRange = isBoundedRange(filter);
+      this.estimate = isBoundedRange ? estimateLeaf(filter) : estimate(filter);
+      this.cost = estimate != UNKNOWN ? estimate : getDefaultCost(filter);
+    }
+
+    private long estimateLeaf(SearchFilter filter)
+    {
+      final AttributeIndex attributeIndex = getLeafAttributeIndex();
+      if (attributeIndex == null)
+      {
+        return UNDEFINED;
+      }
+      return attributeIndex.getStatistics().estimate(toIndexFilterType(filter), filter);
+    }
+
+    private AttributeIndex getLeafAttributeIndex()
+    {
+      final SearchFilter leaf = isBoundedRange ? filter.getFilterComponents().iterator().next() : filter;
+      return entryContainer.getAttributeIndex(leaf.getAttributeType());
+    }
+
+    private boolean isLeaf()
+    {
+      switch (filter.getFilterType())
+      {
+      case EQUALITY:
+      case PRESENT:
+      case APPROXIMATE_MATCH:
+      case SUBSTRING:
+      case GREATER_OR_EQUAL:
+      case LESS_OR_EQUAL:
+        return true;
+      default:
+        return isBoundedRange;
+      }
+    }
+
+    /**
+     * Returns whether the index read of this step can be skipped. Only the index reads expected to
+     * return an undefined set may be skipped: either because they returned an undefined set the
+     * last time they were performed, or, when there are already some candidates, because the
+     * statistics of the index make it likely.
+     */
+    private boolean canBeSkipped(boolean hasCandidates)
+    {
+      if (estimate != UNDEFINED || !isLeaf())
+      {
+        return false;
+      }
+      final AttributeIndex attributeIndex = getLeafAttributeIndex();
+      if (attributeIndex == null)
+      {
+        // Not indexed: evaluating it is cheap and updates the filter use statistics.
+        return false;
+      }
+      final IndexStatistics statistics = attributeIndex.getStatistics();
+      return (hasCandidates || statistics.isKnownToExceedLimit(filter)) && statistics.skipRead();
+    }
+
+    private void skip()
+    {
+      if (buffer != null)
+      {
+        filter.toString(buffer);
+        buffer.append("[SKIPPED]");
+      }
+      if (monitor.isFilterUseEnabled())
+      {
+        final String indexName = getLeafAttributeIndex().getName() + "." + toIndexFilterType(filter);
+        monitor.updateStats(filter, INFO_INDEX_FILTER_INDEX_READ_SKIPPED.get(indexName));
+      }
+    }
+
+    private EntryIDSet evaluate()
+    {
+      if (isBoundedRange)
+      {
+        exact = false;
+        return evaluateBoundedRange(filter);
+      }
+      return evaluateFilter(filter);
+    }
+
+    @Override
+    public int compareTo(PlanStep o)
+    {
+      return Long.compare(cost, o.cost);
+    }
+
+    private void toString(StringBuilder sb)
+    {
+      filter.toString(sb);
+      sb.append("~");
+      if (estimate == UNKNOWN)
+      {
+        sb.append("?");
+      }
+      else if (estimate == UNDEFINED)
+      {
+        sb.append("UNDEFINED");
+      }
+      else
+      {
+        sb.append(estimate);
+      }
+    }
+
+    @Override
+    public String toString()
+    {
+      final StringBuilder sb = new StringBuilder();
+      toString(sb);
+      return sb.toString();
+    }
+  }
 }
@@ -154,6 +154,12 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
   private final ReadableTransaction txn;
   /** The Map containing the string type identifier and the corresponding index. */
   private final AttributeIndex attributeIndex;
+  /** Records the index keys read, may be {@code null}. */
+  private final CandidateCache.Dependencies dependencies;
+  /** The number of index reads performed by the queries: key reads and range reads. */
+  private int readCount;
+  /** The ID of the index of the last key read, {@code null} if the key was hashed or the index not trusted. */
+  private String exactReadIndexID;
 
   /**
    * Creates a new IndexQueryFactoryImpl object.
@@ -162,11 +168,15 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
    *          The readable storage
    * @param attributeIndex
    *          The targeted attribute index
+   * @param dependencies
+   *          Records the index keys read by the queries, may be {@code null}
    */
-  IndexQueryFactoryImpl(ReadableTransaction txn, AttributeIndex attributeIndex)
+  IndexQueryFactoryImpl(ReadableTransaction txn, AttributeIndex attributeIndex,
+      CandidateCache.Dependencies dependencies)
   {
     this.txn = txn;
     this.attributeIndex = attributeIndex;
+    this.dependencies = dependencies;
   }
 
   @Override
@@ -201,6 +211,9 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
             }
           }
 
+          addKeyDependency(index, indexKey);
+          // Hashed keys may collide
+          recordRead(indexKey == key ? indexID : null, index);
           final EntryIDSet entrySet = index.get(txn, indexKey);
           updateStatsForUndefinedResults(debugMessage, entrySet, index);
           return entrySet;
@@ -230,6 +243,11 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
           return createMatchAllQuery().evaluate(debugMessage, indexNameOut);
         }
 
+        if (dependencies != null)
+        {
+          dependencies.addTree(index.getName());
+        }
+        recordRead(null, index);
         final EntryIDSet entrySet = readRange(index, txn, lowerBound, upperBound, includeLowerBound, includeUpperBound);
         updateStatsForUndefinedResults(debugMessage, entrySet, index);
         return entrySet;
@@ -362,6 +380,8 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
             return newUndefinedSet();
           }
 
+          addKeyDependency(index, AttributeIndex.PRESENCE_KEY);
+          recordRead(indexID, index);
           final EntryIDSet entrySet = index.get(txn, AttributeIndex.PRESENCE_KEY);
           updateStatsForUndefinedResults(debugMessage, entrySet, index);
           if (indexNameOut != null)
@@ -379,6 +399,34 @@ final class IndexQueryFactoryImpl implements IndexQueryFactory<IndexQuery>
       };
   }
 
+  private void recordRead(String indexID, Index index)
+  {
+    readCount++;
+    exactReadIndexID = index.isTrusted() ? indexID : null;
+  }
+
+  /**
+   * Returns whether the queries evaluated so far only read a single key of the provided trusted index, so that the
+   * returned entry IDs are exactly the entries having this key. This does not hold when an index was missing and the
+   * presence index was read instead, when several keys or a range of keys were read, or when the key was hashed.
+   *
+   * @param indexID
+   *          the ID of the index, may be {@code null}
+   * @return {@code true} if a single key of the provided index was read
+   */
+  boolean hasReadSingleKey(String indexID)
+  {
+    return indexID != null && readCount == 1 && indexID.equals(exactReadIndexID);
+  }
+
+  private void addKeyDependency(Index index, ByteSequence key)
+  {
+    if (dependencies != null)
+    {
+      dependencies.addKey(index.getName(), key);
+    }
+  }
+
   private static void appendExceptionError(LocalizableMessageBuilder debugMessage, LocalizableMessage msg)
   {
     if (debugMessage != null)
@@ -0,0 +1,245 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.opends.server.backends.pluggable.AttributeIndex.IndexFilterType;
+import org.opends.server.types.SearchFilter;
+
+/**
+ * Selectivity statistics of the indexes of an attribute index, gathered from the sizes of the
+ * entry ID sets read while evaluating search filters.
+ * <p>
+ * The statistics are kept per filter, for a bounded number of recently evaluated filters, and per
+ * index filter type as a moving average. They are used by {@link IndexFilter} to order the
+ * components of search filters and to skip the index reads which are known to exceed the index
+ * entry limit. Since the statistics are only estimates, they are kept in memory and are reset
+ * whenever the configuration of the attribute index changes.
+ * <p>
+ * The statistics are updated on every indexed search, so they are maintained without locking:
+ * concurrent updates of the same moving average are retried, and the filter sizes are kept in a
+ * concurrent map keyed by the search filters themselves, which are cheap to hash and compare.
+ */
+final class IndexStatistics
+{
+  /** Estimate returned when nothing is known about the result of an index read. */
+  static final long UNKNOWN = -1;
+  /** Estimate returned when an index read is expected to return an undefined entry ID set. */
+  static final long UNDEFINED = Long.MAX_VALUE;
+
+  /** Maximum number of filters for which the size of the last read is remembered. */
+  private static final int MAX_FILTERS = 1024;
+  /** Minimum number of reads before the statistics of an index filter type are used. */
+  private static final int MIN_SAMPLES = 8;
+  /** Weight of the last read in the moving averages. */
+  private static final double SAMPLE_WEIGHT = 0.125;
+  /** Ratio of undefined reads above which an index filter type is expected to return undefined sets. */
+  private static final double UNDEFINED_RATIO = 0.9;
+  /** One out of this number of skipped reads is performed anyway, in order to refresh the statistics. */
+  private static final int REFRESH_INTERVAL = 64;
+
+  /** Immutable moving averages for an index filter type. */
+  private static final class TypeStatistics
+  {
+    private static final TypeStatistics EMPTY = new TypeStatistics(0, 0, 0);
+
+    private final long samples;
+    private final double undefinedRatio;
+    private final double averageSize;
+
+    private TypeStatistics(long samples, double undefinedRatio, double averageSize)
+    {
+      this.samples = samples;
+      this.undefinedRatio = undefinedRatio;
+      this.averageSize = averageSize;
+    }
+
+    private TypeStatistics add(boolean isDefined, long size)
+    {
+      final double weight = samples < MIN_SAMPLES ? 1.0 / (samples + 1) : SAMPLE_WEIGHT;
+      return new TypeStatistics(samples + 1,
+          undefinedRatio + weight * ((isDefined ? 0 : 1) - undefinedRatio),
+          isDefined ? averageSize + weight * (size - averageSize) : averageSize);
+    }
+  }
+
+  /** Populated once for all the index filter types, then only read. */
+  private final Map<IndexFilterType, AtomicReference<TypeStatistics>> typeStatistics =
+      new EnumMap<>(IndexFilterType.class);
+  private final ConcurrentMap<SearchFilter, Long> filterSizes = new ConcurrentHashMap<>();
+  /** Number of entries of {@link #filterSizes}, cheaper to maintain than to compute. */
+  private final AtomicInteger filterCount = new AtomicInteger();
+  /** Number of index reads which could have been skipped, including the ones performed anyway. */
+  private final AtomicLong skippableReads = new AtomicLong();
+  /** Number of index reads which have actually been skipped. */
+  private final AtomicLong skippedReads = new AtomicLong();
+
+  IndexStatistics()
+  {
+    for (IndexFilterType indexFilterType : IndexFilterType.values())
+    {
+      typeStatistics.put(indexFilterType, new AtomicReference<>(TypeStatistics.EMPTY));
+    }
+  }
+
+  /**
+   * Records the result of reading the index for a filter.
+   *
+   * @param indexFilterType
+   *          the type of index which was read
+   * @param filter
+   *          the evaluated filter
+   * @param entryIDs
+   *          the entry IDs read from the index
+   */
+  void update(IndexFilterType indexFilterType, SearchFilter filter, EntryIDSet entryIDs)
+  {
+    final boolean isDefined = entryIDs.isDefined();
+    final long size = isDefined ? entryIDs.size() : UNDEFINED;
+    if (filterSizes.put(filter, size) == null && filterCount.incrementAndGet() > MAX_FILTERS)
+    {
+      evictFilterOtherThan(filter);
+    }
+
+    final AtomicReference<TypeStatistics> ref = typeStatistics.get(indexFilterType);
+    TypeStatistics stats;
+    do
+    {
+      stats = ref.get();
+    }
+    while (!ref.compareAndSet(stats, stats.add(isDefined, size)));
+  }
+
+  /**
+   * Forgets an arbitrary filter. Filters are remembered until they do not fit anymore, the
+   * filters still being evaluated being remembered again at their next read.
+   */
+  private void evictFilterOtherThan(SearchFilter filter)
+  {
+    for (Iterator<SearchFilter> it = filterSizes.keySet().iterator(); it.hasNext();)
+    {
+      final SearchFilter candidate = it.next();
+      if (!candidate.equals(filter))
+      {
+        if (filterSizes.remove(candidate) != null)
+        {
+          filterCount.decrementAndGet();
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns the estimated number of entry IDs that reading the index for a filter would return.
+   *
+   * @param indexFilterType
+   *          the type of index to read
+   * @param filter
+   *          the filter to evaluate
+   * @return the estimated number of entry IDs, {@link #UNDEFINED} if the read is expected to
+   *         return an undefined set, or {@link #UNKNOWN} if nothing is known yet
+   */
+  long estimate(IndexFilterType indexFilterType, SearchFilter filter)
+  {
+    final Long size = filterSizes.get(filter);
+    if (size != null)
+    {
+      return size;
+    }
+    final TypeStatistics stats = typeStatistics.get(indexFilterType).get();
+    if (stats.samples < MIN_SAMPLES)
+    {
+      return UNKNOWN;
+    }
+    return stats.undefinedRatio >= UNDEFINED_RATIO ? UNDEFINED : (long) stats.averageSize;
+  }
+
+  /**
+   * Returns whether the last read of the index for a filter returned an undefined set. Since the
+   * keys exceeding the index entry limit remain undefined until the index is rebuilt, reading them
+   * again cannot restrict the set of candidate entries.
+   *
+   * @param filter
+   *          the filter to evaluate
+   * @return {@code true} if the index read for the filter is known to return an undefined set
+   */
+  boolean isKnownToExceedLimit(SearchFilter filter)
+  {
+    final Long size = filterSizes.get(filter);
+    return size != null && size == UNDEFINED;
+  }
+
+  /**
+   * Returns whether an index read which is expected to return an undefined set can be skipped.
+   * One out of {@value #REFRESH_INTERVAL} reads is nevertheless performed in order to refresh the
+   * statistics.
+   *
+   * @return {@code true} if the index read can be skipped
+   */
+  boolean skipRead()
+  {
+    if (skippableReads.incrementAndGet() % REFRESH_INTERVAL == 0)
+    {
+      return false;
+    }
+    skippedReads.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Returns the number of index reads which have been skipped since the statistics were last
+   * cleared.
+   *
+   * @return the number of skipped index reads
+   */
+  long getSkippedReadCount()
+  {
+    return skippedReads.get();
+  }
+
+  /** Discards all the statistics, for instance after the index configuration changed. */
+  void clear()
+  {
+    for (AtomicReference<TypeStatistics> ref : typeStatistics.values())
+    {
+      ref.set(TypeStatistics.EMPTY);
+    }
+    for (SearchFilter filter : filterSizes.keySet())
+    {
+      if (filterSizes.remove(filter) != null)
+      {
+        filterCount.decrementAndGet();
+      }
+    }
+    skippableReads.set(0);
+    skippedReads.set(0);
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "(filters=" + filterCount.get() + ", skippedReads=" + skippedReads.get() + ")";
+  }
+}
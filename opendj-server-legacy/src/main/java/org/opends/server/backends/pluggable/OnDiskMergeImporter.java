@@ -184,6 +184,15 @@ final class OnDiskMergeImporter
       }
     };
 
+    private static final Predicate<Tree, Void> IS_COMPOSITE = new Predicate<Tree, Void>()
+    {
+      @Override
+      public boolean matches(Tree value, Void p)
+      {
+        return value.getName().getIndexId().startsWith("composite.");
+      }
+    };
+
     private final ServerContext serverContext;
     private final RootContainer rootContainer;
     private final PluggableBackendCfg backendCfg;
@@ -283,6 +292,7 @@ final class OnDiskMergeImporter
         }
       }
       indexCount += backendCfg.listBackendVLVIndexes().length;
+      indexCount += backendCfg.listBackendCompositeIndexes().length;
       return indexCount;
     }
 
@@ -524,6 +534,10 @@ final class OnDiskMergeImporter
         {
           visitIndexes(entryContainer, visitOnlyIndexes(IS_VLV, selector));
         }
+        else if (parts[0].equalsIgnoreCase("composite") && isWildcard(parts[1]))
+        {
+          visitIndexes(entryContainer, visitOnlyIndexes(IS_COMPOSITE, selector));
+        }
         else
         {
           // Is name a fully qualified index id ? i.e: "dn2id", "sn.caseIgnoreMatch:6"
@@ -1099,6 +1113,8 @@ final class OnDiskMergeImporter
     {
       entryContainer.delete(asWriteableTransaction(importer));
       visitIndexes(entryContainer, setTrust(false, importer));
+      // The imported entries do not invalidate the cached searches one by one
+      entryContainer.invalidateSearchCaches();
     }
 
     void afterPhaseOne()
@@ -1111,6 +1127,7 @@ final class OnDiskMergeImporter
     void afterPhaseTwo(EntryContainer entryContainer)
     {
       visitIndexes(entryContainer, setTrust(true, importer));
+      entryContainer.invalidateSearchCaches();
     }
 
     final Chunk newExternalSortChunk(TreeName treeName) throws Exception
@@ -1224,12 +1241,14 @@ final class OnDiskMergeImporter
     {
       visitIndexes(entryContainer, visitOnlyIndexes(indexIdIn(indexesToRebuild), setTrust(false, importer)));
       visitIndexes(entryContainer, visitOnlyIndexes(indexIdIn(indexesToRebuild), deleteDatabase(importer)));
+      entryContainer.invalidateSearchCaches();
     }
 
     @Override
     void afterPhaseTwo(EntryContainer entryContainer)
     {
       visitIndexes(entryContainer, visitOnlyIndexes(indexIdIn(indexesToRebuild), setTrust(true, importer)));
+      entryContainer.invalidateSearchCaches();
     }
 
     @Override
@@ -3186,6 +3205,13 @@ final class OnDiskMergeImporter
         }
       }
     }
+    for (CompositeIndex index : entryContainer.getCompositeIndexes())
+    {
+      if (treeName.equals(index.getName()))
+      {
+        return index;
+      }
+    }
     return null;
   }
 
@@ -3546,6 +3572,10 @@ final class OnDiskMergeImporter
         visitor.visitAttributeIndex(index);
       }
     }
+    for (CompositeIndex index : entryContainer.getCompositeIndexes())
+    {
+      visitor.visitAttributeIndex(index);
+    }
     for (VLVIndex index : entryContainer.getVLVIndexes())
     {
       visitor.visitVLVIndex(index);
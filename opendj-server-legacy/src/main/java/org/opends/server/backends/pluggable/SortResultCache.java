@@ -0,0 +1,242 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.SortKey;
+import org.opends.server.types.SearchFilter;
+
+/**
+ * Caches the sorted entry IDs of sorted searches, so that the subsequent pages of paged results
+ * or VLV searches are served without sorting the candidates again.
+ * <p>
+ * The cached entry IDs are only valid for the modification count of the entry container they were
+ * computed for: as soon as an entry is modified, all the cached entry IDs are discarded. The cache
+ * is bounded by the memory used by the cached entry IDs, and evicts the least recently used ones.
+ */
+final class SortResultCache
+{
+  /** Estimated memory overhead of a cached search, in bytes. */
+  private static final int ENTRY_OVERHEAD = 256;
+
+  /** Identifies a sorted search. */
+  static final class Key
+  {
+    private final DN baseDN;
+    private final SearchScope scope;
+    private final SearchFilter filter;
+    private final List<SortKey> sortKeys;
+    private final DN authorizationDN;
+
+    Key(DN baseDN, SearchScope scope, SearchFilter filter, List<SortKey> sortKeys, DN authorizationDN)
+    {
+      this.baseDN = baseDN;
+      this.scope = scope;
+      this.filter = filter;
+      this.sortKeys = sortKeys;
+      this.authorizationDN = authorizationDN;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (this == obj)
+      {
+        return true;
+      }
+      if (!(obj instanceof Key))
+      {
+        return false;
+      }
+      final Key other = (Key) obj;
+      return baseDN.equals(other.baseDN)
+          && scope.equals(other.scope)
+          && filter.equals(other.filter)
+          && sortKeys.equals(other.sortKeys)
+          && Objects.equals(authorizationDN, other.authorizationDN);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Objects.hash(baseDN, scope, filter, sortKeys, authorizationDN);
+    }
+
+    @Override
+    public String toString()
+    {
+      return "Key(baseDN=" + baseDN + ", scope=" + scope + ", filter=" + filter + ", sortKeys=" + sortKeys
+          + ", authorizationDN=" + authorizationDN + ")";
+    }
+  }
+
+  private final long maxMemory;
+  private final Map<Key, long[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+  /** The modification count the cached entry IDs were computed for. */
+  private long modificationCount;
+  private long usedMemory;
+  private long hits;
+  private long misses;
+
+  /**
+   * Creates a new cache which may use the provided amount of memory.
+   *
+   * @param maxMemory
+   *          the maximum amount of memory used by the cached entry IDs, in bytes
+   */
+  SortResultCache(long maxMemory)
+  {
+    this.maxMemory = maxMemory;
+  }
+
+  /**
+   * Returns whether sorted entry IDs of the provided size may be cached.
+   *
+   * @param size
+   *          the number of sorted entry IDs
+   * @return {@code true} if the sorted entry IDs may be cached
+   */
+  boolean canCache(long size)
+  {
+    // Do not let a single search evict most of the cache.
+    return getMemory(size) <= maxMemory / 4;
+  }
+
+  /**
+   * Returns the cached sorted entry IDs of a search.
+   *
+   * @param key
+   *          the search
+   * @param modificationCount
+   *          the modification count of the entry container when the search started
+   * @return the sorted entry IDs, or {@code null} if they are not cached
+   */
+  synchronized long[] get(Key key, long modificationCount)
+  {
+    final long[] entryIDs = isCurrent(modificationCount) ? cache.get(key) : null;
+    if (entryIDs != null)
+    {
+      hits++;
+    }
+    else
+    {
+      misses++;
+    }
+    return entryIDs;
+  }
+
+  /**
+   * Caches the sorted entry IDs of a search. Nothing is cached if entries were modified since the
+   * search started.
+   *
+   * @param key
+   *          the search
+   * @param modificationCount
+   *          the modification count of the entry container when the search started
+   * @param entryIDs
+   *          the sorted entry IDs
+   */
+  synchronized void put(Key key, long modificationCount, long[] entryIDs)
+  {
+    if (!isCurrent(modificationCount) || !canCache(entryIDs.length))
+    {
+      return;
+    }
+    final long[] previous = cache.put(key, entryIDs);
+    if (previous != null)
+    {
+      usedMemory -= getMemory(previous.length);
+    }
+    usedMemory += getMemory(entryIDs.length);
+
+    final Iterator<long[]> it = cache.values().iterator();
+    while (usedMemory > maxMemory && it.hasNext())
+    {
+      usedMemory -= getMemory(it.next().length);
+      it.remove();
+    }
+  }
+
+  /**
+   * Discards the cached entry IDs computed for an older modification count, and returns whether
+   * the provided modification count is the current one.
+   */
+  private boolean isCurrent(long modificationCount)
+  {
+    if (modificationCount > this.modificationCount)
+    {
+      clear();
+      this.modificationCount = modificationCount;
+    }
+    return modificationCount == this.modificationCount;
+  }
+
+  private static long getMemory(long size)
+  {
+    return ENTRY_OVERHEAD + 8 * size;
+  }
+
+  /** Discards all the cached entry IDs. */
+  synchronized void clear()
+  {
+    cache.clear();
+    usedMemory = 0;
+  }
+
+  /**
+   * Returns the number of cached searches.
+   *
+   * @return the number of cached searches
+   */
+  synchronized int size()
+  {
+    return cache.size();
+  }
+
+  /**
+   * Returns the number of searches which were served from the cache.
+   *
+   * @return the number of searches which were served from the cache
+   */
+  synchronized long getHitCount()
+  {
+    return hits;
+  }
+
+  /**
+   * Returns the number of searches which were not found in the cache.
+   *
+   * @return the number of searches which were not found in the cache
+   */
+  synchronized long getMissCount()
+  {
+    return misses;
+  }
+
+  @Override
+  public synchronized String toString()
+  {
+    return getClass().getSimpleName() + "(size=" + cache.size() + ", usedMemory=" + usedMemory
+        + ", maxMemory=" + maxMemory + ", hits=" + hits + ", misses=" + misses + ")";
+  }
+}
@@ -24,9 +24,11 @@ import static org.opends.server.core.DirectoryServer.*;
 import static org.opends.server.util.StaticUtils.*;
 
 import java.io.Closeable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -95,6 +97,8 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
 
   /** The count of entries in this index. */
   private final ShardedCounter counter;
+  /** Estimates the positions of the keys of this index without iterating from its first key. */
+  private final VLVPositionIndex positionIndex = new VLVPositionIndex();
 
   private DN baseDN;
   private SearchScope scope;
@@ -168,6 +172,7 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
   void beforeDelete(WriteableTransaction txn) throws StorageRuntimeException
   {
     counter.delete(txn);
+    positionIndex.clear();
   }
 
   void importCount(Importer importer, long count)
@@ -341,6 +346,18 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     this.config.removeChangeListener(this);
   }
 
+  /**
+   * Returns the sampled position index of this VLV index.
+   * <p>
+   * Package private for testing.
+   *
+   * @return the sampled position index of this VLV index
+   */
+  VLVPositionIndex getPositionIndex()
+  {
+    return positionIndex;
+  }
+
   boolean isTrusted()
   {
     return trusted;
@@ -349,6 +366,8 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
   synchronized void setTrusted(final WriteableTransaction txn, final boolean trusted) throws StorageRuntimeException
   {
     this.trusted = trusted;
+    // The index is about to be rebuilt, or has just been rebuilt
+    positionIndex.clear();
     if ( trusted ) {
       state.addFlagsToIndex(txn, getName(), IndexFlag.TRUSTED);
     } else {
@@ -448,21 +467,29 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     final Iterator<ByteString> di = iteratorFor(deletedKeys);
     ByteString nextDeletedKey = nextOrNull(di);
 
+    long delta = 0;
     while (nextAddedKey != null || nextDeletedKey != null)
     {
       if (nextDeletedKey == null || (nextAddedKey != null && nextAddedKey.compareTo(nextDeletedKey) < 0))
       {
         txn.put(getName(), nextAddedKey, toValue());
+        positionIndex.keyAdded(nextAddedKey);
         nextAddedKey = nextOrNull(ai);
-        counter.addCount(txn, COUNT_KEY, 1);
+        delta++;
       }
       else
       {
         txn.delete(getName(), nextDeletedKey);
+        positionIndex.keyRemoved(nextDeletedKey);
         nextDeletedKey = nextOrNull(di);
-        counter.addCount(txn, COUNT_KEY, -1);
+        delta--;
       }
     }
+    // A single update of the counter for the whole batch of keys
+    if (delta != 0)
+    {
+      counter.addCount(txn, COUNT_KEY, delta);
+    }
   }
 
   private Iterator<ByteString> iteratorFor(final TreeSet<ByteString> sortValues)
@@ -547,6 +574,14 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
         encodeTargetAssertion(sortKeys, assertion, searchOperation, currentCount);
     try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
     {
+      final VLVPositionIndex.Sample sample =
+          isPositionIndexUsable(currentCount) ? positionIndex.floorByKey(encodedTargetAssertion) : null;
+      if (sample != null && cursor.positionToKeyOrNext(encodedTargetAssertion))
+      {
+        return evaluateVLVRequestByAssertion(cursor, searchOperation, vlvRequest, encodedTargetAssertion, sample,
+            currentCount);
+      }
+
       final LinkedList<Long> selectedIDs = new LinkedList<>();
       int targetPosition = 0;
 
@@ -601,6 +636,92 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     }
   }
 
+  /**
+   * Same as above, but counts the keys preceding the target from a sample of the position index
+   * rather than from the start of the index. The page is read relative to the target key, so that it
+   * does not depend on the sizes recorded by the samples, which are only used to estimate the target
+   * position reported to the client.
+   */
+  private EntryIDSet evaluateVLVRequestByAssertion(final Cursor<ByteString, ByteString> cursor,
+      final SearchOperation searchOperation, final VLVRequestControl vlvRequest,
+      final ByteSequence encodedTargetAssertion, final VLVPositionIndex.Sample sample, final int currentCount)
+  {
+    final int beforeCount = vlvRequest.getBeforeCount();
+    // Start far enough before the target to read the keys preceding it
+    VLVPositionIndex.Sample start = positionIndex.floorByPosition(Math.max(0, sample.getPosition() - beforeCount));
+    if (start == null || start.getKey().compareTo(sample.getKey()) > 0)
+    {
+      start = sample;
+    }
+    final Deque<Long> beforeIDs = new ArrayDeque<>(beforeCount + 1);
+    while (true)
+    {
+      beforeIDs.clear();
+      final int precedingCount = readKeysBefore(cursor, start.getKey(), encodedTargetAssertion, beforeIDs, beforeCount);
+      final VLVPositionIndex.Sample previous = precedingCount < beforeCount && start.getPosition() > 0
+          ? positionIndex.floorByPosition(start.getPosition() - 1) : null;
+      if (previous == null || previous.getKey().compareTo(start.getKey()) >= 0)
+      {
+        final int targetPosition = Math.min(start.getPosition() + precedingCount, currentCount);
+        final long[] targetIDs = cursor.isDefined() ? readRange(cursor, 1 + vlvRequest.getAfterCount(), null)
+                                                    : new long[0];
+        final long[] selectedIDs = new long[beforeIDs.size() + targetIDs.length];
+        int i = 0;
+        for (Long entryID : beforeIDs)
+        {
+          selectedIDs[i++] = entryID;
+        }
+        System.arraycopy(targetIDs, 0, selectedIDs, i, targetIDs.length);
+        addVLVResponseControl(searchOperation, targetPosition + 1, currentCount, LDAPResultCode.SUCCESS);
+        return newDefinedSet(selectedIDs); // FIXME not ordered like a defined EntryIDSet expects
+      }
+      // Not enough keys between the sample and the target: start from the previous sample
+      start = previous;
+    }
+  }
+
+  /**
+   * Reads the keys from the provided key up to the target, keeping the entry IDs of the last
+   * {@code maxIDs} keys. The cursor is left on the first key which is not before the target.
+   *
+   * @return the number of keys read before the target
+   */
+  private int readKeysBefore(final Cursor<ByteString, ByteString> cursor, final ByteSequence fromKey,
+      final ByteSequence encodedTargetAssertion, final Deque<Long> entryIDs, final int maxIDs)
+  {
+    int count = 0;
+    boolean success = cursor.positionToKeyOrNext(fromKey);
+    while (success && encodedTargetAssertion.compareTo(cursor.getKey()) > 0)
+    {
+      entryIDs.addLast(decodeEntryIDFromVLVKey(cursor.getKey()));
+      if (entryIDs.size() > maxIDs)
+      {
+        entryIDs.removeFirst();
+      }
+      count++;
+      success = cursor.next();
+    }
+    return count;
+  }
+
+  /**
+   * Returns whether the position index can be used for this index, otherwise rebuilds it in the
+   * background. Small indexes are iterated from their first key.
+   */
+  private boolean isPositionIndexUsable(final int currentCount)
+  {
+    if (currentCount <= VLVPositionIndex.SAMPLE_INTERVAL)
+    {
+      return false;
+    }
+    if (positionIndex.isUsable(currentCount))
+    {
+      return true;
+    }
+    positionIndex.rebuildAsync(storage, getName());
+    return false;
+  }
+
   private long[] toPrimitiveLongArray(final List<Long> entryIDs)
   {
     final long[] result = new long[entryIDs.size()];
@@ -692,6 +813,7 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     final int count = 1 + beforeCount + afterCount;
     try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
     {
+      // The samples may count uncommitted or aborted updates: only an exact position returns the requested page
       if (cursor.positionToIndex(startPos))
       {
         selectedIDs = readRange(cursor, count, debugBuilder);
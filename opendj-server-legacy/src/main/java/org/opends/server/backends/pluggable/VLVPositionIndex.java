@@ -0,0 +1,345 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.api.DirectoryThread;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.ReadOperation;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.Storage;
+import org.opends.server.backends.pluggable.spi.TreeName;
+
+/**
+ * An in-memory sampled position index of the keys of a VLV index, allowing to estimate the position of
+ * a key in the VLV index without iterating from its first key.
+ * <p>
+ * The keys are split into buckets starting at every {@link #SAMPLE_INTERVAL}th key, and the sizes of
+ * the buckets are kept in a Fenwick tree so that the position of a bucket is computed in O(log n). The
+ * sizes are maintained as keys are added to and removed from the VLV index, whereas the buckets are
+ * only split by rebuilding the samples in the background. Since the updates are counted before their
+ * transaction commits, including the updates of aborted transactions, the positions are estimates:
+ * they are only used for reporting the target position of VLV requests by assertion, and never for
+ * locating the keys returned to the client. The samples are not used when the number of keys they
+ * count drifts too far from the count of the VLV index, or when a bucket becomes too large, until they
+ * are rebuilt.
+ */
+final class VLVPositionIndex
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The number of keys in each bucket when the samples are built. */
+  static final int SAMPLE_INTERVAL = 1000;
+  /** Buckets larger than this size make the samples useless until they are rebuilt. */
+  private static final int MAX_BUCKET_SIZE = 4 * SAMPLE_INTERVAL;
+  /** The minimum tolerated difference between the number of keys in the samples and in the VLV index. */
+  private static final int MIN_TOLERATED_DRIFT = 100;
+
+  /** Builds the samples of all the VLV indexes, one at a time. */
+  private static final class ExecutorHolder
+  {
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory()
+    {
+      @Override
+      public Thread newThread(Runnable r)
+      {
+        final Thread t = new DirectoryThread(r, "VLV Position Index Builder");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
+  /** The first key of a bucket and the position of this key in the VLV index. */
+  static final class Sample
+  {
+    private final ByteString key;
+    private final int position;
+
+    private Sample(ByteString key, int position)
+    {
+      this.key = key;
+      this.position = position;
+    }
+
+    /**
+     * Returns the key starting the bucket, the empty key for the first bucket.
+     *
+     * @return the key starting the bucket
+     */
+    ByteString getKey()
+    {
+      return key;
+    }
+
+    /**
+     * Returns the estimated position of the first key of the bucket in the VLV index, starting at 0.
+     *
+     * @return the estimated position of the first key of the bucket
+     */
+    int getPosition()
+    {
+      return position;
+    }
+  }
+
+  /** The keys starting each bucket, the first one being the empty key. */
+  private ByteString[] sampleKeys = new ByteString[0];
+  private int[] bucketSizes = new int[0];
+  /** The Fenwick tree of the bucket sizes, 1-based. */
+  private int[] fenwickTree = new int[1];
+  private int size;
+  private boolean needsRebuild = true;
+  private boolean rebuilding;
+
+  /**
+   * Returns whether the samples can be used for locating the keys of a VLV index.
+   *
+   * @param count
+   *          the number of keys in the VLV index
+   * @return {@code true} if the samples are built and close enough to the content of the VLV index
+   */
+  synchronized boolean isUsable(long count)
+  {
+    return !needsRebuild && Math.abs(size - count) <= Math.max(MIN_TOLERATED_DRIFT, count / 100);
+  }
+
+  /**
+   * Records a key added to the VLV index.
+   *
+   * @param key
+   *          the added key
+   */
+  synchronized void keyAdded(ByteSequence key)
+  {
+    if (sampleKeys.length > 0)
+    {
+      final int bucket = bucketOf(key);
+      updateBucketSize(bucket, 1);
+      needsRebuild |= bucketSizes[bucket] > MAX_BUCKET_SIZE;
+    }
+  }
+
+  /**
+   * Records a key removed from the VLV index.
+   *
+   * @param key
+   *          the removed key
+   */
+  synchronized void keyRemoved(ByteSequence key)
+  {
+    if (sampleKeys.length > 0)
+    {
+      final int bucket = bucketOf(key);
+      updateBucketSize(bucket, -1);
+      needsRebuild |= bucketSizes[bucket] < 0;
+    }
+  }
+
+  /**
+   * Returns the bucket containing a position.
+   *
+   * @param position
+   *          the position in the VLV index, starting at 0
+   * @return the first key of the bucket containing the position and its position, or {@code null} if
+   *         there are no samples
+   */
+  synchronized Sample floorByPosition(int position)
+  {
+    final int nbBuckets = bucketSizes.length;
+    if (nbBuckets == 0)
+    {
+      return null;
+    }
+    int bucket = 0;
+    int remaining = position;
+    for (int step = Integer.highestOneBit(nbBuckets); step > 0; step >>= 1)
+    {
+      final int next = bucket + step;
+      if (next <= nbBuckets && fenwickTree[next] <= remaining)
+      {
+        bucket = next;
+        remaining -= fenwickTree[next];
+      }
+    }
+    bucket = Math.min(bucket, nbBuckets - 1);
+    return new Sample(sampleKeys[bucket], prefixSize(bucket));
+  }
+
+  /**
+   * Returns the bucket containing a key.
+   *
+   * @param key
+   *          a key, which may not be in the VLV index
+   * @return the first key of the bucket containing the key and its position, or {@code null} if there
+   *         are no samples
+   */
+  synchronized Sample floorByKey(ByteSequence key)
+  {
+    if (sampleKeys.length == 0)
+    {
+      return null;
+    }
+    final int bucket = bucketOf(key);
+    return new Sample(sampleKeys[bucket], prefixSize(bucket));
+  }
+
+  /** Forgets the samples, for example because the VLV index must be rebuilt. */
+  synchronized void clear()
+  {
+    reset(new ByteString[0], new int[0]);
+  }
+
+  /**
+   * Rebuilds the samples in the background, unless they are already being rebuilt.
+   *
+   * @param storage
+   *          the storage containing the VLV index
+   * @param treeName
+   *          the name of the VLV index
+   */
+  void rebuildAsync(final Storage storage, final TreeName treeName)
+  {
+    synchronized (this)
+    {
+      if (rebuilding)
+      {
+        return;
+      }
+      rebuilding = true;
+    }
+    ExecutorHolder.EXECUTOR.execute(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        try
+        {
+          storage.read(new ReadOperation<Void>()
+          {
+            @Override
+            public Void run(ReadableTransaction txn) throws Exception
+            {
+              rebuild(txn, treeName);
+              return null;
+            }
+          });
+        }
+        catch (Exception e)
+        {
+          logger.traceException(e);
+        }
+        finally
+        {
+          synchronized (VLVPositionIndex.this)
+          {
+            rebuilding = false;
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Rebuilds the samples by reading all the keys of the VLV index.
+   *
+   * @param txn
+   *          a non null transaction
+   * @param treeName
+   *          the name of the VLV index
+   */
+  void rebuild(ReadableTransaction txn, TreeName treeName)
+  {
+    final List<ByteString> keys = new ArrayList<>();
+    final List<Integer> sizes = new ArrayList<>();
+    keys.add(ByteString.empty());
+    int bucketSize = 0;
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(treeName))
+    {
+      while (cursor.next())
+      {
+        if (bucketSize == SAMPLE_INTERVAL)
+        {
+          keys.add(cursor.getKey());
+          sizes.add(bucketSize);
+          bucketSize = 0;
+        }
+        bucketSize++;
+      }
+    }
+    sizes.add(bucketSize);
+
+    final int[] bucketSizes = new int[sizes.size()];
+    for (int i = 0; i < bucketSizes.length; i++)
+    {
+      bucketSizes[i] = sizes.get(i);
+    }
+    synchronized (this)
+    {
+      reset(keys.toArray(new ByteString[keys.size()]), bucketSizes);
+    }
+  }
+
+  private void reset(ByteString[] sampleKeys, int[] bucketSizes)
+  {
+    this.sampleKeys = sampleKeys;
+    this.bucketSizes = new int[bucketSizes.length];
+    this.fenwickTree = new int[bucketSizes.length + 1];
+    this.size = 0;
+    for (int i = 0; i < bucketSizes.length; i++)
+    {
+      updateBucketSize(i, bucketSizes[i]);
+    }
+    this.needsRebuild = sampleKeys.length == 0;
+  }
+
+  private int bucketOf(ByteSequence key)
+  {
+    final int index = Arrays.binarySearch(sampleKeys, key.toByteString());
+    // The first sample key is empty, so the insertion point is never 0
+    return index >= 0 ? index : -index - 2;
+  }
+
+  private void updateBucketSize(int bucket, int delta)
+  {
+    bucketSizes[bucket] += delta;
+    size += delta;
+    for (int i = bucket + 1; i < fenwickTree.length; i += i & -i)
+    {
+      fenwickTree[i] += delta;
+    }
+  }
+
+  /** Returns the number of keys in the buckets preceding the provided bucket. */
+  private int prefixSize(int bucket)
+  {
+    int sum = 0;
+    for (int i = bucket; i > 0; i -= i & -i)
+    {
+      sum += fenwickTree[i];
+    }
+    return sum;
+  }
+}
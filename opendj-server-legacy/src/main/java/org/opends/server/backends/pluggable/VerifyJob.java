@@ -46,6 +46,7 @@ import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.Schema;
 import org.opends.server.backends.VerifyConfig;
 import org.opends.server.backends.pluggable.AttributeIndex.MatchingRuleIndex;
+import org.opends.server.backends.pluggable.ID2EntryScanner.DecodedRecord;
 import org.opends.server.backends.pluggable.spi.Cursor;
 import org.opends.server.backends.pluggable.spi.ReadOperation;
 import org.opends.server.backends.pluggable.spi.ReadableTransaction;
@@ -102,6 +103,8 @@ class VerifyJob
   private final ArrayList<AttributeIndex> attrIndexList = new ArrayList<>();
   /** A list of the VLV indexes to be verified. */
   private final ArrayList<VLVIndex> vlvIndexList = new ArrayList<>();
+  /** A list of the composite indexes to be verified. */
+  private final ArrayList<CompositeIndex> compositeIndexList = new ArrayList<>();
 
   /**
    * Construct a VerifyJob.
@@ -168,6 +171,13 @@ class VerifyJob
             attrIndexList.add(index);
           }
         }
+        for (CompositeIndex index : entryContainer.getCompositeIndexes())
+        {
+          if (index.isTrusted())
+          {
+            compositeIndexList.add(index);
+          }
+        }
       }
       else
       {
@@ -209,6 +219,17 @@ class VerifyJob
 
             vlvIndexList.add(vlvIndex);
           }
+          else if (lowerName.startsWith("composite."))
+          {
+            String compositeIndexName = lowerName.substring(10);
+            CompositeIndex compositeIndex = entryContainer.getCompositeIndex(compositeIndexName);
+            if (compositeIndex == null)
+            {
+              throw new StorageRuntimeException(
+                  ERR_COMPOSITE_INDEX_NOT_CONFIGURED.get(compositeIndexName).toString());
+            }
+            compositeIndexList.add(compositeIndex);
+          }
           else
           {
             Schema schema = DirectoryServer.getInstance().getServerContext().getSchema();
@@ -345,51 +366,42 @@ class VerifyJob
    */
   private void iterateID2Entry(ReadableTransaction txn) throws StorageRuntimeException
   {
-    try(final Cursor<ByteString, ByteString> cursor = txn.openCursor(id2entry.getName()))
+    // Entries are decoded in parallel, index checks are done by this thread.
+    try (final ID2EntryScanner<DecodedRecord> scanner = new ID2EntryScanner<>(txn, id2entry,
+        ID2EntryScanner.decoder(id2entry, rootContainer.getCompressedSchema())))
     {
       long storedEntryCount = id2entry.getRecordCount(txn);
-      while (cursor.next())
+      while (scanner.next())
       {
-        ByteString key = cursor.getKey();
-        ByteString value = cursor.getValue();
-
-        EntryID entryID;
-        try
-        {
-          entryID = new EntryID(key);
-        }
-        catch (Exception e)
+        DecodedRecord record = scanner.getValue();
+        if (record.entryID == null)
         {
           errorCount++;
           if (logger.isTraceEnabled())
           {
-            logger.traceException(e);
+            logger.traceException(record.error);
 
-            logger.trace("Malformed id2entry ID %s.%n", StaticUtils.bytesToHex(key));
+            logger.trace("Malformed id2entry ID %s.%n", StaticUtils.bytesToHex(record.key));
           }
           continue;
         }
 
         keyCount++;
 
-        Entry entry;
-        try
-        {
-          entry = id2entry.entryFromDatabase(value, rootContainer.getCompressedSchema());
-        }
-        catch (Exception e)
+        if (record.entry == null)
         {
           errorCount++;
           if (logger.isTraceEnabled())
           {
-            logger.traceException(e);
+            logger.traceException(record.error);
 
-            logger.trace("Malformed id2entry record for ID %d:%n%s%n", entryID, StaticUtils.bytesToHex(value));
+            logger.trace("Malformed id2entry record for ID %d:%n%s%n",
+                record.entryID, StaticUtils.bytesToHex(record.value));
           }
           continue;
         }
 
-        verifyEntry(txn, entryID, entry);
+        verifyEntry(txn, record.entryID, record.entry);
       }
       if (keyCount != storedEntryCount)
       {
@@ -429,6 +441,10 @@ class VerifyJob
     {
       iterateVLVIndex(txn, vlvIndexList.get(0), true);
     }
+    else if (!compositeIndexList.isEmpty())
+    {
+      iterateAttrIndex(txn, compositeIndexList.get(0));
+    }
   }
 
   /**
@@ -643,12 +659,12 @@ class VerifyJob
   }
 
   /**
-   * Iterate through the entries in an attribute index to perform a check for
+   * Iterate through the entries in an attribute or composite index to perform a check for
    * index cleanliness.
    * @param index The index tree to be checked.
    * @throws StorageRuntimeException If an error occurs in the storage.
    */
-  private void iterateAttrIndex(ReadableTransaction txn, MatchingRuleIndex index) throws StorageRuntimeException
+  private void iterateAttrIndex(ReadableTransaction txn, Index index) throws StorageRuntimeException
   {
     if (index == null)
     {
@@ -754,7 +770,14 @@ class VerifyJob
 
             };
 
-            index.indexEntry(entry, dummySet);
+            if (index instanceof CompositeIndex)
+            {
+              foundMatchingKey.set(((CompositeIndex) index).indexEntry(entry).contains(key));
+            }
+            else
+            {
+              ((MatchingRuleIndex) index).indexEntry(entry, dummySet);
+            }
 
             if (!foundMatchingKey.get())
             {
@@ -875,6 +898,14 @@ class VerifyJob
       verifyAttribute(txn, entryID, entry, attrIndex);
     }
 
+    for (CompositeIndex compositeIndex : compositeIndexList)
+    {
+      for (ByteString key : compositeIndex.indexEntry(entry))
+      {
+        verifyAttributeInIndex(compositeIndex, txn, key, entryID);
+      }
+    }
+
     for (VLVIndex vlvIndex : vlvIndexList)
     {
       try
@@ -1028,6 +1059,10 @@ class VerifyJob
         {
           totalCount = vlvIndexList.get(0).getRecordCount(txn);
         }
+        else if (!compositeIndexList.isEmpty())
+        {
+          totalCount = getRecordCount(txn, compositeIndexList.get(0));
+        }
       }
       else
       {
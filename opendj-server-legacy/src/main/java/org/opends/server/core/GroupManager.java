@@ -24,9 +24,11 @@ import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -108,6 +110,9 @@ public class GroupManager extends InternalDirectoryServerPlugin
   /** A mapping between the DNs of all group entries and the corresponding group instances. */
   private DITCacheMap<Group<?>> groupInstances;
 
+  /** The reverse membership index of the group instances, mapping members to their groups. */
+  private final GroupMembershipIndex membershipIndex = new GroupMembershipIndex();
+
   /** Lock to protect internal data structures. */
   private final ReadWriteLock lock;
 
@@ -270,6 +275,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           if (g.getClass().getName().equals(group.getClass().getName()))
           {
             iterator.remove();
+            membershipIndex.removeGroup(g.getGroupDN());
           }
         }
       }
@@ -331,6 +337,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
               if (g.getClass().getName().equals(group.getClass().getName()))
               {
                 iterator.remove();
+                membershipIndex.removeGroup(g.getGroupDN());
               }
             }
           }
@@ -510,6 +517,189 @@ public class GroupManager extends InternalDirectoryServerPlugin
     }
   }
 
+  /**
+   * Retrieves the DNs of all the groups containing the provided entry, either
+   * directly or through nested groups.
+   * <BR><BR>
+   * The groups keeping an explicit list of members are found with a single
+   * lookup in the reverse membership index maintained by this group manager,
+   * the other groups are checked one by one.
+   *
+   * @param  userEntry  The entry for which to retrieve the groups.
+   *
+   * @return  The DNs of the groups containing the provided entry, possibly
+   *          empty.
+   */
+  public Set<DN> getGroupsOf(Entry userEntry)
+  {
+    final Set<DN> groupDNs;
+    final List<Group<?>> unindexedGroups;
+    lock.readLock().lock();
+    try
+    {
+      groupDNs = new LinkedHashSet<>(membershipIndex.getGroupsOf(userEntry.getName()));
+      unindexedGroups = new ArrayList<>(membershipIndex.getUnindexedGroups());
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+
+    for (Group<?> group : unindexedGroups)
+    {
+      try
+      {
+        if (!groupDNs.contains(group.getGroupDN()) && group.isMember(userEntry))
+        {
+          lock.readLock().lock();
+          try
+          {
+            groupDNs.addAll(membershipIndex.getClosure(group.getGroupDN()));
+          }
+          finally
+          {
+            lock.readLock().unlock();
+          }
+        }
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+      }
+    }
+    return groupDNs;
+  }
+
+  /**
+   * Indicates whether the user with the provided DN is a member of the
+   * specified group, either directly or through nested groups.
+   *
+   * @param  groupDN  The DN of the group.
+   * @param  userDN   The DN of the user.
+   *
+   * @return  {@code true} if the group exists and the user is a member of it,
+   *          or {@code false} if not.
+   *
+   * @throws  DirectoryException  If a problem occurs while attempting to make
+   *                              the determination.
+   */
+  public boolean isMember(DN groupDN, DN userDN) throws DirectoryException
+  {
+    return isMember(groupDN, userDN, null);
+  }
+
+  /**
+   * Indicates whether the provided entry is a member of the specified group,
+   * either directly or through nested groups.
+   *
+   * @param  groupDN    The DN of the group.
+   * @param  userEntry  The entry of the user.
+   *
+   * @return  {@code true} if the group exists and the user is a member of it,
+   *          or {@code false} if not.
+   *
+   * @throws  DirectoryException  If a problem occurs while attempting to make
+   *                              the determination.
+   */
+  public boolean isMember(DN groupDN, Entry userEntry) throws DirectoryException
+  {
+    return isMember(groupDN, userEntry.getName(), userEntry);
+  }
+
+  private boolean isMember(DN groupDN, DN userDN, Entry userEntry) throws DirectoryException
+  {
+    final List<Group<?>> groupsToCheck = new ArrayList<>();
+    lock.readLock().lock();
+    try
+    {
+      Group<?> group = groupInstances.get(groupDN);
+      if (group == null)
+      {
+        return false;
+      }
+      if (!membershipIndex.isIndexed(groupDN))
+      {
+        groupsToCheck.add(group);
+      }
+      else if (membershipIndex.getGroupsOf(userDN).contains(groupDN))
+      {
+        return true;
+      }
+      else
+      {
+        // Indexed groups may contain unindexed nested groups
+        for (Group<?> unindexedGroup : membershipIndex.getUnindexedGroups())
+        {
+          if (membershipIndex.getClosure(unindexedGroup.getGroupDN()).contains(groupDN))
+          {
+            groupsToCheck.add(unindexedGroup);
+          }
+        }
+      }
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+
+    for (Group<?> group : groupsToCheck)
+    {
+      if (userEntry != null ? group.isMember(userEntry) : group.isMember(userDN))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Updates the reverse membership index after the member list of a group has
+   * been altered outside of the operations processed by this group manager,
+   * for example through {@link Group#addMember(Entry)}.
+   *
+   * @param  group  The group whose member list has been altered.
+   */
+  public void updateMembershipIndex(Group<?> group)
+  {
+    lock.writeLock().lock();
+    try
+    {
+      if (groupInstances.get(group.getGroupDN()) == group)
+      {
+        membershipIndex.updateGroup(group);
+      }
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Updates the reverse membership index after members have been added to or
+   * removed from a group, without reading the whole member list of the group.
+   *
+   * @param  group           The group whose member list has been altered.
+   * @param  addedMembers    The DNs of the members added to the group.
+   * @param  removedMembers  The DNs of the members removed from the group.
+   */
+  public void updateMembershipIndex(Group<?> group, Collection<DN> addedMembers,
+      Collection<DN> removedMembers)
+  {
+    lock.writeLock().lock();
+    try
+    {
+      if (groupInstances.get(group.getGroupDN()) == group)
+      {
+        membershipIndex.updateGroup(group.getGroupDN(), addedMembers, removedMembers);
+      }
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
   /**
    * {@inheritDoc}  In this case, the server will search the backend to find
    * all group instances that it may contain and register them with this group
@@ -582,6 +772,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
               Group<?> groupInstance = groupImplementation.newInstance(serverContext, entry);
               groupInstances.put(entry.getName(), groupInstance);
               refreshToken++;
+              membershipIndex.addGroup(groupInstance);
             }
             catch (DirectoryException e)
             {
@@ -616,6 +807,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
         if (backend.handlesEntry(groupEntryDN))
         {
           iterator.remove();
+          membershipIndex.removeGroup(groupEntryDN);
         }
       }
     }
@@ -642,6 +834,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
    */
   private void doPostAdd(PluginOperation addOperation, Entry entry)
   {
+    notifyTrackingGroups(null, entry);
     if (hasGroupMembershipUpdateControl(addOperation))
     {
       return;
@@ -650,6 +843,38 @@ public class GroupManager extends InternalDirectoryServerPlugin
     createAndRegisterGroup(entry);
   }
 
+  /**
+   * Notifies the groups tracking the changes made to the entries, such as
+   * materialized dynamic groups, that an entry has changed.
+   *
+   * @param  oldEntry  The entry before the change, or {@code null} if it has
+   *                   been added.
+   * @param  newEntry  The entry after the change, or {@code null} if it has
+   *                   been deleted.
+   */
+  private void notifyTrackingGroups(Entry oldEntry, Entry newEntry)
+  {
+    final List<Group<?>> trackingGroups;
+    lock.readLock().lock();
+    try
+    {
+      if (membershipIndex.getTrackingGroups().isEmpty())
+      {
+        return;
+      }
+      trackingGroups = new ArrayList<>(membershipIndex.getTrackingGroups());
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+
+    for (Group<?> group : trackingGroups)
+    {
+      group.memberEntryChanged(oldEntry, newEntry);
+    }
+  }
+
   private static boolean hasGroupMembershipUpdateControl(PluginOperation operation)
   {
     List<Control> requestControls = operation.getRequestControls();
@@ -672,6 +897,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
    */
   private void doPostDelete(PluginOperation deleteOperation, Entry entry)
   {
+    notifyTrackingGroups(entry, null);
     if (hasGroupMembershipUpdateControl(deleteOperation))
     {
       return;
@@ -680,9 +906,14 @@ public class GroupManager extends InternalDirectoryServerPlugin
     lock.writeLock().lock();
     try
     {
-      if (groupInstances.removeSubtree(entry.getName(), null))
+      Set<Group<?>> groupSet = new HashSet<>();
+      if (groupInstances.removeSubtree(entry.getName(), groupSet))
       {
         refreshToken++;
+        for (Group<?> group : groupSet)
+        {
+          membershipIndex.removeGroup(group.getGroupDN());
+        }
       }
     }
     finally
@@ -721,6 +952,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           Entry oldEntry, Entry newEntry,
           List<Modification> modifications)
   {
+    notifyTrackingGroups(oldEntry, newEntry);
     if (hasGroupMembershipUpdateControl(modifyOperation))
     {
       return;
@@ -752,12 +984,17 @@ public class GroupManager extends InternalDirectoryServerPlugin
             || updatesObjectClass(modifications))
         {
           groupInstances.remove(oldEntry.getName());
+          membershipIndex.removeGroup(oldEntry.getName());
           // This updates the refreshToken
           createAndRegisterGroup(newEntry);
         }
         else
         {
           group.updateMembers(modifications);
+          if (!group.reportsMemberListChanges())
+          {
+            membershipIndex.updateGroup(group);
+          }
         }
       }
     }
@@ -781,6 +1018,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
   private void doPostModifyDN(PluginOperation modifyDNOperation,
           Entry oldEntry, Entry newEntry)
   {
+    notifyTrackingGroups(oldEntry, newEntry);
     if (hasGroupMembershipUpdateControl(modifyDNOperation))
     {
       return;
@@ -797,8 +1035,10 @@ public class GroupManager extends InternalDirectoryServerPlugin
       {
         final DN groupDN = group.getGroupDN();
         final DN renamedGroupDN = groupDN.rename(oldDN, newDN);
+        membershipIndex.removeGroup(groupDN);
         group.setGroupDN(renamedGroupDN);
         groupInstances.put(renamedGroupDN, group);
+        membershipIndex.addGroup(group);
       }
       if (!groupSet.isEmpty())
       {
@@ -944,6 +1184,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           {
             groupInstances.put(entry.getName(), groupInstance);
             refreshToken++;
+            membershipIndex.addGroup(groupInstance);
           }
           finally
           {
@@ -969,6 +1210,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
     try
     {
       groupInstances.clear();
+      membershipIndex.clear();
     }
     finally
     {
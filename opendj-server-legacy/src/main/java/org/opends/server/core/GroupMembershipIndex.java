@@ -0,0 +1,360 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.core;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.api.Group;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.MemberList;
+import org.opends.server.types.MembershipException;
+
+/**
+ * Reverse membership index of the groups registered with the group manager, mapping the DN of each
+ * member to the DNs of the groups directly listing it.
+ * <p>
+ * Only the groups keeping an explicit list of members, i.e. those whose member list may be altered
+ * or which report the changes to their member list, are indexed. The other groups (dynamic groups,
+ * virtual static groups) compute their membership from the member entry and are returned by
+ * {@link #getUnindexedGroups()} so that the caller can check them one by one.
+ * <p>
+ * The groups tracking the changes made to the entries, such as materialized dynamic groups, are
+ * returned by {@link #getTrackingGroups()} whether they are indexed or not.
+ * <p>
+ * The index does not keep its own copy of the members of each group, which the groups already hold:
+ * the members of a group are only read from the group when it is added, and they are looked for in
+ * the index when the group is removed or when its whole member list is reloaded.
+ * <p>
+ * Nested groups are handled by the transitive closure of the index: the groups containing a group,
+ * directly or through other groups, are computed on first use and cached until the index changes.
+ * <p>
+ * This class is not thread safe, except for the reads of the closure cache: callers must hold the
+ * group manager's read lock for reading the index, and its write lock for updating it.
+ */
+final class GroupMembershipIndex
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Maps the normalized DN of each member to the DNs of the indexed groups directly listing it. */
+  private final Map<ByteString, Set<DN>> groupsOfMember = new HashMap<>();
+  /** The DNs of the indexed groups. */
+  private final Set<DN> indexedGroups = new HashSet<>();
+  /** The groups which are not indexed. */
+  private final Map<DN, Group<?>> unindexedGroups = new LinkedHashMap<>();
+  /** The groups which need to be notified of the changes made to the entries. */
+  private final Map<DN, Group<?>> trackingGroups = new LinkedHashMap<>();
+  /** Caches the DNs of the groups containing a group, including itself, directly or through nesting. */
+  private final ConcurrentMap<DN, Set<DN>> closures = new ConcurrentHashMap<>();
+
+  /**
+   * Adds a group to the index, replacing any group previously indexed with the same DN.
+   *
+   * @param group
+   *          the group to index, which must be registered with the group manager
+   */
+  void addGroup(Group<?> group)
+  {
+    final DN groupDN = group.getGroupDN();
+    removeGroup(groupDN);
+    if (group.tracksMemberEntryChanges())
+    {
+      trackingGroups.put(groupDN, group);
+    }
+    if (!group.mayAlterMemberList() && !group.reportsMemberListChanges())
+    {
+      unindexedGroups.put(groupDN, group);
+      closures.clear();
+      return;
+    }
+    indexedGroups.add(groupDN);
+    addMembers(group);
+    closures.clear();
+  }
+
+  /**
+   * Removes a group from the index.
+   *
+   * @param groupDN
+   *          the DN of the group to remove
+   */
+  void removeGroup(DN groupDN)
+  {
+    trackingGroups.remove(groupDN);
+    if (indexedGroups.remove(groupDN))
+    {
+      removeMembers(groupDN);
+      closures.clear();
+    }
+    else if (unindexedGroups.remove(groupDN) != null)
+    {
+      closures.clear();
+    }
+  }
+
+  /**
+   * Updates the index after the member list of an indexed group has changed, reloading the whole
+   * member list of the group.
+   * <p>
+   * The previous members of the group are not known to the index, so this goes through all the
+   * indexed members: the groups reporting their changes should rather call
+   * {@link #updateGroup(DN, Collection, Collection)}.
+   *
+   * @param group
+   *          the group whose members have changed
+   */
+  void updateGroup(Group<?> group)
+  {
+    final DN groupDN = group.getGroupDN();
+    if (!indexedGroups.contains(groupDN))
+    {
+      addGroup(group);
+      return;
+    }
+    removeMembers(groupDN);
+    addMembers(group);
+    closures.clear();
+  }
+
+  /**
+   * Updates the index after members have been added to or removed from an indexed group, without
+   * reading the whole member list of the group.
+   * <p>
+   * The cached closures are only discarded when the added or removed members are groups, since
+   * adding a user to a group does not change the groups containing other groups. The members which
+   * are already listed, or not listed, by the group are ignored.
+   *
+   * @param groupDN
+   *          the DN of the group whose members have changed
+   * @param addedMembers
+   *          the DNs of the members added to the group
+   * @param removedMembers
+   *          the DNs of the members removed from the group
+   */
+  void updateGroup(DN groupDN, Collection<DN> addedMembers, Collection<DN> removedMembers)
+  {
+    if (!indexedGroups.contains(groupDN))
+    {
+      return;
+    }
+    boolean nestedGroupsChanged = false;
+    for (DN memberDN : addedMembers)
+    {
+      if (addGroupOfMember(memberDN.toNormalizedByteString(), groupDN))
+      {
+        nestedGroupsChanged |= isGroup(memberDN);
+      }
+    }
+    for (DN memberDN : removedMembers)
+    {
+      if (removeGroupOfMember(memberDN.toNormalizedByteString(), groupDN))
+      {
+        nestedGroupsChanged |= isGroup(memberDN);
+      }
+    }
+    if (nestedGroupsChanged)
+    {
+      closures.clear();
+    }
+  }
+
+  private boolean isGroup(DN dn)
+  {
+    return indexedGroups.contains(dn) || unindexedGroups.containsKey(dn) || closures.containsKey(dn);
+  }
+
+  /** Removes all the groups from the index. */
+  void clear()
+  {
+    groupsOfMember.clear();
+    indexedGroups.clear();
+    unindexedGroups.clear();
+    trackingGroups.clear();
+    closures.clear();
+  }
+
+  /**
+   * Returns the DNs of the indexed groups containing a member, directly or through nested groups.
+   *
+   * @param memberDN
+   *          the DN of the member
+   * @return the DNs of the indexed groups containing the member, possibly empty
+   */
+  Set<DN> getGroupsOf(DN memberDN)
+  {
+    final Set<DN> directGroups = groupsOfMember.get(memberDN.toNormalizedByteString());
+    if (directGroups == null)
+    {
+      return Collections.emptySet();
+    }
+    final Set<DN> groups = new LinkedHashSet<>();
+    for (DN groupDN : directGroups)
+    {
+      groups.addAll(getClosure(groupDN));
+    }
+    return groups;
+  }
+
+  /**
+   * Returns the DNs of the groups containing a group, directly or through nested groups, including
+   * the group itself.
+   *
+   * @param groupDN
+   *          the DN of a group
+   * @return the DNs of the groups containing the group, including the group itself
+   */
+  Set<DN> getClosure(DN groupDN)
+  {
+    Set<DN> closure = closures.get(groupDN);
+    if (closure == null)
+    {
+      closure = new LinkedHashSet<>();
+      final Deque<DN> toVisit = new ArrayDeque<>();
+      toVisit.add(groupDN);
+      while (!toVisit.isEmpty())
+      {
+        final DN dn = toVisit.poll();
+        if (closure.add(dn))
+        {
+          final Set<DN> parents = groupsOfMember.get(dn.toNormalizedByteString());
+          if (parents != null)
+          {
+            toVisit.addAll(parents);
+          }
+        }
+      }
+      closure = Collections.unmodifiableSet(closure);
+      closures.put(groupDN, closure);
+    }
+    return closure;
+  }
+
+  /**
+   * Returns whether a group is indexed.
+   *
+   * @param groupDN
+   *          the DN of a group
+   * @return {@code true} if the members of the group are indexed
+   */
+  boolean isIndexed(DN groupDN)
+  {
+    return indexedGroups.contains(groupDN);
+  }
+
+  /**
+   * Returns the groups which are not indexed, whose membership must be checked on each group.
+   *
+   * @return the groups which are not indexed
+   */
+  Collection<Group<?>> getUnindexedGroups()
+  {
+    return unindexedGroups.values();
+  }
+
+  /**
+   * Returns the groups which need to be notified of the changes made to the entries.
+   *
+   * @return the groups tracking the changes made to the entries
+   */
+  Collection<Group<?>> getTrackingGroups()
+  {
+    return trackingGroups.values();
+  }
+
+  private boolean addGroupOfMember(ByteString member, DN groupDN)
+  {
+    Set<DN> groups = groupsOfMember.get(member);
+    if (groups == null)
+    {
+      groups = new HashSet<>(2);
+      groupsOfMember.put(member, groups);
+    }
+    return groups.add(groupDN);
+  }
+
+  private boolean removeGroupOfMember(ByteString member, DN groupDN)
+  {
+    final Set<DN> groups = groupsOfMember.get(member);
+    if (groups == null || !groups.remove(groupDN))
+    {
+      return false;
+    }
+    if (groups.isEmpty())
+    {
+      groupsOfMember.remove(member);
+    }
+    return true;
+  }
+
+  /** Removes a group from the groups of all its members, going through all the indexed members. */
+  private void removeMembers(DN groupDN)
+  {
+    for (Iterator<Set<DN>> it = groupsOfMember.values().iterator(); it.hasNext();)
+    {
+      final Set<DN> groups = it.next();
+      if (groups.remove(groupDN) && groups.isEmpty())
+      {
+        it.remove();
+      }
+    }
+  }
+
+  /** Adds a group to the groups of each of its members, as read from the group. */
+  private void addMembers(Group<?> group)
+  {
+    final DN groupDN = group.getGroupDN();
+    try (MemberList memberList = group.getMembers())
+    {
+      while (memberList.hasMoreMembers())
+      {
+        try
+        {
+          final DN memberDN = memberList.nextMemberDN();
+          if (memberDN != null)
+          {
+            addGroupOfMember(memberDN.toNormalizedByteString(), groupDN);
+          }
+        }
+        catch (MembershipException e)
+        {
+          logger.traceException(e);
+          if (!e.continueIterating())
+          {
+            break;
+          }
+        }
+      }
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+    }
+  }
+}
@@ -523,6 +523,28 @@ public abstract class PasswordPolicy extends AuthenticationPolicy
    */
   public abstract StateUpdateFailurePolicy getStateUpdateFailurePolicy();
 
+  /**
+   * Gets the "state-update-delay" property.
+   * <p>
+   * Specifies the maximum length of time that the password policy state
+   * updates which do not affect account lockout, such as the last login time,
+   * may be delayed after a successful bind.
+   * <p>
+   * A value of zero writes these updates synchronously with the bind.
+   *
+   * @return Returns the value of the "state-update-delay" property.
+   */
+  public abstract long getStateUpdateDelay();
+
+  /**
+   * Retrieves the cache of the passwords recently verified for the users of
+   * this password policy.
+   *
+   * @return The cache of the verified passwords, or {@code null} if verified
+   *         passwords are not cached.
+   */
+  abstract VerifiedPasswordCache getVerifiedPasswordCache();
+
   @Override
   public boolean isPasswordPolicy()
   {
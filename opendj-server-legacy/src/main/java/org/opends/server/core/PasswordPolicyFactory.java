@@ -21,6 +21,7 @@ import static org.opends.messages.CoreMessages.*;
 import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import java.security.GeneralSecurityException;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
 import java.util.Date;
@@ -33,6 +34,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -96,6 +98,11 @@ public final class PasswordPolicyFactory implements
     /** The the time by which all users will be required to change their passwords. */
     private long requireChangeByTime;
 
+    /** The cache of the verified passwords, or {@code null} if verified passwords are not cached. */
+    private VerifiedPasswordCache verifiedPasswordCache;
+    private long verifiedPasswordCacheDuration;
+    private int verifiedPasswordCacheSize;
+
     private final ServerContext serverContext;
 
     @Override
@@ -380,6 +387,37 @@ public final class PasswordPolicyFactory implements
         this.passwordGenerator = passwordGenerator;
         this.passwordValidators = passwordValidators;
         this.requireChangeByTime = requireChangeByTime;
+        this.verifiedPasswordCache = newVerifiedPasswordCache(configuration, configEntryDN);
+      }
+    }
+
+    /** Keeps the current cache if its configuration has not changed, so that its content is not lost. */
+    private VerifiedPasswordCache newVerifiedPasswordCache(PasswordPolicyCfg configuration, DN configEntryDN)
+        throws InitializationException
+    {
+      final long duration = configuration.getVerifiedPasswordCacheDuration();
+      final int size = configuration.getVerifiedPasswordCacheSize();
+      if (duration <= 0)
+      {
+        return null;
+      }
+      if (verifiedPasswordCache != null && verifiedPasswordCacheDuration == duration
+          && verifiedPasswordCacheSize == size)
+      {
+        return verifiedPasswordCache;
+      }
+      try
+      {
+        final VerifiedPasswordCache cache = new VerifiedPasswordCache(TimeUnit.SECONDS.toMillis(duration), size);
+        verifiedPasswordCacheDuration = duration;
+        verifiedPasswordCacheSize = size;
+        return cache;
+      }
+      catch (GeneralSecurityException e)
+      {
+        logger.traceException(e);
+        throw new InitializationException(ERR_PWPOLICY_CANNOT_CREATE_VERIFIED_PASSWORD_CACHE.get(
+            configEntryDN, stackTraceToSingleLineString(e)), e);
       }
     }
 
@@ -730,6 +768,16 @@ public final class PasswordPolicyFactory implements
       buffer.append("Update Failure Policy:                 ");
       buffer.append(configuration.getStateUpdateFailurePolicy());
       buffer.append(EOL);
+
+      buffer.append("State Update Delay:                    ");
+      buffer.append(configuration.getStateUpdateDelay());
+      buffer.append(" milliseconds");
+      buffer.append(EOL);
+
+      buffer.append("Verified Password Cache Duration:      ");
+      buffer.append(configuration.getVerifiedPasswordCacheDuration());
+      buffer.append(" seconds");
+      buffer.append(EOL);
     }
 
     @Override
@@ -893,6 +941,18 @@ public final class PasswordPolicyFactory implements
     {
       return configuration.getStateUpdateFailurePolicy();
     }
+
+    @Override
+    public long getStateUpdateDelay()
+    {
+      return configuration.getStateUpdateDelay();
+    }
+
+    @Override
+    VerifiedPasswordCache getVerifiedPasswordCache()
+    {
+      return verifiedPasswordCache;
+    }
   }
 
   private ServerContext serverContext;
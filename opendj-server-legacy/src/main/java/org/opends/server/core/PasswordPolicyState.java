@@ -359,6 +359,13 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
   public void setPasswordChangedTime()
   {
     setPasswordChangedTime(currentTime);
+
+    // The verifications of the old password no longer match the stored values anyway
+    VerifiedPasswordCache cache = passwordPolicy.getVerifiedPasswordCache();
+    if (cache != null)
+    {
+      cache.invalidate(userEntry.getName());
+    }
   }
 
   /**
@@ -1940,6 +1947,21 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
     return clearPasswords;
   }
 
+  private boolean isVerified(VerifiedPasswordCache cache, List<Attribute> attrList, ByteString password)
+  {
+    for (Attribute a : attrList)
+    {
+      for (ByteString v : a)
+      {
+        if (cache.isVerified(userEntry.getName(), password, v))
+        {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   private ByteString getPlaintextValue(PasswordStorageScheme<?> scheme, String[] pwComponents)
       throws DirectoryException
   {
@@ -1963,6 +1985,14 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
       return false;
     }
 
+    VerifiedPasswordCache cache = passwordPolicy.getVerifiedPasswordCache();
+    if (cache != null && isVerified(cache, attrList, password))
+    {
+      logger.trace("Returning true for user %s because the provided password has recently been verified",
+          userDNString);
+      return true;
+    }
+
     for (Attribute a : attrList)
     {
       for (ByteString v : a)
@@ -1991,6 +2021,10 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
                       "encoded with scheme %s", userDNString, schemeName);
             }
 
+            if (cache != null)
+            {
+              cache.verified(userEntry.getName(), password, v);
+            }
             return true;
           }
         }
@@ -2748,6 +2782,14 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
     return modifications;
   }
 
+  /** Indicates whether a modification only records information, such as the last login time. */
+  private boolean isDelayable(Modification m)
+  {
+    return m.getModificationType() == ModificationType.REPLACE
+        && m.getAttribute().getAttributeDescription().getAttributeType().equals(
+            passwordPolicy.getLastLoginTimeAttribute());
+  }
+
   @Override
   public void finalizeStateAfterBind()
          throws DirectoryException
@@ -2758,11 +2800,30 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
       return;
     }
 
-    // Convert the set of modifications to a set of LDAP modifications.
+    // Convert the set of modifications to a set of LDAP modifications,
+    // setting aside the updates which do not affect lockout and may be delayed.
     ArrayList<RawModification> modList = new ArrayList<>();
+    List<Modification> delayedMods = new ArrayList<>();
+    long delay = passwordPolicy.getStateUpdateDelay();
     for (Modification m : modifications)
     {
-      modList.add(RawModification.create(m.getModificationType(), new LDAPAttribute(m.getAttribute())));
+      if (delay > 0 && isDelayable(m))
+      {
+        delayedMods.add(m);
+      }
+      else
+      {
+        modList.add(RawModification.create(m.getModificationType(), new LDAPAttribute(m.getAttribute())));
+      }
+    }
+
+    if (!delayedMods.isEmpty())
+    {
+      PasswordPolicyStateWriter.getInstance().delay(userEntry.getName(), delayedMods, delay);
+    }
+    if (modList.isEmpty())
+    {
+      return;
     }
 
     InternalClientConnection conn = getRootConnection();
@@ -0,0 +1,201 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.core;
+
+import static org.opends.messages.CoreMessages.*;
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.ServerShutdownListener;
+import org.opends.server.types.Modification;
+
+/**
+ * Writes the password policy state updates which have been delayed after successful binds.
+ * <p>
+ * The updates must replace the values of the attributes they target, so that the updates of a user
+ * can be coalesced: only the last update of each attribute is written. The pending updates are
+ * written in batches, at the latest when the delay requested for the earliest of them has elapsed,
+ * and when the server shuts down.
+ */
+final class PasswordPolicyStateWriter implements ServerShutdownListener
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The writer, created on the first delayed update. */
+  private static final class InstanceHolder
+  {
+    private static final PasswordPolicyStateWriter INSTANCE = new PasswordPolicyStateWriter();
+  }
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+  {
+    @Override
+    public Thread newThread(Runnable r)
+    {
+      final Thread t = new DirectoryThread(r, "Password Policy State Writer");
+      t.setDaemon(true);
+      return t;
+    }
+  });
+
+  private final Runnable flushTask = new Runnable()
+  {
+    @Override
+    public void run()
+    {
+      flush();
+    }
+  };
+
+  /** The pending updates of each user, by attribute type, guarded by this. */
+  private Map<DN, Map<AttributeType, Modification>> pendingUpdates = new LinkedHashMap<>();
+  /** The time at which the pending updates are written, guarded by this. */
+  private long nextFlushTime = Long.MAX_VALUE;
+  /** Whether this writer is registered as a shutdown listener, guarded by this. */
+  private boolean registered;
+
+  private PasswordPolicyStateWriter()
+  {
+    // Use getInstance()
+  }
+
+  /**
+   * Returns the writer of the delayed password policy state updates.
+   *
+   * @return the writer of the delayed password policy state updates
+   */
+  static PasswordPolicyStateWriter getInstance()
+  {
+    return InstanceHolder.INSTANCE;
+  }
+
+  /**
+   * Delays the provided updates of a user entry, replacing the pending updates of the same
+   * attributes.
+   *
+   * @param userDN
+   *          the DN of the user entry
+   * @param modifications
+   *          the updates, which must replace the values of the attributes they target
+   * @param delay
+   *          the maximum length of time in milliseconds the updates may be delayed
+   */
+  synchronized void delay(DN userDN, List<Modification> modifications, long delay)
+  {
+    Map<AttributeType, Modification> userUpdates = pendingUpdates.get(userDN);
+    if (userUpdates == null)
+    {
+      userUpdates = new LinkedHashMap<>();
+      pendingUpdates.put(userDN, userUpdates);
+    }
+    for (Modification m : modifications)
+    {
+      userUpdates.put(m.getAttribute().getAttributeDescription().getAttributeType(), m);
+    }
+
+    if (!registered)
+    {
+      DirectoryServer.registerShutdownListener(this);
+      registered = true;
+    }
+    final long flushTime = System.currentTimeMillis() + delay;
+    if (flushTime < nextFlushTime)
+    {
+      nextFlushTime = flushTime;
+      executor.schedule(flushTask, delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** Writes all the pending updates. */
+  void flush()
+  {
+    final Map<DN, Map<AttributeType, Modification>> updates;
+    synchronized (this)
+    {
+      if (pendingUpdates.isEmpty())
+      {
+        return;
+      }
+      updates = pendingUpdates;
+      pendingUpdates = new LinkedHashMap<>();
+      nextFlushTime = Long.MAX_VALUE;
+    }
+
+    for (Map.Entry<DN, Map<AttributeType, Modification>> userUpdates : updates.entrySet())
+    {
+      final DN userDN = userUpdates.getKey();
+      try
+      {
+        final List<Modification> mods = new ArrayList<>(userUpdates.getValue().values());
+        final ModifyOperation internalModify = getRootConnection().processModify(userDN, mods);
+        final ResultCode resultCode = internalModify.getResultCode();
+        if (resultCode == ResultCode.NO_SUCH_OBJECT)
+        {
+          logger.trace("Not updating the password policy state of deleted user %s", userDN);
+        }
+        else if (resultCode != ResultCode.SUCCESS)
+        {
+          logger.error(ERR_PWPSTATE_CANNOT_UPDATE_USER_ENTRY.get(userDN, internalModify.getErrorMessage()));
+        }
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of users whose updates are pending.
+   *
+   * @return the number of users whose updates are pending
+   */
+  synchronized int getPendingUserCount()
+  {
+    return pendingUpdates.size();
+  }
+
+  @Override
+  public String getShutdownListenerName()
+  {
+    return "Password Policy State Writer";
+  }
+
+  @Override
+  public void processServerShutdown(LocalizableMessage reason)
+  {
+    synchronized (this)
+    {
+      // The shutdown listeners are discarded when the server restarts
+      registered = false;
+    }
+    flush();
+  }
+}
@@ -0,0 +1,311 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Entry;
+import org.opends.server.types.SubEntry;
+import org.opends.server.types.SubtreeSpecification;
+
+/**
+ * An immutable set of subentries, indexed by the base DN of their subtree specification.
+ * <p>
+ * Changes are made by creating a new index, so that the index can be read without locking.
+ * Each index lazily caches, for the parent DNs of the entries it has been asked about, which
+ * subentries apply to all the children of the parent, and which subentries must be evaluated
+ * against each child. The cache is discarded with the index whenever the subentries change.
+ */
+final class SubentryIndex
+{
+  /** An index without any subentries. */
+  static final SubentryIndex EMPTY = new SubentryIndex(Collections.<DN, List<SubEntry>> emptyMap());
+
+  /** The maximum number of parent DNs whose applicable subentries are cached. */
+  private static final int MAX_CACHED_PARENTS = 10000;
+
+  /** The subentries which apply to the children of a parent DN. */
+  private static final class Applicability
+  {
+    /** The candidate subentries, the nearest ones first. */
+    private final SubEntry[] subentries;
+    /** Whether the DN of a child must be checked against the subtree specification of each candidate. */
+    private final boolean[] checkDN;
+
+    private Applicability(List<SubEntry> subentries, List<Boolean> checkDN)
+    {
+      this.subentries = subentries.toArray(new SubEntry[subentries.size()]);
+      this.checkDN = new boolean[this.subentries.length];
+      for (int i = 0; i < this.checkDN.length; i++)
+      {
+        this.checkDN[i] = checkDN.get(i);
+      }
+    }
+  }
+
+  /** A mapping between the base DNs and the subentries, whose lists are never modified. */
+  private final Map<DN, List<SubEntry>> baseDN2SubEntries;
+  /** The types of the collective attributes provided by the subentries. */
+  private final Set<AttributeType> collectiveAttributeTypes;
+  /** The applicable subentries of the children of the cached parent DNs. */
+  private final ConcurrentMap<DN, Applicability> parentDN2Applicability = new ConcurrentHashMap<>();
+
+  private SubentryIndex(Map<DN, List<SubEntry>> baseDN2SubEntries)
+  {
+    this.baseDN2SubEntries = baseDN2SubEntries;
+    final Set<AttributeType> attributeTypes = new HashSet<>();
+    for (List<SubEntry> subList : baseDN2SubEntries.values())
+    {
+      for (SubEntry subEntry : subList)
+      {
+        for (Attribute attribute : subEntry.getCollectiveAttributes())
+        {
+          attributeTypes.add(attribute.getAttributeDescription().getAttributeType());
+        }
+      }
+    }
+    this.collectiveAttributeTypes = Collections.unmodifiableSet(attributeTypes);
+  }
+
+  /**
+   * Indicates whether this index does not contain any subentries.
+   *
+   * @return {@code true} if this index does not contain any subentries
+   */
+  boolean isEmpty()
+  {
+    return baseDN2SubEntries.isEmpty();
+  }
+
+  /**
+   * Returns all the subentries of this index.
+   *
+   * @return a new list containing all the subentries of this index
+   */
+  List<SubEntry> getSubentries()
+  {
+    final List<SubEntry> subentries = new ArrayList<>();
+    for (List<SubEntry> subList : baseDN2SubEntries.values())
+    {
+      subentries.addAll(subList);
+    }
+    return subentries;
+  }
+
+  /**
+   * Returns the types of the collective attributes provided by the subentries of this index, which
+   * are computed once for each index.
+   *
+   * @return the types of the collective attributes provided by the subentries of this index
+   */
+  Set<AttributeType> getCollectiveAttributeTypes()
+  {
+    return collectiveAttributeTypes;
+  }
+
+  /**
+   * Returns a new index containing the subentries of this index and the provided subentry.
+   *
+   * @param subEntry
+   *          the subentry to add
+   * @return the new index
+   */
+  SubentryIndex add(SubEntry subEntry)
+  {
+    final DN baseDN = subEntry.getSubTreeSpecification().getBaseDN();
+    final Map<DN, List<SubEntry>> newMap = new HashMap<>(baseDN2SubEntries);
+    final List<SubEntry> subList = newMap.get(baseDN);
+    final List<SubEntry> newList = subList != null ? new ArrayList<>(subList) : new ArrayList<SubEntry>(1);
+    newList.add(subEntry);
+    newMap.put(baseDN, Collections.unmodifiableList(newList));
+    return new SubentryIndex(newMap);
+  }
+
+  /**
+   * Returns a new index containing the subentries of this index except the one with the provided
+   * DN, or this index if it does not contain such a subentry.
+   *
+   * @param subEntryDN
+   *          the DN of the subentry to remove
+   * @return the new index, or this index if it does not contain the subentry
+   */
+  SubentryIndex remove(DN subEntryDN)
+  {
+    for (Map.Entry<DN, List<SubEntry>> mapEntry : baseDN2SubEntries.entrySet())
+    {
+      final List<SubEntry> subList = mapEntry.getValue();
+      for (int i = 0; i < subList.size(); i++)
+      {
+        if (subList.get(i).getDN().equals(subEntryDN))
+        {
+          final Map<DN, List<SubEntry>> newMap = new HashMap<>(baseDN2SubEntries);
+          if (subList.size() == 1)
+          {
+            newMap.remove(mapEntry.getKey());
+          }
+          else
+          {
+            final List<SubEntry> newList = new ArrayList<>(subList);
+            newList.remove(i);
+            newMap.put(mapEntry.getKey(), Collections.unmodifiableList(newList));
+          }
+          return new SubentryIndex(newMap);
+        }
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Returns the subentries whose subtree specification applies to the provided DN, ignoring the
+   * specification filters.
+   *
+   * @param dn
+   *          the DN
+   * @return the applicable subentries, the nearest ones first
+   */
+  List<SubEntry> getSubentries(DN dn)
+  {
+    return getSubentries(dn, null);
+  }
+
+  /**
+   * Returns the subentries whose subtree specification applies to the provided entry.
+   *
+   * @param entry
+   *          the entry
+   * @return the applicable subentries, the nearest ones first
+   */
+  List<SubEntry> getSubentries(Entry entry)
+  {
+    return getSubentries(entry.getName(), entry);
+  }
+
+  private List<SubEntry> getSubentries(DN dn, Entry entry)
+  {
+    if (baseDN2SubEntries.isEmpty() || dn.isRootDN())
+    {
+      return Collections.emptyList();
+    }
+
+    final List<SubEntry> subentries = new ArrayList<>();
+    // The subentries whose base is the DN itself
+    final List<SubEntry> subList = baseDN2SubEntries.get(dn);
+    if (subList != null)
+    {
+      for (SubEntry subEntry : subList)
+      {
+        if (isWithinScope(subEntry.getSubTreeSpecification(), dn, entry, true))
+        {
+          subentries.add(subEntry);
+        }
+      }
+    }
+
+    final Applicability applicability = getApplicability(dn.parent());
+    for (int i = 0; i < applicability.subentries.length; i++)
+    {
+      final SubEntry subEntry = applicability.subentries[i];
+      if (isWithinScope(subEntry.getSubTreeSpecification(), dn, entry, applicability.checkDN[i]))
+      {
+        subentries.add(subEntry);
+      }
+    }
+    return subentries;
+  }
+
+  private static boolean isWithinScope(SubtreeSpecification subSpec, DN dn, Entry entry, boolean checkDN)
+  {
+    if (entry != null && subSpec.getRefinements() != null)
+    {
+      return subSpec.isWithinScope(entry);
+    }
+    return !checkDN || subSpec.isDNWithinScope(dn);
+  }
+
+  private Applicability getApplicability(DN parentDN)
+  {
+    Applicability applicability = parentDN2Applicability.get(parentDN);
+    if (applicability == null)
+    {
+      applicability = computeApplicability(parentDN);
+      if (parentDN2Applicability.size() < MAX_CACHED_PARENTS)
+      {
+        parentDN2Applicability.put(parentDN, applicability);
+      }
+    }
+    return applicability;
+  }
+
+  /**
+   * Determines which subentries based above or at the provided parent DN apply to its children.
+   * The depth of the children and whether they are below a chop specification only depend on the
+   * parent DN, except for the chop before specifications naming a child.
+   */
+  private Applicability computeApplicability(DN parentDN)
+  {
+    final List<SubEntry> subentries = new ArrayList<>();
+    final List<Boolean> checkDN = new ArrayList<>();
+    final int childRDNCount = parentDN.size() + 1;
+    for (DN baseDN = parentDN; baseDN != null && !baseDN.isRootDN(); baseDN = baseDN.parent())
+    {
+      final List<SubEntry> subList = baseDN2SubEntries.get(baseDN);
+      if (subList == null)
+      {
+        continue;
+      }
+      final int depth = childRDNCount - baseDN.size();
+      for (SubEntry subEntry : subList)
+      {
+        final SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
+        if ((subSpec.getMinimumDepth() > 0 && depth < subSpec.getMinimumDepth())
+            || (subSpec.getMaximumDepth() >= 0 && depth > subSpec.getMaximumDepth()))
+        {
+          continue;
+        }
+        boolean choppedChildren = false;
+        boolean choppedChild = false;
+        for (DN localName : subSpec.getChopBefore())
+        {
+          final DN chopBeforeDN = baseDN.child(localName);
+          choppedChildren |= parentDN.isSubordinateOrEqualTo(chopBeforeDN);
+          choppedChild |= parentDN.equals(chopBeforeDN.parent());
+        }
+        for (DN localName : subSpec.getChopAfter())
+        {
+          choppedChildren |= parentDN.isSubordinateOrEqualTo(baseDN.child(localName));
+        }
+        if (!choppedChildren)
+        {
+          subentries.add(subEntry);
+          checkDN.add(choppedChild);
+        }
+      }
+    }
+    return new Applicability(subentries, checkDN);
+  }
+}
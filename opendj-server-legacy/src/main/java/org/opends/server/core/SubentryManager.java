@@ -16,14 +16,10 @@
  */
 package org.opends.server.core;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -33,6 +29,7 @@ import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.opends.server.api.LocalBackend;
 import org.opends.server.api.LocalBackendInitializationListener;
 import org.opends.server.api.ClientConnection;
@@ -53,7 +50,6 @@ import org.opends.server.types.Privilege;
 import org.opends.server.types.SearchFilter;
 import org.opends.server.types.SearchResultEntry;
 import org.opends.server.types.SubEntry;
-import org.opends.server.types.SubtreeSpecification;
 import org.opends.server.types.operation.PostOperationAddOperation;
 import org.opends.server.types.operation.PostOperationDeleteOperation;
 import org.opends.server.types.operation.PostOperationModifyDNOperation;
@@ -93,10 +89,10 @@ public class SubentryManager extends InternalDirectoryServerPlugin
   /** Dummy configuration DN for Subentry Manager. */
   private static final String CONFIG_DN = "cn=Subentry Manager,cn=config";
 
-  /** A mapping between the DNs and applicable subentries. */
-  private final Map<DN, List<SubEntry>> dn2SubEntry = new HashMap<>();
-  /** A mapping between the DNs and applicable collective subentries. */
-  private final Map<DN, List<SubEntry>> dn2CollectiveSubEntry = new HashMap<>();
+  /** The regular subentries, replaced while holding the write lock and read without locking. */
+  private volatile SubentryIndex subEntries = SubentryIndex.EMPTY;
+  /** The collective subentries, replaced while holding the write lock and read without locking. */
+  private volatile SubentryIndex collectiveSubEntries = SubentryIndex.EMPTY;
   /** A mapping between subentry DNs and subentry objects. */
   private final DITCacheMap<SubEntry> dit2SubEntry = new DITCacheMap<>();
   /** Internal search all operational attributes. */
@@ -181,20 +177,18 @@ public class SubentryManager extends InternalDirectoryServerPlugin
   private void addSubentry(Entry entry) throws DirectoryException
   {
     SubEntry subEntry = new SubEntry(entry);
-    SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
-    DN subDN = subSpec.getBaseDN();
     lock.writeLock().lock();
     try
     {
-      Map<DN, List<SubEntry>> subEntryMap = getSubEntryMap(subEntry);
-      List<SubEntry> subList = subEntryMap.get(subDN);
-      if (subList == null)
+      if (subEntry.isCollective() || subEntry.isInheritedCollective())
       {
-        subList = new ArrayList<>();
-        subEntryMap.put(subDN, subList);
+        collectiveSubEntries = collectiveSubEntries.add(subEntry);
+      }
+      else
+      {
+        subEntries = subEntries.add(subEntry);
       }
       dit2SubEntry.put(entry.getName(), subEntry);
-      subList.add(subEntry);
     }
     finally
     {
@@ -202,11 +196,6 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     }
   }
 
-  private Map<DN, List<SubEntry>> getSubEntryMap(SubEntry subEntry)
-  {
-    return (subEntry.isCollective() || subEntry.isInheritedCollective()) ? dn2CollectiveSubEntry : dn2SubEntry;
-  }
-
   /**
    * Remove a given entry from this subentry manager.
    *
@@ -218,10 +207,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     lock.writeLock().lock();
     try
     {
-      if (!removeSubEntry(dn2SubEntry, entry))
-      {
-        removeSubEntry(dn2CollectiveSubEntry, entry);
-      }
+      removeSubentry(entry.getName());
     }
     finally
     {
@@ -229,29 +215,21 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     }
   }
 
-  private boolean removeSubEntry(Map<DN, List<SubEntry>> subEntryMap, Entry entry)
+  private void removeSubentry(DN subEntryDN)
   {
-    Iterator<List<SubEntry>> subEntryListsIt = subEntryMap.values().iterator();
-    while (subEntryListsIt.hasNext())
+    final SubentryIndex newSubEntries = subEntries.remove(subEntryDN);
+    if (newSubEntries != subEntries)
     {
-      List<SubEntry> subEntries = subEntryListsIt.next();
-      Iterator<SubEntry> subEntriesIt = subEntries.iterator();
-      while (subEntriesIt.hasNext())
-      {
-        SubEntry subEntry = subEntriesIt.next();
-        if (subEntry.getDN().equals(entry.getName()))
-        {
-          dit2SubEntry.remove(entry.getName());
-          subEntriesIt.remove();
-          if (subEntries.isEmpty())
-          {
-            subEntryListsIt.remove();
-          }
-          return true;
-        }
-      }
+      subEntries = newSubEntries;
+      dit2SubEntry.remove(subEntryDN);
+      return;
+    }
+    final SubentryIndex newCollectiveSubEntries = collectiveSubEntries.remove(subEntryDN);
+    if (newCollectiveSubEntries != collectiveSubEntries)
+    {
+      collectiveSubEntries = newCollectiveSubEntries;
+      dit2SubEntry.remove(subEntryDN);
     }
-    return false;
   }
 
   /**
@@ -388,27 +366,30 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getSubentries()
   {
-    if (dn2SubEntry.isEmpty())
-    {
-      return Collections.emptyList();
-    }
-
-    List<SubEntry> subentries = new ArrayList<>();
+    final SubentryIndex index = subEntries;
+    return index.isEmpty() ? Collections.<SubEntry> emptyList() : index.getSubentries();
+  }
 
-    lock.readLock().lock();
-    try
-    {
-      for (List<SubEntry> subList : dn2SubEntry.values())
-      {
-        subentries.addAll(subList);
-      }
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
+  /**
+   * Return all collective subentries for this manager.
+   * @return all collective subentries for this manager.
+   */
+  public List<SubEntry> getCollectiveSubentries()
+  {
+    final SubentryIndex index = collectiveSubEntries;
+    return index.isEmpty() ? Collections.<SubEntry> emptyList() : index.getSubentries();
+  }
 
-    return subentries;
+  /**
+   * Return the types of the collective attributes provided by all the
+   * collective subentries for this manager.  They are computed when the
+   * subentries change, so this getter does not go through the subentries.
+   * @return the types of the collective attributes of all collective
+   *         subentries for this manager.
+   */
+  public Set<AttributeType> getCollectiveAttributeTypes()
+  {
+    return collectiveSubEntries.getCollectiveAttributeTypes();
   }
 
   /**
@@ -420,41 +401,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getSubentries(DN dn)
   {
-    return getSubentries(dn2SubEntry, dn);
-  }
-
-  private List<SubEntry> getSubentries(Map<DN, List<SubEntry>> subEntryMap, DN dn)
-  {
-    if (subEntryMap.isEmpty())
-    {
-      return Collections.emptyList();
-    }
-
-    lock.readLock().lock();
-    try
-    {
-      List<SubEntry> subentries = new ArrayList<>();
-      for (DN subDN = dn; subDN != null && !subDN.isRootDN(); subDN = subDN.parent())
-      {
-        List<SubEntry> subList = subEntryMap.get(subDN);
-        if (subList != null)
-        {
-          for (SubEntry subEntry : subList)
-          {
-            SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
-            if (subSpec.isDNWithinScope(dn))
-            {
-              subentries.add(subEntry);
-            }
-          }
-        }
-      }
-      return subentries;
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
+    return subEntries.getSubentries(dn);
   }
 
   /**
@@ -467,41 +414,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getSubentries(Entry entry)
   {
-    return getSubentries(dn2SubEntry, entry);
-  }
-
-  private List<SubEntry> getSubentries(Map<DN, List<SubEntry>> subEntryMap, Entry entry)
-  {
-    if (subEntryMap.isEmpty())
-    {
-      return Collections.emptyList();
-    }
-
-    lock.readLock().lock();
-    try
-    {
-      List<SubEntry> subentries = new ArrayList<>();
-      for (DN subDN = entry.getName(); subDN != null && !subDN.isRootDN(); subDN = subDN.parent())
-      {
-        List<SubEntry> subList = subEntryMap.get(subDN);
-        if (subList != null)
-        {
-          for (SubEntry subEntry : subList)
-          {
-            SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
-            if (subSpec.isWithinScope(entry))
-            {
-              subentries.add(subEntry);
-            }
-          }
-        }
-      }
-      return subentries;
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
+    return subEntries.getSubentries(entry);
   }
 
   /**
@@ -514,7 +427,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getCollectiveSubentries(DN dn)
   {
-    return getSubentries(dn2CollectiveSubEntry, dn);
+    return collectiveSubEntries.getSubentries(dn);
   }
 
   /**
@@ -527,7 +440,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getCollectiveSubentries(Entry entry)
   {
-    return getSubentries(dn2CollectiveSubEntry, entry);
+    return collectiveSubEntries.getSubentries(entry);
   }
 
   /**
@@ -540,8 +453,8 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     lock.writeLock().lock();
     try
     {
-      performBackendPostFinalizationProcessing(dn2SubEntry, backend);
-      performBackendPostFinalizationProcessing(dn2CollectiveSubEntry, backend);
+      performBackendPostFinalizationProcessing(subEntries, backend);
+      performBackendPostFinalizationProcessing(collectiveSubEntries, backend);
     }
     finally
     {
@@ -549,26 +462,14 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     }
   }
 
-  private void performBackendPostFinalizationProcessing(Map<DN, List<SubEntry>> subEntryMap, LocalBackend<?> backend)
+  private void performBackendPostFinalizationProcessing(SubentryIndex index, LocalBackend<?> backend)
   {
-    Iterator<List<SubEntry>> subEntryListsIt = subEntryMap.values().iterator();
-    while (subEntryListsIt.hasNext())
+    for (SubEntry subEntry : index.getSubentries())
     {
-      List<SubEntry> subEntryList = subEntryListsIt.next();
-      Iterator<SubEntry> subEntriesIt = subEntryList.iterator();
-      while (subEntriesIt.hasNext())
+      if (backend.handlesEntry(subEntry.getDN()))
       {
-        SubEntry subEntry = subEntriesIt.next();
-        if (backend.handlesEntry(subEntry.getDN()))
-        {
-          dit2SubEntry.remove(subEntry.getDN());
-          subEntriesIt.remove();
-          notifySubentryDeleted(subEntry.getEntry());
-        }
-      }
-      if (subEntryList.isEmpty())
-      {
-        subEntryListsIt.remove();
+        removeSubentry(subEntry.getDN());
+        notifySubentryDeleted(subEntry.getEntry());
       }
     }
   }
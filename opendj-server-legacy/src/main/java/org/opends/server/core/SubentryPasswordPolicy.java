@@ -566,6 +566,18 @@ public final class SubentryPasswordPolicy extends PasswordPolicy
     return getDefaultPasswordPolicy().getStateUpdateFailurePolicy();
   }
 
+  @Override
+  public long getStateUpdateDelay()
+  {
+    return getDefaultPasswordPolicy().getStateUpdateDelay();
+  }
+
+  @Override
+  VerifiedPasswordCache getVerifiedPasswordCache()
+  {
+    return getDefaultPasswordPolicy().getVerifiedPasswordCache();
+  }
+
   @Override
   public boolean isAuthPasswordSyntax()
   {
@@ -0,0 +1,202 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.core;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+
+/**
+ * A memory bounded cache of the passwords which have recently been verified against the stored
+ * password values of users, so that repeated binds do not have to run expensive storage schemes
+ * again.
+ * <p>
+ * The cache does not keep any reversible credentials: for each user, it only keeps a HMAC of the
+ * verified password and of the matching stored password value, computed with a random key which
+ * never leaves the memory of the server. A verification is forgotten when it expires, when the
+ * password of the user is changed, or when the least recently used users must be evicted.
+ */
+final class VerifiedPasswordCache
+{
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+
+  /** A verified password. */
+  private static final class Verification
+  {
+    private final byte[] mac;
+    private final long expirationTime;
+
+    private Verification(byte[] mac, long expirationTime)
+    {
+      this.mac = mac;
+      this.expirationTime = expirationTime;
+    }
+  }
+
+  private final long timeToLiveMillis;
+  private final SecretKeySpec key;
+  /** The MACs, which are not thread safe. */
+  private final ThreadLocal<Mac> macs = new ThreadLocal<Mac>()
+  {
+    @Override
+    protected Mac initialValue()
+    {
+      try
+      {
+        final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(key);
+        return mac;
+      }
+      catch (GeneralSecurityException e)
+      {
+        throw new IllegalStateException(e);
+      }
+    }
+  };
+  /** The last verification of each user, the least recently used first, guarded by itself. */
+  private final Map<DN, Verification> verifications;
+
+  /**
+   * Creates a new cache of verified passwords.
+   *
+   * @param timeToLiveMillis
+   *          the time in milliseconds during which a verification is kept
+   * @param maxUsers
+   *          the maximum number of users whose verification is kept
+   * @throws GeneralSecurityException
+   *           if the MAC algorithm is not available
+   */
+  VerifiedPasswordCache(long timeToLiveMillis, final int maxUsers) throws GeneralSecurityException
+  {
+    final byte[] keyBytes = new byte[32];
+    new SecureRandom().nextBytes(keyBytes);
+    this.key = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+    // Fail early if the algorithm is not available
+    Mac.getInstance(MAC_ALGORITHM).init(key);
+
+    this.timeToLiveMillis = timeToLiveMillis;
+    this.verifications = new LinkedHashMap<DN, Verification>(16, 0.75f, true)
+    {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<DN, Verification> eldest)
+      {
+        return size() > maxUsers;
+      }
+    };
+  }
+
+  /**
+   * Indicates whether the provided password has recently been verified against the provided stored
+   * password value of a user.
+   *
+   * @param userDN
+   *          the DN of the user
+   * @param password
+   *          the clear-text password
+   * @param storedValue
+   *          the stored password value, including its storage scheme
+   * @return {@code true} if the password has recently been verified against the stored value
+   */
+  boolean isVerified(DN userDN, ByteString password, ByteString storedValue)
+  {
+    final Verification verification;
+    synchronized (verifications)
+    {
+      verification = verifications.get(userDN);
+    }
+    if (verification == null)
+    {
+      return false;
+    }
+    if (verification.expirationTime <= System.currentTimeMillis())
+    {
+      synchronized (verifications)
+      {
+        if (verifications.get(userDN) == verification)
+        {
+          verifications.remove(userDN);
+        }
+      }
+      return false;
+    }
+    return MessageDigest.isEqual(verification.mac, mac(userDN, password, storedValue));
+  }
+
+  /**
+   * Records that the provided password has been verified against the provided stored password
+   * value of a user.
+   *
+   * @param userDN
+   *          the DN of the user
+   * @param password
+   *          the clear-text password
+   * @param storedValue
+   *          the stored password value, including its storage scheme
+   */
+  void verified(DN userDN, ByteString password, ByteString storedValue)
+  {
+    final Verification verification =
+        new Verification(mac(userDN, password, storedValue), System.currentTimeMillis() + timeToLiveMillis);
+    synchronized (verifications)
+    {
+      verifications.put(userDN, verification);
+    }
+  }
+
+  /**
+   * Forgets the verified password of a user.
+   *
+   * @param userDN
+   *          the DN of the user
+   */
+  void invalidate(DN userDN)
+  {
+    synchronized (verifications)
+    {
+      verifications.remove(userDN);
+    }
+  }
+
+  private byte[] mac(DN userDN, ByteString password, ByteString storedValue)
+  {
+    final Mac mac = macs.get();
+    update(mac, userDN.toNormalizedByteString());
+    update(mac, password);
+    update(mac, storedValue);
+    return mac.doFinal();
+  }
+
+  /** Prefixes each value with its length, so that different values cannot produce the same input. */
+  private static void update(Mac mac, ByteString value)
+  {
+    final int length = value.length();
+    mac.update(new byte[] { (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length });
+    final byte[] bytes = value.toByteArray();
+    mac.update(bytes);
+    Arrays.fill(bytes, (byte) 0);
+  }
+}
@@ -16,12 +16,17 @@
  */
 package org.opends.server.extensions;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -33,6 +38,7 @@ import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.ldap.schema.Schema;
 import org.forgerock.opendj.server.config.server.DynamicGroupImplementationCfg;
+import org.opends.server.api.DirectoryThread;
 import org.opends.server.api.Group;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.core.ServerContext;
@@ -69,6 +75,36 @@ public class DynamicGroup
   /** The set of the LDAP URLs that define the membership criteria. */
   private LinkedHashSet<LDAPURL> memberURLs;
 
+  /** The configuration of the group implementation, only set on the group implementation. */
+  private DynamicGroupImplementationCfg configuration;
+
+  /** The server context, only set on materialized groups. */
+  private ServerContext serverContext;
+
+  /** The materialized members of this group, or {@code null} if its members are not materialized. */
+  private MaterializedDynamicGroupMembers materializedMembers;
+
+  /** Whether the computation of the materialized members has been scheduled. */
+  private final AtomicBoolean materializationScheduled = new AtomicBoolean();
+
+  /** Whether the materialized members could not be computed. */
+  private volatile boolean materializationFailed;
+
+  /** Computes the members of the materialized dynamic groups, one group at a time. */
+  private static final class ExecutorHolder
+  {
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory()
+    {
+      @Override
+      public Thread newThread(Runnable r)
+      {
+        final Thread t = new DirectoryThread(r, "Dynamic Group Materializer");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
   /** Creates a new, uninitialized dynamic group instance. This is intended for internal use only. */
   public DynamicGroup()
   {
@@ -101,7 +137,7 @@ public class DynamicGroup
                    DynamicGroupImplementationCfg configuration)
          throws ConfigException, InitializationException
   {
-    // No additional initialization is required.
+    this.configuration = configuration;
   }
 
   @Override
@@ -129,7 +165,14 @@ public class DynamicGroup
       }
     }
 
-    return new DynamicGroup(groupEntry.getName(), memberURLs);
+    DynamicGroup group = new DynamicGroup(groupEntry.getName(), memberURLs);
+    if (configuration != null && configuration.isMaterializeMembers())
+    {
+      group.serverContext = serverContext;
+      group.materializedMembers =
+          new MaterializedDynamicGroupMembers(serverContext, groupEntry.getName(), memberURLs);
+    }
+    return group;
   }
 
   @Override
@@ -217,6 +260,11 @@ public class DynamicGroup
       return false;
     }
 
+    if (useMaterializedMembers())
+    {
+      return materializedMembers.isMember(userDN);
+    }
+
     Entry entry = DirectoryConfig.getEntry(userDN);
     return entry != null && isMember(entry);
   }
@@ -231,6 +279,11 @@ public class DynamicGroup
       return false;
     }
 
+    if (useMaterializedMembers())
+    {
+      return materializedMembers.isMember(userEntry.getName());
+    }
+
     for (LDAPURL memberURL : memberURLs)
     {
       if (memberURL.matchesEntry(userEntry))
@@ -242,6 +295,54 @@ public class DynamicGroup
     return false;
   }
 
+  /**
+   * Indicates whether the materialized members of this group can be used.  If
+   * the members of this group are materialized but have not been computed yet,
+   * their computation is scheduled.
+   *
+   * @return  {@code true} if the materialized members of this group can be
+   *          used.
+   */
+  private boolean useMaterializedMembers()
+  {
+    if (materializedMembers == null || materializationFailed)
+    {
+      return false;
+    }
+    if (materializedMembers.isBuilt())
+    {
+      return true;
+    }
+    if (materializationScheduled.compareAndSet(false, true))
+    {
+      ExecutorHolder.EXECUTOR.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          materializeMembers();
+        }
+      });
+    }
+    return false;
+  }
+
+  private void materializeMembers()
+  {
+    try
+    {
+      materializedMembers.build();
+      // Now that its members are known, the group manager can index them
+      DirectoryServer.getGroupManager().updateMembershipIndex(this);
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_DYNAMICGROUP_CANNOT_MATERIALIZE_MEMBERS, groupEntryDN, e.getMessageObject());
+      materializationFailed = true;
+    }
+  }
+
   private Set<DN> getExaminedGroups(AtomicReference<Set<DN>> examinedGroups)
   {
     Set<DN> groups = examinedGroups.get();
@@ -257,6 +358,11 @@ public class DynamicGroup
   public MemberList getMembers()
          throws DirectoryException
   {
+    if (useMaterializedMembers())
+    {
+      return new SimpleStaticGroupMemberList(serverContext, groupEntryDN,
+                                             materializedMembers.getMemberDNs());
+    }
     return new DynamicGroupMemberList(groupEntryDN, memberURLs);
   }
 
@@ -265,7 +371,17 @@ public class DynamicGroup
                                SearchFilter filter)
          throws DirectoryException
   {
-    if (baseDN == null && filter == null)
+    if (useMaterializedMembers())
+    {
+      if (baseDN == null && filter == null)
+      {
+        return new SimpleStaticGroupMemberList(serverContext, groupEntryDN,
+                                               materializedMembers.getMemberDNs());
+      }
+      return new FilteredStaticGroupMemberList(serverContext, groupEntryDN,
+          materializedMembers.getMemberDNs(), baseDN, scope, filter);
+    }
+    else if (baseDN == null && filter == null)
     {
       return new DynamicGroupMemberList(groupEntryDN, memberURLs);
     }
@@ -282,6 +398,107 @@ public class DynamicGroup
     return false;
   }
 
+  @Override
+  public boolean reportsMemberListChanges()
+  {
+    return materializedMembers != null && materializedMembers.isBuilt()
+        && !materializationFailed;
+  }
+
+  @Override
+  public boolean tracksMemberEntryChanges()
+  {
+    return materializedMembers != null;
+  }
+
+  @Override
+  public void memberEntryChanged(Entry oldEntry, Entry newEntry)
+  {
+    if (materializationFailed)
+    {
+      return;
+    }
+
+    List<DN> addedMembers = new ArrayList<>();
+    List<DN> removedMembers = new ArrayList<>();
+    MaterializedDynamicGroupMembers.SubtreeSearch subtreeSearch;
+    // Report the changes in the order they are made to the members
+    synchronized (materializedMembers)
+    {
+      try
+      {
+        subtreeSearch = materializedMembers.entryChanged(oldEntry, newEntry, addedMembers, removedMembers);
+      }
+      catch (DirectoryException e)
+      {
+        resetMaterializedMembers(e);
+        return;
+      }
+      reportMemberListChanges(addedMembers, removedMembers);
+    }
+    if (subtreeSearch == null)
+    {
+      return;
+    }
+
+    // Search the renamed subtree without blocking the other changes
+    addedMembers.clear();
+    removedMembers.clear();
+    try
+    {
+      subtreeSearch.run();
+    }
+    catch (DirectoryException e)
+    {
+      synchronized (materializedMembers)
+      {
+        resetMaterializedMembers(e);
+      }
+      return;
+    }
+    synchronized (materializedMembers)
+    {
+      try
+      {
+        materializedMembers.endSubtreeSearch(subtreeSearch, addedMembers, removedMembers);
+      }
+      catch (DirectoryException e)
+      {
+        resetMaterializedMembers(e);
+        return;
+      }
+      reportMemberListChanges(addedMembers, removedMembers);
+    }
+  }
+
+  /**
+   * Discards the materialized members after a change could not be applied to
+   * them.  This must be called while holding the lock on the materialized
+   * members.
+   *
+   * @param  e  The exception raised while applying the change.
+   */
+  private void resetMaterializedMembers(DirectoryException e)
+  {
+    logger.traceException(e);
+    // The members may be incomplete: compute them again, and evaluate the member URLs meanwhile
+    if (materializedMembers.reset())
+    {
+      materializationScheduled.set(false);
+      DirectoryServer.getGroupManager().updateMembershipIndex(this);
+      useMaterializedMembers();
+    }
+  }
+
+  private void reportMemberListChanges(List<DN> addedMembers, List<DN> removedMembers)
+  {
+    if (materializedMembers.isBuilt()
+        && (!addedMembers.isEmpty() || !removedMembers.isEmpty()))
+    {
+      DirectoryServer.getGroupManager().updateMembershipIndex(this, addedMembers, removedMembers);
+    }
+  }
+
   @Override
   public void updateMembers(List<Modification> modifications)
          throws UnsupportedOperationException, DirectoryException
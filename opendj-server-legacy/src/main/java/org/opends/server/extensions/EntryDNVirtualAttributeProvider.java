@@ -36,6 +36,7 @@ import org.opends.server.core.SearchOperation;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.Attributes;
 import org.opends.server.types.Entry;
+import org.opends.server.types.FilterType;
 import org.opends.server.types.SearchFilter;
 import org.opends.server.types.VirtualAttributeRule;
 
@@ -249,6 +250,24 @@ public class EntryDNVirtualAttributeProvider
     }
   }
 
+  @Override
+  public Set<DN> getCandidateEntryDNs(VirtualAttributeRule rule,
+                                      SearchOperation searchOperation,
+                                      SearchFilter filter,
+                                      int maxCandidates)
+  {
+    if (filter.getFilterType() != FilterType.EQUALITY
+        || !filter.getAttributeType().equals(rule.getAttributeType()))
+    {
+      return null;
+    }
+
+    // The only candidate is the entry named by the assertion value, if valid.
+    Set<DN> dnSet = new LinkedHashSet<>(1);
+    extractDNs(rule.getAttributeType(), filter, dnSet);
+    return dnSet;
+  }
+
   /**
    * Extracts the user DNs from the provided filter, operating recursively as
    * necessary, and adds them to the provided set.
@@ -0,0 +1,412 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.extensions;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.opends.server.extensions.TraditionalWorkQueue.OperationClass;
+import org.opends.server.types.Operation;
+
+/**
+ * A bounded queue of pending operations, which keeps a FIFO queue for each class of operations and
+ * limits the number of operations of each class processed at the same time.
+ * <p>
+ * The classes are served in turn, so that a backlog of expensive operations of one class, such as
+ * binds, cannot delay the operations of the other classes by more than one operation per class.
+ * An operation taken from this queue must be reported with {@link #completed(Operation)} once it
+ * has been processed.
+ */
+final class FairOperationQueue
+{
+  private static final OperationClass[] CLASSES = OperationClass.values();
+
+  private final ReentrantLock lock = new ReentrantLock();
+  /** Signaled when an operation may be taken. */
+  private final Condition operationAvailable = lock.newCondition();
+  /** Signaled when an operation may be added. */
+  private final Condition spaceAvailable = lock.newCondition();
+
+  /** All the fields below are guarded by the lock. */
+  private final ArrayDeque<Operation>[] queues;
+  private final int[] inProgress = new int[CLASSES.length];
+  private final int[] maxInProgress = new int[CLASSES.length];
+  private final long[] submitted = new long[CLASSES.length];
+  /** The number of operations which have been left pending because their class was at its limit. */
+  private final long[] throttled = new long[CLASSES.length];
+  /** The number of operations at the head of each queue which have already been counted as throttled. */
+  private final int[] deferred = new int[CLASSES.length];
+  private int size;
+  private int capacity;
+  /** The index of the class which was served last. */
+  private int lastClass;
+
+  /**
+   * Creates a new queue without concurrency limits.
+   *
+   * @param capacity
+   *          the maximum number of pending operations
+   */
+  @SuppressWarnings("unchecked")
+  FairOperationQueue(int capacity)
+  {
+    this.capacity = capacity;
+    this.lastClass = CLASSES.length - 1;
+    this.queues = new ArrayDeque[CLASSES.length];
+    for (int i = 0; i < CLASSES.length; i++)
+    {
+      queues[i] = new ArrayDeque<>();
+      maxInProgress[i] = Integer.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Changes the maximum number of pending operations. The operations already pending are kept.
+   *
+   * @param capacity
+   *          the maximum number of pending operations
+   */
+  void setCapacity(int capacity)
+  {
+    lock.lock();
+    try
+    {
+      this.capacity = capacity;
+      spaceAvailable.signalAll();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Changes the maximum number of operations of a class which may be processed at the same time.
+   *
+   * @param operationClass
+   *          the class of operations
+   * @param maxInProgress
+   *          the maximum number of operations, or {@code null} for no limit
+   */
+  void setMaxInProgress(OperationClass operationClass, Integer maxInProgress)
+  {
+    lock.lock();
+    try
+    {
+      this.maxInProgress[operationClass.ordinal()] = maxInProgress != null ? maxInProgress : Integer.MAX_VALUE;
+      operationAvailable.signalAll();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds an operation if the queue is not full.
+   *
+   * @param operation
+   *          the operation
+   * @return {@code true} if the operation has been added
+   */
+  boolean offer(Operation operation)
+  {
+    lock.lock();
+    try
+    {
+      if (size >= capacity)
+      {
+        return false;
+      }
+      add(operation);
+      return true;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds an operation, waiting if necessary for the queue not to be full.
+   *
+   * @param operation
+   *          the operation
+   * @param timeout
+   *          how long to wait
+   * @param unit
+   *          the unit of the timeout
+   * @return {@code true} if the operation has been added, {@code false} if the queue was still
+   *         full when the timeout elapsed
+   * @throws InterruptedException
+   *           if interrupted while waiting
+   */
+  boolean offer(Operation operation, long timeout, TimeUnit unit) throws InterruptedException
+  {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try
+    {
+      while (size >= capacity)
+      {
+        if (nanos <= 0)
+        {
+          return false;
+        }
+        nanos = spaceAvailable.awaitNanos(nanos);
+      }
+      add(operation);
+      return true;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  private void add(Operation operation)
+  {
+    final int index = OperationClass.of(operation).ordinal();
+    queues[index].add(operation);
+    submitted[index]++;
+    size++;
+    operationAvailable.signal();
+  }
+
+  /**
+   * Takes the next operation which may be processed, waiting if necessary for one.
+   *
+   * @param timeout
+   *          how long to wait
+   * @param unit
+   *          the unit of the timeout
+   * @return the next operation, or {@code null} if none could be taken before the timeout elapsed
+   * @throws InterruptedException
+   *           if interrupted while waiting
+   */
+  Operation poll(long timeout, TimeUnit unit) throws InterruptedException
+  {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try
+    {
+      while (true)
+      {
+        final Operation operation = takeNext();
+        if (operation != null)
+        {
+          return operation;
+        }
+        if (nanos <= 0)
+        {
+          return null;
+        }
+        nanos = operationAvailable.awaitNanos(nanos);
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  private Operation takeNext()
+  {
+    for (int i = 1; i <= CLASSES.length; i++)
+    {
+      final int index = (lastClass + i) % CLASSES.length;
+      if (queues[index].isEmpty())
+      {
+        continue;
+      }
+      if (inProgress[index] >= maxInProgress[index])
+      {
+        // Only count the operations deferred for the first time
+        throttled[index] += queues[index].size() - deferred[index];
+        deferred[index] = queues[index].size();
+        continue;
+      }
+      if (deferred[index] > 0)
+      {
+        deferred[index]--;
+      }
+      lastClass = index;
+      inProgress[index]++;
+      size--;
+      spaceAvailable.signal();
+      if (size > 0)
+      {
+        // Let another worker check the remaining classes
+        operationAvailable.signal();
+      }
+      return queues[index].poll();
+    }
+    return null;
+  }
+
+  /**
+   * Reports that an operation taken from this queue has been processed.
+   *
+   * @param operation
+   *          the operation
+   */
+  void completed(Operation operation)
+  {
+    lock.lock();
+    try
+    {
+      inProgress[OperationClass.of(operation).ordinal()]--;
+      if (size > 0)
+      {
+        operationAvailable.signal();
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes all the pending operations.
+   *
+   * @param operations
+   *          receives the pending operations
+   */
+  void drainTo(Collection<Operation> operations)
+  {
+    lock.lock();
+    try
+    {
+      for (ArrayDeque<Operation> queue : queues)
+      {
+        operations.addAll(queue);
+        queue.clear();
+      }
+      Arrays.fill(deferred, 0);
+      size = 0;
+      spaceAvailable.signalAll();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of pending operations.
+   *
+   * @return the number of pending operations
+   */
+  int size()
+  {
+    lock.lock();
+    try
+    {
+      return size;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of pending operations of a class.
+   *
+   * @param operationClass
+   *          the class of operations
+   * @return the number of pending operations of the class
+   */
+  int size(OperationClass operationClass)
+  {
+    lock.lock();
+    try
+    {
+      return queues[operationClass.ordinal()].size();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of operations of a class being processed.
+   *
+   * @param operationClass
+   *          the class of operations
+   * @return the number of operations of the class being processed
+   */
+  int getInProgress(OperationClass operationClass)
+  {
+    lock.lock();
+    try
+    {
+      return inProgress[operationClass.ordinal()];
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of operations of a class added to this queue.
+   *
+   * @param operationClass
+   *          the class of operations
+   * @return the number of operations of the class added to this queue
+   */
+  long getSubmitted(OperationClass operationClass)
+  {
+    lock.lock();
+    try
+    {
+      return submitted[operationClass.ordinal()];
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of operations of a class which have been left pending because the maximum
+   * number of operations of the class were already being processed. Each operation is counted once,
+   * however long it stays pending.
+   *
+   * @param operationClass
+   *          the class of operations
+   * @return the number of operations of the class which have been left pending
+   */
+  long getThrottled(OperationClass operationClass)
+  {
+    lock.lock();
+    try
+    {
+      return throttled[operationClass.ordinal()];
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+}
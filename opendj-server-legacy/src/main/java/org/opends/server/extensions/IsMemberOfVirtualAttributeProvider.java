@@ -16,6 +16,8 @@
  */
 package org.opends.server.extensions;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -63,21 +65,10 @@ public class IsMemberOfVirtualAttributeProvider
   @Override
   public Attribute getValues(Entry entry, VirtualAttributeRule rule)
   {
-    // FIXME -- This probably isn't the most efficient implementation.
     AttributeBuilder builder = new AttributeBuilder(rule.getAttributeType());
-    for (Group<?> g : DirectoryServer.getGroupManager().getGroupInstances())
+    for (DN groupDN : DirectoryServer.getGroupManager().getGroupsOf(entry))
     {
-      try
-      {
-        if (g.isMember(entry))
-        {
-          builder.add(g.getGroupDN().toString());
-        }
-      }
-      catch (Exception e)
-      {
-        logger.traceException(e);
-      }
+      builder.add(groupDN.toString());
     }
     return builder.toAttribute();
   }
@@ -85,23 +76,7 @@ public class IsMemberOfVirtualAttributeProvider
   @Override
   public boolean hasValue(Entry entry, VirtualAttributeRule rule)
   {
-    // FIXME -- This probably isn't the most efficient implementation.
-    for (Group<?> g : DirectoryServer.getGroupManager().getGroupInstances())
-    {
-      try
-      {
-        if (g.isMember(entry))
-        {
-          return true;
-        }
-      }
-      catch (Exception e)
-      {
-        logger.traceException(e);
-      }
-    }
-
-    return false;
+    return !DirectoryServer.getGroupManager().getGroupsOf(entry).isEmpty();
   }
 
   @Override
@@ -111,8 +86,7 @@ public class IsMemberOfVirtualAttributeProvider
     try
     {
       DN groupDN = DN.valueOf(value);
-      Group<?> g = DirectoryServer.getGroupManager().getGroupInstance(groupDN);
-      return g != null && g.isMember(entry);
+      return DirectoryServer.getGroupManager().isMember(groupDN, entry);
     }
     catch (Exception e)
     {
@@ -261,6 +235,124 @@ public class IsMemberOfVirtualAttributeProvider
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The candidates of an equality assertion are the members of the group,
+   * including the members of its nested groups.  They are only provided when
+   * the members of all these groups are held in memory: listing the members
+   * of the other groups, such as the dynamic groups whose members are not
+   * materialized, would search the backends while the calling backend is
+   * reading its own indexes.
+   */
+  @Override
+  public Set<DN> getCandidateEntryDNs(VirtualAttributeRule rule,
+                                      SearchOperation searchOperation,
+                                      SearchFilter filter,
+                                      int maxCandidates)
+  {
+    if (filter.getFilterType() != FilterType.EQUALITY
+        || !filter.getAttributeType().equals(rule.getAttributeType()))
+    {
+      return null;
+    }
+
+    Group<?> group = extractGroup(rule.getAttributeType(), filter);
+    Set<DN> memberDNs = new HashSet<>();
+    if (group == null)
+    {
+      // Not a group: no entry can be a member of it.
+      return memberDNs;
+    }
+    if (!hasMembersInMemory(group))
+    {
+      return null;
+    }
+
+    Set<DN> visitedGroupDNs = new HashSet<>();
+    Deque<Group<?>> groups = new ArrayDeque<>();
+    groups.add(group);
+    visitedGroupDNs.add(group.getGroupDN());
+    try
+    {
+      while (!groups.isEmpty())
+      {
+        group = groups.poll();
+        if (!addGroupMembers(group.getMembers(), memberDNs, maxCandidates))
+        {
+          return null;
+        }
+        for (DN dn : group.getNestedGroupDNs())
+        {
+          Group<?> nestedGroup = DirectoryServer.getGroupManager().getGroupInstance(dn);
+          if (nestedGroup != null && visitedGroupDNs.add(dn))
+          {
+            if (!hasMembersInMemory(nestedGroup))
+            {
+              return null;
+            }
+            groups.add(nestedGroup);
+          }
+        }
+      }
+      return memberDNs;
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  /**
+   * Indicates whether the members of a group are held in memory, either
+   * because its member list is explicit, or because it reports the changes
+   * made to its computed members.
+   *
+   * @param group the group to check.
+   * @return  <CODE>true</CODE> if the members of the group can be listed
+   *          without searching the backends.
+   */
+  private static boolean hasMembersInMemory(Group<?> group)
+  {
+    return group.mayAlterMemberList() || group.reportsMemberListChanges();
+  }
+
+  /**
+   * Adds the DNs of the members of a group to the provided set.
+   *
+   * @param memberList the list of members of the group being processed.
+   * @param memberDNs the set receiving the DNs of the members.
+   * @param maxCandidates the maximum number of DNs which may be added.
+   * @return  <CODE>true</CODE> if all the members have been added, or
+   *          <CODE>false</CODE> if there were too many of them or if they
+   *          could not be read.
+   */
+  private boolean addGroupMembers(MemberList memberList, Set<DN> memberDNs, int maxCandidates)
+  {
+    try
+    {
+      while (memberList.hasMoreMembers())
+      {
+        DN memberDN = memberList.nextMemberDN();
+        if (memberDN != null && memberDNs.add(memberDN) && memberDNs.size() > maxCandidates)
+        {
+          return false;
+        }
+      }
+      return true;
+    }
+    catch (MembershipException e)
+    {
+      logger.traceException(e);
+      return false;
+    }
+    finally
+    {
+      memberList.close();
+    }
+  }
+
   /**
    * @param searchOperation the search operation being processed.
    * @param memberList the list of members of the group being processed.
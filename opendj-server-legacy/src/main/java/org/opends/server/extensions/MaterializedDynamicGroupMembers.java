@@ -0,0 +1,417 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.extensions;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.opends.server.core.ServerContext;
+import org.opends.server.extensions.StaticGroup.CompactDn;
+import org.opends.server.types.DirectoryConfig;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.LDAPURL;
+import org.opends.server.types.MemberList;
+import org.opends.server.types.MembershipException;
+
+/**
+ * The members of a materialized dynamic group, computed once by searching the entries matching the
+ * member URLs of the group, then maintained from the changes made to the entries.
+ * <p>
+ * The changes notified while the members are being computed are recorded: the changed entries, and
+ * the members below them, are evaluated again once the search has completed. The members are
+ * computed again if entries have been renamed in the meantime, or if a change could not be applied.
+ * <p>
+ * Once the members have been computed, the subtrees of the renamed entries are searched without
+ * holding the lock on the members, through a {@link SubtreeSearch}. The changes notified during these
+ * searches are recorded in the same way, and evaluated again when the last search ends.
+ */
+final class MaterializedDynamicGroupMembers
+{
+  private final ServerContext serverContext;
+  private final DN groupDN;
+  private final Set<LDAPURL> memberURLs;
+
+  /** The DNs of the members, in hierarchical order so that the members of a subtree are contiguous. */
+  private final ConcurrentSkipListSet<CompactDn> memberDNs = new ConcurrentSkipListSet<>();
+  /** The DNs of the entries changed while the members or renamed subtrees are searched, guarded by this. */
+  private final Set<DN> changedDNs = new HashSet<>();
+  /** The number of renamed subtrees being searched, guarded by this. */
+  private int runningSubtreeSearches;
+  /** The number of times the members have been discarded, which invalidates the running searches. */
+  private long resets;
+  /** Whether the members being computed must be computed again, guarded by this. */
+  private boolean restartRequired;
+  /** Whether the members are being computed or have been computed, guarded by this. */
+  private boolean started;
+  /** Whether the members have been computed. */
+  private volatile boolean built;
+
+  /**
+   * Creates the members of a materialized dynamic group, which must be computed by {@link #build()}.
+   *
+   * @param serverContext
+   *          the server context
+   * @param groupDN
+   *          the DN of the dynamic group
+   * @param memberURLs
+   *          the member URLs of the dynamic group
+   */
+  MaterializedDynamicGroupMembers(ServerContext serverContext, DN groupDN, Set<LDAPURL> memberURLs)
+  {
+    this.serverContext = serverContext;
+    this.groupDN = groupDN;
+    this.memberURLs = memberURLs;
+  }
+
+  /**
+   * Computes the members by searching the entries matching the member URLs.
+   *
+   * @throws DirectoryException
+   *           if the members could not be computed
+   */
+  void build() throws DirectoryException
+  {
+    synchronized (this)
+    {
+      started = true;
+    }
+    while (true)
+    {
+      searchMembers(null, null);
+      synchronized (this)
+      {
+        if (!restartRequired)
+        {
+          updateChangedEntries(null, null);
+          built = true;
+          return;
+        }
+        restartRequired = false;
+        changedDNs.clear();
+        memberDNs.clear();
+      }
+    }
+  }
+
+  /** Evaluates again the entries changed while searching, and the members below them. */
+  private void updateChangedEntries(List<DN> addedMembers, List<DN> removedMembers) throws DirectoryException
+  {
+    for (DN changedDN : changedDNs)
+    {
+      final Set<DN> previousMembers = new HashSet<>(removeSubtree(changedDN));
+      final Set<DN> dns = new HashSet<>(previousMembers);
+      dns.add(changedDN);
+      for (DN dn : dns)
+      {
+        final Entry entry = DirectoryConfig.getEntry(dn);
+        final boolean isMember = entry != null && matches(entry);
+        if (isMember)
+        {
+          memberDNs.add(new CompactDn(dn));
+        }
+        if (addedMembers != null && isMember != previousMembers.contains(dn))
+        {
+          reportChange(dn, isMember, addedMembers, removedMembers);
+        }
+      }
+    }
+    changedDNs.clear();
+  }
+
+  /**
+   * Searches the entries matching the member URLs below the provided base DN, or in all the scopes
+   * of the member URLs if it is {@code null}. The DNs of the matching entries are added to the
+   * provided list, or directly to the members if it is {@code null}.
+   */
+  private void searchMembers(DN baseDN, List<DN> foundDNs) throws DirectoryException
+  {
+    try (MemberList memberList = new DynamicGroupMemberList(groupDN, memberURLs, baseDN, null, null))
+    {
+      while (memberList.hasMoreMembers())
+      {
+        final DN memberDN = memberList.nextMemberDN();
+        if (memberDN == null)
+        {
+          continue;
+        }
+        if (foundDNs != null)
+        {
+          foundDNs.add(memberDN);
+        }
+        else
+        {
+          memberDNs.add(new CompactDn(memberDN));
+        }
+      }
+    }
+    catch (MembershipException e)
+    {
+      // An incomplete member list must not be used
+      throw new DirectoryException(ResultCode.OTHER, e.getMessageObject(), e);
+    }
+  }
+
+  /**
+   * Indicates whether the members have been computed.
+   *
+   * @return {@code true} if the members have been computed
+   */
+  boolean isBuilt()
+  {
+    return built;
+  }
+
+  /**
+   * Indicates whether an entry is a member of the group. The members must have been computed.
+   *
+   * @param dn
+   *          the DN of the entry
+   * @return {@code true} if the entry is a member of the group
+   */
+  boolean isMember(DN dn)
+  {
+    return memberDNs.contains(new CompactDn(dn));
+  }
+
+  /**
+   * Returns the DNs of the members, which may be iterated while the members change.
+   *
+   * @return the DNs of the members
+   */
+  Set<CompactDn> getMemberDNs()
+  {
+    return memberDNs;
+  }
+
+  /**
+   * Discards the members after a change could not be applied to them. If the members have been
+   * computed, they must be computed again by {@link #build()}. Otherwise the running computation
+   * starts again.
+   *
+   * @return {@code true} if the members must be computed again by {@link #build()}
+   */
+  synchronized boolean reset()
+  {
+    if (!built)
+    {
+      restartRequired = started;
+      return !started;
+    }
+    built = false;
+    started = false;
+    runningSubtreeSearches = 0;
+    resets++;
+    changedDNs.clear();
+    memberDNs.clear();
+    return true;
+  }
+
+  /**
+   * Updates the members after an entry has been added, deleted, modified or renamed. The changes
+   * made before the members started to be computed are ignored. When an entry is renamed after the
+   * members have been computed, all the entries of its new subtree must be searched again, since
+   * entries which were not members may have been moved into the scope of the member URLs: the
+   * returned search must then be run without holding the lock on the members, and ended by
+   * {@link #endSubtreeSearch(SubtreeSearch, List, List)}.
+   *
+   * @param oldEntry
+   *          the entry before the change, or {@code null} if it has been added
+   * @param newEntry
+   *          the entry after the change, or {@code null} if it has been deleted
+   * @param addedMembers
+   *          receives the DNs of the entries which have become members
+   * @param removedMembers
+   *          receives the DNs of the entries which are no longer members
+   * @return the search of the subtree of the renamed entry, or {@code null} if no search is required
+   * @throws DirectoryException
+   *           if a problem occurs while matching the entry, in which case the members may be
+   *           incomplete and must be discarded by {@link #reset()}
+   */
+  synchronized SubtreeSearch entryChanged(Entry oldEntry, Entry newEntry, List<DN> addedMembers,
+      List<DN> removedMembers) throws DirectoryException
+  {
+    if (!started)
+    {
+      return null;
+    }
+    SubtreeSearch subtreeSearch = null;
+    if (oldEntry != null && (newEntry == null || !oldEntry.getName().equals(newEntry.getName())))
+    {
+      final DN oldDN = oldEntry.getName();
+      removedMembers.addAll(removeSubtree(oldDN));
+      if (isRecordingChanges())
+      {
+        changedDNs.add(oldDN);
+      }
+      if (!built)
+      {
+        restartRequired |= newEntry != null;
+      }
+      else if (newEntry != null)
+      {
+        subtreeSearch = new SubtreeSearch(newEntry.getName(), resets);
+        runningSubtreeSearches++;
+      }
+    }
+    if (newEntry != null)
+    {
+      updateMember(newEntry.getName(), matches(newEntry), addedMembers, removedMembers);
+      if (isRecordingChanges())
+      {
+        changedDNs.add(newEntry.getName());
+      }
+    }
+    return subtreeSearch;
+  }
+
+  /**
+   * Adds the members found by the search of the subtree of a renamed entry. The entries changed
+   * while searching are evaluated again once all the running searches have ended.
+   *
+   * @param subtreeSearch
+   *          the search returned by {@link #entryChanged(Entry, Entry, List, List)}, which must have
+   *          been run
+   * @param addedMembers
+   *          receives the DNs of the entries which have become members
+   * @param removedMembers
+   *          receives the DNs of the entries which are no longer members
+   * @throws DirectoryException
+   *           if a changed entry could not be evaluated again, in which case the members may be
+   *           incomplete and must be discarded by {@link #reset()}
+   */
+  synchronized void endSubtreeSearch(SubtreeSearch subtreeSearch, List<DN> addedMembers, List<DN> removedMembers)
+      throws DirectoryException
+  {
+    if (subtreeSearch.resets != resets)
+    {
+      // The members have been discarded meanwhile
+      return;
+    }
+    for (DN memberDN : subtreeSearch.foundDNs)
+    {
+      updateMember(memberDN, true, addedMembers, removedMembers);
+    }
+    if (--runningSubtreeSearches == 0)
+    {
+      updateChangedEntries(addedMembers, removedMembers);
+    }
+  }
+
+  /** Indicates whether the changed entries must be evaluated again once the running searches end. */
+  private boolean isRecordingChanges()
+  {
+    return !built || runningSubtreeSearches > 0;
+  }
+
+  private List<DN> removeSubtree(DN baseDN)
+  {
+    final List<DN> removedDNs = new ArrayList<>();
+    final Iterator<CompactDn> it = memberDNs.tailSet(new CompactDn(baseDN)).iterator();
+    while (it.hasNext())
+    {
+      final DN memberDN = it.next().toDn(serverContext);
+      if (!memberDN.isSubordinateOrEqualTo(baseDN))
+      {
+        break;
+      }
+      it.remove();
+      removedDNs.add(memberDN);
+    }
+    return removedDNs;
+  }
+
+  private void updateMember(DN dn, boolean isMember, List<DN> addedMembers, List<DN> removedMembers)
+  {
+    final boolean changed = isMember ? memberDNs.add(new CompactDn(dn)) : memberDNs.remove(new CompactDn(dn));
+    if (changed && addedMembers != null)
+    {
+      reportChange(dn, isMember, addedMembers, removedMembers);
+    }
+  }
+
+  private static void reportChange(DN dn, boolean isMember, List<DN> addedMembers, List<DN> removedMembers)
+  {
+    if (isMember)
+    {
+      if (!removedMembers.remove(dn))
+      {
+        addedMembers.add(dn);
+      }
+    }
+    else if (!addedMembers.remove(dn))
+    {
+      removedMembers.add(dn);
+    }
+  }
+
+  /**
+   * Indicates whether an entry matches one of the member URLs of the group.
+   *
+   * @param entry
+   *          the entry
+   * @return {@code true} if the entry matches one of the member URLs
+   * @throws DirectoryException
+   *           if a problem occurs while matching the entry
+   */
+  boolean matches(Entry entry) throws DirectoryException
+  {
+    for (LDAPURL memberURL : memberURLs)
+    {
+      if (memberURL.matchesEntry(entry))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The search of the subtree of a renamed entry for the entries which have been moved into the scope
+   * of the member URLs, run without holding the lock on the members.
+   */
+  final class SubtreeSearch
+  {
+    private final DN baseDN;
+    /** The number of resets of the members when the search was requested. */
+    private final long resets;
+    private final List<DN> foundDNs = new ArrayList<>();
+
+    private SubtreeSearch(DN baseDN, long resets)
+    {
+      this.baseDN = baseDN;
+      this.resets = resets;
+    }
+
+    /**
+     * Searches the entries of the subtree matching the member URLs.
+     *
+     * @throws DirectoryException
+     *           if the entries could not be searched, in which case the members are incomplete and
+     *           must be discarded by {@link MaterializedDynamicGroupMembers#reset()}
+     */
+    void run() throws DirectoryException
+    {
+      searchMembers(baseDN, foundDNs);
+    }
+  }
+}
@@ -19,13 +19,14 @@ package org.opends.server.extensions;
 import static com.forgerock.opendj.util.StaticUtils.getBytes;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -94,8 +95,11 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   /** The DN of the entry that holds the definition for this group. */
   private DN groupEntryDN;
 
-  /** The set of the DNs of the members for this group. */
-  private HashSet<CompactDn> memberDNs;
+  /**
+   * The set of the DNs of the members for this group. Members are added and removed in place, the
+   * member lists iterating over this set being weakly consistent.
+   */
+  private ConcurrentSkipListSet<CompactDn> memberDNs;
 
   /** The list of nested group DNs for this group. */
   private LinkedList<DN> nestedGroups = new LinkedList<>();
@@ -128,7 +132,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
    *                              group.
    */
   private StaticGroup(ServerContext serverContext, DN groupEntryDN, AttributeType memberAttributeType,
-      LinkedHashSet<CompactDn> memberDNs)
+      ConcurrentSkipListSet<CompactDn> memberDNs)
   {
     super();
     Reject.ifNull(groupEntryDN, memberAttributeType, memberDNs);
@@ -197,12 +201,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     }
 
     List<Attribute> memberAttrList = groupEntry.getAllAttributes(someMemberAttributeType);
-    int membersCount = 0;
-    for (Attribute a : memberAttrList)
-    {
-      membersCount += a.size();
-    }
-    LinkedHashSet<CompactDn> someMemberDNs = new LinkedHashSet<>(membersCount);
+    ConcurrentSkipListSet<CompactDn> someMemberDNs = new ConcurrentSkipListSet<>();
     for (Attribute a : memberAttrList)
     {
       for (ByteString v : a)
@@ -341,14 +340,14 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       newNestedGroups.add(nestedGroupDN);
       nestedGroups = newNestedGroups;
       //Add it to the member DN list.
-      HashSet<CompactDn> newMemberDNs = new HashSet<>(memberDNs);
-      newMemberDNs.add(new CompactDn(nestedGroupDN));
-      memberDNs = newMemberDNs;
+      memberDNs.add(new CompactDn(nestedGroupDN));
     }
     finally
     {
       lock.writeLock().unlock();
     }
+    getGroupManager().updateMembershipIndex(
+        this, Collections.singletonList(nestedGroupDN), Collections.<DN> emptyList());
   }
 
   @Override
@@ -379,14 +378,14 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       newNestedGroups.remove(nestedGroupDN);
       nestedGroups = newNestedGroups;
       //Remove it from the member DN list.
-      LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>(memberDNs);
-      newMemberDNs.remove(new CompactDn(nestedGroupDN));
-      memberDNs = newMemberDNs;
+      memberDNs.remove(new CompactDn(nestedGroupDN));
     }
     finally
     {
       lock.writeLock().unlock();
     }
+    getGroupManager().updateMembershipIndex(
+        this, Collections.<DN> emptyList(), Collections.singletonList(nestedGroupDN));
   }
 
   @Override
@@ -467,7 +466,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
         }
         else if (thisGroup != this)
         {
-          LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>();
+          ConcurrentSkipListSet<CompactDn> newMemberDNs = new ConcurrentSkipListSet<>();
           MemberList memberList = thisGroup.getMembers();
           while (memberList.hasMoreMembers())
           {
@@ -541,6 +540,12 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     return true;
   }
 
+  @Override
+  public boolean reportsMemberListChanges()
+  {
+    return true;
+  }
+
   @Override
   public void updateMembers(List<Modification> modifications)
          throws UnsupportedOperationException, DirectoryException
@@ -549,6 +554,9 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     Reject.ifNull(nestedGroups);
 
     reloadIfNeeded();
+    List<DN> addedMembers = new ArrayList<>();
+    List<DN> removedMembers = new ArrayList<>();
+    boolean replacedMembers = false;
     lock.writeLock().lock();
     try
     {
@@ -563,7 +571,10 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
               for (ByteString v : attribute)
               {
                 DN member = DN.valueOf(v);
-                memberDNs.add(new CompactDn(member));
+                if (memberDNs.add(new CompactDn(member)) && !removedMembers.remove(member))
+                {
+                  addedMembers.add(member);
+                }
                 if (DirectoryServer.getGroupManager().getGroupInstance(member) != null)
                 {
                   nestedGroups.add(member);
@@ -575,13 +586,17 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
               {
                 memberDNs.clear();
                 nestedGroups.clear();
+                replacedMembers = true;
               }
               else
               {
                 for (ByteString v : attribute)
                 {
                   DN member = DN.valueOf(v);
-                  memberDNs.remove(new CompactDn(member));
+                  if (memberDNs.remove(new CompactDn(member)) && !addedMembers.remove(member))
+                  {
+                    removedMembers.add(member);
+                  }
                   nestedGroups.remove(member);
                 }
               }
@@ -589,6 +604,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
             case REPLACE:
               memberDNs.clear();
               nestedGroups.clear();
+              replacedMembers = true;
               for (ByteString v : attribute)
               {
                 DN member = DN.valueOf(v);
@@ -606,6 +622,14 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     finally {
       lock.writeLock().unlock();
     }
+    if (replacedMembers)
+    {
+      getGroupManager().updateMembershipIndex(this);
+    }
+    else if (!addedMembers.isEmpty() || !removedMembers.isEmpty())
+    {
+      getGroupManager().updateMembershipIndex(this, addedMembers, removedMembers);
+    }
   }
 
   @Override
@@ -633,14 +657,13 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
             ERR_STATICGROUP_ADD_MEMBER_UPDATE_FAILED.get(userDN, groupEntryDN, modifyOperation.getErrorMessage()));
       }
 
-      LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<CompactDn>(memberDNs);
-      newMemberDNs.add(compactUserDN);
-      memberDNs = newMemberDNs;
+      memberDNs.add(compactUserDN);
     }
     finally
     {
       lock.writeLock().unlock();
     }
+    getGroupManager().updateMembershipIndex(this, Collections.singletonList(userDN), Collections.<DN> emptyList());
   }
 
   @Override
@@ -666,9 +689,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
             ERR_STATICGROUP_REMOVE_MEMBER_UPDATE_FAILED.get(userDN, groupEntryDN, modifyOperation.getErrorMessage()));
       }
 
-      LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>(memberDNs);
-      newMemberDNs.remove(compactUserDN);
-      memberDNs = newMemberDNs;
+      memberDNs.remove(compactUserDN);
       //If it is in the nested group list remove it.
       if (nestedGroups.contains(userDN))
       {
@@ -681,6 +702,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     {
       lock.writeLock().unlock();
     }
+    getGroupManager().updateMembershipIndex(this, Collections.<DN> emptyList(), Collections.singletonList(userDN));
   }
 
   private ModifyOperation newModifyOperation(ModificationType modType, DN userDN)
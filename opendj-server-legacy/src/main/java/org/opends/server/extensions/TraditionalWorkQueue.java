@@ -21,7 +21,6 @@ import static org.opends.messages.CoreMessages.*;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -46,10 +45,54 @@ import org.opends.server.types.Operation;
 /**
  * This class defines a data structure for storing and interacting with the
  * Directory Server work queue.
+ * <p>
+ * The pending operations are grouped by {@link OperationClass}. The worker
+ * threads serve the classes in turn, and may limit the number of operations of
+ * each class processed at the same time, so that expensive operations such as
+ * binds cannot use all the worker threads.
  */
 public class TraditionalWorkQueue extends WorkQueue<TraditionalWorkQueueCfg>
     implements ConfigurationChangeListener<TraditionalWorkQueueCfg>
 {
+  /** The classes of operations scheduled separately by the work queue. */
+  public enum OperationClass
+  {
+    /** Bind operations. */
+    BIND,
+    /** Add, delete, modify and modify DN operations. */
+    WRITE,
+    /** Search and compare operations. */
+    SEARCH,
+    /** All the other operations, which are never limited. */
+    OTHER;
+
+    /**
+     * Returns the class of the provided operation.
+     *
+     * @param operation
+     *          The operation.
+     * @return The class of the operation.
+     */
+    public static OperationClass of(Operation operation)
+    {
+      switch (operation.getOperationType())
+      {
+      case BIND:
+        return BIND;
+      case ADD:
+      case DELETE:
+      case MODIFY:
+      case MODIFY_DN:
+        return WRITE;
+      case SEARCH:
+      case COMPARE:
+        return SEARCH;
+      default:
+        return OTHER;
+      }
+    }
+  }
+
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
   /**
@@ -106,7 +149,7 @@ public class TraditionalWorkQueue extends WorkQueue<TraditionalWorkQueueCfg>
   private final boolean isBlocking = true;
 
   /** The queue that will be used to actually hold the pending operations. */
-  private LinkedBlockingQueue<Operation> opQueue;
+  private FairOperationQueue opQueue;
 
   /** The lock used to provide threadsafe access for the queue, used for non-config changes. */
   private final ReadLock queueReadLock;
@@ -148,17 +191,10 @@ public class TraditionalWorkQueue extends WorkQueue<TraditionalWorkQueueCfg>
           computeNumWorkerThreads(configuration.getNumWorkerThreads());
       maxCapacity = configuration.getMaxWorkQueueCapacity();
 
-      // Create the actual work queue.
-      if (maxCapacity > 0)
-      {
-        opQueue = new LinkedBlockingQueue<>(maxCapacity);
-      }
-      else
-      {
-        // This will never be the case, since the configuration definition
-        // ensures that the capacity is always finite.
-        opQueue = new LinkedBlockingQueue<>();
-      }
+      // Create the actual work queue. The configuration definition ensures
+      // that the capacity is always finite.
+      opQueue = new FairOperationQueue(maxCapacity);
+      setConcurrencyLimits(configuration);
 
       // Create the set of worker threads that should be used to service the
       // work queue.
@@ -210,7 +246,7 @@ public class TraditionalWorkQueue extends WorkQueue<TraditionalWorkQueueCfg>
     // they won't be processed because the server is shutting down.
     CancelRequest cancelRequest = new CancelRequest(true, reason);
     ArrayList<Operation> pendingOperations = new ArrayList<>();
-    opQueue.removeAll(pendingOperations);
+    opQueue.drainTo(pendingOperations);
     for (Operation o : pendingOperations)
     {
       try
@@ -553,6 +589,80 @@ public class TraditionalWorkQueue extends WorkQueue<TraditionalWorkQueueCfg>
     return opsSubmitted.longValue();
   }
 
+  /**
+   * Reports that an operation returned by {@link #nextOperation} has been
+   * processed. This method should only be called by a worker thread associated
+   * with this work queue.
+   *
+   * @param operation
+   *          The operation which has been processed.
+   */
+  void operationProcessed(Operation operation)
+  {
+    opQueue.completed(operation);
+  }
+
+  private void setConcurrencyLimits(TraditionalWorkQueueCfg configuration)
+  {
+    opQueue.setMaxInProgress(OperationClass.BIND, configuration.getMaxConcurrentBindOperations());
+    opQueue.setMaxInProgress(OperationClass.WRITE, configuration.getMaxConcurrentWriteOperations());
+    opQueue.setMaxInProgress(OperationClass.SEARCH, configuration.getMaxConcurrentSearchOperations());
+  }
+
+  /**
+   * Retrieves the number of pending operations of the provided class.
+   *
+   * @param operationClass
+   *          The class of operations.
+   * @return The number of pending operations of the provided class.
+   */
+  public int size(OperationClass operationClass)
+  {
+    return opQueue.size(operationClass);
+  }
+
+  /**
+   * Retrieves the number of operations of the provided class which are being
+   * processed by the worker threads.
+   *
+   * @param operationClass
+   *          The class of operations.
+   * @return The number of operations of the provided class being processed.
+   */
+  public int getOpsInProgress(OperationClass operationClass)
+  {
+    return opQueue.getInProgress(operationClass);
+  }
+
+  /**
+   * Retrieves the total number of operations of the provided class that have
+   * been successfully submitted to this work queue since server startup.
+   *
+   * @param operationClass
+   *          The class of operations.
+   * @return The total number of operations of the provided class submitted to
+   *         this work queue.
+   */
+  public long getOpsSubmitted(OperationClass operationClass)
+  {
+    return opQueue.getSubmitted(operationClass);
+  }
+
+  /**
+   * Retrieves the number of operations of the provided class which have been
+   * left pending because the maximum number of operations of this class were
+   * already being processed.  Each operation is counted once.
+   *
+   * @param operationClass
+   *          The class of operations.
+   * @return The number of operations of the provided class which have been
+   *         left pending because of the concurrency limit of their class.
+   */
+  public long getOpsThrottled(OperationClass operationClass)
+  {
+    return opQueue.getThrottled(operationClass);
+  }
+
   /**
    * Retrieves the total number of operations that have been rejected because
    * the work queue was already at its maximum capacity.
@@ -639,74 +749,14 @@ public class TraditionalWorkQueue extends WorkQueue<TraditionalWorkQueueCfg>
       }
     }
 
-    // Apply a change to the maximum capacity if appropriate. Since we can't
-    // change capacity on the fly, then we'll have to create a new queue and
-    // transfer any remaining items into it. Any thread that is waiting on the
-    // original queue will time out after at most a few seconds and further
-    // checks will be against the new queue.
+    // Apply a change to the maximum capacity if appropriate. The pending
+    // operations are kept, even if there are more than the new capacity.
     if (newMaxCapacity != maxCapacity)
     {
-      // First switch the queue with the exclusive lock.
-      queueWriteLock.lock();
-      LinkedBlockingQueue<Operation> oldOpQueue;
-      try
-      {
-        LinkedBlockingQueue<Operation> newOpQueue = null;
-        if (newMaxCapacity > 0)
-        {
-          newOpQueue = new LinkedBlockingQueue<>(newMaxCapacity);
-        }
-        else
-        {
-          newOpQueue = new LinkedBlockingQueue<>();
-        }
-
-        oldOpQueue = opQueue;
-        opQueue = newOpQueue;
-
-        maxCapacity = newMaxCapacity;
-      }
-      finally
-      {
-        queueWriteLock.unlock();
-      }
-
-      // Now resubmit any pending requests - we'll need the shared lock.
-      Operation pendingOperation = null;
-      queueReadLock.lock();
-      try
-      {
-        // We have to be careful when adding any existing pending operations
-        // because the new capacity could be less than what was already
-        // backlogged in the previous queue. If that happens, we may have to
-        // loop a few times to get everything in there.
-        while ((pendingOperation = oldOpQueue.poll()) != null)
-        {
-          opQueue.put(pendingOperation);
-        }
-      }
-      catch (InterruptedException e)
-      {
-        // We cannot handle the interruption here. Cancel pending requests and
-        // re-interrupt this thread.
-        Thread.currentThread().interrupt();
-
-        LocalizableMessage message = WARN_OP_REJECTED_BY_QUEUE_INTERRUPT.get();
-        CancelRequest cancelRequest = new CancelRequest(true, message);
-        if (pendingOperation != null)
-        {
-          pendingOperation.abort(cancelRequest);
-        }
-        while ((pendingOperation = oldOpQueue.poll()) != null)
-        {
-          pendingOperation.abort(cancelRequest);
-        }
-      }
-      finally
-      {
-        queueReadLock.unlock();
-      }
+      opQueue.setCapacity(newMaxCapacity);
+      maxCapacity = newMaxCapacity;
     }
+    setConcurrencyLimits(configuration);
 
     return new ConfigChangeResult();
   }
@@ -717,7 +767,7 @@ public class TraditionalWorkQueue extends WorkQueue<TraditionalWorkQueueCfg>
     queueReadLock.lock();
     try
     {
-      if (!opQueue.isEmpty())
+      if (opQueue.size() > 0)
       {
         return false;
       }
@@ -145,8 +145,16 @@ public class TraditionalWorkerThread
         {
           // The operation is not null, so process it.  Make sure that when
           // processing is complete.
-          operation.run();
-          operation.operationCompleted();
+          try
+          {
+            operation.run();
+            operation.operationCompleted();
+          }
+          finally
+          {
+            // Let the work queue schedule other operations of the same class.
+            workQueue.operationProcessed(operation);
+          }
         }
       }
       catch (Throwable t)
@@ -16,6 +16,8 @@
  */
 package org.opends.server.monitors;
 
+import static org.opends.server.util.StaticUtils.*;
+
 import java.util.concurrent.TimeUnit;
 
 import org.forgerock.opendj.config.server.ConfigException;
@@ -23,6 +25,7 @@ import org.opends.server.api.MonitorData;
 import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
 import org.opends.server.api.MonitorProvider;
 import org.opends.server.extensions.TraditionalWorkQueue;
+import org.opends.server.extensions.TraditionalWorkQueue.OperationClass;
 import org.opends.server.types.InitializationException;
 
 /**
@@ -54,6 +57,28 @@ public class TraditionalWorkQueueMonitor
    */
   public static final String ATTR_OPS_REJECTED_QUEUE_FULL = "requestsRejectedDueToQueueFull";
 
+  /**
+   * The suffix of the monitor attributes that provide the current request
+   * backlog of each class of operations, prefixed with the class name, for
+   * example "bindRequestBacklog".
+   */
+  public static final String ATTR_CLASS_BACKLOG = "RequestBacklog";
+  /**
+   * The suffix of the monitor attributes that provide the number of requests
+   * of each class of operations being processed by the worker threads.
+   */
+  public static final String ATTR_CLASS_IN_PROGRESS = "RequestsInProgress";
+  /**
+   * The suffix of the monitor attributes that provide the total number of
+   * requests of each class of operations submitted.
+   */
+  public static final String ATTR_CLASS_SUBMITTED = "RequestsSubmitted";
+  /**
+   * The suffix of the monitor attributes that provide the number of requests
+   * of each class of operations which have been left in the work queue because
+   * of the concurrency limit of their class.
+   */
+  public static final String ATTR_CLASS_THROTTLED = "RequestsThrottled";
 
   /** The maximum backlog observed by polling the queue. */
   private int maxBacklog;
@@ -129,12 +154,20 @@ public class TraditionalWorkQueueMonitor
     }
     long averageBacklog = (long) (1.0 * totalBacklog / numPolls);
 
-    final MonitorData monitorAttrs = new MonitorData(5);
+    final MonitorData monitorAttrs = new MonitorData(5 + 4 * OperationClass.values().length);
     monitorAttrs.add(ATTR_CURRENT_BACKLOG, backlog);
     monitorAttrs.add(ATTR_AVERAGE_BACKLOG, averageBacklog);
     monitorAttrs.add(ATTR_MAX_BACKLOG, maxBacklog);
     monitorAttrs.add(ATTR_OPS_SUBMITTED, workQueue.getOpsSubmitted());
     monitorAttrs.add(ATTR_OPS_REJECTED_QUEUE_FULL, workQueue.getOpsRejectedDueToQueueFull());
+    for (OperationClass operationClass : OperationClass.values())
+    {
+      String prefix = toLowerCase(operationClass.name());
+      monitorAttrs.add(prefix + ATTR_CLASS_BACKLOG, workQueue.size(operationClass));
+      monitorAttrs.add(prefix + ATTR_CLASS_IN_PROGRESS, workQueue.getOpsInProgress(operationClass));
+      monitorAttrs.add(prefix + ATTR_CLASS_SUBMITTED, workQueue.getOpsSubmitted(operationClass));
+      monitorAttrs.add(prefix + ATTR_CLASS_THROTTLED, workQueue.getOpsThrottled(operationClass));
+    }
     return monitorAttrs;
   }
 }
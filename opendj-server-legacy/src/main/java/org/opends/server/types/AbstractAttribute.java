@@ -68,11 +68,19 @@ public abstract class AbstractAttribute implements Attribute
 
   private boolean valuesEqual(Attribute a)
   {
-    if (size() != a.size())
-    {
-      return false;
-    }
+    return size() == a.size() && containsAllValuesOf(a);
+  }
 
+  /**
+   * Indicates whether this attribute contains all the values of the provided attribute, which has
+   * the same attribute description as this attribute.
+   *
+   * @param a
+   *          The attribute having the same attribute description as this attribute
+   * @return {@code true} if this attribute contains all the values of the provided attribute
+   */
+  boolean containsAllValuesOf(Attribute a)
+  {
     for (ByteString v : a)
     {
       if (!contains(v))
@@ -170,6 +170,17 @@ public final class AttributeBuilder implements Iterable<ByteString>
       return values.contains(createAttributeValue(attributeDescription, value));
     }
 
+    @Override
+    boolean containsAllValuesOf(Attribute a)
+    {
+      if (a instanceof RealAttribute)
+      {
+        // Both attributes have the same description: compare the already normalized values
+        return values.containsAll(((RealAttribute) a).values);
+      }
+      return super.containsAllValuesOf(a);
+    }
+
     @Override
     public ConditionResult matchesEqualityAssertion(ByteString assertionValue)
     {
@@ -623,7 +634,11 @@ public final class AttributeBuilder implements Iterable<ByteString>
    */
   public boolean add(ByteString attributeValue)
   {
-    AttributeValue value = createAttributeValue(attributeDescription, attributeValue);
+    return add(createAttributeValue(attributeDescription, attributeValue));
+  }
+
+  private boolean add(AttributeValue value)
+  {
     boolean isNewValue = values.add(value);
     if (!isNewValue)
     {
@@ -671,7 +686,17 @@ public final class AttributeBuilder implements Iterable<ByteString>
    */
   public boolean addAll(Attribute attribute)
   {
+    final Set<AttributeValue> attributeValues = getValuesWithSameEqualityMatchingRule(attribute);
     boolean wasModified = false;
+    if (attributeValues != null)
+    {
+      for (AttributeValue v : attributeValues)
+      {
+        wasModified |= add(v);
+      }
+      return wasModified;
+    }
+
     for (ByteString v : attribute)
     {
       wasModified |= add(v);
@@ -679,6 +704,30 @@ public final class AttributeBuilder implements Iterable<ByteString>
     return wasModified;
   }
 
+  /**
+   * Returns the lazily normalized values of the provided attribute if they can be shared with this
+   * attribute builder, so that values which were already normalized are not normalized again.
+   * This is the case when both use the same equality matching rule.
+   *
+   * @param attribute
+   *          The attribute whose values may be shared
+   * @return the lazily normalized values of the provided attribute, or {@code null} if they cannot
+   *         be shared
+   */
+  private Set<AttributeValue> getValuesWithSameEqualityMatchingRule(Attribute attribute)
+  {
+    if (attribute instanceof RealAttribute)
+    {
+      final MatchingRule eqRule = attributeDescription.getAttributeType().getEqualityMatchingRule();
+      final AttributeType otherType = attribute.getAttributeDescription().getAttributeType();
+      if (eqRule.equals(otherType.getEqualityMatchingRule()))
+      {
+        return ((RealAttribute) attribute).values;
+      }
+    }
+    return null;
+  }
+
   /**
    * Adds the specified attribute values to this attribute builder if
    * they are not already present.
@@ -838,7 +887,17 @@ public final class AttributeBuilder implements Iterable<ByteString>
    */
   public boolean removeAll(Attribute attribute)
   {
+    final Set<AttributeValue> attributeValues = getValuesWithSameEqualityMatchingRule(attribute);
     boolean wasModified = false;
+    if (attributeValues != null)
+    {
+      for (AttributeValue v : attributeValues)
+      {
+        wasModified |= values.remove(v);
+      }
+      return wasModified;
+    }
+
     for (ByteString v : attribute)
     {
       wasModified |= remove(v);
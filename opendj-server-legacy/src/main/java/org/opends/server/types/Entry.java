@@ -3342,6 +3342,41 @@ public class Entry
   public static Entry decode(ByteSequenceReader entryBuffer,
                              CompressedSchema compressedSchema)
          throws DirectoryException
+  {
+    return decode(entryBuffer, compressedSchema, true);
+  }
+
+
+
+  /**
+   * Decodes only the DN and the object classes of an entry encoded
+   * using the V3 encoding, skipping the decoding of its attributes.
+   * The returned entry is suitable for returning its DN, but not for
+   * evaluating filters or access controls against it.
+   *
+   * @param  entryBuffer       The byte buffer containing the data to
+   *                           be decoded.
+   * @param  compressedSchema  The compressed schema manager to use
+   *                           when decoding tokenized schema
+   *                           elements.
+   *
+   * @return  The decoded entry, without any attributes.
+   *
+   * @throws  DirectoryException  If the provided byte array cannot be
+   *                              decoded as an entry.
+   */
+  public static Entry decodeNameAndObjectClasses(
+      ByteSequenceReader entryBuffer, CompressedSchema compressedSchema)
+      throws DirectoryException
+  {
+    return decode(entryBuffer, compressedSchema, false);
+  }
+
+
+
+  private static Entry decode(ByteSequenceReader entryBuffer,
+      CompressedSchema compressedSchema, boolean decodeAttributes)
+      throws DirectoryException
   {
     try
     {
@@ -3397,6 +3432,11 @@ public class Entry
           decodeObjectClasses(version, entryBuffer, config);
 
 
+      if (!decodeAttributes)
+      {
+        return new Entry(dn, objectClasses, null, null);
+      }
+
       // Now, we should iterate through the user and operational attributes and
       // decode each one.
       Map<AttributeType, List<Attribute>> userAttributes =
@@ -2983,6 +2983,28 @@ public final class ServerConstants
 
 
 
+  /**
+   * The name of the system property that can be used to specify the number of
+   * threads shared by the backends for scanning their entries in parallel, for
+   * unindexed searches, verify and export.  A value of zero disables parallel
+   * scans.
+   */
+  public static final String PROPERTY_BACKEND_SCAN_THREAD_COUNT =
+       "org.opends.server.BackendScanThreadCount";
+
+
+
+  /**
+   * The name of the system property that can be used to specify the average
+   * number of processors a single backend scan may use.  Once a scan has used
+   * more CPU time than this budget allows, its ranges are scanned one at a
+   * time.
+   */
+  public static final String PROPERTY_BACKEND_SCAN_CPU_BUDGET =
+       "org.opends.server.BackendScanCPUBudget";
+
+
+
   /**
    * The name that should be used for the file to which the latest complete
    * schema data should be concatenated.
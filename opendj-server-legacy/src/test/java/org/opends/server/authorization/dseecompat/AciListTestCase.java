@@ -0,0 +1,113 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import static java.util.Arrays.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.authorization.dseecompat.Aci.*;
+
+import java.util.TreeSet;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "dseecompat" }, sequential = true)
+public class AciListTestCase extends DirectoryServerTestCase
+{
+  private static final DN SUFFIX = DN.valueOf("dc=example,dc=com");
+  private static final DN PEOPLE = DN.valueOf("ou=people,dc=example,dc=com");
+  private static final DN USER = DN.valueOf("uid=user.0,ou=people,dc=example,dc=com");
+
+  private Aci readAci;
+  private Aci writeAci;
+  private Aci extOpAci;
+  private Aci peopleReadAci;
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startServer();
+    readAci = aci(SUFFIX, "(targetattr=\"*\")(version 3.0; acl \"read\"; allow(read,search) userdn=\"ldap:///all\";)");
+    writeAci = aci(SUFFIX, "(targetattr=\"cn\")(version 3.0; acl \"write\"; allow(write) userdn=\"ldap:///self\";)");
+    extOpAci = aci(SUFFIX,
+        "(extop=\"1.3.6.1.4.1.4203.1.11.1\")(version 3.0; acl \"extop\"; allow(read) userdn=\"ldap:///all\";)");
+    peopleReadAci = aci(PEOPLE, "(version 3.0; acl \"people\"; allow(read) userdn=\"ldap:///anyone\";)");
+  }
+
+  private static Aci aci(DN dn, String aci) throws Exception
+  {
+    return Aci.decode(ByteString.valueOfUtf8(aci), dn);
+  }
+
+  private AciList newAciList()
+  {
+    AciList aciList = new AciList(DN.valueOf("cn=Access Control Handler,cn=config"));
+    aciList.addAci(SUFFIX, new TreeSet<>(asList(readAci, writeAci, extOpAci)));
+    aciList.addAci(PEOPLE, new TreeSet<>(asList(peopleReadAci)));
+    return aciList;
+  }
+
+  @Test
+  public void testCandidatesAreFilteredByRights()
+  {
+    AciList aciList = newAciList();
+
+    assertThat(aciList.getCandidateAcis(USER)).containsOnly(readAci, writeAci, extOpAci, peopleReadAci);
+    assertThat(aciList.getCandidateAcis(USER, ACI_READ)).containsOnly(readAci, peopleReadAci);
+    assertThat(aciList.getCandidateAcis(USER, ACI_SEARCH)).containsOnly(readAci, peopleReadAci);
+    assertThat(aciList.getCandidateAcis(USER, ACI_WRITE)).containsOnly(writeAci);
+    assertThat(aciList.getCandidateAcis(USER, ACI_READ | ACI_EXT_OP)).containsOnly(extOpAci);
+    assertThat(aciList.getCandidateAcis(SUFFIX, ACI_READ)).containsOnly(readAci);
+  }
+
+  @Test
+  public void testIndexIsDiscardedWhenAcisChange()
+  {
+    AciList aciList = newAciList();
+    assertThat(aciList.getCandidateAcis(USER, ACI_READ)).containsOnly(readAci, peopleReadAci);
+
+    aciList.renameAci(PEOPLE, DN.valueOf("ou=staff,dc=example,dc=com"));
+    assertThat(aciList.getCandidateAcis(USER, ACI_READ)).containsOnly(readAci);
+  }
+
+  @Test
+  public void testVersionChangesWithAcis()
+  {
+    AciList aciList = newAciList();
+    long version = aciList.getVersion();
+    aciList.renameAci(PEOPLE, DN.valueOf("ou=staff,dc=example,dc=com"));
+    assertThat(aciList.getVersion()).isGreaterThan(version);
+  }
+
+  @Test
+  public void testResourceIndependentAcis() throws Exception
+  {
+    assertThat(readAci.isResourceIndependent()).isTrue();
+    assertThat(peopleReadAci.isResourceIndependent()).isTrue();
+    assertThat(writeAci.isResourceIndependent()).isFalse();
+    assertThat(aci(SUFFIX, "(targetattr=\"*\")(version 3.0; acl \"group\"; allow(read) "
+        + "groupdn=\"ldap:///cn=admins,dc=example,dc=com\" and ip=\"127.0.0.1\";)").isResourceIndependent()).isTrue();
+    assertThat(aci(SUFFIX, "(targetattr=\"*\")(version 3.0; acl \"manager\"; allow(read) "
+        + "userdn=\"ldap:///all\" or userattr=\"manager#USERDN\";)").isResourceIndependent()).isFalse();
+    assertThat(aci(SUFFIX, "(targattrfilters=\"add=cn:(cn=foo)\")(version 3.0; acl \"filters\"; allow(write) "
+        + "userdn=\"ldap:///all\";)").isResourceIndependent()).isFalse();
+  }
+}
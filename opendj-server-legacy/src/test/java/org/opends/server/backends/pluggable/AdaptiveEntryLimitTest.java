@@ -0,0 +1,137 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.forgerock.opendj.ldap.ByteString.valueOfUtf8;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, sequential=true)
+public class AdaptiveEntryLimitTest extends DirectoryServerTestCase
+{
+  private static final int LIMIT = 100;
+  /** The encoded size of an entry ID set of {@link #LIMIT} IDs, as far as these tests are concerned. */
+  private static final long SIZE = 150;
+  private static final ByteString HOT = valueOfUtf8("hot");
+  private static final ByteString COLD = valueOfUtf8("cold");
+
+  private static void readTimes(AdaptiveEntryLimit adaptiveLimit, ByteString key, long size, int times)
+  {
+    for (int i = 0; i < times; i++)
+    {
+      adaptiveLimit.keyRead(key, size, LIMIT);
+    }
+  }
+
+  @Test
+  public void testOnlyHotKeysAreExtended()
+  {
+    final AdaptiveEntryLimit.Budget budget = new AdaptiveEntryLimit.Budget(1024 * 1024);
+    final AdaptiveEntryLimit adaptiveLimit = new AdaptiveEntryLimit(budget);
+    readTimes(adaptiveLimit, HOT, LIMIT - 1, AdaptiveEntryLimit.HOT_KEY_READS);
+    // Reads of keys far from the limit do not count
+    readTimes(adaptiveLimit, COLD, 1, 2 * AdaptiveEntryLimit.HOT_KEY_READS);
+
+    assertThat(adaptiveLimit.mayExtend(HOT, false)).isTrue();
+    assertThat(adaptiveLimit.mayExtend(COLD, false)).isFalse();
+    assertThat(adaptiveLimit.tryExtend(HOT, SIZE, false)).isTrue();
+    assertThat(adaptiveLimit.tryExtend(COLD, SIZE, false)).isFalse();
+    assertThat(adaptiveLimit.getExtendedKeyCount()).isEqualTo(1);
+    assertThat(budget.getUsed()).isEqualTo(SIZE);
+  }
+
+  @Test
+  public void testKeysExtendedBeforeARestartStayExtended()
+  {
+    final AdaptiveEntryLimit adaptiveLimit = new AdaptiveEntryLimit(new AdaptiveEntryLimit.Budget(1024 * 1024));
+    assertThat(adaptiveLimit.mayExtend(COLD, true)).isTrue();
+    assertThat(adaptiveLimit.tryExtend(COLD, SIZE, true)).isTrue();
+  }
+
+  @Test
+  public void testNothingIsExtendedWithoutBudget()
+  {
+    final AdaptiveEntryLimit.Budget budget = new AdaptiveEntryLimit.Budget(0);
+    final AdaptiveEntryLimit adaptiveLimit = new AdaptiveEntryLimit(budget);
+    readTimes(adaptiveLimit, HOT, LIMIT - 1, AdaptiveEntryLimit.HOT_KEY_READS);
+    assertThat(adaptiveLimit.mayExtend(HOT, false)).isFalse();
+
+    // Enabling the budget does not count the reads made while it was disabled
+    budget.setSize(1024 * 1024);
+    assertThat(adaptiveLimit.mayExtend(HOT, false)).isFalse();
+    readTimes(adaptiveLimit, HOT, LIMIT - 1, AdaptiveEntryLimit.HOT_KEY_READS);
+    assertThat(adaptiveLimit.mayExtend(HOT, false)).isTrue();
+  }
+
+  @Test
+  public void testExtendIsIdempotent()
+  {
+    final AdaptiveEntryLimit.Budget budget = new AdaptiveEntryLimit.Budget(1024 * 1024);
+    final AdaptiveEntryLimit adaptiveLimit = new AdaptiveEntryLimit(budget);
+    readTimes(adaptiveLimit, HOT, LIMIT - 1, AdaptiveEntryLimit.HOT_KEY_READS);
+
+    assertThat(adaptiveLimit.tryExtend(HOT, SIZE, false)).isTrue();
+    assertThat(adaptiveLimit.tryExtend(HOT, SIZE, false)).isTrue();
+    assertThat(budget.getUsed()).isEqualTo(SIZE);
+
+    assertThat(adaptiveLimit.tryExtend(HOT, 2 * SIZE, true)).isTrue();
+    assertThat(budget.getUsed()).isEqualTo(2 * SIZE);
+    assertThat(adaptiveLimit.getExtendedSize()).isEqualTo(2 * SIZE);
+
+    adaptiveLimit.release(HOT);
+    adaptiveLimit.release(HOT);
+    assertThat(budget.getUsed()).isEqualTo(0);
+    assertThat(adaptiveLimit.getExtendedKeyCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testBudgetIsSharedAndEnforced()
+  {
+    final AdaptiveEntryLimit.Budget budget = new AdaptiveEntryLimit.Budget(3 * SIZE / 2);
+    final AdaptiveEntryLimit index1 = new AdaptiveEntryLimit(budget);
+    final AdaptiveEntryLimit index2 = new AdaptiveEntryLimit(budget);
+    readTimes(index1, HOT, LIMIT - 1, AdaptiveEntryLimit.HOT_KEY_READS);
+    readTimes(index2, HOT, LIMIT - 1, AdaptiveEntryLimit.HOT_KEY_READS);
+
+    assertThat(index1.tryExtend(HOT, SIZE, false)).isTrue();
+    assertThat(index2.tryExtend(HOT, SIZE, false)).isFalse();
+
+    // A key growing out of the budget releases its space and becomes undefined
+    assertThat(index1.tryExtend(HOT, 2 * SIZE, true)).isFalse();
+    assertThat(budget.getUsed()).isEqualTo(0);
+    assertThat(index2.tryExtend(HOT, SIZE, false)).isTrue();
+
+    index2.releaseAll();
+    assertThat(budget.getUsed()).isEqualTo(0);
+  }
+
+  @Test
+  public void testTrackedKeysAreBounded()
+  {
+    final AdaptiveEntryLimit adaptiveLimit = new AdaptiveEntryLimit(new AdaptiveEntryLimit.Budget(1024 * 1024));
+    readTimes(adaptiveLimit, HOT, LIMIT - 1, AdaptiveEntryLimit.HOT_KEY_READS);
+    for (int i = 0; i < 2 * AdaptiveEntryLimit.MAX_TRACKED_KEYS; i++)
+    {
+      adaptiveLimit.keyRead(valueOfUtf8("key" + i), LIMIT - 1, LIMIT);
+    }
+    // The least read keys are evicted first
+    assertThat(adaptiveLimit.mayExtend(HOT, false)).isTrue();
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.backends.pluggable.EntryIDSet.*;
+
+import java.util.Collections;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.types.SearchFilter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, sequential=true)
+public class CandidateCacheTest extends DirectoryServerTestCase
+{
+  private static final TreeName CN_INDEX = new TreeName("dc_example_dc_com", "cn.caseIgnoreMatch");
+  private static final TreeName UID_INDEX = new TreeName("dc_example_dc_com", "uid.caseIgnoreMatch");
+  private static final ByteString JOHN = ByteString.valueOfUtf8("john");
+  private static final ByteString JANE = ByteString.valueOfUtf8("jane");
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  private static CandidateCache.Key key(String filter) throws Exception
+  {
+    return new CandidateCache.Key(DN.valueOf("dc=example,dc=com"), SearchScope.WHOLE_SUBTREE,
+        SearchFilter.createFilterFromString(filter), 4000);
+  }
+
+  private static CandidateCache.Dependencies dependsOn(TreeName tree, ByteString key)
+  {
+    final CandidateCache.Dependencies dependencies = new CandidateCache.Dependencies();
+    dependencies.addKey(tree, key);
+    return dependencies;
+  }
+
+  private static EntryIDSet ids(long... entryIDs)
+  {
+    return newDefinedSet(entryIDs);
+  }
+
+  @Test
+  public void testGetAndPut() throws Exception
+  {
+    final CandidateCache cache = new CandidateCache(1024 * 1024);
+    assertThat(cache.get(key("(cn=john)"))).isNull();
+
+    cache.put(key("(cn=john)"), cache.getSequence(), ids(1, 2), true, dependsOn(CN_INDEX, JOHN));
+    final CandidateCache.Candidates candidates = cache.get(key("(cn=JOHN)"));
+    assertThat(candidates).isNotNull();
+    assertThat(candidates.toEntryIDSet().toLongArray()).containsExactly(1, 2);
+    assertThat(candidates.isInScope()).isTrue();
+    assertThat(cache.get(key("(cn=jane)"))).isNull();
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testReturnedCandidatesCanBeModified() throws Exception
+  {
+    final CandidateCache cache = new CandidateCache(1024 * 1024);
+    cache.put(key("(cn=john)"), cache.getSequence(), ids(1, 2), false, dependsOn(CN_INDEX, JOHN));
+
+    cache.get(key("(cn=john)")).toEntryIDSet().retainAll(ids(2));
+    assertThat(cache.get(key("(cn=john)")).toEntryIDSet().toLongArray()).containsExactly(1, 2);
+  }
+
+  @Test
+  public void testFilterKeyIgnoresTheOrderOfAndComponents() throws Exception
+  {
+    assertThat(key("(&(cn=john)(uid=jd))")).isEqualTo(key("(&(uid=jd)(cn=john))"));
+    assertThat(key("(&(cn=john)(uid=jd))").hashCode()).isEqualTo(key("(&(uid=jd)(cn=john))").hashCode());
+    assertThat(key("(|(cn=john)(uid=jd))")).isNotEqualTo(key("(&(cn=john)(uid=jd))"));
+  }
+
+  @Test
+  public void testUndefinedCandidatesAreNotCached() throws Exception
+  {
+    final CandidateCache cache = new CandidateCache(1024 * 1024);
+    cache.put(key("(cn=john)"), cache.getSequence(), newUndefinedSet(), false, dependsOn(CN_INDEX, JOHN));
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testUpdatedKeysInvalidateTheirDependents() throws Exception
+  {
+    final CandidateCache cache = new CandidateCache(1024 * 1024);
+    cache.put(key("(cn=john)"), cache.getSequence(), ids(1), false, dependsOn(CN_INDEX, JOHN));
+    cache.put(key("(cn=jane)"), cache.getSequence(), ids(2), false, dependsOn(CN_INDEX, JANE));
+    cache.put(key("(uid=john)"), cache.getSequence(), ids(3), false, dependsOn(UID_INDEX, JOHN));
+
+    cache.invalidate(Collections.singletonMap(CN_INDEX, Collections.singleton(JOHN)));
+    assertThat(cache.get(key("(cn=john)"))).isNull();
+    assertThat(cache.get(key("(cn=jane)"))).isNotNull();
+    assertThat(cache.get(key("(uid=john)"))).isNotNull();
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void testUpdatedKeysInvalidateTheRangeReadsOfTheirIndex() throws Exception
+  {
+    final CandidateCache cache = new CandidateCache(1024 * 1024);
+    final CandidateCache.Dependencies dependencies = new CandidateCache.Dependencies();
+    dependencies.addTree(CN_INDEX);
+    cache.put(key("(cn>=j)"), cache.getSequence(), ids(1, 2), false, dependencies);
+
+    cache.invalidate(Collections.singletonMap(UID_INDEX, Collections.singleton(JANE)));
+    assertThat(cache.get(key("(cn>=j)"))).isNotNull();
+    cache.invalidate(Collections.singletonMap(CN_INDEX, Collections.singleton(JANE)));
+    assertThat(cache.get(key("(cn>=j)"))).isNull();
+  }
+
+  @Test
+  public void testCandidatesInvalidatedDuringTheSearchAreNotCached() throws Exception
+  {
+    final CandidateCache cache = new CandidateCache(1024 * 1024);
+    final long startSequence = cache.getSequence();
+
+    // Concurrent updates while the search reads the indexes
+    cache.invalidate(Collections.singletonMap(UID_INDEX, Collections.singleton(JOHN)));
+    cache.put(key("(cn=john)"), startSequence, ids(1), false, dependsOn(CN_INDEX, JOHN));
+    assertThat(cache.get(key("(cn=john)"))).isNotNull();
+
+    cache.invalidate(Collections.singletonMap(CN_INDEX, Collections.singleton(JANE)));
+    cache.put(key("(cn=jane)"), startSequence, ids(2), false, dependsOn(CN_INDEX, JANE));
+    assertThat(cache.get(key("(cn=jane)"))).isNull();
+
+    cache.clear();
+    cache.put(key("(uid=jane)"), startSequence, ids(3), false, dependsOn(UID_INDEX, JANE));
+    assertThat(cache.get(key("(uid=jane)"))).isNull();
+  }
+
+  @Test
+  public void testManyUnrelatedUpdatesDoNotPreventCaching() throws Exception
+  {
+    final CandidateCache cache = new CandidateCache(1024 * 1024);
+    final long startSequence = cache.getSequence();
+    for (int i = 0; i < 5000; i++)
+    {
+      cache.invalidate(Collections.singletonMap(UID_INDEX, Collections.singleton(ByteString.valueOfUtf8("user" + i))));
+    }
+    cache.put(key("(cn=john)"), startSequence, ids(1), false, dependsOn(CN_INDEX, JOHN));
+    assertThat(cache.get(key("(cn=john)"))).isNotNull();
+  }
+
+  @Test
+  public void testUpdatesWhileTheCacheIsEmptyAreRecorded() throws Exception
+  {
+    final CandidateCache cache = new CandidateCache(1024 * 1024);
+    final long startSequence = cache.getSequence();
+    assertThat(cache.size()).isEqualTo(0);
+
+    cache.invalidate(Collections.singletonMap(CN_INDEX, Collections.singleton(JOHN)));
+    cache.put(key("(cn=john)"), startSequence, ids(1), false, dependsOn(CN_INDEX, JOHN));
+    assertThat(cache.get(key("(cn=john)"))).isNull();
+  }
+
+  @Test
+  public void testShrinkingEvictsLeastRecentlyUsed() throws Exception
+  {
+    final CandidateCache cache = new CandidateCache(2048);
+    cache.put(key("(cn=a)"), cache.getSequence(), range(20), false, dependsOn(CN_INDEX, JOHN));
+    cache.put(key("(cn=b)"), cache.getSequence(), range(20), false, dependsOn(CN_INDEX, JANE));
+    assertThat(cache.size()).isEqualTo(2);
+
+    // Room for a single candidate set of 20 entry IDs
+    cache.setMaxMemory(600);
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.get(key("(cn=b)"))).isNotNull();
+
+    // A zero size disables the cache
+    cache.setMaxMemory(0);
+    assertThat(cache.size()).isEqualTo(0);
+    cache.put(key("(cn=a)"), cache.getSequence(), ids(1), false, dependsOn(CN_INDEX, JOHN));
+    assertThat(cache.get(key("(cn=a)"))).isNull();
+  }
+
+  @Test
+  public void testClear() throws Exception
+  {
+    final CandidateCache cache = new CandidateCache(1024 * 1024);
+    cache.put(key("(cn=john)"), cache.getSequence(), ids(1), false, dependsOn(CN_INDEX, JOHN));
+    cache.clear();
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(cache.get(key("(cn=john)"))).isNull();
+
+    // Searches starting after the clear are cached again
+    cache.put(key("(cn=john)"), cache.getSequence(), ids(1), false, dependsOn(CN_INDEX, JOHN));
+    assertThat(cache.get(key("(cn=john)"))).isNotNull();
+  }
+
+  @Test
+  public void testMemoryBoundEvictsLeastRecentlyUsed() throws Exception
+  {
+    // Room for four candidate sets of 20 entry IDs
+    final CandidateCache cache = new CandidateCache(2048);
+    cache.put(key("(cn=a)"), cache.getSequence(), range(20), false, dependsOn(CN_INDEX, JOHN));
+    cache.put(key("(cn=b)"), cache.getSequence(), range(20), false, dependsOn(CN_INDEX, JOHN));
+    cache.put(key("(cn=c)"), cache.getSequence(), range(20), false, dependsOn(CN_INDEX, JANE));
+    cache.put(key("(cn=d)"), cache.getSequence(), range(20), false, dependsOn(CN_INDEX, JANE));
+    assertThat(cache.get(key("(cn=a)"))).isNotNull();
+
+    cache.put(key("(cn=e)"), cache.getSequence(), range(20), false, dependsOn(CN_INDEX, JANE));
+    assertThat(cache.size()).isEqualTo(4);
+    assertThat(cache.get(key("(cn=b)"))).isNull();
+    assertThat(cache.get(key("(cn=a)"))).isNotNull();
+    assertThat(cache.get(key("(cn=e)"))).isNotNull();
+
+    // The evicted candidates no longer depend on their keys
+    cache.invalidate(Collections.singletonMap(CN_INDEX, Collections.singleton(JOHN)));
+    assertThat(cache.get(key("(cn=a)"))).isNull();
+    assertThat(cache.size()).isEqualTo(3);
+
+    // Too large to be cached
+    cache.put(key("(cn=f)"), cache.getSequence(), range(200), false, dependsOn(CN_INDEX, JOHN));
+    assertThat(cache.get(key("(cn=f)"))).isNull();
+  }
+
+  private static EntryIDSet range(int size)
+  {
+    final long[] entryIDs = new long[size];
+    for (int i = 0; i < size; i++)
+    {
+      entryIDs[i] = i + 1;
+    }
+    return newDefinedSet(entryIDs);
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.*;
+import static org.forgerock.opendj.config.ConfigurationMock.*;
+import static org.forgerock.opendj.ldap.ByteString.valueOfUtf8;
+import static org.forgerock.opendj.ldap.schema.CoreSchema.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.opends.server.backends.pluggable.EntryIDSet.*;
+import static org.opends.server.backends.pluggable.State.IndexFlag.*;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.server.config.server.BackendCompositeIndexCfg;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pluggable.DefaultIndexTest.DummyWriteableTransaction;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.crypto.CryptoSuite;
+import org.opends.server.types.Entry;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, sequential = true)
+public class CompositeIndexTest extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  private static CompositeIndex newIndex(String attributes) throws ConfigException
+  {
+    return newIndex(attributes, mock(EntryContainer.class));
+  }
+
+  private static CompositeIndex newIndex(String attributes, EntryContainer entryContainer) throws ConfigException
+  {
+    final BackendCompositeIndexCfg cfg = mockCfg(BackendCompositeIndexCfg.class);
+    when(cfg.getName()).thenReturn("test");
+    when(cfg.getAttributes()).thenReturn(attributes);
+    when(cfg.getIndexEntryLimit()).thenReturn(4000);
+    final State state = mock(State.class);
+    when(state.getIndexFlags(any(ReadableTransaction.class), any(TreeName.class)))
+        .thenReturn(EnumSet.of(TRUSTED, COMPACTED));
+    when(entryContainer.getTreePrefix()).thenReturn("dc_example_dc_com");
+    return new CompositeIndex(cfg, state, entryContainer, mock(CryptoSuite.class));
+  }
+
+  private static List<String> keysToString(CompositeIndex index, Set<ByteString> keys)
+  {
+    final List<String> strings = new ArrayList<>();
+    for (ByteString key : keys)
+    {
+      strings.add(index.keyToString(key));
+    }
+    return strings;
+  }
+
+  @Test
+  public void testIndexEntryCombinesTheValues() throws Exception
+  {
+    final CompositeIndex index = newIndex("sn givenName");
+    final Entry entry = TestCaseUtils.makeEntry(
+        "dn: uid=jdoe,dc=example,dc=com",
+        "objectClass: inetOrgPerson",
+        "uid: jdoe",
+        "cn: John Doe",
+        "sn: Doe",
+        "givenName: John",
+        "givenName: Johnny");
+
+    assertThat(keysToString(index, index.indexEntry(entry))).containsOnly("doe + john", "doe + johnny");
+  }
+
+  @Test
+  public void testIndexEntryWithMissingTrailingAttribute() throws Exception
+  {
+    final CompositeIndex index = newIndex("sn givenName");
+    final Entry entry = TestCaseUtils.makeEntry(
+        "dn: uid=jdoe,dc=example,dc=com",
+        "objectClass: inetOrgPerson",
+        "uid: jdoe",
+        "cn: John Doe",
+        "sn: Doe");
+
+    assertThat(keysToString(index, index.indexEntry(entry))).containsOnly("doe");
+  }
+
+  @Test
+  public void testIndexEntryWithMissingLeadingAttribute() throws Exception
+  {
+    final CompositeIndex index = newIndex("givenName sn");
+    final Entry entry = TestCaseUtils.makeEntry(
+        "dn: uid=jdoe,dc=example,dc=com",
+        "objectClass: inetOrgPerson",
+        "uid: jdoe",
+        "cn: John Doe",
+        "sn: Doe");
+
+    assertThat(index.indexEntry(entry)).isEmpty();
+  }
+
+  @Test
+  public void testIndexEntryWithTooManyCombinations() throws Exception
+  {
+    final CompositeIndex index = newIndex("cn description");
+    final List<String> ldif = new ArrayList<>(asList(
+        "dn: cn=group,dc=example,dc=com",
+        "objectClass: groupOfNames"));
+    for (int i = 0; i < 20; i++)
+    {
+      ldif.add("cn: name" + i);
+      ldif.add("description: description" + i);
+    }
+    final Entry entry = TestCaseUtils.makeEntry(ldif.toArray(new String[0]));
+
+    assertThat(index.indexEntry(entry)).containsOnly(CompositeIndex.OVERFLOW_KEY);
+    assertThat(index.keyToString(CompositeIndex.OVERFLOW_KEY)).isEqualTo("OVERFLOW");
+  }
+
+  @Test(expectedExceptions = ConfigException.class)
+  public void testSingleAttributeIsRejected() throws Exception
+  {
+    newIndex("sn sn");
+  }
+
+  @Test(expectedExceptions = ConfigException.class)
+  public void testConfidentialAttributeIndexIsRejected() throws Exception
+  {
+    final AttributeIndex attributeIndex = mock(AttributeIndex.class);
+    when(attributeIndex.isConfidentialityEnabled()).thenReturn(true);
+    final EntryContainer entryContainer = mock(EntryContainer.class);
+    when(entryContainer.getAttributeIndex(getSNAttributeType())).thenReturn(attributeIndex);
+    newIndex("givenName sn", entryContainer);
+  }
+
+  @Test
+  public void testAssertionValuesAreNormalizedLikeTheKeys() throws Exception
+  {
+    final CompositeIndex index = newIndex("sn givenName");
+    final Entry entry = TestCaseUtils.makeEntry(
+        "dn: uid=jdoe,dc=example,dc=com",
+        "objectClass: inetOrgPerson",
+        "uid: jdoe",
+        "cn: John Doe",
+        "sn: Doe",
+        "givenName: John");
+    final WriteableTransaction txn = new DummyWriteableTransaction();
+    index.open(txn, true);
+    for (ByteString key : index.indexEntry(entry))
+    {
+      index.update(txn, key, null, newDefinedSet(1));
+    }
+
+    final List<ByteString> values = asList(
+        CompositeIndex.normalizeAssertionValue(getSNAttributeType(), valueOfUtf8("  DOE ")),
+        CompositeIndex.normalizeAssertionValue(getGivenNameAttributeType(), valueOfUtf8("john")));
+    assertThat(index.evaluate(txn, values, null).toLongArray()).containsExactly(1);
+  }
+
+  @Test
+  public void testEvaluateFullKeyIncludesOverflowedEntries() throws Exception
+  {
+    final CompositeIndex index = newIndex("sn givenName");
+    final WriteableTransaction txn = new DummyWriteableTransaction();
+    index.open(txn, true);
+    final Entry entry = TestCaseUtils.makeEntry(
+        "dn: uid=jdoe,dc=example,dc=com",
+        "objectClass: inetOrgPerson",
+        "uid: jdoe",
+        "cn: John Doe",
+        "sn: Doe",
+        "givenName: John");
+    for (ByteString key : index.indexEntry(entry))
+    {
+      index.update(txn, key, null, newDefinedSet(1));
+    }
+    index.update(txn, CompositeIndex.OVERFLOW_KEY, null, newDefinedSet(7));
+
+    final EntryIDSet candidates = index.evaluate(txn, asList(valueOfUtf8("doe"), valueOfUtf8("john")), null);
+    assertThat(candidates.toLongArray()).containsExactly(1, 7);
+
+    final EntryIDSet noMatch = index.evaluate(txn, asList(valueOfUtf8("doe"), valueOfUtf8("jane")), null);
+    assertThat(noMatch.toLongArray()).containsExactly(7);
+  }
+
+  @Test
+  public void testEvaluatePrefixIncludesEntriesMissingTheLastAttribute() throws Exception
+  {
+    final CompositeIndex index = newIndex("sn givenName");
+    final WriteableTransaction txn = new DummyWriteableTransaction();
+    index.open(txn, true);
+    final Entry fullEntry = TestCaseUtils.makeEntry(
+        "dn: uid=jdoe,dc=example,dc=com",
+        "objectClass: inetOrgPerson",
+        "uid: jdoe",
+        "cn: John Doe",
+        "sn: Doe",
+        "givenName: John");
+    final Entry partialEntry = TestCaseUtils.makeEntry(
+        "dn: uid=doe,dc=example,dc=com",
+        "objectClass: inetOrgPerson",
+        "uid: doe",
+        "cn: Doe",
+        "sn: Doe");
+    for (ByteString key : index.indexEntry(fullEntry))
+    {
+      index.update(txn, key, null, newDefinedSet(1));
+    }
+    for (ByteString key : index.indexEntry(partialEntry))
+    {
+      index.update(txn, key, null, newDefinedSet(2));
+    }
+
+    final EntryIDSet prefix = index.evaluate(txn, asList(valueOfUtf8("doe")), null);
+    assertThat(prefix.toLongArray()).containsExactly(1, 2);
+
+    final EntryIDSet fullKey = index.evaluate(txn, asList(valueOfUtf8("doe"), valueOfUtf8("john")), null);
+    assertThat(fullKey.toLongArray()).containsExactly(1);
+  }
+}
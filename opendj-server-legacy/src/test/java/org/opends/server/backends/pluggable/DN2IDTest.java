@@ -320,6 +320,7 @@ public class DN2IDTest extends DirectoryServerTestCase
     when(backendCfg.dn()).thenReturn(DN.valueOf("dc=test,dc=com"));
     when(backendCfg.listBackendIndexes()).thenReturn(new String[] { "sn" });
     when(backendCfg.listBackendVLVIndexes()).thenReturn(new String[0]);
+    when(backendCfg.listBackendCompositeIndexes()).thenReturn(new String[0]);
 
     BackendIndexCfg indexCfg = mockCfg(BackendIndexCfg.class);
     when(indexCfg.getIndexType()).thenReturn(newTreeSet(IndexType.PRESENCE, IndexType.EQUALITY));
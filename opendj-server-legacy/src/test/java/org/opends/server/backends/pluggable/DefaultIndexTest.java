@@ -90,6 +90,25 @@ public class DefaultIndexTest extends DirectoryServerTestCase
     assertThat(get().isDefined()).isFalse();
   }
 
+  @Test
+  public void testEntryLimitStatistics() {
+    put(newDefinedSet(1, 2, 3, 4));
+    update(newDefinedSet(), newDefinedSet(5, 6));
+    index.get(txn, valueOfUtf8("key"));
+    index.get(txn, valueOfUtf8("key"));
+
+    final EntryLimitStatistics statistics = index.getEntryLimitStatistics();
+    assertThat(statistics.getExceededKeyCount()).isEqualTo(1);
+    assertThat(statistics.getUndefinedReadCount()).isEqualTo(2);
+    assertThat(statistics.getMostReadKeys(10)).hasSize(1);
+    assertThat(statistics.getMostReadKeys(10).get(0).getKey()).isEqualTo(valueOfUtf8("key"));
+    assertThat(statistics.getMostReadKeys(10).get(0).getReads()).isEqualTo(2);
+
+    index.setIndexEntryLimit(10);
+    assertThat(statistics.getExceededKeyCount()).isEqualTo(0);
+    assertThat(statistics.getMostReadKeys(10)).isEmpty();
+  }
+
   @Test
   public void testEmptyIdSetAreRemoved() {
     put(newDefinedSet(1, 2, 3, 4));
@@ -0,0 +1,127 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, sequential=true)
+public class EntryIDSorterTest extends DirectoryServerTestCase
+{
+  private static final int NB_ENTRIES = 1000;
+
+  /** Returns the entry IDs 0 to NB_ENTRIES - 1 in random order. Entry ID i has sort key "key" + i. */
+  private static List<Long> shuffledEntryIDs()
+  {
+    final List<Long> entryIDs = new ArrayList<>();
+    for (long i = 0; i < NB_ENTRIES; i++)
+    {
+      entryIDs.add(i);
+    }
+    Collections.shuffle(entryIDs, new Random(42));
+    return entryIDs;
+  }
+
+  private static ByteString key(long entryID)
+  {
+    return ByteString.valueOfUtf8(String.format("key%05d", entryID));
+  }
+
+  private static long[] sort(EntryIDSorter sorter) throws Exception
+  {
+    try
+    {
+      for (long entryID : shuffledEntryIDs())
+      {
+        sorter.add(key(entryID), entryID);
+      }
+      return sorter.toSortedArray();
+    }
+    finally
+    {
+      sorter.close();
+    }
+  }
+
+  private static long[] range(long from, long to)
+  {
+    final long[] array = new long[(int) (to - from)];
+    for (int i = 0; i < array.length; i++)
+    {
+      array[i] = from + i;
+    }
+    return array;
+  }
+
+  @Test
+  public void testWindowSorterKeepsSmallestKeys() throws Exception
+  {
+    final EntryIDSorter sorter = EntryIDSorter.newWindowSorter(null, 10, 20);
+    assertThat(sort(sorter)).containsExactly(range(0, 20));
+    assertThat(sorter.size()).isEqualTo(NB_ENTRIES);
+    assertThat(sorter.getBeforeCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testWindowSorterWithLowerBound() throws Exception
+  {
+    final EntryIDSorter sorter = EntryIDSorter.newWindowSorter(key(500), 3, 5);
+    assertThat(sort(sorter)).containsExactly(range(497, 505));
+    assertThat(sorter.size()).isEqualTo(NB_ENTRIES);
+    assertThat(sorter.getBeforeCount()).isEqualTo(3);
+    assertThat(sorter.getCountBelowLowerBound()).isEqualTo(500);
+  }
+
+  @Test
+  public void testWindowSorterWithLowerBoundAfterAllKeys() throws Exception
+  {
+    final EntryIDSorter sorter = EntryIDSorter.newWindowSorter(key(NB_ENTRIES), 2, 5);
+    assertThat(sort(sorter)).containsExactly(range(NB_ENTRIES - 2, NB_ENTRIES));
+    assertThat(sorter.getBeforeCount()).isEqualTo(2);
+    assertThat(sorter.getCountBelowLowerBound()).isEqualTo(NB_ENTRIES);
+  }
+
+  @Test
+  public void testExternalSorterInMemory() throws Exception
+  {
+    final File tempDir = TestCaseUtils.createTemporaryDirectory("sort");
+    final EntryIDSorter sorter = EntryIDSorter.newExternalSorter(tempDir, NB_ENTRIES + 1);
+    assertThat(sort(sorter)).containsExactly(range(0, NB_ENTRIES));
+    assertThat(tempDir.list()).isEmpty();
+  }
+
+  @Test
+  public void testExternalSorterSpillsToDisk() throws Exception
+  {
+    final File tempDir = TestCaseUtils.createTemporaryDirectory("sort");
+    final EntryIDSorter sorter = EntryIDSorter.newExternalSorter(tempDir, 64);
+    assertThat(sort(sorter)).containsExactly(range(0, NB_ENTRIES));
+    assertThat(sorter.size()).isEqualTo(NB_ENTRIES);
+    // Temporary files are deleted when the sorter is closed
+    assertThat(tempDir.list()).isEmpty();
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.forgerock.opendj.config.ConfigurationMock.*;
+import static org.mockito.Mockito.*;
+import static org.opends.server.util.CollectionUtils.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.server.config.server.PDBBackendCfg;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pdb.PDBStorage;
+import org.opends.server.backends.pluggable.ID2EntryScanner.RecordTransformer;
+import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.ReadOperation;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.WriteOperation;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.core.MemoryQuota;
+import org.opends.server.core.ServerContext;
+import org.opends.server.extensions.DiskSpaceMonitor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend" }, sequential = true)
+public class ID2EntryScannerTest extends DirectoryServerTestCase
+{
+  private static final int NB_RECORDS = 5 * ID2EntryScanner.RANGE_SIZE + 10;
+
+  private final TreeName id2entryTreeName = new TreeName("base-dn", "id2entry");
+  private ID2Entry id2entry;
+  private PDBStorage storage;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception
+  {
+    ServerContext serverContext = mock(ServerContext.class);
+    when(serverContext.getMemoryQuota()).thenReturn(new MemoryQuota());
+    when(serverContext.getDiskSpaceMonitor()).thenReturn(mock(DiskSpaceMonitor.class));
+
+    storage = new PDBStorage(createBackendCfg(), serverContext);
+    storage.open(AccessMode.READ_WRITE);
+    id2entry = new ID2Entry(id2entryTreeName, mock(DataConfig.class));
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        txn.openTree(id2entryTreeName, true);
+        // Leave a hole in the entry IDs, as deleted entries do
+        for (long id = 1; id <= NB_RECORDS; id++)
+        {
+          if (id < 2000 || id > 3100)
+          {
+            txn.put(id2entryTreeName, new EntryID(id).toByteString(), ByteString.valueOfUtf8("entry" + id));
+          }
+        }
+      }
+    });
+  }
+
+  @AfterMethod
+  public void tearDown()
+  {
+    storage.close();
+    storage.removeStorageFiles();
+  }
+
+  private List<Long> scan(final RecordTransformer<Long> transformer, final int maxRecords) throws Exception
+  {
+    return storage.read(new ReadOperation<List<Long>>()
+    {
+      @Override
+      public List<Long> run(ReadableTransaction txn) throws Exception
+      {
+        return scan(txn, transformer, maxRecords);
+      }
+    });
+  }
+
+  private List<Long> scan(ReadableTransaction txn, RecordTransformer<Long> transformer, int maxRecords)
+  {
+    final List<Long> entryIDs = new ArrayList<>();
+    try (ID2EntryScanner<Long> scanner = new ID2EntryScanner<>(txn, id2entry, transformer))
+    {
+      while (entryIDs.size() < maxRecords && scanner.next())
+      {
+        assertThat(scanner.getKey().toLong()).isEqualTo(scanner.getValue());
+        entryIDs.add(scanner.getValue());
+      }
+    }
+    return entryIDs;
+  }
+
+  private static RecordTransformer<Long> entryIDs()
+  {
+    return new RecordTransformer<Long>()
+    {
+      @Override
+      public Long transform(ByteString key, ByteString value)
+      {
+        return key.toLong();
+      }
+    };
+  }
+
+  private static List<Long> expectedEntryIDs(int modulo)
+  {
+    final List<Long> entryIDs = new ArrayList<>();
+    for (long id = 1; id <= NB_RECORDS; id++)
+    {
+      if ((id < 2000 || id > 3100) && id % modulo == 0)
+      {
+        entryIDs.add(id);
+      }
+    }
+    return entryIDs;
+  }
+
+  @Test
+  public void testScanReturnsRecordsInEntryIDOrder() throws Exception
+  {
+    final List<Long> entryIDs = scan(new RecordTransformer<Long>()
+    {
+      @Override
+      public Long transform(ByteString key, ByteString value)
+      {
+        assertThat(value.toString()).isEqualTo("entry" + key.toLong());
+        return key.toLong();
+      }
+    }, Integer.MAX_VALUE);
+    assertThat(entryIDs).isEqualTo(expectedEntryIDs(1));
+  }
+
+  @Test
+  public void testScanSkipsFilteredRecords() throws Exception
+  {
+    final List<Long> entryIDs = scan(new RecordTransformer<Long>()
+    {
+      @Override
+      public Long transform(ByteString key, ByteString value)
+      {
+        return key.toLong() % 7 == 0 ? key.toLong() : null;
+      }
+    }, Integer.MAX_VALUE);
+    assertThat(entryIDs).isEqualTo(expectedEntryIDs(7));
+  }
+
+  @Test
+  public void testScanCanBeStopped() throws Exception
+  {
+    final List<Long> entryIDs = scan(entryIDs(), 10);
+    assertThat(entryIDs).isEqualTo(expectedEntryIDs(1).subList(0, 10));
+  }
+
+  /** All the records are read in the transaction of the caller, which sees its own uncommitted writes. */
+  @Test
+  public void testScanReadsInTheCallerTransaction() throws Exception
+  {
+    final List<Long> entryIDs = new ArrayList<>();
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        for (long id = 2000; id <= 3100; id++)
+        {
+          txn.put(id2entryTreeName, new EntryID(id).toByteString(), ByteString.valueOfUtf8("entry" + id));
+        }
+        entryIDs.addAll(scan(txn, entryIDs(), Integer.MAX_VALUE));
+      }
+    });
+    assertThat(entryIDs).hasSize(NB_RECORDS);
+    assertThat(entryIDs.get(0)).isEqualTo(1);
+    assertThat(entryIDs.get(NB_RECORDS - 1)).isEqualTo(NB_RECORDS);
+  }
+
+  /** The storage unwraps the StorageRuntimeException thrown by the scanner. */
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testTransformerErrorStopsTheScan() throws Exception
+  {
+    scan(new RecordTransformer<Long>()
+    {
+      @Override
+      public Long transform(ByteString key, ByteString value) throws Exception
+      {
+        if (key.toLong() == 4000)
+        {
+          throw new IllegalStateException();
+        }
+        return key.toLong();
+      }
+    }, Integer.MAX_VALUE);
+  }
+
+  private PDBBackendCfg createBackendCfg() throws Exception
+  {
+    String homeDirName = "pdb_test";
+    PDBBackendCfg backendCfg = mockCfg(PDBBackendCfg.class);
+
+    when(backendCfg.getBackendId()).thenReturn("persTest" + homeDirName);
+    when(backendCfg.getDBDirectory()).thenReturn(homeDirName);
+    when(backendCfg.getDBDirectoryPermissions()).thenReturn("755");
+    when(backendCfg.getDBCacheSize()).thenReturn(0L);
+    when(backendCfg.getDBCachePercent()).thenReturn(20);
+    when(backendCfg.getBaseDN()).thenReturn(newTreeSet(DN.valueOf("dc=test,dc=com")));
+    when(backendCfg.dn()).thenReturn(DN.valueOf("dc=test,dc=com"));
+    when(backendCfg.listBackendIndexes()).thenReturn(new String[0]);
+    when(backendCfg.listBackendVLVIndexes()).thenReturn(new String[0]);
+    when(backendCfg.listBackendCompositeIndexes()).thenReturn(new String[0]);
+
+    return backendCfg;
+  }
+}
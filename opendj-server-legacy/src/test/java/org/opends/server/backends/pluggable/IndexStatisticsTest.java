@@ -0,0 +1,134 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.backends.pluggable.EntryIDSet.*;
+import static org.opends.server.backends.pluggable.IndexStatistics.*;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pluggable.AttributeIndex.IndexFilterType;
+import org.opends.server.types.SearchFilter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, sequential=true)
+public class IndexStatisticsTest extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  private static SearchFilter filter(String filter) throws Exception
+  {
+    return SearchFilter.createFilterFromString(filter);
+  }
+
+  @Test
+  public void testEstimateIsUnknownWithoutStatistics() throws Exception
+  {
+    final IndexStatistics statistics = new IndexStatistics();
+    assertThat(statistics.estimate(IndexFilterType.EQUALITY, filter("(uid=user.0)"))).isEqualTo(UNKNOWN);
+    assertThat(statistics.isKnownToExceedLimit(filter("(uid=user.0)"))).isFalse();
+  }
+
+  @Test
+  public void testEstimateUsesLastReadOfTheFilter() throws Exception
+  {
+    final IndexStatistics statistics = new IndexStatistics();
+    statistics.update(IndexFilterType.EQUALITY, filter("(uid=user.0)"), newDefinedSet(1));
+    statistics.update(IndexFilterType.EQUALITY, filter("(objectClass=person)"), newUndefinedSet());
+
+    assertThat(statistics.estimate(IndexFilterType.EQUALITY, filter("(uid=user.0)"))).isEqualTo(1);
+    assertThat(statistics.isKnownToExceedLimit(filter("(uid=user.0)"))).isFalse();
+    assertThat(statistics.estimate(IndexFilterType.EQUALITY, filter("(objectClass=person)"))).isEqualTo(UNDEFINED);
+    assertThat(statistics.isKnownToExceedLimit(filter("(objectClass=person)"))).isTrue();
+    // Filters are compared by value, independently of the case of the attribute name
+    assertThat(statistics.isKnownToExceedLimit(filter("(objectclass=person)"))).isTrue();
+    // Not enough samples yet for estimating other filters
+    assertThat(statistics.estimate(IndexFilterType.EQUALITY, filter("(uid=user.1)"))).isEqualTo(UNKNOWN);
+  }
+
+  @Test
+  public void testEstimateUsesAverageOfTheIndexFilterType() throws Exception
+  {
+    final IndexStatistics statistics = new IndexStatistics();
+    for (int i = 0; i < 10; i++)
+    {
+      statistics.update(IndexFilterType.EQUALITY, filter("(uid=user." + i + ")"), newDefinedSet(i, i + 100));
+      statistics.update(IndexFilterType.SUBSTRING, filter("(cn=a" + i + "*)"), newUndefinedSet());
+    }
+
+    assertThat(statistics.estimate(IndexFilterType.EQUALITY, filter("(uid=unknown)"))).isEqualTo(2);
+    assertThat(statistics.estimate(IndexFilterType.SUBSTRING, filter("(cn=b*)"))).isEqualTo(UNDEFINED);
+    assertThat(statistics.isKnownToExceedLimit(filter("(cn=b*)"))).isFalse();
+    assertThat(statistics.estimate(IndexFilterType.PRESENCE, filter("(cn=*)"))).isEqualTo(UNKNOWN);
+  }
+
+  @Test
+  public void testRememberedFiltersAreBounded() throws Exception
+  {
+    final IndexStatistics statistics = new IndexStatistics();
+    for (int i = 0; i < 2000; i++)
+    {
+      statistics.update(IndexFilterType.EQUALITY, filter("(uid=user." + i + ")"), newUndefinedSet());
+    }
+    int remembered = 0;
+    for (int i = 0; i < 2000; i++)
+    {
+      if (statistics.isKnownToExceedLimit(filter("(uid=user." + i + ")")))
+      {
+        remembered++;
+      }
+    }
+    assertThat(remembered).isEqualTo(1024);
+    // The last updated filter is never the one being forgotten
+    assertThat(statistics.isKnownToExceedLimit(filter("(uid=user.1999)"))).isTrue();
+  }
+
+  @Test
+  public void testSkippedReadsArePeriodicallyPerformed()
+  {
+    final IndexStatistics statistics = new IndexStatistics();
+    int performedReads = 0;
+    for (int i = 0; i < 128; i++)
+    {
+      if (!statistics.skipRead())
+      {
+        performedReads++;
+      }
+    }
+    assertThat(performedReads).isEqualTo(2);
+    assertThat(statistics.getSkippedReadCount()).isEqualTo(126);
+  }
+
+  @Test
+  public void testClear() throws Exception
+  {
+    final IndexStatistics statistics = new IndexStatistics();
+    statistics.update(IndexFilterType.EQUALITY, filter("(objectClass=person)"), newUndefinedSet());
+    statistics.skipRead();
+    statistics.clear();
+
+    assertThat(statistics.estimate(IndexFilterType.EQUALITY, filter("(objectClass=person)"))).isEqualTo(UNKNOWN);
+    assertThat(statistics.isKnownToExceedLimit(filter("(objectClass=person)"))).isFalse();
+    assertThat(statistics.getSkippedReadCount()).isEqualTo(0);
+  }
+}
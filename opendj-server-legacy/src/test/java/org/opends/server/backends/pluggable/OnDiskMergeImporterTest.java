@@ -133,6 +133,7 @@ public class OnDiskMergeImporterTest extends DirectoryServerTestCase
     when(backendCfg.getBaseDN()).thenReturn(newTreeSet(testBaseDN));
     when(backendCfg.listBackendIndexes()).thenReturn(backendIndexes.keySet().toArray(new String[0]));
     when(backendCfg.listBackendVLVIndexes()).thenReturn(backendVlvIndexes);
+    when(backendCfg.listBackendCompositeIndexes()).thenReturn(new String[0]);
 
     for (Map.Entry<String, IndexType[]> index : backendIndexes.entrySet())
     {
@@ -41,6 +41,7 @@ import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.SortKey;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.CoreSchema;
 import org.forgerock.opendj.server.config.meta.BackendIndexCfgDefn.IndexType;
@@ -66,6 +67,8 @@ import org.opends.server.backends.pluggable.spi.Storage;
 import org.opends.server.backends.pluggable.spi.TreeName;
 import org.opends.server.backends.pluggable.spi.WriteOperation;
 import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.controls.ServerSideSortRequestControl;
+import org.opends.server.controls.VLVRequestControl;
 import org.opends.server.core.AddOperation;
 import org.opends.server.core.DeleteOperation;
 import org.opends.server.core.ModifyDNOperation;
@@ -76,6 +79,7 @@ import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.protocols.internal.InternalSearchOperation;
 import org.opends.server.protocols.internal.SearchRequest;
 import org.opends.server.types.BackupConfig;
+import org.opends.server.types.CanceledOperationException;
 import org.opends.server.types.BackupDirectory;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
@@ -117,6 +121,7 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
     backendIndexes.put("uid", new IndexType[] { IndexType.EQUALITY });
     backendIndexes.put("telephoneNumber", new IndexType[] { IndexType.EQUALITY, IndexType.SUBSTRING });
     backendIndexes.put("mail", new IndexType[] { IndexType.SUBSTRING });
+    backendIndexes.put("l", new IndexType[] { IndexType.PRESENCE });
   }
 
   private String[] backendVlvIndexes = { "people" };
@@ -154,6 +159,7 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
     when(backendCfg.getBaseDN()).thenReturn(newTreeSet(testBaseDN));
     when(backendCfg.listBackendIndexes()).thenReturn(backendIndexes.keySet().toArray(new String[0]));
     when(backendCfg.listBackendVLVIndexes()).thenReturn(backendVlvIndexes);
+    when(backendCfg.listBackendCompositeIndexes()).thenReturn(new String[0]);
 
     for (Map.Entry<String, IndexType[]> index : backendIndexes.entrySet())
     {
@@ -816,6 +822,44 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
     subTreeSearch(true);
   }
 
+  @Test
+  public void testNameOnlySearchCoveredByIndexes() throws Exception
+  {
+    // The presence index returns more candidates than the filter threshold, so the scope is applied
+    SearchRequest request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "(|(sn=*)(uid=user.1))");
+    List<SearchResultEntry> expected = runSearch(request, false);
+
+    request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "(|(sn=*)(uid=user.1))").addAttribute("1.1");
+    List<SearchResultEntry> result = runSearch(request, false);
+
+    assertThat(expected.size()).isGreaterThan(10);
+    assertThat(result).hasSameSizeAs(expected);
+    for (int i = 0; i < result.size(); i++)
+    {
+      assertThat(result.get(i).getName().toString()).isEqualTo(expected.get(i).getName().toString());
+      assertThat(result.get(i).getAllAttributes()).isEmpty();
+    }
+  }
+
+  @Test
+  public void testNameOnlySearchWithPresenceOnlyIndex() throws Exception
+  {
+    // The equality filter is evaluated with the presence index, whose candidates are not exact
+    SearchRequest request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "(l=Salem)");
+    List<SearchResultEntry> expected = runSearch(request, false);
+
+    request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "(l=Salem)").addAttribute("1.1");
+    List<SearchResultEntry> result = runSearch(request, false);
+
+    request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "(l=*)").addAttribute("1.1");
+    assertThat(runSearch(request, false).size()).isGreaterThan(10).isGreaterThan(expected.size());
+    assertThat(result).hasSameSizeAs(expected);
+    for (int i = 0; i < result.size(); i++)
+    {
+      assertThat(result.get(i).getName().toString()).isEqualTo(expected.get(i).getName().toString());
+    }
+  }
+
   @Test
   public void testSubTreeSearchAgainstAnIndexWithUnrecognizedMatchingRule() throws Exception
   {
@@ -868,6 +912,104 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
     assertThat(searchOperation.getEntriesSent()).isEqualTo(0);
   }
 
+  @Test
+  public void testVLVOffsetPageIsExactAfterAbortedAdds() throws Exception
+  {
+    // Enough entries for the VLV index to use its sampled position index
+    final int nbEntries = VLVPositionIndex.SAMPLE_INTERVAL + 100;
+    final List<Entry> vlvEntries = new ArrayList<>();
+    for (int i = 0; i < nbEntries; i++)
+    {
+      vlvEntries.add(makeVLVEntry("vlv." + i, String.format("Zz%05d", i)));
+    }
+    addEntriesToBackend(vlvEntries);
+    try
+    {
+      final EntryContainer entryContainer = backend.getRootContainer().getEntryContainers().iterator().next();
+      final VLVIndex vlvIndex = entryContainer.getVLVIndexes().iterator().next();
+      backend.getRootContainer().getStorage().read(new ReadOperation<Void>()
+      {
+        @Override
+        public Void run(ReadableTransaction txn) throws Exception
+        {
+          vlvIndex.getPositionIndex().rebuild(txn, vlvIndex.getName());
+          return null;
+        }
+      });
+
+      // Aborted adds of keys sorting first, which the position index counts
+      final AddOperation abortedAdd = mock(AddOperation.class);
+      doThrow(new CanceledOperationException(null)).when(abortedAdd).checkIfCanceled(true);
+      for (int i = 0; i < 50; i++)
+      {
+        try
+        {
+          backend.addEntry(makeVLVEntry("aborted." + i, String.format("Aa%05d", i)), abortedAdd);
+          fail("The add should have been aborted");
+        }
+        catch (CanceledOperationException expected)
+        {
+          // Nothing to do
+        }
+      }
+
+      final int nbOtherPersons = countPersons() - nbEntries;
+      final List<Entry> page = searchVLVPage(nbOtherPersons + 1051, 4);
+      final Set<DN> expected = new HashSet<>();
+      for (int i = 1050; i < 1055; i++)
+      {
+        expected.add(vlvEntries.get(i).getName());
+      }
+      final Set<DN> actual = new HashSet<>();
+      for (Entry entry : page)
+      {
+        actual.add(entry.getName());
+      }
+      assertThat(actual).isEqualTo(expected);
+    }
+    finally
+    {
+      for (Entry entry : vlvEntries)
+      {
+        backend.deleteEntry(entry.getName(), mock(DeleteOperation.class));
+      }
+    }
+  }
+
+  private Entry makeVLVEntry(String uid, String sn) throws Exception
+  {
+    return TestCaseUtils.makeEntry(
+        "dn: uid=" + uid + ",ou=People," + testBaseDN,
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: " + uid,
+        "sn: " + sn,
+        "cn: " + uid);
+  }
+
+  private int countPersons() throws Exception
+  {
+    final List<Entry> persons = new ArrayList<>();
+    backend.search(createSearchOperation(testBaseDN, SearchScope.WHOLE_SUBTREE, "(objectClass=person)", persons));
+    return persons.size();
+  }
+
+  private List<Entry> searchVLVPage(int offset, int afterCount) throws Exception
+  {
+    final List<Entry> returnedEntries = new ArrayList<>();
+    final SearchOperation searchOp =
+        createSearchOperation(testBaseDN, SearchScope.WHOLE_SUBTREE, "(objectClass=person)", returnedEntries);
+    when(searchOp.getRequestControl(ServerSideSortRequestControl.DECODER))
+        .thenReturn(new ServerSideSortRequestControl(Arrays.asList(
+            new SortKey("sn", false), new SortKey("employeeNumber", true), new SortKey("uid", false))));
+    when(searchOp.getRequestControl(VLVRequestControl.DECODER))
+        .thenReturn(new VLVRequestControl(0, afterCount, offset, 0));
+    backend.search(searchOp);
+    return returnedEntries;
+  }
+
   private void subTreeSearch(boolean useInternalConnection) throws Exception
   {
     SearchRequest request = newSearchRequest(testBaseDN, SearchScope.WHOLE_SUBTREE, "objectclass=*");
@@ -1161,6 +1303,7 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
     when(backendCfg.getBaseDN()).thenReturn(newTreeSet(testBaseDN));
     when(backendCfg.listBackendIndexes()).thenReturn(new String[0]);
     when(backendCfg.listBackendVLVIndexes()).thenReturn(new String[0]);
+    when(backendCfg.listBackendCompositeIndexes()).thenReturn(new String[0]);
 
     ServerContext serverContext = TestCaseUtils.getServerContext();
     final Storage storage = backend.configureStorage(backendCfg, serverContext);
@@ -0,0 +1,114 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.SortKey;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.SearchFilter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, sequential=true)
+public class SortResultCacheTest extends DirectoryServerTestCase
+{
+  private static final long[] SORTED_IDS = { 3, 1, 2 };
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  private static SortResultCache.Key key(String filter, String authorizationDN) throws Exception
+  {
+    return new SortResultCache.Key(DN.valueOf("dc=example,dc=com"), SearchScope.WHOLE_SUBTREE,
+        SearchFilter.createFilterFromString(filter), Arrays.asList(new SortKey("cn")),
+        authorizationDN != null ? DN.valueOf(authorizationDN) : null);
+  }
+
+  @Test
+  public void testGetAndPut() throws Exception
+  {
+    final SortResultCache cache = new SortResultCache(1024 * 1024);
+    assertThat(cache.get(key("(objectClass=person)", null), 0)).isNull();
+
+    cache.put(key("(objectClass=person)", null), 0, SORTED_IDS);
+    assertThat(cache.get(key("(objectClass=person)", null), 0)).isSameAs(SORTED_IDS);
+    assertThat(cache.get(key("(objectClass=person)", "uid=user.0,dc=example,dc=com"), 0)).isNull();
+    assertThat(cache.get(key("(objectClass=groupOfNames)", null), 0)).isNull();
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void testModificationsInvalidateTheCache() throws Exception
+  {
+    final SortResultCache cache = new SortResultCache(1024 * 1024);
+    cache.put(key("(objectClass=person)", null), 0, SORTED_IDS);
+
+    // An entry was modified
+    assertThat(cache.get(key("(objectClass=person)", null), 1)).isNull();
+    assertThat(cache.size()).isEqualTo(0);
+
+    // A search which started before the modification must not populate the cache
+    cache.put(key("(objectClass=person)", null), 0, SORTED_IDS);
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(cache.get(key("(objectClass=person)", null), 1)).isNull();
+  }
+
+  @Test
+  public void testCacheIsBoundedByMemory() throws Exception
+  {
+    final SortResultCache cache = new SortResultCache(8 * 1024);
+    final long[] largeSortedIDs = new long[3000];
+    assertThat(cache.canCache(largeSortedIDs.length)).isFalse();
+    cache.put(key("(cn=large)", null), 0, largeSortedIDs);
+    assertThat(cache.size()).isEqualTo(0);
+
+    final long[] sortedIDs = new long[100];
+    for (int i = 0; i < 20; i++)
+    {
+      cache.put(key("(cn=user" + i + ")", null), 0, sortedIDs);
+    }
+    assertThat(cache.size()).isLessThan(20);
+    // The least recently used searches were evicted
+    assertThat(cache.get(key("(cn=user0)", null), 0)).isNull();
+    assertThat(cache.get(key("(cn=user19)", null), 0)).isSameAs(sortedIDs);
+
+    cache.clear();
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(cache.get(key("(cn=user19)", null), 0)).isNull();
+  }
+
+  @Test
+  public void testKeyEquality() throws Exception
+  {
+    assertThat(key("(cn=test)", "uid=user.0,dc=example,dc=com"))
+        .isEqualTo(key("(cn=test)", "uid=user.0,dc=example,dc=com"));
+    assertThat(key("(cn=test)", null).hashCode()).isEqualTo(key("(cn=test)", null).hashCode());
+    assertThat(key("(cn=test)", null)).isNotEqualTo(key("(cn=other)", null));
+    assertThat(Collections.singleton(key("(cn=test)", null))).contains(key("(cn=test)", null));
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.backends.pluggable.VLVPositionIndex.SAMPLE_INTERVAL;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.backends.pluggable.DefaultIndexTest.DummyWriteableTransaction;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, sequential = true)
+public class VLVPositionIndexTest extends DirectoryServerTestCase
+{
+  private static final int NB_KEYS = 2 * SAMPLE_INTERVAL + 500;
+  private static final TreeName VLV_INDEX = new TreeName("dc=example,dc=com", "vlv.test");
+
+  private WriteableTransaction txn;
+  private VLVPositionIndex positionIndex;
+
+  @BeforeMethod
+  public void setUp()
+  {
+    txn = new DummyWriteableTransaction();
+    txn.openTree(VLV_INDEX, true);
+    for (int i = 0; i < NB_KEYS; i++)
+    {
+      txn.put(VLV_INDEX, key(2 * i), ByteString.empty());
+    }
+    positionIndex = new VLVPositionIndex();
+    positionIndex.rebuild(txn, VLV_INDEX);
+  }
+
+  private static ByteString key(int i)
+  {
+    return new ByteStringBuilder().appendInt(i).toByteString();
+  }
+
+  @Test
+  public void testFloorByPosition()
+  {
+    assertThat(positionIndex.isUsable(NB_KEYS)).isTrue();
+    assertThat(positionIndex.floorByPosition(0).getPosition()).isEqualTo(0);
+    assertThat(positionIndex.floorByPosition(0).getKey()).isEqualTo(ByteString.empty());
+
+    final VLVPositionIndex.Sample sample = positionIndex.floorByPosition(SAMPLE_INTERVAL + 500);
+    assertThat(sample.getPosition()).isEqualTo(SAMPLE_INTERVAL);
+    assertThat(sample.getKey()).isEqualTo(key(2 * SAMPLE_INTERVAL));
+
+    // Beyond the end of the index
+    assertThat(positionIndex.floorByPosition(10 * NB_KEYS).getPosition()).isEqualTo(2 * SAMPLE_INTERVAL);
+  }
+
+  @Test
+  public void testFloorByKey()
+  {
+    final VLVPositionIndex.Sample sample = positionIndex.floorByKey(key(4 * SAMPLE_INTERVAL + 3));
+    assertThat(sample.getPosition()).isEqualTo(2 * SAMPLE_INTERVAL);
+    assertThat(sample.getKey()).isEqualTo(key(4 * SAMPLE_INTERVAL));
+    assertThat(positionIndex.floorByKey(key(1)).getPosition()).isEqualTo(0);
+  }
+
+  @Test
+  public void testUpdatesShiftTheFollowingBuckets()
+  {
+    positionIndex.keyAdded(key(1));
+    positionIndex.keyAdded(key(3));
+    positionIndex.keyRemoved(key(2 * SAMPLE_INTERVAL + 2));
+
+    assertThat(positionIndex.floorByKey(key(2 * SAMPLE_INTERVAL + 5)).getPosition()).isEqualTo(SAMPLE_INTERVAL + 2);
+    assertThat(positionIndex.floorByKey(key(4 * SAMPLE_INTERVAL)).getPosition()).isEqualTo(2 * SAMPLE_INTERVAL + 1);
+    assertThat(positionIndex.isUsable(NB_KEYS + 1)).isTrue();
+  }
+
+  @Test
+  public void testDriftMakesTheSamplesUnusable()
+  {
+    assertThat(positionIndex.isUsable(NB_KEYS + 100)).isTrue();
+    assertThat(positionIndex.isUsable(NB_KEYS + 101)).isFalse();
+
+    for (int i = 0; i < 4 * SAMPLE_INTERVAL; i++)
+    {
+      positionIndex.keyAdded(key(1));
+    }
+    assertThat(positionIndex.isUsable(NB_KEYS + 4 * SAMPLE_INTERVAL)).isFalse();
+
+    positionIndex.rebuild(txn, VLV_INDEX);
+    assertThat(positionIndex.isUsable(NB_KEYS)).isTrue();
+  }
+
+  @Test
+  public void testClear()
+  {
+    positionIndex.clear();
+    assertThat(positionIndex.isUsable(NB_KEYS)).isFalse();
+    assertThat(positionIndex.floorByKey(key(0))).isNull();
+    assertThat(positionIndex.floorByPosition(0)).isNull();
+  }
+}
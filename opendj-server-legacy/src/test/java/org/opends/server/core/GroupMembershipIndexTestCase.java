@@ -0,0 +1,186 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.core;
+
+import static java.util.Arrays.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.api.Group;
+import org.opends.server.types.Entry;
+import org.opends.server.types.MemberList;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests the reverse membership index of the group manager. */
+@SuppressWarnings("javadoc")
+public class GroupMembershipIndexTestCase extends CoreTestCase
+{
+  private static final DN USER1 = DN.valueOf("uid=user.1,ou=people,o=test");
+  private static final DN USER2 = DN.valueOf("uid=user.2,ou=people,o=test");
+  private static final DN GROUP1 = DN.valueOf("cn=group 1,ou=groups,o=test");
+  private static final DN GROUP2 = DN.valueOf("cn=group 2,ou=groups,o=test");
+  private static final DN GROUP3 = DN.valueOf("cn=group 3,ou=groups,o=test");
+  private static final DN DYNAMIC = DN.valueOf("cn=dynamic,ou=groups,o=test");
+
+  private GroupMembershipIndex index;
+
+  @BeforeMethod
+  public void setUp()
+  {
+    index = new GroupMembershipIndex();
+  }
+
+  private static Group<?> staticGroup(DN groupDN, DN... members) throws Exception
+  {
+    final Group<?> group = mock(Group.class);
+    when(group.getGroupDN()).thenReturn(groupDN);
+    when(group.mayAlterMemberList()).thenReturn(true);
+    setMembers(group, members);
+    return group;
+  }
+
+  private static void setMembers(Group<?> group, DN... members) throws Exception
+  {
+    final List<DN> memberDNs = asList(members);
+    doReturn(new MemberList()
+    {
+      private final Iterator<DN> iterator = memberDNs.iterator();
+
+      @Override
+      public boolean hasMoreMembers()
+      {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public DN nextMemberDN()
+      {
+        return iterator.next();
+      }
+
+      @Override
+      public Entry nextMemberEntry()
+      {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void close()
+      {
+        // Nothing to do.
+      }
+    }).when(group).getMembers();
+  }
+
+  @Test
+  public void testDirectMembership() throws Exception
+  {
+    index.addGroup(staticGroup(GROUP1, USER1, USER2));
+    index.addGroup(staticGroup(GROUP2, USER2));
+
+    assertThat(index.isIndexed(GROUP1)).isTrue();
+    assertThat(index.getGroupsOf(USER1)).containsOnly(GROUP1);
+    assertThat(index.getGroupsOf(USER2)).containsOnly(GROUP1, GROUP2);
+    assertThat(index.getGroupsOf(GROUP1)).isEmpty();
+  }
+
+  @Test
+  public void testNestedGroupsWithCycle() throws Exception
+  {
+    index.addGroup(staticGroup(GROUP1, GROUP2));
+    index.addGroup(staticGroup(GROUP2, GROUP3, USER2));
+    index.addGroup(staticGroup(GROUP3, USER1, GROUP1));
+
+    assertThat(index.getGroupsOf(USER1)).containsOnly(GROUP1, GROUP2, GROUP3);
+    assertThat(index.getGroupsOf(USER2)).containsOnly(GROUP1, GROUP2, GROUP3);
+    assertThat(index.getClosure(GROUP2)).containsOnly(GROUP1, GROUP2, GROUP3);
+  }
+
+  @Test
+  public void testUpdateAndRemoveGroup() throws Exception
+  {
+    final Group<?> group2 = staticGroup(GROUP2, USER1);
+    index.addGroup(staticGroup(GROUP1, GROUP2));
+    index.addGroup(group2);
+    assertThat(index.getGroupsOf(USER1)).containsOnly(GROUP1, GROUP2);
+
+    setMembers(group2, USER2);
+    index.updateGroup(group2);
+    assertThat(index.getGroupsOf(USER1)).isEmpty();
+    assertThat(index.getGroupsOf(USER2)).containsOnly(GROUP1, GROUP2);
+
+    index.removeGroup(GROUP1);
+    assertThat(index.getGroupsOf(USER2)).containsOnly(GROUP2);
+    assertThat(index.isIndexed(GROUP1)).isFalse();
+  }
+
+  @Test
+  public void testDeltaUpdates() throws Exception
+  {
+    index.addGroup(staticGroup(GROUP1, GROUP2));
+    index.addGroup(staticGroup(GROUP2, USER1));
+    assertThat(index.getClosure(GROUP3)).containsOnly(GROUP3);
+
+    index.updateGroup(GROUP2, asList(USER2, GROUP3), asList(USER1));
+    assertThat(index.getGroupsOf(USER1)).isEmpty();
+    assertThat(index.getGroupsOf(USER2)).containsOnly(GROUP1, GROUP2);
+
+    index.addGroup(staticGroup(GROUP3));
+    assertThat(index.getClosure(GROUP3)).containsOnly(GROUP1, GROUP2, GROUP3);
+    index.updateGroup(GROUP2, Collections.<DN> emptyList(), asList(GROUP3));
+    assertThat(index.getClosure(GROUP3)).containsOnly(GROUP3);
+
+    // Groups which are not indexed are ignored
+    index.updateGroup(DYNAMIC, asList(USER1), Collections.<DN> emptyList());
+    assertThat(index.getGroupsOf(USER1)).isEmpty();
+  }
+
+  @Test
+  public void testRemoveGroupAfterDeltaUpdates() throws Exception
+  {
+    index.addGroup(staticGroup(GROUP1, USER1));
+    index.addGroup(staticGroup(GROUP2, USER1));
+    index.updateGroup(GROUP1, asList(USER2), Collections.<DN> emptyList());
+
+    index.removeGroup(GROUP1);
+    assertThat(index.getGroupsOf(USER1)).containsOnly(GROUP2);
+    assertThat(index.getGroupsOf(USER2)).isEmpty();
+  }
+
+  @Test
+  public void testUnindexedGroups() throws Exception
+  {
+    final Group<?> dynamicGroup = mock(Group.class);
+    when(dynamicGroup.getGroupDN()).thenReturn(DYNAMIC);
+    when(dynamicGroup.mayAlterMemberList()).thenReturn(false);
+    index.addGroup(dynamicGroup);
+    index.addGroup(staticGroup(GROUP1, DYNAMIC));
+
+    assertThat(index.isIndexed(DYNAMIC)).isFalse();
+    assertThat(index.getUnindexedGroups()).containsOnly(dynamicGroup);
+    assertThat(index.getClosure(DYNAMIC)).containsOnly(DYNAMIC, GROUP1);
+
+    index.clear();
+    assertThat(index.getUnindexedGroups()).isEmpty();
+    assertThat(index.getClosure(DYNAMIC)).containsOnly(DYNAMIC);
+  }
+}
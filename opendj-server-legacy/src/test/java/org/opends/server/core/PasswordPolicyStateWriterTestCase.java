@@ -0,0 +1,90 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.core;
+
+import static java.util.Collections.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ModificationType;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.Attributes;
+import org.opends.server.types.Modification;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/** Tests the writer of the delayed password policy state updates. */
+@SuppressWarnings("javadoc")
+public class PasswordPolicyStateWriterTestCase extends CoreTestCase
+{
+  private static final DN USER = DN.valueOf("uid=writer.user,o=test");
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startServer();
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntry(
+        "dn: " + USER,
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: writer.user",
+        "sn: User",
+        "cn: Writer User");
+  }
+
+  private static Modification replaceDescription(String value)
+  {
+    return new Modification(ModificationType.REPLACE, Attributes.create("description", value), true);
+  }
+
+  private static String getDescription() throws Exception
+  {
+    return DirectoryServer.getEntry(USER).parseAttribute("description").asString();
+  }
+
+  @Test
+  public void testUpdatesAreCoalesced() throws Exception
+  {
+    PasswordPolicyStateWriter writer = PasswordPolicyStateWriter.getInstance();
+    writer.delay(USER, singletonList(replaceDescription("first")), TimeUnit.HOURS.toMillis(1));
+    writer.delay(USER, singletonList(replaceDescription("second")), TimeUnit.HOURS.toMillis(1));
+    assertThat(writer.getPendingUserCount()).isEqualTo(1);
+    assertThat(getDescription()).isNotEqualTo("second");
+
+    writer.flush();
+    assertThat(writer.getPendingUserCount()).isEqualTo(0);
+    assertThat(getDescription()).isEqualTo("second");
+  }
+
+  @Test
+  public void testUpdatesAreWrittenAfterDelay() throws Exception
+  {
+    PasswordPolicyStateWriter writer = PasswordPolicyStateWriter.getInstance();
+    writer.delay(USER, singletonList(replaceDescription("delayed")), 10);
+
+    long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    while (!"delayed".equals(getDescription()) && System.currentTimeMillis() < timeout)
+    {
+      Thread.sleep(10);
+    }
+    assertThat(getDescription()).isEqualTo("delayed");
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.Entry;
+import org.opends.server.types.SubEntry;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/** Tests the subentry index of the subentry manager. */
+@SuppressWarnings("javadoc")
+public class SubentryIndexTestCase extends CoreTestCase
+{
+  private static final DN PEOPLE = DN.valueOf("ou=people,o=test");
+  private static final DN USER = DN.valueOf("uid=user.0,ou=people,o=test");
+  private static final DN ADMIN = DN.valueOf("uid=admin,ou=people,o=test");
+  private static final DN DEEP = DN.valueOf("cn=device,uid=user.0,ou=people,o=test");
+
+  private SubEntry suffixSubentry;
+  private SubEntry peopleSubentry;
+  private SubEntry choppedSubentry;
+  private SubEntry filteredSubentry;
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startServer();
+    suffixSubentry = subentry("cn=suffix,o=test", "{}");
+    peopleSubentry = subentry("cn=people,o=test", "{ base \"ou=people\", maximum 1 }");
+    choppedSubentry = subentry("cn=chopped,o=test",
+        "{ base \"ou=people\", specificExclusions { chopBefore:\"uid=admin\" } }");
+    filteredSubentry = subentry("cn=filtered,o=test", "{ specificationFilter \"(objectClass=person)\" }");
+  }
+
+  private static SubEntry subentry(String dn, String subtreeSpecification) throws Exception
+  {
+    return new SubEntry(TestCaseUtils.makeEntry(
+        "dn: " + dn,
+        "objectClass: top",
+        "objectClass: subentry",
+        "subtreeSpecification: " + subtreeSpecification,
+        "cn: " + DN.valueOf(dn).rdn().getFirstAVA().getAttributeValue().toString()));
+  }
+
+  private static Entry person(DN dn) throws Exception
+  {
+    return TestCaseUtils.makeEntry(
+        "dn: " + dn,
+        "objectClass: top",
+        "objectClass: person",
+        "sn: sn",
+        "cn: cn");
+  }
+
+  private SubentryIndex newIndex()
+  {
+    return SubentryIndex.EMPTY.add(suffixSubentry).add(peopleSubentry).add(choppedSubentry).add(filteredSubentry);
+  }
+
+  @Test
+  public void testApplicableSubentries() throws Exception
+  {
+    SubentryIndex index = newIndex();
+
+    // Ask twice to check the cached results
+    for (int i = 0; i < 2; i++)
+    {
+      assertThat(index.getSubentries(PEOPLE)).containsExactly(
+          peopleSubentry, choppedSubentry, suffixSubentry, filteredSubentry);
+      assertThat(index.getSubentries(USER)).containsExactly(
+          peopleSubentry, choppedSubentry, suffixSubentry, filteredSubentry);
+      assertThat(index.getSubentries(ADMIN)).containsExactly(peopleSubentry, suffixSubentry, filteredSubentry);
+      assertThat(index.getSubentries(DEEP)).containsExactly(choppedSubentry, suffixSubentry, filteredSubentry);
+      assertThat(index.getSubentries(person(USER))).containsExactly(
+          peopleSubentry, choppedSubentry, suffixSubentry, filteredSubentry);
+    }
+    assertThat(index.getSubentries(DN.valueOf("o=other"))).isEmpty();
+    assertThat(index.getSubentries(DN.rootDN())).isEmpty();
+  }
+
+  @Test
+  public void testSpecificationFilter() throws Exception
+  {
+    SubentryIndex index = newIndex();
+    Entry people = TestCaseUtils.makeEntry(
+        "dn: " + PEOPLE,
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: people");
+
+    assertThat(index.getSubentries(people)).containsExactly(peopleSubentry, choppedSubentry, suffixSubentry);
+  }
+
+  @Test
+  public void testChangesCreateNewIndex() throws Exception
+  {
+    SubentryIndex index = newIndex();
+    assertThat(index.getSubentries(USER)).contains(peopleSubentry);
+
+    SubentryIndex newIndex = index.remove(peopleSubentry.getDN());
+    assertThat(newIndex.getSubentries(USER)).containsExactly(choppedSubentry, suffixSubentry, filteredSubentry);
+    assertThat(index.getSubentries(USER)).contains(peopleSubentry);
+    assertThat(newIndex.remove(peopleSubentry.getDN())).isSameAs(newIndex);
+    assertThat(newIndex.getSubentries()).hasSize(3);
+    assertThat(SubentryIndex.EMPTY.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void testCollectiveAttributeTypes() throws Exception
+  {
+    SubEntry collectiveSubentry = new SubEntry(TestCaseUtils.makeEntry(
+        "dn: cn=collective,o=test",
+        "objectClass: top",
+        "objectClass: subentry",
+        "objectClass: collectiveAttributeSubentry",
+        "objectClass: extensibleObject",
+        "c-l: Savoie",
+        "subtreeSpecification: {}",
+        "cn: collective"));
+
+    SubentryIndex index = newIndex();
+    assertThat(index.getCollectiveAttributeTypes()).isEmpty();
+    SubentryIndex newIndex = index.add(collectiveSubentry);
+    assertThat(newIndex.getCollectiveAttributeTypes()).containsOnly(
+        DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType("c-l"));
+    assertThat(newIndex.remove(collectiveSubentry.getDN()).getCollectiveAttributeTypes()).isEmpty();
+  }
+}
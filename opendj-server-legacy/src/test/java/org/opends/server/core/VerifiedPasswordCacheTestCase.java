@@ -0,0 +1,66 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.testng.annotations.Test;
+
+/** Tests the cache of the verified passwords. */
+@SuppressWarnings("javadoc")
+public class VerifiedPasswordCacheTestCase extends CoreTestCase
+{
+  private static final DN USER1 = DN.valueOf("uid=user.1,ou=people,o=test");
+  private static final DN USER2 = DN.valueOf("uid=user.2,ou=people,o=test");
+  private static final ByteString PASSWORD = ByteString.valueOfUtf8("password");
+  private static final ByteString STORED = ByteString.valueOfUtf8("{PBKDF2}10000:c2FsdA==");
+
+  @Test
+  public void testVerifiedPassword() throws Exception
+  {
+    VerifiedPasswordCache cache = new VerifiedPasswordCache(60000, 10);
+    assertThat(cache.isVerified(USER1, PASSWORD, STORED)).isFalse();
+
+    cache.verified(USER1, PASSWORD, STORED);
+    assertThat(cache.isVerified(USER1, PASSWORD, STORED)).isTrue();
+    assertThat(cache.isVerified(USER1, ByteString.valueOfUtf8("wrong"), STORED)).isFalse();
+    assertThat(cache.isVerified(USER1, PASSWORD, ByteString.valueOfUtf8("{PBKDF2}10000:b3RoZXI="))).isFalse();
+    assertThat(cache.isVerified(USER2, PASSWORD, STORED)).isFalse();
+
+    cache.invalidate(USER1);
+    assertThat(cache.isVerified(USER1, PASSWORD, STORED)).isFalse();
+  }
+
+  @Test
+  public void testExpiration() throws Exception
+  {
+    VerifiedPasswordCache cache = new VerifiedPasswordCache(0, 10);
+    cache.verified(USER1, PASSWORD, STORED);
+    assertThat(cache.isVerified(USER1, PASSWORD, STORED)).isFalse();
+  }
+
+  @Test
+  public void testLeastRecentlyUsedUsersAreEvicted() throws Exception
+  {
+    VerifiedPasswordCache cache = new VerifiedPasswordCache(60000, 1);
+    cache.verified(USER1, PASSWORD, STORED);
+    cache.verified(USER2, PASSWORD, STORED);
+    assertThat(cache.isVerified(USER1, PASSWORD, STORED)).isFalse();
+    assertThat(cache.isVerified(USER2, PASSWORD, STORED)).isTrue();
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.extensions;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opends.server.extensions.TraditionalWorkQueue.OperationClass;
+import org.opends.server.types.Operation;
+import org.opends.server.types.OperationType;
+import org.testng.annotations.Test;
+
+/** Tests the queue of pending operations of the traditional work queue. */
+@SuppressWarnings("javadoc")
+public class FairOperationQueueTestCase extends ExtensionsTestCase
+{
+  private static Operation operation(OperationType type)
+  {
+    Operation operation = mock(Operation.class);
+    when(operation.getOperationType()).thenReturn(type);
+    return operation;
+  }
+
+  @Test
+  public void testOperationClasses()
+  {
+    assertThat(OperationClass.of(operation(OperationType.BIND))).isEqualTo(OperationClass.BIND);
+    assertThat(OperationClass.of(operation(OperationType.MODIFY_DN))).isEqualTo(OperationClass.WRITE);
+    assertThat(OperationClass.of(operation(OperationType.COMPARE))).isEqualTo(OperationClass.SEARCH);
+    assertThat(OperationClass.of(operation(OperationType.EXTENDED))).isEqualTo(OperationClass.OTHER);
+  }
+
+  @Test
+  public void testClassesAreServedInTurn() throws Exception
+  {
+    FairOperationQueue queue = new FairOperationQueue(10);
+    Operation bind1 = operation(OperationType.BIND);
+    Operation bind2 = operation(OperationType.BIND);
+    Operation search = operation(OperationType.SEARCH);
+    assertThat(queue.offer(bind1)).isTrue();
+    assertThat(queue.offer(bind2)).isTrue();
+    assertThat(queue.offer(search)).isTrue();
+    assertThat(queue.size()).isEqualTo(3);
+    assertThat(queue.size(OperationClass.BIND)).isEqualTo(2);
+
+    assertThat(queue.poll(0, TimeUnit.SECONDS)).isSameAs(bind1);
+    assertThat(queue.poll(0, TimeUnit.SECONDS)).isSameAs(search);
+    assertThat(queue.poll(0, TimeUnit.SECONDS)).isSameAs(bind2);
+    assertThat(queue.poll(0, TimeUnit.SECONDS)).isNull();
+    assertThat(queue.getSubmitted(OperationClass.BIND)).isEqualTo(2);
+    assertThat(queue.getInProgress(OperationClass.BIND)).isEqualTo(2);
+  }
+
+  @Test
+  public void testConcurrencyLimit() throws Exception
+  {
+    FairOperationQueue queue = new FairOperationQueue(10);
+    queue.setMaxInProgress(OperationClass.BIND, 1);
+    Operation bind1 = operation(OperationType.BIND);
+    Operation bind2 = operation(OperationType.BIND);
+    Operation modify = operation(OperationType.MODIFY);
+    queue.offer(bind1);
+    queue.offer(bind2);
+    queue.offer(modify);
+
+    assertThat(queue.poll(0, TimeUnit.SECONDS)).isSameAs(bind1);
+    assertThat(queue.poll(0, TimeUnit.SECONDS)).isSameAs(modify);
+    // The second bind must wait for the first one to complete
+    assertThat(queue.poll(0, TimeUnit.SECONDS)).isNull();
+    assertThat(queue.poll(0, TimeUnit.SECONDS)).isNull();
+    // The second bind is only counted once, however many times it is left pending
+    assertThat(queue.getThrottled(OperationClass.BIND)).isEqualTo(1);
+
+    queue.completed(bind1);
+    assertThat(queue.poll(0, TimeUnit.SECONDS)).isSameAs(bind2);
+
+    queue.completed(bind2);
+    queue.setMaxInProgress(OperationClass.BIND, null);
+    queue.offer(bind1);
+    queue.offer(bind2);
+    assertThat(queue.poll(0, TimeUnit.SECONDS)).isSameAs(bind1);
+    assertThat(queue.poll(0, TimeUnit.SECONDS)).isSameAs(bind2);
+  }
+
+  @Test
+  public void testCapacity() throws Exception
+  {
+    FairOperationQueue queue = new FairOperationQueue(1);
+    assertThat(queue.offer(operation(OperationType.SEARCH))).isTrue();
+    assertThat(queue.offer(operation(OperationType.BIND))).isFalse();
+    assertThat(queue.offer(operation(OperationType.BIND), 10, TimeUnit.MILLISECONDS)).isFalse();
+
+    queue.setCapacity(2);
+    assertThat(queue.offer(operation(OperationType.BIND))).isTrue();
+
+    List<Operation> pending = new ArrayList<>();
+    queue.drainTo(pending);
+    assertThat(pending).hasSize(2);
+    assertThat(queue.size()).isEqualTo(0);
+  }
+}
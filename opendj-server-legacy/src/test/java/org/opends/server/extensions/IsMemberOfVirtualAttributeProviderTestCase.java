@@ -864,6 +864,84 @@ public class IsMemberOfVirtualAttributeProviderTestCase
   }
 
 
+  /**
+   * Tests that the candidate entries of an equality assertion are the members
+   * of the group, including the members of its nested groups.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testGetCandidateEntryDNs() throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntries(
+        "dn: ou=People,o=test",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: People",
+        "",
+        "dn: uid=test.user,ou=People,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: test.user",
+        "givenName: Test",
+        "sn: User",
+        "cn: Test User",
+        "",
+        "dn: ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: Groups",
+        "",
+        "dn: cn=Test Group 1,ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: groupOfNames",
+        "cn: Test Group 1",
+        "member: uid=test.user,ou=People,o=test",
+        "",
+        "dn: cn=Test Group 2,ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: groupOfNames",
+        "cn: Test Group 2",
+        "member: cn=Test Group 1,ou=Groups,o=test",
+        "",
+        "dn: cn=Test Dynamic Group,ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: groupOfURLs",
+        "cn: Test Dynamic Group",
+        "memberURL: ldap:///ou=People,o=test??sub?(sn=user)");
+
+    IsMemberOfVirtualAttributeProvider provider =
+        new IsMemberOfVirtualAttributeProvider();
+    VirtualAttributeRule rule = buildRule(provider);
+    SearchRequest request = newSearchRequest(DN.valueOf("o=test"), SearchScope.WHOLE_SUBTREE,
+        "isMemberOf=cn=Test Group 2,ou=Groups,o=test");
+    LocalBackendSearchOperation searchOperation = new LocalBackendSearchOperation(new InternalSearchOperation(
+        getRootConnection(), nextOperationID(), nextMessageID(), request, null));
+
+    SearchFilter filter = SearchFilter.createFilterFromString("(isMemberOf=cn=Test Group 2,ou=Groups,o=test)");
+    assertEquals(provider.getCandidateEntryDNs(rule, searchOperation, filter, 10),
+        newHashSet(DN.valueOf("cn=Test Group 1,ou=Groups,o=test"), DN.valueOf("uid=test.user,ou=People,o=test")));
+    // Too many members
+    assertNull(provider.getCandidateEntryDNs(rule, searchOperation, filter, 1));
+    // Not a group
+    filter = SearchFilter.createFilterFromString("(isMemberOf=ou=People,o=test)");
+    assertEquals(provider.getCandidateEntryDNs(rule, searchOperation, filter, 10), Collections.emptySet());
+    // Listing the members would search the backends
+    filter = SearchFilter.createFilterFromString("(isMemberOf=cn=Test Dynamic Group,ou=Groups,o=test)");
+    assertNull(provider.getCandidateEntryDNs(rule, searchOperation, filter, 10));
+    // Not an equality assertion
+    filter = SearchFilter.createFilterFromString("(isMemberOf=*)");
+    assertNull(provider.getCandidateEntryDNs(rule, searchOperation, filter, 10));
+
+    delete("cn=test group 1,ou=groups,o=test",
+        "cn=test group 2,ou=groups,o=test",
+        "cn=test dynamic group,ou=groups,o=test");
+  }
+
+
   /**
    * Tests if a search using ismemberof works for a dynamic group with large
    * number of entries to simulate unindexed searches.
@@ -0,0 +1,239 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.extensions;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.forgerock.opendj.ldap.requests.Requests.*;
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ModifyDNOperation;
+import org.opends.server.types.Entry;
+import org.opends.server.types.LDAPURL;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/** Tests the members of materialized dynamic groups. */
+@SuppressWarnings("javadoc")
+public class MaterializedDynamicGroupMembersTestCase extends ExtensionsTestCase
+{
+  private static final DN GROUP = DN.valueOf("cn=Test Group of URLs,o=test");
+  private static final DN USER0 = DN.valueOf("uid=user.0,ou=People,o=test");
+  private static final DN USER1 = DN.valueOf("uid=user.1,ou=People,o=test");
+  private static final DN USER2 = DN.valueOf("uid=user.2,ou=People,o=test");
+  private static final DN USER3 = DN.valueOf("uid=user.3,ou=People,o=test");
+  private static final DN STAGING = DN.valueOf("ou=Staging,o=test");
+  private static final DN MOVED_STAGING = DN.valueOf("ou=Staging,ou=People,o=test");
+  private static final DN MOVED_USER4 = DN.valueOf("uid=user.4,ou=Staging,ou=People,o=test");
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startServer();
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntries(
+        "dn: ou=People,o=test",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: People",
+        "",
+        user(1),
+        "",
+        user(2),
+        "",
+        user(3));
+  }
+
+  private static String user(int i)
+  {
+    return "dn: uid=user." + i + ",ou=People,o=test\n"
+        + "objectClass: top\n"
+        + "objectClass: person\n"
+        + "objectClass: organizationalPerson\n"
+        + "objectClass: inetOrgPerson\n"
+        + "uid: user." + i + "\n"
+        + "sn: " + i + "\n"
+        + "cn: User " + i;
+  }
+
+  private static Entry userEntry(int i, int sn) throws Exception
+  {
+    return TestCaseUtils.makeEntry(user(i).replace("sn: " + i, "sn: " + sn).split("\n"));
+  }
+
+  private static MaterializedDynamicGroupMembers newMembers() throws Exception
+  {
+    return new MaterializedDynamicGroupMembers(DirectoryServer.getInstance().getServerContext(), GROUP,
+        Collections.singleton(LDAPURL.decode("ldap:///ou=People,o=test??sub?(sn<=2)", true)));
+  }
+
+  @Test
+  public void testBuild() throws Exception
+  {
+    MaterializedDynamicGroupMembers members = newMembers();
+    assertThat(members.isBuilt()).isFalse();
+
+    members.build();
+    assertThat(members.isBuilt()).isTrue();
+    assertThat(members.isMember(USER1)).isTrue();
+    assertThat(members.isMember(USER2)).isTrue();
+    assertThat(members.isMember(USER3)).isFalse();
+    assertThat(members.getMemberDNs()).hasSize(2);
+  }
+
+  @Test
+  public void testChangesBeforeBuildAreIgnored() throws Exception
+  {
+    MaterializedDynamicGroupMembers members = newMembers();
+    List<DN> added = new ArrayList<>();
+    List<DN> removed = new ArrayList<>();
+    members.entryChanged(null, userEntry(0, 0), added, removed);
+
+    assertThat(added).isEmpty();
+    assertThat(members.isMember(USER0)).isFalse();
+  }
+
+  @Test
+  public void testIncrementalChanges() throws Exception
+  {
+    MaterializedDynamicGroupMembers members = newMembers();
+    members.build();
+
+    List<DN> added = new ArrayList<>();
+    List<DN> removed = new ArrayList<>();
+    members.entryChanged(null, userEntry(0, 0), added, removed);
+    assertThat(added).containsExactly(USER0);
+    assertThat(members.isMember(USER0)).isTrue();
+
+    added.clear();
+    members.entryChanged(userEntry(1, 1), userEntry(1, 5), added, removed);
+    members.entryChanged(userEntry(3, 3), userEntry(3, 2), added, removed);
+    assertThat(added).containsExactly(USER3);
+    assertThat(removed).containsExactly(USER1);
+
+    added.clear();
+    removed.clear();
+    members.entryChanged(userEntry(2, 2), null, added, removed);
+    assertThat(added).isEmpty();
+    assertThat(removed).containsExactly(USER2);
+    assertThat(members.isMember(USER2)).isFalse();
+    assertThat(members.getMemberDNs()).hasSize(2);
+  }
+
+  @Test
+  public void testSubtreeMovedIntoScope() throws Exception
+  {
+    TestCaseUtils.addEntries(
+        "dn: ou=Staging,o=test",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: Staging",
+        "",
+        user(4).replace("ou=People", "ou=Staging").replace("sn: 4", "sn: 1"));
+    MaterializedDynamicGroupMembers members = newMembers();
+    members.build();
+    assertThat(members.getMemberDNs()).hasSize(2);
+
+    final Entry oldEntry = DirectoryServer.getEntry(STAGING);
+    ModifyDNOperation op = getRootConnection().processModifyDN(
+        newModifyDNRequest(STAGING.toString(), "ou=Staging").setNewSuperior("ou=People,o=test"));
+    assertThat(op.getResultCode()).isEqualTo(ResultCode.SUCCESS);
+    try
+    {
+      List<DN> added = new ArrayList<>();
+      List<DN> removed = new ArrayList<>();
+      MaterializedDynamicGroupMembers.SubtreeSearch subtreeSearch =
+          members.entryChanged(oldEntry, DirectoryServer.getEntry(MOVED_STAGING), added, removed);
+      assertThat(subtreeSearch).isNotNull();
+      assertThat(added).isEmpty();
+
+      subtreeSearch.run();
+      members.endSubtreeSearch(subtreeSearch, added, removed);
+      // The moved entry was not a member, yet it now matches the member URL
+      assertThat(added).containsExactly(MOVED_USER4);
+      assertThat(removed).isEmpty();
+      assertThat(members.isMember(MOVED_USER4)).isTrue();
+      assertThat(members.getMemberDNs()).hasSize(3);
+    }
+    finally
+    {
+      TestCaseUtils.deleteEntry(MOVED_USER4);
+      TestCaseUtils.deleteEntry(MOVED_STAGING);
+    }
+  }
+
+  @Test
+  public void testChangesDuringSubtreeSearchAreEvaluatedAgain() throws Exception
+  {
+    TestCaseUtils.addEntries(
+        "dn: ou=Staging,o=test",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: Staging",
+        "",
+        user(4).replace("ou=People", "ou=Staging").replace("sn: 4", "sn: 1"));
+    MaterializedDynamicGroupMembers members = newMembers();
+    members.build();
+
+    final Entry oldEntry = DirectoryServer.getEntry(STAGING);
+    ModifyDNOperation op = getRootConnection().processModifyDN(
+        newModifyDNRequest(STAGING.toString(), "ou=Staging").setNewSuperior("ou=People,o=test"));
+    assertThat(op.getResultCode()).isEqualTo(ResultCode.SUCCESS);
+    try
+    {
+      List<DN> added = new ArrayList<>();
+      List<DN> removed = new ArrayList<>();
+      MaterializedDynamicGroupMembers.SubtreeSearch subtreeSearch =
+          members.entryChanged(oldEntry, DirectoryServer.getEntry(MOVED_STAGING), added, removed);
+      subtreeSearch.run();
+
+      // The moved member is deleted after it has been found, but before the search ends
+      final Entry movedUser = DirectoryServer.getEntry(MOVED_USER4);
+      TestCaseUtils.deleteEntry(MOVED_USER4);
+      members.entryChanged(movedUser, null, added, removed);
+      members.endSubtreeSearch(subtreeSearch, added, removed);
+
+      assertThat(added).isEmpty();
+      assertThat(members.isMember(MOVED_USER4)).isFalse();
+      assertThat(members.getMemberDNs()).hasSize(2);
+    }
+    finally
+    {
+      TestCaseUtils.deleteEntry(MOVED_STAGING);
+    }
+  }
+
+  @Test
+  public void testResetDiscardsTheMembers() throws Exception
+  {
+    MaterializedDynamicGroupMembers members = newMembers();
+    members.build();
+
+    assertThat(members.reset()).isTrue();
+    assertThat(members.isBuilt()).isFalse();
+    assertThat(members.getMemberDNs()).isEmpty();
+
+    members.build();
+    assertThat(members.getMemberDNs()).hasSize(2);
+  }
+}
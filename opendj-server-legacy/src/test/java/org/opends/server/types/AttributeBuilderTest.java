@@ -1630,6 +1630,41 @@ public class AttributeBuilderTest extends TypesTestCase
     assertThat(a2.isNormalized()).isTrue();
   }
 
+  @Test
+  public void testCopyReusesNormalizedValues() throws Exception
+  {
+    AttributeBuilder builder = new AttributeBuilder("cn");
+    builder.add("one");
+    Attribute a = builder.toAttribute();
+
+    AttributeBuilder copy1 = new AttributeBuilder(a);
+    assertThat(copy1.isNormalized()).isFalse();
+    assertThat(copy1.contains(bs("ONE"))).isTrue();
+    assertThat(copy1.isNormalized()).isTrue();
+
+    // the value normalized by the first copy is shared with the attribute
+    AttributeBuilder copy2 = new AttributeBuilder(a);
+    assertThat(copy2.isNormalized()).isTrue();
+  }
+
+  @Test
+  public void testAddAllAndRemoveAllFromAttribute() throws Exception
+  {
+    AttributeBuilder builder = new AttributeBuilder("cn");
+    builder.addAllStrings(Arrays.asList("one", "two"));
+
+    assertThat(builder.addAll(Attributes.create("cn", "TWO"))).isFalse();
+    assertThat(builder.addAll(Attributes.create("cn", "Three"))).isTrue();
+    assertThat(builder.toAttribute()).isEqualTo(createAttribute(cnType, "cn", noOptions,
+        new String[] { "ONE", "two", "three" }));
+
+    builder.addAllStrings(Arrays.asList("one", "two", "three"));
+    assertThat(builder.removeAll(Attributes.create("cn", "FOUR"))).isFalse();
+    assertThat(builder.removeAll(Attributes.create("cn", "THREE"))).isTrue();
+    assertThat(builder.toAttribute()).isEqualTo(Attributes.create("cn", "ONE", "Two"))
+                                     .isNotEqualTo(Attributes.create("cn", "one"));
+  }
+
   /** Creates a new attribute. */
   private Attribute createAttribute(AttributeType type, String name,
       String[] options, String[] values)